@@ -21,6 +21,8 @@ import static com.google.common.base.Throwables.propagate;
 
 import com.google.common.base.Supplier;
 import java.io.File;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
 import java.security.SecureRandom;
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -44,6 +46,7 @@ import org.jclouds.rest.AuthorizationException;
  * <li><tt>PEM</tt>: where {@link Credentials#identity} is PEM-encoded certificate content and
  * {@link Credentials#credential} is PEM-encoded private key</li>
  * </ol>
+ * The context is built once and reused until the credentials, or the keystore file they point to, change.
  */
 @Singleton
 public class DelegatingSSLContextSupplier implements Supplier<SSLContext> {
@@ -54,6 +57,8 @@ public class DelegatingSSLContextSupplier implements Supplier<SSLContext> {
 
    private final Supplier<Credentials> creds;
 
+   private final SSLContextCache cache = new SSLContextCache();
+
    @Inject
    DelegatingSSLContextSupplier(
            Crypto crypto, @Provider Supplier<Credentials> creds, HttpUtils utils, TrustAllCerts trustAllCerts) {
@@ -69,6 +74,21 @@ public class DelegatingSSLContextSupplier implements Supplier<SSLContext> {
       final String identity = checkNotNull(currentCreds.identity, "credential supplier returned null identity");
       final String credential = checkNotNull(currentCreds.credential, "credential supplier returned null credential");
 
+      try {
+         return cache.get(new SSLContextCache.Loader() {
+            @Override
+            public SSLContext load() throws GeneralSecurityException {
+               return buildContext(identity, credential);
+            }
+         }, identity, credential);
+      } catch (IOException e) {
+         throw propagate(e);
+      } catch (GeneralSecurityException e) {
+         throw propagate(e);
+      }
+   }
+
+   private SSLContext buildContext(String identity, String credential) throws GeneralSecurityException {
       final File pkcs12File = new File(identity);
 
       final KeyManager[] keyManagers = pkcs12File.isFile()
@@ -81,12 +101,8 @@ public class DelegatingSSLContextSupplier implements Supplier<SSLContext> {
          throw new AuthorizationException("Could not setup any viable authentication method");
       }
 
-      try {
-         final SSLContext sslContext = SSLContext.getInstance("TLS");
-         sslContext.init(keyManagers, trustManager, new SecureRandom());
-         return sslContext;
-      } catch (Exception e) {
-         throw propagate(e);
-      }
+      final SSLContext sslContext = SSLContext.getInstance("TLS");
+      sslContext.init(keyManagers, trustManager, new SecureRandom());
+      return sslContext;
    }
 }
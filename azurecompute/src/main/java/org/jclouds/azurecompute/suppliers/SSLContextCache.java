@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.azurecompute.suppliers;
+
+import com.google.common.base.Objects;
+import java.io.File;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import javax.net.ssl.SSLContext;
+
+/**
+ * Keeps the {@link SSLContext} built by {@link DelegatingSSLContextSupplier} and builds it again only when the
+ * credentials change, or when the PKCS12 keystore the identity points to is replaced. Reusing the context keeps its TLS
+ * session cache, so connections to the management endpoint can resume sessions instead of doing a full handshake.
+ */
+final class SSLContextCache {
+
+   interface Loader {
+
+      SSLContext load() throws IOException, GeneralSecurityException;
+   }
+
+   private static final class Entry {
+
+      private final String identity;
+
+      private final String credential;
+
+      private final long keystoreModified;
+
+      private final long keystoreLength;
+
+      private final SSLContext context;
+
+      Entry(final String identity, final String credential, final SSLContext context) {
+         final File keystore = new File(identity);
+         this.identity = identity;
+         this.credential = credential;
+         // both are 0 when the identity is not a file
+         this.keystoreModified = keystore.lastModified();
+         this.keystoreLength = keystore.length();
+         this.context = context;
+      }
+
+      boolean isBuiltFrom(final String identity, final String credential) {
+         final File keystore = new File(identity);
+         return Objects.equal(this.identity, identity) && Objects.equal(this.credential, credential)
+                 && keystore.lastModified() == keystoreModified && keystore.length() == keystoreLength;
+      }
+   }
+
+   private volatile Entry entry;
+
+   /**
+    * Returns the cached context if it was built from the given credentials and the keystore they name has not changed,
+    * otherwise builds a new one with the loader.
+    *
+    * @param identity the path of a PKCS12 keystore, or a PEM-encoded certificate
+    * @param credential the keystore password, or a PEM-encoded private key
+    */
+   SSLContext get(final Loader loader, final String identity, final String credential)
+           throws IOException, GeneralSecurityException {
+
+      Entry current = entry;
+      if (current != null && current.isBuiltFrom(identity, credential)) {
+         return current.context;
+      }
+      synchronized (this) {
+         current = entry;
+         if (current != null && current.isBuiltFrom(identity, credential)) {
+            return current.context;
+         }
+         final SSLContext context = loader.load();
+         entry = new Entry(identity, credential, context);
+         return context;
+      }
+   }
+}
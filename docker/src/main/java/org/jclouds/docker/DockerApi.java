@@ -19,6 +19,7 @@ package org.jclouds.docker;
 import java.io.Closeable;
 
 import org.jclouds.docker.features.ContainerApi;
+import org.jclouds.docker.features.EventsApi;
 import org.jclouds.docker.features.ImageApi;
 import org.jclouds.docker.features.MiscApi;
 import org.jclouds.docker.features.NetworkApi;
@@ -38,4 +39,7 @@ public interface DockerApi extends Closeable {
    @Delegate
    NetworkApi getNetworkApi();
 
+   @Delegate
+   EventsApi getEventsApi();
+
 }
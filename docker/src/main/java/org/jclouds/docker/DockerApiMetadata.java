@@ -17,6 +17,12 @@
 package org.jclouds.docker;
 
 import static org.jclouds.compute.config.ComputeServiceProperties.TEMPLATE;
+import static org.jclouds.docker.config.DockerProperties.CREATE_CONCURRENCY;
+import static org.jclouds.docker.config.DockerProperties.EVENT_CACHE;
+import static org.jclouds.docker.config.DockerProperties.IMAGE_INDEX_TTL;
+import static org.jclouds.docker.config.DockerProperties.INSPECT_CACHE_EXPIRY;
+import static org.jclouds.docker.config.DockerProperties.INSPECT_CONCURRENCY;
+import static org.jclouds.docker.config.DockerProperties.SUMMARY_LISTING;
 import static org.jclouds.reflect.Reflection2.typeToken;
 import java.net.URI;
 import java.util.Properties;
@@ -58,6 +64,12 @@ public class DockerApiMetadata extends BaseHttpApiMetadata<DockerApi> {
       properties.setProperty(ComputeServiceProperties.IMAGE_LOGIN_USER, "root:password");
       properties.setProperty(TEMPLATE, "osFamily=UBUNTU,os64Bit=true");
       properties.setProperty(DOCKER_CA_CERT_PATH, "");
+      properties.setProperty(INSPECT_CONCURRENCY, "10");
+      properties.setProperty(INSPECT_CACHE_EXPIRY, "60");
+      properties.setProperty(SUMMARY_LISTING, "false");
+      properties.setProperty(EVENT_CACHE, "false");
+      properties.setProperty(IMAGE_INDEX_TTL, "60");
+      properties.setProperty(CREATE_CONCURRENCY, "10");
       return properties;
    }
 
@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.docker.binders;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import java.io.IOException;
+
+import javax.inject.Singleton;
+
+import org.jclouds.docker.util.TarArchive;
+import org.jclouds.http.HttpRequest;
+import org.jclouds.io.Payload;
+import org.jclouds.rest.Binder;
+
+import com.google.common.base.Throwables;
+
+/**
+ * Binds a {@link TarArchive} as the payload of the request, streamed as it is generated. Compressed archives have no
+ * known length and are sent with chunked transfer encoding.
+ */
+@Singleton
+public class BindTarArchiveToPayload implements Binder {
+
+   @SuppressWarnings("unchecked")
+   @Override
+   public <R extends HttpRequest> R bindToRequest(R request, Object input) {
+      checkArgument(checkNotNull(input, "input") instanceof TarArchive, "this binder is only valid for TarArchive");
+      checkNotNull(request, "request");
+      try {
+         Payload payload = ((TarArchive) input).toPayload();
+         HttpRequest.Builder<?> builder = request.toBuilder().payload(payload);
+         if (payload.getContentMetadata().getContentLength() == null) {
+            builder.replaceHeader("Transfer-Encoding", "chunked");
+         }
+         return (R) builder.build();
+      } catch (IOException e) {
+         throw Throwables.propagate(e);
+      }
+   }
+
+}
@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.docker.compute.functions;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import java.util.Date;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.jclouds.docker.compute.internal.DockerImageIndex;
+import org.jclouds.docker.domain.Config;
+import org.jclouds.docker.domain.Container;
+import org.jclouds.docker.domain.ContainerSummary;
+import org.jclouds.docker.domain.Image;
+import org.jclouds.docker.domain.State;
+
+import com.google.common.base.Function;
+import com.google.common.base.Strings;
+import com.google.common.collect.Iterables;
+
+/**
+ * Builds a {@link Container} from the fields of a {@link ContainerSummary}, so containers returned by
+ * {@link org.jclouds.docker.features.ContainerApi#listContainers()} can be used without inspecting each of them.
+ * The state is derived from the human readable status, and details only available by inspecting the container, such
+ * as the network settings, are left empty.
+ * <p>
+ * The summary names the image the way the container was created from it, usually by repo tag, while inspecting the
+ * container returns the image id. The image is resolved to its id through the {@link DockerImageIndex}, so the image
+ * id of a node does not depend on how it was listed; it is left empty when the host no longer has the image.
+ */
+@Singleton
+public class ContainerSummaryToContainer implements Function<ContainerSummary, Container> {
+
+   private static final Pattern EXIT_CODE = Pattern.compile("^Exited \\((-?\\d+)\\)");
+
+   private final DockerImageIndex imageIndex;
+
+   @Inject
+   public ContainerSummaryToContainer(DockerImageIndex imageIndex) {
+      this.imageIndex = checkNotNull(imageIndex, "imageIndex");
+   }
+
+   @Override
+   public Container apply(ContainerSummary summary) {
+      checkNotNull(summary, "summary");
+      return Container.builder()
+              .id(summary.id())
+              .name(Iterables.getFirst(summary.names(), null))
+              .created(parseCreated(summary.created()))
+              .image(imageId(summary.image()))
+              .config(Config.builder().image(summary.image()).build())
+              .state(parseState(summary.status()))
+              .command(summary.command())
+              .status(summary.status())
+              .ports(summary.ports())
+              .build();
+   }
+
+   private String imageId(String idOrRepoTag) {
+      if (idOrRepoTag == null) return null;
+      Image image = imageIndex.getImage(idOrRepoTag);
+      return image == null ? null : image.id();
+   }
+
+   private static Date parseCreated(String created) {
+      if (Strings.isNullOrEmpty(created)) return null;
+      try {
+         return new Date(Long.parseLong(created) * 1000);
+      } catch (NumberFormatException e) {
+         return null;
+      }
+   }
+
+   private static State parseState(String status) {
+      if (status == null) return null;
+      boolean running = status.startsWith("Up");
+      boolean paused = status.contains("(Paused)");
+      boolean restarting = status.startsWith("Restarting");
+      boolean dead = status.startsWith("Dead");
+      int exitCode = 0;
+      Matcher matcher = EXIT_CODE.matcher(status);
+      if (matcher.find()) {
+         exitCode = Integer.parseInt(matcher.group(1));
+      }
+      return State.create(0, running, exitCode, "", "", paused, restarting, null, false, dead, null);
+   }
+
+}
@@ -18,7 +18,6 @@ package org.jclouds.docker.compute.functions;
 
 import java.net.URI;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 
 import javax.inject.Inject;
@@ -30,8 +29,10 @@ import org.jclouds.compute.domain.NodeMetadata;
 import org.jclouds.compute.domain.NodeMetadataBuilder;
 import org.jclouds.compute.domain.Processor;
 import org.jclouds.compute.functions.GroupNamingConvention;
+import org.jclouds.docker.compute.internal.DockerImageIndex;
 import org.jclouds.docker.domain.Container;
 import org.jclouds.docker.domain.State;
+import org.jclouds.docker.util.UnixSocketFactory;
 import org.jclouds.domain.Location;
 import org.jclouds.providers.ProviderMetadata;
 
@@ -55,19 +56,21 @@ public class ContainerToNodeMetadata implements Function<Container, NodeMetadata
    private final ProviderMetadata providerMetadata;
    private final Function<State, NodeMetadata.Status> toPortableStatus;
    private final GroupNamingConvention nodeNamingConvention;
-   private final Supplier<Map<String, ? extends Image>> images;
+   private final DockerImageIndex imageIndex;
+   private final Function<org.jclouds.docker.domain.Image, Image> imageToImage;
    private final Supplier<Set<? extends Location>> locations;
    private final LoginPortForContainer loginPortForContainer;
 
    @Inject
    ContainerToNodeMetadata(ProviderMetadata providerMetadata,
          Function<State, NodeMetadata.Status> toPortableStatus, GroupNamingConvention.Factory namingConvention,
-         Supplier<Map<String, ? extends Image>> images, @Memoized Supplier<Set<? extends Location>> locations,
-         LoginPortForContainer loginPortForContainer) {
+         DockerImageIndex imageIndex, Function<org.jclouds.docker.domain.Image, Image> imageToImage,
+         @Memoized Supplier<Set<? extends Location>> locations, LoginPortForContainer loginPortForContainer) {
       this.providerMetadata = providerMetadata;
       this.toPortableStatus = toPortableStatus;
       this.nodeNamingConvention = namingConvention.createWithoutPrefix();
-      this.images = images;
+      this.imageIndex = imageIndex;
+      this.imageToImage = imageToImage;
       this.locations = locations;
       this.loginPortForContainer = loginPortForContainer;
    }
@@ -94,9 +97,10 @@ public class ContainerToNodeMetadata implements Function<Container, NodeMetadata
       builder.location(Iterables.getOnlyElement(locations.get()));
       String imageId = container.image();
       builder.imageId(imageId);
-      if (images.get().containsKey(imageId)) {
-          Image image = images.get().get(imageId);
-          builder.operatingSystem(image.getOperatingSystem());
+      // looked up by id in the index, rather than converting every image of the host
+      org.jclouds.docker.domain.Image image = imageId == null ? null : imageIndex.getImage(imageId);
+      if (image != null && image.repoTags() != null && !image.repoTags().isEmpty()) {
+         builder.operatingSystem(imageToImage.apply(image).getOperatingSystem());
       }
       return builder.build();
    }
@@ -111,7 +115,9 @@ public class ContainerToNodeMetadata implements Function<Container, NodeMetadata
    }
 
    private List<String> getPublicIpAddresses() {
-      String dockerIpAddress = URI.create(providerMetadata.getEndpoint()).getHost();
+      URI endpoint = URI.create(providerMetadata.getEndpoint());
+      // published ports of a daemon reached through its unix socket are bound on this host
+      String dockerIpAddress = UnixSocketFactory.isUnixSocket(endpoint) ? "127.0.0.1" : endpoint.getHost();
       return ImmutableList.of(dockerIpAddress);
    }
 
@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.docker.compute.internal;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.jclouds.docker.DockerApi;
+import org.jclouds.docker.domain.ContainerSummary;
+import org.jclouds.docker.options.ListContainerOptions;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+/**
+ * Answers the threads waiting on containers from a single shared container list.
+ * <p>
+ * Threads waiting for started containers to be running or exited, and threads checking on the current status of a
+ * container, are all answered from the same list of all the containers. One of the threads lists the containers while
+ * the others wait for its result, and lists are at least {@link #POLL_INTERVAL_MILLIS} apart, so the number of calls
+ * made while many nodes are created or checked stays the same however many nodes there are. Waiters are woken as soon
+ * as a list shows their container settled.
+ */
+@Singleton
+public class ContainerStatusPoller {
+
+   static final long POLL_INTERVAL_MILLIS = 200;
+   private static final long POLL_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(POLL_INTERVAL_MILLIS);
+
+   private final DockerApi api;
+   private final Lock lock = new ReentrantLock();
+   private final Condition polled = lock.newCondition();
+   // guarded by lock
+   private final Set<String> waiting = Sets.newHashSet();
+   private final Map<String, ContainerSummary> settled = Maps.newHashMap();
+   private Map<String, ContainerSummary> listed;
+   private boolean polling;
+   private long lastPoll = System.nanoTime() - POLL_INTERVAL_NANOS;
+
+   @Inject
+   public ContainerStatusPoller(DockerApi api) {
+      this.api = checkNotNull(api, "api");
+   }
+
+   /**
+    * Returns the listed summary of the container once it is running or has exited, or null if it is not listed as
+    * such within the timeout.
+    */
+   public ContainerSummary awaitSettled(String id, long timeout, TimeUnit unit) throws InterruptedException {
+      checkNotNull(id, "id");
+      long deadline = System.nanoTime() + unit.toNanos(timeout);
+      lock.lock();
+      try {
+         waiting.add(id);
+         while (true) {
+            ContainerSummary summary = settled.remove(id);
+            if (summary != null) {
+               return summary;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+               return null;
+            }
+            long untilNextPoll = lastPoll + POLL_INTERVAL_NANOS - System.nanoTime();
+            if (!polling && untilNextPoll <= 0) {
+               poll();
+            } else {
+               polled.awaitNanos(polling ? remaining : Math.min(remaining, untilNextPoll));
+            }
+         }
+      } finally {
+         waiting.remove(id);
+         settled.remove(id);
+         lock.unlock();
+      }
+   }
+
+   /**
+    * Returns the summary of the container from a list made at most {@link #POLL_INTERVAL_MILLIS} ago, listing the
+    * containers again if the last list is older, or null if the container was not listed.
+    */
+   public ContainerSummary getListed(String id) throws InterruptedException {
+      checkNotNull(id, "id");
+      lock.lock();
+      try {
+         while (listed == null || System.nanoTime() - lastPoll > POLL_INTERVAL_NANOS) {
+            if (polling) {
+               polled.await();
+            } else {
+               poll();
+               // nothing was listed to answer from
+               if (listed == null) {
+                  return null;
+               }
+            }
+         }
+         return listed.get(id);
+      } finally {
+         lock.unlock();
+      }
+   }
+
+   /**
+    * Lists the containers without holding the lock, then hands the summaries to the waiting threads. Must be called
+    * with the lock held.
+    */
+   private void poll() {
+      polling = true;
+      List<ContainerSummary> summaries = null;
+      lock.unlock();
+      try {
+         summaries = api.getContainerApi().listContainers(ListContainerOptions.Builder.all(true));
+      } finally {
+         lock.lock();
+         polling = false;
+         lastPoll = System.nanoTime();
+         if (summaries != null) {
+            ImmutableMap.Builder<String, ContainerSummary> byId = ImmutableMap.builder();
+            for (ContainerSummary summary : summaries) {
+               byId.put(summary.id(), summary);
+               if (waiting.contains(summary.id()) && isSettled(summary)) {
+                  settled.put(summary.id(), summary);
+               }
+            }
+            listed = byId.build();
+         }
+         polled.signalAll();
+      }
+   }
+
+   private static boolean isSettled(ContainerSummary summary) {
+      String status = summary.status();
+      return status != null && (status.startsWith("Up") || status.startsWith("Exited"));
+   }
+
+}
@@ -0,0 +1,224 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.docker.compute.internal;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.jclouds.docker.config.DockerProperties.IMAGE_INDEX_TTL;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.docker.DockerApi;
+import org.jclouds.docker.domain.Event;
+import org.jclouds.docker.domain.Image;
+import org.jclouds.docker.domain.ImageSummary;
+import org.jclouds.docker.options.CreateImageOptions;
+import org.jclouds.util.Closeables2;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.eventbus.EventBus;
+import com.google.common.eventbus.Subscribe;
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+
+/**
+ * Index of the images of the Docker host by id and repo tag.
+ * <p>
+ * The index is refreshed from a single image list: only images that were not known before are inspected, known
+ * images whose tags changed are re-tagged, and images no longer listed are dropped. Lookups of unknown images
+ * trigger a refresh, and lookups that still miss are remembered until the next refresh so they do not list the
+ * images again. Image events posted by the {@link DockerStateCache} mark the index as stale, and the index is
+ * refreshed anyway once it is older than {@link org.jclouds.docker.config.DockerProperties#IMAGE_INDEX_TTL}, so
+ * images added or removed without an event being seen, for instance when the event cache is disabled, are noticed.
+ * <p>
+ * Missing images can be pulled through the index; concurrent pulls of the same image share a single pull.
+ */
+@Singleton
+public class DockerImageIndex {
+
+   private final DockerApi api;
+   private final Object refreshLock = new Object();
+   private volatile Map<String, Image> imagesById = ImmutableMap.of();
+   private volatile Map<String, String> idsByRepoTag = ImmutableMap.of();
+   private final Set<String> misses = Sets.newConcurrentHashSet();
+   private volatile boolean stale = true;
+   private volatile long refreshedAt;
+   private final long ttlNanos;
+   private final ConcurrentMap<String, ListenableFuture<Image>> pulls = Maps.newConcurrentMap();
+
+   @Inject
+   public DockerImageIndex(DockerApi api, EventBus eventBus, @Named(IMAGE_INDEX_TTL) long ttlSeconds) {
+      this(api, eventBus, ttlSeconds, TimeUnit.SECONDS);
+   }
+
+   DockerImageIndex(DockerApi api, EventBus eventBus, long ttl, TimeUnit unit) {
+      checkArgument(ttl >= 0, "ttl must not be negative");
+      this.api = checkNotNull(api, "api");
+      this.ttlNanos = unit.toNanos(ttl);
+      eventBus.register(this);
+   }
+
+   /**
+    * Returns the image with the given id or repo tag, or null if the host has no such image.
+    */
+   public Image getImage(String idOrRepoTag) {
+      checkNotNull(idOrRepoTag, "idOrRepoTag");
+      if (!isStale()) {
+         Image image = lookup(idOrRepoTag);
+         if (image != null || misses.contains(idOrRepoTag)) {
+            return image;
+         }
+      }
+      refresh();
+      Image image = lookup(idOrRepoTag);
+      if (image == null) {
+         misses.add(idOrRepoTag);
+      }
+      return image;
+   }
+
+   /**
+    * Returns the image with the given repo tag, pulling it from the registry if the host does not have it yet. Callers
+    * asking for an image that is already being pulled wait for that pull instead of starting another one.
+    *
+    * @return the image, or null if it could not be found after pulling it.
+    */
+   public Image pullImage(String repoTag) {
+      checkNotNull(repoTag, "repoTag");
+      SettableFuture<Image> pull = SettableFuture.create();
+      ListenableFuture<Image> inProgress = pulls.putIfAbsent(repoTag, pull);
+      if (inProgress != null) {
+         return Futures.getUnchecked(inProgress);
+      }
+      try {
+         Image image = getImage(repoTag);
+         if (image == null) {
+            InputStream progress = api.getImageApi().createImage(createImageOptions(repoTag));
+            try {
+               // the pull is only complete once its progress stream has been consumed
+               ByteStreams.copy(progress, ByteStreams.nullOutputStream());
+            } finally {
+               Closeables2.closeQuietly(progress);
+            }
+            refresh();
+            image = lookup(repoTag);
+         }
+         pull.set(image);
+         return image;
+      } catch (IOException e) {
+         pull.setException(e);
+         throw Throwables.propagate(e);
+      } catch (RuntimeException e) {
+         pull.setException(e);
+         throw e;
+      } finally {
+         pulls.remove(repoTag, pull);
+      }
+   }
+
+   /**
+    * Returns all the images of the host, after refreshing the index.
+    */
+   public Collection<Image> listImages() {
+      refresh();
+      return imagesById.values();
+   }
+
+   /**
+    * Brings the index up to date with the images listed by the daemon.
+    */
+   public void refresh() {
+      synchronized (refreshLock) {
+         // cleared first, so events arriving while listing mark the index stale again
+         stale = false;
+         refreshedAt = System.nanoTime();
+         Map<String, Image> known = imagesById;
+         Map<String, Image> byId = Maps.newLinkedHashMap();
+         Map<String, String> byRepoTag = Maps.newHashMap();
+         for (ImageSummary summary : api.getImageApi().listImages()) {
+            Image image = known.get(summary.id());
+            if (image == null) {
+               image = api.getImageApi().inspectImage(summary.id());
+               if (image == null) {
+                  continue;
+               }
+            }
+            if (!summary.repoTags().equals(image.repoTags())) {
+               image = withRepoTags(image, summary.repoTags());
+            }
+            byId.put(summary.id(), image);
+            for (String repoTag : summary.repoTags()) {
+               byRepoTag.put(repoTag, summary.id());
+            }
+         }
+         imagesById = ImmutableMap.copyOf(byId);
+         idsByRepoTag = ImmutableMap.copyOf(byRepoTag);
+         misses.clear();
+      }
+   }
+
+   @Subscribe
+   public void onEvent(Event event) {
+      if (event.type() != null ? "image".equals(event.type()) : DockerStateCache.IMAGE_EVENTS.contains(event.status())) {
+         stale = true;
+      }
+   }
+
+   private boolean isStale() {
+      return stale || System.nanoTime() - refreshedAt >= ttlNanos;
+   }
+
+   private Image lookup(String idOrRepoTag) {
+      Image image = imagesById.get(idOrRepoTag);
+      if (image == null) {
+         String id = idsByRepoTag.get(idOrRepoTag);
+         image = id == null ? null : imagesById.get(id);
+      }
+      return image;
+   }
+
+   private static CreateImageOptions createImageOptions(String repoTag) {
+      // the tag follows the last colon, unless that colon is part of a registry host and port
+      int colon = repoTag.lastIndexOf(':');
+      if (colon < 0 || repoTag.indexOf('/', colon) >= 0) {
+         return CreateImageOptions.Builder.fromImage(repoTag);
+      }
+      return CreateImageOptions.Builder.fromImage(repoTag.substring(0, colon)).tag(repoTag.substring(colon + 1));
+   }
+
+   private static Image withRepoTags(Image image, List<String> repoTags) {
+      return Image.create(image.id(), image.author(), image.comment(), image.config(), image.containerConfig(),
+            image.parent(), image.created(), image.container(), image.dockerVersion(), image.architecture(),
+            image.os(), image.size(), image.virtualSize(), repoTags);
+   }
+
+}
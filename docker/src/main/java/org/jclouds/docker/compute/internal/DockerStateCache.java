@@ -0,0 +1,279 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.docker.compute.internal;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.jclouds.docker.config.DockerProperties.EVENT_CACHE;
+import java.io.Closeable;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.Constants;
+import org.jclouds.compute.reference.ComputeServiceConstants;
+import org.jclouds.docker.DockerApi;
+import org.jclouds.docker.domain.Container;
+import org.jclouds.docker.domain.ContainerSummary;
+import org.jclouds.docker.domain.Event;
+import org.jclouds.docker.options.EventsOptions;
+import org.jclouds.docker.options.ListContainerOptions;
+import org.jclouds.docker.util.EventStream;
+import org.jclouds.logging.Logger;
+import org.jclouds.util.Closeables2;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.eventbus.EventBus;
+import com.google.common.util.concurrent.ListeningExecutorService;
+
+/**
+ * In-memory model of the containers of the Docker host, kept up to date by the {@code /events} stream of the
+ * daemon. Once {@link #isSynced() synced}, containers can be looked up without calling the daemon, and callers can
+ * wait for a container to reach a state instead of polling it.
+ * <p>
+ * Every event read from the stream is also posted to the {@link EventBus}, so other components can follow the
+ * containers and images of the host.
+ */
+@Singleton
+public class DockerStateCache implements Closeable {
+
+   // events that can change what inspecting the container returns
+   private static final Set<String> CONTAINER_STATE_EVENTS = ImmutableSet.of("create", "start", "restart", "stop",
+         "die", "kill", "oom", "pause", "unpause", "rename", "update", "destroy");
+   static final Set<String> IMAGE_EVENTS = ImmutableSet.of("delete", "import", "pull", "push", "tag",
+         "untag");
+   private static final long RECONNECT_DELAY_MILLIS = 1000;
+
+   @Resource
+   @Named(ComputeServiceConstants.COMPUTE_LOGGER)
+   protected Logger logger = Logger.NULL;
+
+   private final DockerApi api;
+   private final ListeningExecutorService userExecutor;
+   private final EventBus eventBus;
+   private final boolean enabled;
+   private final ConcurrentMap<String, Container> containers = Maps.newConcurrentMap();
+   private final AtomicBoolean started = new AtomicBoolean();
+   private final Object monitor = new Object();
+   private volatile boolean synced;
+   private volatile boolean closed;
+   private volatile long lastEventTime;
+   private volatile EventStream stream;
+
+   @Inject
+   public DockerStateCache(DockerApi api, @Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService userExecutor,
+         EventBus eventBus, @Named(EVENT_CACHE) boolean enabled) {
+      this.api = checkNotNull(api, "api");
+      this.userExecutor = checkNotNull(userExecutor, "userExecutor");
+      this.eventBus = checkNotNull(eventBus, "eventBus");
+      this.enabled = enabled;
+   }
+
+   /**
+    * Returns whether the model reflects the containers of the host, starting to follow the events of the daemon on
+    * the first call. Always false when the cache is disabled.
+    */
+   public boolean isSynced() {
+      if (enabled && !closed && started.compareAndSet(false, true)) {
+         userExecutor.submit(new Runnable() {
+            @Override
+            public void run() {
+               follow();
+            }
+         });
+      }
+      return synced;
+   }
+
+   /**
+    * Returns the container with the given id, or null if the host has no such container. Only meaningful while the
+    * cache is {@link #isSynced() synced}.
+    */
+   public Container getContainer(String id) {
+      return containers.get(id);
+   }
+
+   /**
+    * Returns the containers of the host. Only meaningful while the cache is {@link #isSynced() synced}.
+    */
+   public Collection<Container> getContainers() {
+      return ImmutableList.copyOf(containers.values());
+   }
+
+   /**
+    * Waits until the container with the given id satisfies the condition.
+    *
+    * @return the container, or null if the condition was not met in time or the cache lost its sync with the daemon
+    */
+   public Container awaitContainer(String id, Predicate<Container> condition, long timeout, TimeUnit unit)
+         throws InterruptedException {
+      long deadline = System.nanoTime() + unit.toNanos(timeout);
+      synchronized (monitor) {
+         while (synced) {
+            Container container = containers.get(id);
+            if (container != null && condition.apply(container)) {
+               return container;
+            }
+            long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remaining <= 0) {
+               return null;
+            }
+            monitor.wait(remaining);
+         }
+         return null;
+      }
+   }
+
+   @PreDestroy
+   @Override
+   public void close() {
+      closed = true;
+      setSynced(false);
+      EventStream current = stream;
+      if (current != null) {
+         Closeables2.closeQuietly(current);
+      }
+   }
+
+   /**
+    * Reads the event stream until the cache is closed, reconnecting from the time of the last event seen when the
+    * stream ends or fails. The containers are listed again only when the daemon could not be reached, since events
+    * missed in the meantime may no longer be replayed.
+    */
+   private void follow() {
+      lastEventTime = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+      while (!closed) {
+         try {
+            // opened before listing, so changes made while listing are applied afterwards
+            stream = api.getEventsApi().events(EventsOptions.Builder.since(lastEventTime));
+            if (closed) {
+               Closeables2.closeQuietly(stream);
+               break;
+            }
+            if (!synced) {
+               sync();
+            }
+            while (stream.hasNext()) {
+               apply(stream.next());
+            }
+         } catch (RuntimeException e) {
+            if (closed) {
+               break;
+            }
+            if (stream == null) {
+               setSynced(false);
+            }
+            logger.debug("<< docker event stream interrupted: %s", e.getMessage());
+            sleepBeforeReconnect();
+         } finally {
+            if (stream != null) {
+               Closeables2.closeQuietly(stream);
+               stream = null;
+            }
+         }
+      }
+   }
+
+   private void sync() {
+      Set<String> ids = ImmutableSet.copyOf(containers.keySet());
+      Set<String> listed = ImmutableSet.copyOf(listContainerIds());
+      for (String id : ids) {
+         if (!listed.contains(id)) {
+            containers.remove(id);
+         }
+      }
+      for (String id : listed) {
+         refresh(id);
+      }
+      setSynced(true);
+   }
+
+   private Iterable<String> listContainerIds() {
+      ImmutableList.Builder<String> ids = ImmutableList.builder();
+      for (ContainerSummary summary : api.getContainerApi().listContainers(ListContainerOptions.Builder.all(true))) {
+         ids.add(summary.id());
+      }
+      return ids.build();
+   }
+
+   @VisibleForTesting
+   void apply(Event event) {
+      lastEventTime = Math.max(lastEventTime, event.time());
+      String action = action(event);
+      if (event.id() != null && isContainerEvent(event, action) && CONTAINER_STATE_EVENTS.contains(action)) {
+         if ("destroy".equals(action)) {
+            containers.remove(event.id());
+         } else {
+            refresh(event.id());
+         }
+         synchronized (monitor) {
+            monitor.notifyAll();
+         }
+      }
+      eventBus.post(event);
+   }
+
+   private void refresh(String id) {
+      Container container = api.getContainerApi().inspectContainer(id);
+      if (container == null) {
+         containers.remove(id);
+      } else {
+         containers.put(id, container);
+      }
+   }
+
+   private void setSynced(boolean synced) {
+      synchronized (monitor) {
+         this.synced = synced;
+         monitor.notifyAll();
+      }
+   }
+
+   private void sleepBeforeReconnect() {
+      try {
+         Thread.sleep(RECONNECT_DELAY_MILLIS);
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         closed = true;
+      }
+   }
+
+   private static String action(Event event) {
+      String status = event.status();
+      if (status == null) return null;
+      // exec events carry their command, as in "exec_start: /bin/sh"
+      int colon = status.indexOf(':');
+      return colon < 0 ? status : status.substring(0, colon);
+   }
+
+   private static boolean isContainerEvent(Event event, String action) {
+      if (event.type() != null) return "container".equals(event.type());
+      return !IMAGE_EVENTS.contains(action);
+   }
+
+}
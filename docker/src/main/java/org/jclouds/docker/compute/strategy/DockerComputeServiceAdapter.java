@@ -17,16 +17,28 @@
 package org.jclouds.docker.compute.strategy;
 
 import static com.google.common.base.Preconditions.checkNotNull;
-import static com.google.common.collect.Iterables.find;
+import static org.jclouds.docker.config.DockerProperties.CREATE_CONCURRENCY;
+import static org.jclouds.docker.config.DockerProperties.INSPECT_CACHE_EXPIRY;
+import static org.jclouds.docker.config.DockerProperties.INSPECT_CONCURRENCY;
+import static org.jclouds.docker.config.DockerProperties.SUMMARY_LISTING;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import javax.annotation.Resource;
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
 
+import org.jclouds.Constants;
 import org.jclouds.compute.ComputeServiceAdapter;
 import org.jclouds.compute.domain.Hardware;
 import org.jclouds.compute.domain.HardwareBuilder;
@@ -35,26 +47,38 @@ import org.jclouds.compute.domain.Template;
 import org.jclouds.compute.options.TemplateOptions;
 import org.jclouds.compute.reference.ComputeServiceConstants;
 import org.jclouds.docker.DockerApi;
+import org.jclouds.docker.compute.functions.ContainerSummaryToContainer;
+import org.jclouds.docker.compute.internal.ContainerStatusPoller;
+import org.jclouds.docker.compute.internal.DockerImageIndex;
+import org.jclouds.docker.compute.internal.DockerStateCache;
 import org.jclouds.docker.compute.options.DockerTemplateOptions;
 import org.jclouds.docker.domain.Config;
 import org.jclouds.docker.domain.Container;
 import org.jclouds.docker.domain.ContainerSummary;
 import org.jclouds.docker.domain.HostConfig;
 import org.jclouds.docker.domain.Image;
-import org.jclouds.docker.domain.ImageSummary;
 import org.jclouds.docker.options.ListContainerOptions;
 import org.jclouds.docker.options.RemoveContainerOptions;
 import org.jclouds.domain.Location;
 import org.jclouds.domain.LoginCredentials;
 import org.jclouds.logging.Logger;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Function;
 import com.google.common.base.Predicate;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
 
 /**
  * defines the connection between the {@link org.jclouds.docker.DockerApi} implementation and
@@ -68,11 +92,55 @@ public class DockerComputeServiceAdapter implements
    @Named(ComputeServiceConstants.COMPUTE_LOGGER)
    protected Logger logger = Logger.NULL;
 
+   private static final Pattern STATUS_DETAILS = Pattern.compile("\\([^)]*\\)");
+   private static final long START_TIMEOUT_SECONDS = 10;
+   private static final Predicate<Container> STARTED = new Predicate<Container>() {
+      @Override
+      public boolean apply(Container input) {
+         // the start time stays at the zero time of Go until the container has been started
+         return input.state() != null && !input.state().startedAt().startsWith("0001-");
+      }
+   };
+
    private final DockerApi api;
+   private final ListeningExecutorService userExecutor;
+   private final ContainerSummaryToContainer containerSummaryToContainer;
+   private final DockerStateCache stateCache;
+   private final DockerImageIndex imageIndex;
+   private final ContainerStatusPoller statusPoller;
+   private final Semaphore createPermits;
+   private final int inspectConcurrency;
+   private final boolean summaryListing;
+   // inspected containers by id, reused by listNodes while the listed status of the container does not change
+   private final Cache<String, InspectedContainer> inspectedContainers;
+   // ids of the containers created by this adapter, which getNode looks up in the list shared by the status poller
+   // while their running and login port checks poll them
+   private final Cache<String, Boolean> createdContainers;
 
    @Inject
-   public DockerComputeServiceAdapter(DockerApi api) {
+   public DockerComputeServiceAdapter(DockerApi api,
+         @Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService userExecutor,
+         ContainerSummaryToContainer containerSummaryToContainer, DockerStateCache stateCache,
+         DockerImageIndex imageIndex, ContainerStatusPoller statusPoller,
+         @Named(CREATE_CONCURRENCY) int createConcurrency,
+         @Named(INSPECT_CONCURRENCY) int inspectConcurrency,
+         @Named(INSPECT_CACHE_EXPIRY) long inspectCacheExpiry,
+         @Named(SUMMARY_LISTING) boolean summaryListing) {
       this.api = checkNotNull(api, "api");
+      this.userExecutor = checkNotNull(userExecutor, "userExecutor");
+      this.containerSummaryToContainer = checkNotNull(containerSummaryToContainer, "containerSummaryToContainer");
+      this.stateCache = checkNotNull(stateCache, "stateCache");
+      this.imageIndex = checkNotNull(imageIndex, "imageIndex");
+      this.statusPoller = checkNotNull(statusPoller, "statusPoller");
+      this.createPermits = new Semaphore(Math.max(1, createConcurrency));
+      this.inspectConcurrency = Math.max(1, inspectConcurrency);
+      this.summaryListing = summaryListing;
+      this.inspectedContainers = CacheBuilder.newBuilder()
+            .expireAfterWrite(inspectCacheExpiry, TimeUnit.SECONDS)
+            .build();
+      this.createdContainers = CacheBuilder.newBuilder()
+            .expireAfterWrite(inspectCacheExpiry, TimeUnit.SECONDS)
+            .build();
    }
 
    @SuppressWarnings({ "rawtypes", "unchecked" })
@@ -142,7 +210,7 @@ public class DockerComputeServiceAdapter implements
          containerConfigBuilder.hostConfig(hostConfigBuilder.build());
       }
 
-      containerConfigBuilder.image(imageId);
+      containerConfigBuilder.image(ensureImage(imageId, template.getImage().getDescription()));
 
       // add the inbound ports into exposed ports map
       Config containerConfig = containerConfigBuilder.build();
@@ -161,14 +229,26 @@ public class DockerComputeServiceAdapter implements
       // build once more after setting inboundPorts
       containerConfig = containerConfigBuilder.build();
 
-      logger.debug(">> creating new container with containerConfig(%s)", containerConfig);
-      Container container = api.getContainerApi().createContainer(name, containerConfig);
-      logger.trace("<< container(%s)", container.id());
+      Container container;
+      try {
+         createPermits.acquire();
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw Throwables.propagate(e);
+      }
+      try {
+         logger.debug(">> creating new container with containerConfig(%s)", containerConfig);
+         container = api.getContainerApi().createContainer(name, containerConfig);
+         logger.trace("<< container(%s)", container.id());
+         createdContainers.put(container.id(), Boolean.TRUE);
 
-      HostConfig hostConfig = containerConfig.hostConfig();
+         HostConfig hostConfig = containerConfig.hostConfig();
 
-      api.getContainerApi().startContainer(container.id(), hostConfig);
-      container = api.getContainerApi().inspectContainer(container.id());
+         api.getContainerApi().startContainer(container.id(), hostConfig);
+      } finally {
+         createPermits.release();
+      }
+      container = awaitStarted(container.id());
       if (container.state().exitCode() != 0) {
          destroyNode(container.id());
          throw new IllegalStateException(String.format("Container %s has not started correctly", container.id()));
@@ -177,6 +257,60 @@ public class DockerComputeServiceAdapter implements
               LoginCredentials.builder().user(loginUser).password(loginUserPassword).build());
    }
 
+   /**
+    * Returns the image to create the container from, pulling it by its repo tag when the host does not have it.
+    * Nodes created at the same time from a missing image share a single pull.
+    */
+   private String ensureImage(String imageId, String repoTag) {
+      if (imageIndex.getImage(imageId) != null || repoTag == null) {
+         return imageId;
+      }
+      logger.debug(">> pulling missing image(%s)", repoTag);
+      Image pulled = imageIndex.pullImage(repoTag);
+      if (pulled == null) {
+         throw new IllegalStateException(String.format("Image %s could not be pulled", repoTag));
+      }
+      return pulled.id();
+   }
+
+   /**
+    * Waits for the event cache to see the container started or, when the cache is not in use, for the container to
+    * be listed as running or exited by the {@link ContainerStatusPoller}, which answers the nodes being created
+    * concurrently from shared list calls. The container is then inspected once, and the result kept for
+    * {@link #getNode(String)} until the listed status changes. Falls back to inspecting the container when neither
+    * answers in time.
+    */
+   private Container awaitStarted(String id) {
+      try {
+         if (stateCache.isSynced()) {
+            Container started = stateCache.awaitContainer(id, STARTED, START_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            if (started != null) {
+               return started;
+            }
+         } else {
+            ContainerSummary settled = statusPoller.awaitSettled(id, START_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            if (settled != null) {
+               return inspect(id, statusKey(settled.status()));
+            }
+         }
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw Throwables.propagate(e);
+      }
+      return api.getContainerApi().inspectContainer(id);
+   }
+
+   /**
+    * Inspects the container and keeps the result for the given listed status.
+    */
+   private Container inspect(String id, String status) {
+      Container container = api.getContainerApi().inspectContainer(id);
+      if (container != null && status != null) {
+         inspectedContainers.put(id, new InspectedContainer(status, container));
+      }
+      return container;
+   }
+
    @Override
    public Iterable<Hardware> listHardwareProfiles() {
       Set<Hardware> hardware = Sets.newLinkedHashSet();
@@ -190,54 +324,163 @@ public class DockerComputeServiceAdapter implements
 
    /**
     * Method based on {@link org.jclouds.docker.features.ImageApi#listImages()}. It retrieves additional
-    * information by inspecting each image.
+    * information by inspecting the images, through the {@link DockerImageIndex} so only images that were not seen
+    * before are inspected.
     *
     * @see org.jclouds.compute.ComputeServiceAdapter#listImages()
     */
    @Override
    public Set<Image> listImages() {
-      Set<Image> images = Sets.newHashSet();
-      for (ImageSummary imageSummary : api.getImageApi().listImages()) {
-         // less efficient than just listImages but returns richer json that needs repoTags coming from listImages
-         Image inspected = api.getImageApi().inspectImage(imageSummary.id());
-         inspected = Image.create(inspected.id(), inspected.author(), inspected.comment(), inspected.config(),
-                    inspected.containerConfig(), inspected.parent(), inspected.created(), inspected.container(),
-                 inspected.dockerVersion(), inspected.architecture(), inspected.os(), inspected.size(),
-                    inspected.virtualSize(), imageSummary.repoTags());
-         images.add(inspected);
-      }
-      return images;
+      return ImmutableSet.copyOf(imageIndex.listImages());
    }
 
    @Override
    public Image getImage(final String imageId) {
-      // less efficient than just inspectImage but listImages return repoTags
-      return find(listImages(), new Predicate<Image>() {
-
-         @Override
-         public boolean apply(Image input) {
-            return input.id().equals(imageId);
-         }
-      }, null);
+      return imageIndex.getImage(imageId);
    }
 
+   /**
+    * Method based on {@link org.jclouds.docker.features.ContainerApi#listContainers()}. Containers are inspected to
+    * get richer information, several at a time, and only when their status changed since they were last inspected.
+    * When summary listing is enabled, the containers are built from the list alone. While the event cache is
+    * synced, the containers are taken from it instead.
+    *
+    * @see org.jclouds.compute.ComputeServiceAdapter#listNodes()
+    */
    @Override
    public Iterable<Container> listNodes() {
+      if (stateCache.isSynced()) {
+         return ImmutableSet.copyOf(stateCache.getContainers());
+      }
+      List<ContainerSummary> summaries = api.getContainerApi().listContainers(ListContainerOptions.Builder.all(true));
       Set<Container> containers = Sets.newHashSet();
-      for (ContainerSummary containerSummary : api.getContainerApi().listContainers(ListContainerOptions.Builder.all(true))) {
-         // less efficient than just listNodes but returns richer json
-         containers.add(api.getContainerApi().inspectContainer(containerSummary.id()));
+      if (summaryListing) {
+         for (ContainerSummary containerSummary : summaries) {
+            containers.add(containerSummaryToContainer.apply(containerSummary));
+         }
+         return containers;
+      }
+      Map<String, String> statuses = Maps.newHashMap();
+      List<String> toInspect = Lists.newArrayList();
+      for (ContainerSummary containerSummary : summaries) {
+         String status = statusKey(containerSummary.status());
+         InspectedContainer inspected = inspectedContainers.getIfPresent(containerSummary.id());
+         if (inspected != null && status != null && status.equals(inspected.status)) {
+            containers.add(inspected.container);
+         } else {
+            statuses.put(containerSummary.id(), status);
+            toInspect.add(containerSummary.id());
+         }
+      }
+      for (Map.Entry<String, Container> entry : inspectContainers(toInspect).entrySet()) {
+         String status = statuses.get(entry.getKey());
+         if (status != null) {
+            inspectedContainers.put(entry.getKey(), new InspectedContainer(status, entry.getValue()));
+         }
+         containers.add(entry.getValue());
       }
+      // forget the containers that are gone
+      inspectedContainers.asMap().keySet().retainAll(Sets.newHashSet(Iterables.transform(summaries,
+            new Function<ContainerSummary, String>() {
+               @Override
+               public String apply(ContainerSummary input) {
+                  return input.id();
+               }
+            })));
       return containers;
    }
 
    @Override
    public Iterable<Container> listNodesByIds(final Iterable<String> ids) {
-      Set<Container> containers = Sets.newHashSet();
-      for (String id : ids) {
-         containers.add(api.getContainerApi().inspectContainer(id));
+      if (stateCache.isSynced()) {
+         ImmutableSet.Builder<Container> containers = ImmutableSet.builder();
+         for (String id : ids) {
+            Container container = stateCache.getContainer(id);
+            if (container != null) {
+               containers.add(container);
+            }
+         }
+         return containers.build();
+      }
+      return ImmutableSet.copyOf(inspectContainers(ImmutableSet.copyOf(ids)).values());
+   }
+
+   /**
+    * Inspects the given containers on the user executor, at most {@code inspectConcurrency} at a time. Containers
+    * that no longer exist are left out of the result.
+    */
+   private Map<String, Container> inspectContainers(Iterable<String> ids) {
+      final Queue<String> pending = new ConcurrentLinkedQueue<String>();
+      Iterables.addAll(pending, ids);
+      final Map<String, Container> inspected = Maps.newConcurrentMap();
+      int workers = Math.min(inspectConcurrency, pending.size());
+      if (workers <= 1) {
+         inspectPending(pending, inspected);
+         return inspected;
+      }
+      List<ListenableFuture<Void>> futures = Lists.newArrayListWithCapacity(workers);
+      for (int i = 0; i < workers; i++) {
+         futures.add(userExecutor.submit(new Callable<Void>() {
+            @Override
+            public Void call() {
+               inspectPending(pending, inspected);
+               return null;
+            }
+         }));
+      }
+      try {
+         Futures.allAsList(futures).get();
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         cancel(futures);
+         throw Throwables.propagate(e);
+      } catch (ExecutionException e) {
+         cancel(futures);
+         throw Throwables.propagate(e.getCause());
+      }
+      return inspected;
+   }
+
+   private void inspectPending(Queue<String> pending, Map<String, Container> inspected) {
+      String id;
+      while ((id = pending.poll()) != null) {
+         Container container = api.getContainerApi().inspectContainer(id);
+         if (container != null) {
+            inspected.put(id, container);
+         }
+      }
+   }
+
+   private static void cancel(List<ListenableFuture<Void>> futures) {
+      for (ListenableFuture<Void> future : futures) {
+         future.cancel(true);
+      }
+   }
+
+   /**
+    * Strips the elapsed times from a listed container status, keeping the parts that change with the state of the
+    * container: {@code "Exited (0) 3 minutes ago"} becomes {@code "Exited (0)"}.
+    */
+   @VisibleForTesting
+   static String statusKey(String status) {
+      if (status == null || status.isEmpty()) return null;
+      int space = status.indexOf(' ');
+      StringBuilder key = new StringBuilder(space < 0 ? status : status.substring(0, space));
+      Matcher matcher = STATUS_DETAILS.matcher(status);
+      while (matcher.find()) {
+         key.append(' ').append(matcher.group());
+      }
+      return key.toString();
+   }
+
+   private static final class InspectedContainer {
+      private final String status;
+      private final Container container;
+
+      InspectedContainer(String status, Container container) {
+         this.status = status;
+         this.container = container;
       }
-      return containers;
    }
 
    @Override
@@ -245,13 +488,42 @@ public class DockerComputeServiceAdapter implements
       return ImmutableSet.of();
    }
 
+   /**
+    * Returns the container from the event cache while it is synced. Containers recently created by this adapter are
+    * looked up in the list shared by the {@link ContainerStatusPoller}, so the running and login port checks of many
+    * nodes being created at once cost one list call per poll interval, and such a container is only inspected again
+    * when its listed status has changed. Any other container, or one missing from the list, is inspected directly.
+    */
    @Override
    public Container getNode(String id) {
-      return api.getContainerApi().inspectContainer(id);
+      if (stateCache.isSynced()) {
+         return stateCache.getContainer(id);
+      }
+      if (createdContainers.getIfPresent(id) == null) {
+         return api.getContainerApi().inspectContainer(id);
+      }
+      ContainerSummary summary;
+      try {
+         summary = statusPoller.getListed(id);
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw Throwables.propagate(e);
+      }
+      if (summary == null) {
+         return api.getContainerApi().inspectContainer(id);
+      }
+      String status = statusKey(summary.status());
+      InspectedContainer inspected = inspectedContainers.getIfPresent(id);
+      if (inspected != null && status != null && status.equals(inspected.status)) {
+         return inspected.container;
+      }
+      return inspect(id, status);
    }
 
    @Override
    public void destroyNode(String id) {
+      inspectedContainers.invalidate(id);
+      createdContainers.invalidate(id);
       api.getContainerApi().removeContainer(id, RemoveContainerOptions.Builder.force(true));
    }
 
@@ -259,6 +531,8 @@ public class DockerComputeServiceAdapter implements
    public void rebootNode(String id) {
       api.getContainerApi().stopContainer(id);
       api.getContainerApi().startContainer(id);
+      // a quick restart keeps the listed status but may change the network settings
+      inspectedContainers.invalidate(id);
    }
 
    @Override
@@ -17,14 +17,17 @@
 package org.jclouds.docker.config;
 
 import java.io.File;
+import java.net.URI;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
 import org.jclouds.docker.suppliers.DockerSSLContextSupplier;
+import org.jclouds.docker.util.UnixSocketFactory;
 import org.jclouds.domain.Credentials;
 import org.jclouds.http.okhttp.OkHttpClientSupplier;
 import org.jclouds.location.Provider;
+import org.jclouds.providers.ProviderMetadata;
 
 import com.google.common.base.Supplier;
 import com.google.common.collect.ImmutableList;
@@ -37,16 +40,26 @@ public class DockerOkHttpClientSupplier implements OkHttpClientSupplier {
 
     private final DockerSSLContextSupplier dockerSSLContextSupplier;
     private final Supplier<Credentials> creds;
+    private final ProviderMetadata providerMetadata;
 
     @Inject
-    DockerOkHttpClientSupplier(DockerSSLContextSupplier dockerSSLContextSupplier, @Provider Supplier<Credentials> creds) {
+    DockerOkHttpClientSupplier(DockerSSLContextSupplier dockerSSLContextSupplier, @Provider Supplier<Credentials> creds,
+            ProviderMetadata providerMetadata) {
         this.dockerSSLContextSupplier = dockerSSLContextSupplier;
         this.creds = creds;
+        this.providerMetadata = providerMetadata;
     }
 
     @Override
     public OkHttpClient get() {
         OkHttpClient client = new OkHttpClient();
+        URI endpoint = URI.create(providerMetadata.getEndpoint());
+        if (UnixSocketFactory.isUnixSocket(endpoint)) {
+            // requests are sent to http://localhost; every connection, pooled ones included, opens the socket file
+            client.setSocketFactory(new UnixSocketFactory(new File(endpoint.getPath())));
+            client.setConnectionSpecs(ImmutableList.of(ConnectionSpec.CLEARTEXT));
+            return client;
+        }
         ConnectionSpec tlsSpec = new ConnectionSpec.Builder(ConnectionSpec.MODERN_TLS)
                 .tlsVersions(TlsVersion.TLS_1_0, TlsVersion.TLS_1_1, TlsVersion.TLS_1_2)
                 .build();
@@ -55,7 +68,8 @@ public class DockerOkHttpClientSupplier implements OkHttpClientSupplier {
         client.setConnectionSpecs(ImmutableList.of(tlsSpec, cleartextSpec));
         // check if identity and credential are files, to set up sslContext
         if (new File(creds.get().identity).isFile() && new File(creds.get().credential).isFile()) {
-           client.setSslSocketFactory(dockerSSLContextSupplier.get().getSocketFactory());
+           // the context is rebuilt when the certificate files change, without rebuilding the client
+           client.setSslSocketFactory(new ReloadingSSLSocketFactory(dockerSSLContextSupplier));
         }
         return client;
     }
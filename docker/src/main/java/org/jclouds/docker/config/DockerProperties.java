@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.docker.config;
+
+/**
+ * Configuration properties of the Docker provider.
+ */
+public class DockerProperties {
+
+   /**
+    * Maximum number of containers inspected at the same time when listing nodes.
+    * Default: 10
+    */
+   public static final String INSPECT_CONCURRENCY = "jclouds.docker.inspect-concurrency";
+
+   /**
+    * Time in seconds an inspected container is reused by node listings while its status does not change.
+    * Default: 60
+    */
+   public static final String INSPECT_CACHE_EXPIRY = "jclouds.docker.inspect-cache-expiry";
+
+   /**
+    * Controls if node listings are built from the container list alone, without inspecting each container. Nodes
+    * listed this way have no private addresses, hostname or hardware details.
+    * Default: false
+    */
+   public static final String SUMMARY_LISTING = "jclouds.docker.summary-listing";
+
+   /**
+    * Controls if containers are looked up in an in-memory model kept up to date by the event stream of the daemon,
+    * instead of inspecting them on every lookup.
+    * Default: false
+    */
+   public static final String EVENT_CACHE = "jclouds.docker.event-cache";
+
+   /**
+    * Time in seconds after which the index of the images of the host is listed again, even when no image event was
+    * seen. Lookups of images that were not found are remembered for the same time.
+    * Default: 60
+    */
+   public static final String IMAGE_INDEX_TTL = "jclouds.docker.image-index-ttl";
+
+   /**
+    * Maximum number of containers created and started at the same time.
+    * Default: 10
+    */
+   public static final String CREATE_CONCURRENCY = "jclouds.docker.create-concurrency";
+}
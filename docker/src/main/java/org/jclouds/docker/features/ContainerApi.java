@@ -24,6 +24,7 @@ import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
 import javax.ws.rs.GET;
 import javax.ws.rs.POST;
+import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.QueryParam;
@@ -31,6 +32,7 @@ import javax.ws.rs.core.MediaType;
 
 import org.jclouds.Fallbacks.EmptyListOnNotFoundOr404;
 import org.jclouds.Fallbacks.NullOnNotFoundOr404;
+import org.jclouds.docker.binders.BindTarArchiveToPayload;
 import org.jclouds.docker.domain.Config;
 import org.jclouds.docker.domain.Container;
 import org.jclouds.docker.domain.ContainerSummary;
@@ -38,12 +40,18 @@ import org.jclouds.docker.domain.HostConfig;
 import org.jclouds.docker.domain.Image;
 import org.jclouds.docker.domain.Resource;
 import org.jclouds.docker.domain.StatusCode;
+import org.jclouds.docker.functions.ParseStatsStream;
 import org.jclouds.docker.options.AttachOptions;
 import org.jclouds.docker.options.CommitOptions;
 import org.jclouds.docker.options.ListContainerOptions;
 import org.jclouds.docker.options.RemoveContainerOptions;
+import org.jclouds.docker.util.StatsStream;
+import org.jclouds.docker.util.TarArchive;
+import org.jclouds.io.Payload;
 import org.jclouds.rest.annotations.BinderParam;
 import org.jclouds.rest.annotations.Fallback;
+import org.jclouds.rest.annotations.Headers;
+import org.jclouds.rest.annotations.ResponseParser;
 import org.jclouds.rest.binders.BindToJsonPayload;
 
 @Consumes(MediaType.APPLICATION_JSON)
@@ -249,4 +257,60 @@ public interface ContainerApi {
    @POST
    @Path("/containers/{id}/copy")
    InputStream copy(@PathParam("id") String containerId, @BinderParam(BindToJsonPayload.class) Resource resource);
+
+   /**
+    * Returns the resource usage of a container. A streamed response stays open until it is closed by the caller,
+    * the daemon or the read timeout of the connection, and carries one sample per second.
+    *
+    * @param containerId id of the container
+    * @param stream true to keep receiving samples, false to receive a single sample
+    * @return the samples, decoded one at a time as they arrive, or null if the container does not exist
+    */
+   @Named("container:stats")
+   @GET
+   @Path("/containers/{id}/stats")
+   @ResponseParser(ParseStatsStream.class)
+   @Fallback(NullOnNotFoundOr404.class)
+   StatsStream stats(@PathParam("id") String containerId, @QueryParam("stream") boolean stream);
+
+   /**
+    * Returns a tar archive of a file or directory of a container, streamed as it is read. The entries can be read
+    * one at a time with a {@link org.jclouds.docker.util.TarReader}.
+    *
+    * @param containerId id of the container
+    * @param path the file or directory to archive
+    * @return the archive, or null if the container or the path does not exist
+    */
+   @Named("container:getArchive")
+   @GET
+   @Path("/containers/{id}/archive")
+   @Fallback(NullOnNotFoundOr404.class)
+   InputStream getArchive(@PathParam("id") String containerId, @QueryParam("path") String path);
+
+   /**
+    * Extracts a tar archive into a directory of a container.
+    *
+    * @param containerId id of the container
+    * @param path the existing directory to extract the archive into
+    * @param archive a tar archive, optionally compressed with gzip, bzip2 or xz
+    */
+   @Named("container:putArchive")
+   @PUT
+   @Path("/containers/{id}/archive")
+   @Headers(keys = "Content-Type", values = "application/x-tar")
+   void putArchive(@PathParam("id") String containerId, @QueryParam("path") String path, Payload archive);
+
+   /**
+    * Extracts a directory tree into a directory of a container, streamed as a tar archive while it is sent.
+    *
+    * @param containerId id of the container
+    * @param path the existing directory to extract the archive into
+    * @param archive the files to send, such as {@code TarArchive.fromDirectory(dir)}
+    */
+   @Named("container:putArchive")
+   @PUT
+   @Path("/containers/{id}/archive")
+   @Headers(keys = "Content-Type", values = "application/x-tar")
+   void putArchive(@PathParam("id") String containerId, @QueryParam("path") String path,
+         @BinderParam(BindTarArchiveToPayload.class) TarArchive archive);
 }
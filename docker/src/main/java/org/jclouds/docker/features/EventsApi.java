@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.docker.features;
+
+import javax.inject.Named;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.core.MediaType;
+
+import org.jclouds.docker.functions.ParseEventStream;
+import org.jclouds.docker.options.EventsOptions;
+import org.jclouds.docker.util.EventStream;
+import org.jclouds.rest.annotations.ResponseParser;
+
+@Consumes(MediaType.APPLICATION_JSON)
+@Path("/v{jclouds.api-version}")
+public interface EventsApi {
+
+   /**
+    * Streams the events of the daemon as they happen. The stream stays open until it is closed by the caller,
+    * the daemon or the read timeout of the connection.
+    *
+    * @return the events, decoded one at a time as they arrive
+    */
+   @Named("events")
+   @GET
+   @Path("/events")
+   @ResponseParser(ParseEventStream.class)
+   EventStream events();
+
+   /**
+    * Streams the events of the daemon.
+    *
+    * @param options the time range and filters of the events (@see EventsOptions)
+    * @return the events, decoded one at a time as they arrive
+    */
+   @Named("events")
+   @GET
+   @Path("/events")
+   @ResponseParser(ParseEventStream.class)
+   EventStream events(EventsOptions options);
+
+}
@@ -26,6 +26,7 @@ import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.core.MediaType;
 
+import org.jclouds.docker.binders.BindTarArchiveToPayload;
 import org.jclouds.docker.domain.Exec;
 import org.jclouds.docker.domain.ExecCreateParams;
 import org.jclouds.docker.domain.ExecInspect;
@@ -34,6 +35,7 @@ import org.jclouds.docker.domain.Info;
 import org.jclouds.docker.domain.Version;
 import org.jclouds.docker.options.BuildOptions;
 import org.jclouds.docker.util.DockerInputStream;
+import org.jclouds.docker.util.TarArchive;
 import org.jclouds.io.Payload;
 import org.jclouds.rest.annotations.BinderParam;
 import org.jclouds.rest.annotations.Headers;
@@ -90,6 +92,31 @@ public interface MiscApi {
    @Headers(keys = { "Content-Type", "Connection" }, values = { "application/tar", "close" })
    InputStream build(Payload inputStream, BuildOptions options);
 
+   /**
+    * Build an image from a build context directory, streamed as a tar archive while it is sent
+    *
+    * @param context the build context, such as {@code TarArchive.fromDirectory(dir).gzip(true)}
+    * @return a stream of the build execution
+    */
+   @Named("image:build")
+   @POST
+   @Path("/build")
+   @Headers(keys = { "Content-Type", "Connection" }, values = { "application/tar", "close" })
+   InputStream build(@BinderParam(BindTarArchiveToPayload.class) TarArchive context);
+
+   /**
+    * Build an image from a build context directory, streamed as a tar archive while it is sent
+    *
+    * @param context the build context, such as {@code TarArchive.fromDirectory(dir).gzip(true)}
+    * @param options the image build's options (@see BuildOptions)
+    * @return a stream of the build execution
+    */
+   @Named("image:build")
+   @POST
+   @Path("/build")
+   @Headers(keys = { "Content-Type", "Connection" }, values = { "application/tar", "close" })
+   InputStream build(@BinderParam(BindTarArchiveToPayload.class) TarArchive context, BuildOptions options);
+
    /**
     * Sets up an exec instance in a running container with given Id.
     *
@@ -0,0 +1,53 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.docker.functions;
+
+import java.io.IOException;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.jclouds.docker.util.EventStream;
+import org.jclouds.http.HttpResponse;
+
+import com.google.common.base.Function;
+import com.google.common.base.Throwables;
+import com.google.gson.Gson;
+
+/**
+ * Wraps the payload of a {@code /events} response in an {@link EventStream}, leaving it open.
+ */
+@Singleton
+public class ParseEventStream implements Function<HttpResponse, EventStream> {
+
+   private final Gson gson;
+
+   @Inject
+   ParseEventStream(Gson gson) {
+      this.gson = gson;
+   }
+
+   @Override
+   public EventStream apply(HttpResponse response) {
+      try {
+         return new EventStream(response.getPayload().openStream(), gson);
+      } catch (IOException e) {
+         throw Throwables.propagate(e);
+      }
+   }
+
+}
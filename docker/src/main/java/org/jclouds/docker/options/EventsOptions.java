@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.docker.options;
+
+import java.util.List;
+import java.util.Map;
+
+import org.jclouds.http.options.BaseHttpRequestOptions;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.gson.Gson;
+
+public class EventsOptions extends BaseHttpRequestOptions {
+
+   private final Map<String, List<String>> filters = Maps.newLinkedHashMap();
+
+   /**
+    * Only returns the events that happened after the given time, in seconds since the epoch.
+    */
+   public EventsOptions since(long since) {
+      this.queryParameters.replaceValues("since", ImmutableSet.of(String.valueOf(since)));
+      return this;
+   }
+
+   /**
+    * Stops the stream at the given time, in seconds since the epoch.
+    */
+   public EventsOptions until(long until) {
+      this.queryParameters.replaceValues("until", ImmutableSet.of(String.valueOf(until)));
+      return this;
+   }
+
+   /**
+    * Only returns the events matching one of the values of the filter, such as {@code filter("event", "start",
+    * "die")} or {@code filter("container", containerId)}.
+    */
+   public EventsOptions filter(String name, String... values) {
+      filters.put(name, ImmutableList.copyOf(values));
+      this.queryParameters.replaceValues("filters", ImmutableSet.of(new Gson().toJson(filters)));
+      return this;
+   }
+
+   public static class Builder {
+
+      /**
+       * @see EventsOptions#since
+       */
+      public static EventsOptions since(long since) {
+         EventsOptions options = new EventsOptions();
+         return options.since(since);
+      }
+
+      /**
+       * @see EventsOptions#until
+       */
+      public static EventsOptions until(long until) {
+         EventsOptions options = new EventsOptions();
+         return options.until(until);
+      }
+
+      /**
+       * @see EventsOptions#filter
+       */
+      public static EventsOptions filter(String name, String... values) {
+         EventsOptions options = new EventsOptions();
+         return options.filter(name, values);
+      }
+
+   }
+
+}
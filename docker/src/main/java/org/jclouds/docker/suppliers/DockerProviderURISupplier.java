@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.docker.suppliers;
+
+import java.net.URI;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.jclouds.docker.util.UnixSocketFactory;
+import org.jclouds.location.suppliers.ProviderURISupplier;
+import org.jclouds.providers.ProviderMetadata;
+
+/**
+ * Supplies the base URI for requests. A {@code unix://} endpoint cannot be used by the HTTP client directly, so it is
+ * replaced by {@code http://localhost}; the connections themselves are opened on the socket file by the
+ * {@link UnixSocketFactory} configured in the OkHttp client.
+ */
+@Singleton
+public class DockerProviderURISupplier implements ProviderURISupplier {
+
+   static final URI UNIX_SOCKET_BASE_URI = URI.create("http://localhost");
+
+   private final ProviderMetadata providerMetadata;
+
+   @Inject
+   DockerProviderURISupplier(ProviderMetadata providerMetadata) {
+      this.providerMetadata = providerMetadata;
+   }
+
+   @Override
+   public URI get() {
+      URI endpoint = URI.create(providerMetadata.getEndpoint());
+      return UnixSocketFactory.isUnixSocket(endpoint) ? UNIX_SOCKET_BASE_URI : endpoint;
+   }
+
+}
@@ -36,7 +36,7 @@ import static com.google.common.base.Throwables.propagate;
 public class DockerSSLContextSupplier implements Supplier<SSLContext> {
    private final Supplier<Credentials> creds;
    private final String caCertPath;
-
+   private final SSLContextCache cache = new SSLContextCache();
 
    @Inject
    DockerSSLContextSupplier(@Provider Supplier<Credentials> creds, @Named(DockerApiMetadata.DOCKER_CA_CERT_PATH) String caCertPath) {
@@ -44,16 +44,25 @@ public class DockerSSLContextSupplier implements Supplier<SSLContext> {
       this.caCertPath = caCertPath;
    }
 
+   /**
+    * Returns the context built from the client key, certificate and CA certificate, building it again only when
+    * the credentials or the files change.
+    */
    @Override
    public SSLContext get() {
-      Credentials currentCreds = checkNotNull(creds.get(), "credential supplier returned null");
+      final Credentials currentCreds = checkNotNull(creds.get(), "credential supplier returned null");
       try {
-         SSLContextBuilder builder = new SSLContextBuilder();
-         builder.clientKeyAndCertificate(currentCreds.credential, currentCreds.identity);
-         if (!Strings.isNullOrEmpty(caCertPath)) {
-            builder.caCertificate(caCertPath);
-         }
-         return builder.build();
+         return cache.get(new SSLContextCache.Loader() {
+            @Override
+            public SSLContext load() throws IOException, GeneralSecurityException {
+               SSLContextBuilder builder = new SSLContextBuilder();
+               builder.clientKeyAndCertificate(currentCreds.credential, currentCreds.identity);
+               if (!Strings.isNullOrEmpty(caCertPath)) {
+                  builder.caCertificate(caCertPath);
+               }
+               return builder.build();
+            }
+         }, currentCreds.identity, currentCreds.credential, caCertPath);
       } catch (GeneralSecurityException e) {
          throw propagate(e);
       } catch (IOException e) {
@@ -35,6 +35,7 @@ import static com.google.common.base.Throwables.propagate;
 public class DockerUntrustedSSLContextSupplier implements Supplier<SSLContext> {
    private final Supplier<Credentials> creds;
    private final SSLModule.TrustAllCerts insecureTrustManager;
+   private final SSLContextCache cache = new SSLContextCache();
 
    @Inject
    DockerUntrustedSSLContextSupplier(@Provider Supplier<Credentials> creds,
@@ -45,16 +46,22 @@ public class DockerUntrustedSSLContextSupplier implements Supplier<SSLContext> {
 
    @Override
    public SSLContext get() {
-      Credentials currentCreds = creds.get();
+      final Credentials currentCreds = creds.get();
+      // check if identity and credential are files, to set up sslContext
+      final boolean clientCertificate = currentCreds != null && new File(currentCreds.identity).isFile()
+            && new File(currentCreds.credential).isFile();
       try {
-         SSLContextBuilder builder = new SSLContextBuilder();
-         // check if identity and credential are files, to set up sslContext
-         if (currentCreds != null && new File(currentCreds.identity).isFile()
-               && new File(currentCreds.credential).isFile()) {
-            builder.clientKeyAndCertificate(currentCreds.credential, currentCreds.identity);
-         }
-         builder.trustManager(insecureTrustManager);
-         return builder.build();
+         return cache.get(new SSLContextCache.Loader() {
+            @Override
+            public SSLContext load() throws IOException, GeneralSecurityException {
+               SSLContextBuilder builder = new SSLContextBuilder();
+               if (clientCertificate) {
+                  builder.clientKeyAndCertificate(currentCreds.credential, currentCreds.identity);
+               }
+               builder.trustManager(insecureTrustManager);
+               return builder.build();
+            }
+         }, clientCertificate ? currentCreds.identity : null, clientCertificate ? currentCreds.credential : null);
       } catch (GeneralSecurityException e) {
          throw propagate(e);
       } catch (IOException e) {
@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.docker.suppliers;
+
+import java.io.File;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.util.List;
+
+import javax.net.ssl.SSLContext;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Holds an SSL context and builds it again only when its inputs change: the credential values it was built from, and
+ * the size and modification time of the files they name. Reusing the context keeps its TLS session cache, so
+ * connections can resume sessions, and keeps key parsing out of connection setup.
+ */
+final class SSLContextCache {
+
+   interface Loader {
+      SSLContext load() throws IOException, GeneralSecurityException;
+   }
+
+   private static final class Entry {
+      private final List<Object> inputs;
+      private final SSLContext context;
+
+      Entry(List<Object> inputs, SSLContext context) {
+         this.inputs = inputs;
+         this.context = context;
+      }
+   }
+
+   private volatile Entry entry;
+
+   /**
+    * Returns the cached context if it was built from the given values and the files they name have not changed,
+    * otherwise builds a new one with the loader.
+    */
+   SSLContext get(Loader loader, String... values) throws IOException, GeneralSecurityException {
+      List<Object> inputs = inputs(values);
+      Entry current = entry;
+      if (current != null && current.inputs.equals(inputs)) {
+         return current.context;
+      }
+      synchronized (this) {
+         current = entry;
+         if (current != null && current.inputs.equals(inputs)) {
+            return current.context;
+         }
+         SSLContext context = loader.load();
+         entry = new Entry(inputs, context);
+         return context;
+      }
+   }
+
+   private static List<Object> inputs(String... values) {
+      ImmutableList.Builder<Object> inputs = ImmutableList.builder();
+      for (String value : values) {
+         inputs.add(Strings.nullToEmpty(value));
+         File file = value == null ? null : new File(value);
+         if (file != null && file.isFile()) {
+            inputs.add(file.lastModified()).add(file.length());
+         }
+      }
+      return inputs.build();
+   }
+
+}
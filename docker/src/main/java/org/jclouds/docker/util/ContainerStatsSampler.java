@@ -0,0 +1,288 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.docker.util;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import java.io.Closeable;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.jclouds.docker.features.ContainerApi;
+import org.jclouds.logging.Logger;
+import org.jclouds.util.Closeables2;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+
+/**
+ * Samples the resource usage of many containers, keeping one long-lived streamed
+ * {@link ContainerApi#stats(String, boolean)} connection per container, and publishes the samples aggregated over all
+ * the containers.
+ * <p>
+ * Every stream decodes into its own two {@link StatsSample} instances and the aggregate is a single reused
+ * {@link Aggregate}, so sampling does not allocate per sample beyond what the JSON decoding needs. Each stream blocks
+ * a thread of the executor given to the sampler for as long as it is open. A container whose stream ends, because it
+ * stopped or its connection failed, is dropped from the sampler and can be added again.
+ */
+public class ContainerStatsSampler implements Closeable {
+
+   /**
+    * Receives the aggregated samples.
+    */
+   public interface Listener {
+
+      /**
+       * Called with the aggregate of the latest samples of all the containers. The aggregate is reused by the next
+       * call, so it must not be kept after this method returns.
+       */
+      void onSample(Aggregate aggregate);
+   }
+
+   /**
+    * Resource usage summed over the containers of a sampler.
+    */
+   public static final class Aggregate {
+
+      private int containers;
+      private double cpuPercent;
+      private long memoryUsage;
+      private long memoryLimit;
+      private long rxBytes;
+      private long txBytes;
+      private long blkioReadBytes;
+      private long blkioWriteBytes;
+
+      /**
+       * Number of containers that had a sample.
+       */
+      public int getContainers() {
+         return containers;
+      }
+
+      /**
+       * Sum of the CPU usage of the containers, as a percentage of one CPU.
+       */
+      public double getCpuPercent() {
+         return cpuPercent;
+      }
+
+      public long getMemoryUsage() {
+         return memoryUsage;
+      }
+
+      public long getMemoryLimit() {
+         return memoryLimit;
+      }
+
+      public long getRxBytes() {
+         return rxBytes;
+      }
+
+      public long getTxBytes() {
+         return txBytes;
+      }
+
+      public long getBlkioReadBytes() {
+         return blkioReadBytes;
+      }
+
+      public long getBlkioWriteBytes() {
+         return blkioWriteBytes;
+      }
+
+      void reset() {
+         containers = 0;
+         cpuPercent = 0;
+         memoryUsage = memoryLimit = rxBytes = txBytes = blkioReadBytes = blkioWriteBytes = 0;
+      }
+
+      void add(StatsSample sample) {
+         containers++;
+         cpuPercent += sample.getCpuPercent();
+         memoryUsage += sample.getMemoryUsage();
+         memoryLimit += sample.getMemoryLimit();
+         rxBytes += sample.getRxBytes();
+         txBytes += sample.getTxBytes();
+         blkioReadBytes += sample.getBlkioReadBytes();
+         blkioWriteBytes += sample.getBlkioWriteBytes();
+      }
+
+      @Override
+      public String toString() {
+         return "Aggregate{containers=" + containers + ", cpuPercent=" + cpuPercent + ", memoryUsage=" + memoryUsage
+               + ", rxBytes=" + rxBytes + ", txBytes=" + txBytes + "}";
+      }
+   }
+
+   private final ContainerApi api;
+   private final Executor streamExecutor;
+   private final Logger logger;
+   private final ConcurrentMap<String, Stream> streams = Maps.newConcurrentMap();
+   // guarded by this
+   private final Aggregate aggregate = new Aggregate();
+   private final StatsSample latest = new StatsSample();
+
+   /**
+    * @param api the API to open the stats streams with
+    * @param streamExecutor runs the streams, one thread per container for as long as it is sampled
+    */
+   public ContainerStatsSampler(ContainerApi api, Executor streamExecutor) {
+      this(api, streamExecutor, Logger.NULL);
+   }
+
+   /**
+    * @param api the API to open the stats streams with
+    * @param streamExecutor runs the streams, one thread per container for as long as it is sampled
+    * @param logger logs the streams that fail
+    */
+   public ContainerStatsSampler(ContainerApi api, Executor streamExecutor, Logger logger) {
+      this.api = checkNotNull(api, "api");
+      this.streamExecutor = checkNotNull(streamExecutor, "streamExecutor");
+      this.logger = checkNotNull(logger, "logger");
+   }
+
+   /**
+    * Starts sampling the container, unless it is already sampled.
+    */
+   public void add(String containerId) {
+      Stream stream = new Stream(checkNotNull(containerId, "containerId"));
+      if (streams.putIfAbsent(containerId, stream) == null) {
+         streamExecutor.execute(stream);
+      }
+   }
+
+   /**
+    * Stops sampling the container and closes its stream.
+    */
+   public void remove(String containerId) {
+      Stream stream = streams.remove(containerId);
+      if (stream != null) {
+         stream.close();
+      }
+   }
+
+   /**
+    * Returns the containers being sampled.
+    */
+   public Set<String> getContainers() {
+      return ImmutableSet.copyOf(streams.keySet());
+   }
+
+   /**
+    * Copies the latest sample of the container into the given one.
+    *
+    * @return false if the container is not sampled or has no sample yet
+    */
+   public boolean getLatest(String containerId, StatsSample into) {
+      Stream stream = streams.get(containerId);
+      return stream != null && stream.copyTo(into);
+   }
+
+   /**
+    * Aggregates the latest samples of all the containers and passes the aggregate to the listener.
+    */
+   public synchronized void publish(Listener listener) {
+      aggregate.reset();
+      for (Stream stream : streams.values()) {
+         if (stream.copyTo(latest)) {
+            aggregate.add(latest);
+         }
+      }
+      listener.onSample(aggregate);
+   }
+
+   /**
+    * Publishes the aggregated samples to the listener at a fixed rate, until the returned future is cancelled.
+    */
+   public ScheduledFuture<?> publishAtFixedRate(ScheduledExecutorService scheduler, long period, TimeUnit unit,
+         final Listener listener) {
+      checkNotNull(listener, "listener");
+      return scheduler.scheduleAtFixedRate(new Runnable() {
+         @Override
+         public void run() {
+            publish(listener);
+         }
+      }, period, period, unit);
+   }
+
+   /**
+    * Stops sampling all the containers.
+    */
+   @Override
+   public void close() {
+      for (String containerId : streams.keySet()) {
+         remove(containerId);
+      }
+   }
+
+   private final class Stream implements Runnable {
+
+      private final String containerId;
+      // only used by the thread reading the stream
+      private final StatsSample decoded = new StatsSample();
+      // guarded by this
+      private final StatsSample latest = new StatsSample();
+      private boolean sampled;
+      private volatile StatsStream stats;
+      private volatile boolean closed;
+
+      Stream(String containerId) {
+         this.containerId = containerId;
+      }
+
+      @Override
+      public void run() {
+         try {
+            stats = api.stats(containerId, true);
+            // closing the stream from another thread is what unblocks a pending read
+            if (stats == null || closed) return;
+            while (!closed && stats.read(decoded)) {
+               synchronized (this) {
+                  latest.copyFrom(decoded);
+                  sampled = true;
+               }
+            }
+         } catch (Exception e) {
+            // a failed stream drops the container, the same as a stream ended by the daemon
+            if (!closed) {
+               logger.warn(e, "stats stream of container %s failed, it is no longer sampled", containerId);
+            } else {
+               logger.debug("stats stream of container %s ended after being closed: %s", containerId, e);
+            }
+         } finally {
+            Closeables2.closeQuietly(stats);
+            streams.remove(containerId, this);
+         }
+      }
+
+      synchronized boolean copyTo(StatsSample into) {
+         if (!sampled) return false;
+         into.copyFrom(latest);
+         return true;
+      }
+
+      void close() {
+         closed = true;
+         Closeables2.closeQuietly(stats);
+      }
+   }
+
+}
@@ -0,0 +1,178 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.docker.util;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static com.google.common.base.Preconditions.checkNotNull;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import com.google.common.base.CharMatcher;
+import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
+
+/**
+ * The exclusion patterns of a {@code .dockerignore} file, matched the way the Docker client matches them when it
+ * sends a build context.
+ * <p>
+ * Patterns use {@code *}, {@code ?} and {@code [...]} within a path element and {@code **} for any number of
+ * directories. A pattern also excludes everything below the directories it matches, and patterns starting with
+ * {@code !} re-include what earlier patterns excluded; the last matching pattern wins.
+ */
+public final class DockerIgnore {
+
+   public static final String FILE_NAME = ".dockerignore";
+
+   private static final DockerIgnore NONE = new DockerIgnore(ImmutableList.<Rule>of());
+   private static final Splitter PATH_ELEMENTS = Splitter.on('/').omitEmptyStrings();
+   private static final Joiner PATH_JOINER = Joiner.on('/');
+
+   private final List<Rule> rules;
+   private final boolean hasExceptions;
+
+   private DockerIgnore(List<Rule> rules) {
+      this.rules = rules;
+      boolean exceptions = false;
+      for (Rule rule : rules) {
+         exceptions |= rule.exception;
+      }
+      this.hasExceptions = exceptions;
+   }
+
+   /**
+    * Returns the patterns of the {@code .dockerignore} file of the given directory, or no patterns if it has none.
+    */
+   public static DockerIgnore fromDirectory(File directory) throws IOException {
+      File file = new File(checkNotNull(directory, "directory"), FILE_NAME);
+      return file.isFile() ? parse(Files.readLines(file, UTF_8)) : NONE;
+   }
+
+   /**
+    * Parses the lines of a {@code .dockerignore} file. Blank lines and lines starting with {@code #} are ignored.
+    */
+   public static DockerIgnore parse(Iterable<String> lines) {
+      ImmutableList.Builder<Rule> rules = ImmutableList.builder();
+      for (String line : lines) {
+         String pattern = line.trim();
+         if (pattern.isEmpty() || pattern.startsWith("#")) continue;
+         boolean exception = pattern.startsWith("!");
+         if (exception) {
+            pattern = pattern.substring(1).trim();
+         }
+         pattern = clean(pattern);
+         if (pattern.isEmpty()) continue;
+         rules.add(new Rule(pattern, exception));
+      }
+      return new DockerIgnore(rules.build());
+   }
+
+   /**
+    * Returns true if the file at the given path, relative to the root of the context and separated by {@code /},
+    * is excluded from the context.
+    */
+   public boolean isExcluded(String path) {
+      String cleaned = clean(path);
+      List<String> elements = null;
+      boolean excluded = false;
+      for (Rule rule : rules) {
+         boolean matches = rule.regex.matcher(cleaned).matches();
+         if (!matches) {
+            // the pattern may match one of the parent directories of the path
+            if (elements == null) {
+               elements = ImmutableList.copyOf(PATH_ELEMENTS.split(cleaned));
+            }
+            if (rule.elements < elements.size()) {
+               String parent = PATH_JOINER.join(elements.subList(0, rule.elements));
+               matches = rule.regex.matcher(parent).matches();
+            }
+         }
+         if (matches) {
+            excluded = !rule.exception;
+         }
+      }
+      return excluded;
+   }
+
+   /**
+    * Returns true if some patterns re-include files, in which case the content of an excluded directory still has to
+    * be matched file by file.
+    */
+   public boolean hasExceptions() {
+      return hasExceptions;
+   }
+
+   private static String clean(String path) {
+      String cleaned = path.replace('\\', '/');
+      while (cleaned.startsWith("./")) {
+         cleaned = cleaned.substring(2);
+      }
+      cleaned = CharMatcher.is('/').trimFrom(cleaned);
+      return cleaned.replaceAll("/+", "/").replace("/./", "/");
+   }
+
+   private static final class Rule {
+      private final Pattern regex;
+      private final int elements;
+      private final boolean exception;
+
+      Rule(String pattern, boolean exception) {
+         this.regex = toRegex(pattern);
+         this.elements = ImmutableList.copyOf(PATH_ELEMENTS.split(pattern)).size();
+         this.exception = exception;
+      }
+   }
+
+   private static Pattern toRegex(String pattern) {
+      StringBuilder regex = new StringBuilder("^");
+      for (int i = 0; i < pattern.length(); i++) {
+         char c = pattern.charAt(i);
+         if (c == '*') {
+            if (i + 1 < pattern.length() && pattern.charAt(i + 1) == '*') {
+               i++;
+               if (i + 1 < pattern.length() && pattern.charAt(i + 1) == '/') {
+                  i++;
+               }
+               // any number of directories, including none
+               regex.append(i + 1 == pattern.length() ? ".*" : "(.*/)?");
+            } else {
+               regex.append("[^/]*");
+            }
+         } else if (c == '?') {
+            regex.append("[^/]");
+         } else if (c == '[') {
+            int end = pattern.indexOf(']', i + 1);
+            if (end < 0) {
+               regex.append("\\[");
+            } else {
+               String set = pattern.substring(i + 1, end);
+               regex.append('[').append(set.startsWith("!") ? "^" + set.substring(1) : set).append(']');
+               i = end;
+            }
+         } else if (c == '\\' && i + 1 < pattern.length()) {
+            regex.append(Pattern.quote(String.valueOf(pattern.charAt(++i))));
+         } else {
+            regex.append(Pattern.quote(String.valueOf(c)));
+         }
+      }
+      return Pattern.compile(regex.append('$').toString());
+   }
+
+}
@@ -18,15 +18,30 @@
 package org.jclouds.docker.util;
 
 import java.io.DataInputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+import org.jclouds.docker.util.StdStreamData.StdStreamType;
 
 /**
  * Extension to {@link DataInputStream} which adds method
- * {@link #readStdStreamData()} to allow read multiplexed standard streams.
+ * {@link #readStdStreamData()} to allow read multiplexed standard streams,
+ * and {@link #demultiplex(OutputStream, OutputStream)} to copy them to
+ * separate targets without allocating per message.
  */
 public final class DockerInputStream extends DataInputStream {
 
+   private static final int BUFFER_SIZE = 8192;
+   // values() returns a new array on every call
+   private static final StdStreamType[] STREAM_TYPES = StdStreamType.values();
+
+   private final byte[] header = new byte[8];
+   private byte[] buffer;
+
    /**
     * Ctor from superclass.
     *
@@ -43,31 +58,140 @@ public final class DockerInputStream extends DataInputStream {
     * @throws IOException
     */
    public StdStreamData readStdStreamData() throws IOException {
-      byte[] header = new byte[8];
-      // try to read first byte from the message header - just to check if we
-      // are at the end
-      // of stream
-      if (-1 == read(header, 0, 1)) {
+      if (!readHeader()) {
          return null;
       }
-      // read the rest of the header
-      readFully(header, 1, 7);
-      // decode size as an unsigned int
-      long size = (long) (header[4] & 0xFF) << 24 | (header[5] & 0xFF) << 16 | (header[6] & 0xFF) << 8
-            | (header[7] & 0xFF);
+      long size = frameSize();
 
-      byte[] payload;
       // The size from the header is an unsigned int so it can happen the byte
       // array has not a sufficient size and we'll have to truncate the frame
-      payload = new byte[(int) Math.min(Integer.MAX_VALUE, size)];
+      byte[] payload = new byte[(int) Math.min(Integer.MAX_VALUE, size)];
       readFully(payload);
       boolean truncated = false;
       if (size > Integer.MAX_VALUE) {
          truncated = true;
-         // skip the rest
-         readFully(new byte[(int) (size - Integer.MAX_VALUE)]);
+         skipFully(size - Integer.MAX_VALUE);
       }
       return new StdStreamData(header[0], payload, truncated);
    }
 
+   /**
+    * Copies the payloads of all the remaining messages to the given streams,
+    * until the end of the stream. Messages are copied through a buffer reused
+    * for the whole stream, so no memory is allocated per message. Standard
+    * input messages are routed to the standard output, as docker does.
+    *
+    * @param stdOut
+    *           target of the standard output, or <code>null</code> to discard it
+    * @param stdErr
+    *           target of the standard error, or <code>null</code> to discard it
+    * @return the number of payload bytes read
+    * @throws IOException
+    */
+   public long demultiplex(final OutputStream stdOut, final OutputStream stdErr) throws IOException {
+      return demultiplex(new Sink() {
+         @Override
+         public void write(StdStreamType type, byte[] data, int length) throws IOException {
+            OutputStream target = type == StdStreamType.ERR ? stdErr : stdOut;
+            if (target != null) {
+               target.write(data, 0, length);
+            }
+         }
+      });
+   }
+
+   /**
+    * Copies the payloads of all the remaining messages to the given channels,
+    * until the end of the stream, like
+    * {@link #demultiplex(OutputStream, OutputStream)}.
+    *
+    * @param stdOut
+    *           target of the standard output, or <code>null</code> to discard it
+    * @param stdErr
+    *           target of the standard error, or <code>null</code> to discard it
+    * @return the number of payload bytes read
+    * @throws IOException
+    */
+   public long demultiplex(final WritableByteChannel stdOut, final WritableByteChannel stdErr) throws IOException {
+      final ByteBuffer view = ByteBuffer.wrap(buffer());
+      return demultiplex(new Sink() {
+         @Override
+         public void write(StdStreamType type, byte[] data, int length) throws IOException {
+            WritableByteChannel target = type == StdStreamType.ERR ? stdErr : stdOut;
+            if (target != null) {
+               view.clear();
+               view.limit(length);
+               while (view.hasRemaining()) {
+                  target.write(view);
+               }
+            }
+         }
+      });
+   }
+
+   private long demultiplex(Sink sink) throws IOException {
+      byte[] data = buffer();
+      long total = 0;
+      while (readHeader()) {
+         StdStreamType type = STREAM_TYPES[header[0]];
+         long remaining = frameSize();
+         total += remaining;
+         while (remaining > 0) {
+            int length = (int) Math.min(remaining, data.length);
+            readFully(data, 0, length);
+            sink.write(type, data, length);
+            remaining -= length;
+         }
+      }
+      return total;
+   }
+
+   /**
+    * Reads the header of the next message.
+    *
+    * @return <code>false</code> if we reached end of the stream
+    */
+   private boolean readHeader() throws IOException {
+      // try to read first byte from the message header - just to check if we
+      // are at the end of stream
+      if (-1 == read(header, 0, 1)) {
+         return false;
+      }
+      // read the rest of the header
+      readFully(header, 1, 7);
+      return true;
+   }
+
+   /**
+    * Decodes the payload size of the last header read, as an unsigned int.
+    */
+   private long frameSize() {
+      return (long) (header[4] & 0xFF) << 24 | (header[5] & 0xFF) << 16 | (header[6] & 0xFF) << 8
+            | (header[7] & 0xFF);
+   }
+
+   private void skipFully(long n) throws IOException {
+      while (n > 0) {
+         long skipped = skip(n);
+         if (skipped <= 0) {
+            if (read() == -1) {
+               throw new EOFException();
+            }
+            skipped = 1;
+         }
+         n -= skipped;
+      }
+   }
+
+   private byte[] buffer() {
+      if (buffer == null) {
+         buffer = new byte[BUFFER_SIZE];
+      }
+      return buffer;
+   }
+
+   private interface Sink {
+      void write(StdStreamType type, byte[] data, int length) throws IOException;
+   }
+
 }
@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.docker.util;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static com.google.common.base.Preconditions.checkNotNull;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+
+import org.jclouds.docker.domain.Event;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.AbstractIterator;
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * Decodes the events of a Docker {@code /events} stream one at a time, as they arrive. The stream ends when the
+ * daemon closes it; read errors, including read timeouts, are propagated by {@link #hasNext()} and {@link #next()}.
+ */
+public class EventStream extends AbstractIterator<Event> implements Closeable {
+
+   private final InputStream input;
+   private final JsonReader reader;
+   private final Gson gson;
+
+   public EventStream(InputStream input, Gson gson) {
+      this.input = checkNotNull(input, "input");
+      this.gson = checkNotNull(gson, "gson");
+      this.reader = new JsonReader(new InputStreamReader(input, UTF_8));
+      // the events are concatenated JSON documents
+      this.reader.setLenient(true);
+   }
+
+   @Override
+   protected Event computeNext() {
+      try {
+         if (reader.peek() == JsonToken.END_DOCUMENT) {
+            return endOfData();
+         }
+         return gson.fromJson(reader, Event.class);
+      } catch (IOException e) {
+         throw Throwables.propagate(e);
+      }
+   }
+
+   @Override
+   public void close() throws IOException {
+      input.close();
+   }
+
+}
@@ -0,0 +1,211 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.docker.util;
+
+/**
+ * A resource usage sample of a container, as decoded from the {@code /containers/{id}/stats} stream by
+ * {@link StatsStream}.
+ * <p>
+ * Samples are mutable so that one instance can be decoded into again and again: a {@link StatsStream} overwrites all
+ * the fields of the sample it reads into. Network and block I/O counters are summed over all the interfaces and
+ * devices of the container.
+ */
+public final class StatsSample {
+
+   String read;
+   long cpuTotalUsage;
+   long cpuKernelUsage;
+   long cpuUserUsage;
+   long systemCpuUsage;
+   int onlineCpus;
+   long preCpuTotalUsage;
+   long preSystemCpuUsage;
+   long memoryUsage;
+   long memoryMaxUsage;
+   long memoryLimit;
+   long memoryFailCount;
+   long rxBytes;
+   long rxPackets;
+   long rxErrors;
+   long rxDropped;
+   long txBytes;
+   long txPackets;
+   long txErrors;
+   long txDropped;
+   long blkioReadBytes;
+   long blkioWriteBytes;
+
+   /**
+    * Time the sample was read by the daemon, as an RFC 3339 timestamp.
+    */
+   public String getRead() {
+      return read;
+   }
+
+   /**
+    * Total CPU time consumed by the container, in nanoseconds.
+    */
+   public long getCpuTotalUsage() {
+      return cpuTotalUsage;
+   }
+
+   public long getCpuKernelUsage() {
+      return cpuKernelUsage;
+   }
+
+   public long getCpuUserUsage() {
+      return cpuUserUsage;
+   }
+
+   /**
+    * Total CPU time of the host, in nanoseconds.
+    */
+   public long getSystemCpuUsage() {
+      return systemCpuUsage;
+   }
+
+   public int getOnlineCpus() {
+      return onlineCpus;
+   }
+
+   /**
+    * CPU time consumed by the container at the previous sample of the daemon, in nanoseconds.
+    */
+   public long getPreCpuTotalUsage() {
+      return preCpuTotalUsage;
+   }
+
+   public long getPreSystemCpuUsage() {
+      return preSystemCpuUsage;
+   }
+
+   public long getMemoryUsage() {
+      return memoryUsage;
+   }
+
+   public long getMemoryMaxUsage() {
+      return memoryMaxUsage;
+   }
+
+   public long getMemoryLimit() {
+      return memoryLimit;
+   }
+
+   public long getMemoryFailCount() {
+      return memoryFailCount;
+   }
+
+   public long getRxBytes() {
+      return rxBytes;
+   }
+
+   public long getRxPackets() {
+      return rxPackets;
+   }
+
+   public long getRxErrors() {
+      return rxErrors;
+   }
+
+   public long getRxDropped() {
+      return rxDropped;
+   }
+
+   public long getTxBytes() {
+      return txBytes;
+   }
+
+   public long getTxPackets() {
+      return txPackets;
+   }
+
+   public long getTxErrors() {
+      return txErrors;
+   }
+
+   public long getTxDropped() {
+      return txDropped;
+   }
+
+   public long getBlkioReadBytes() {
+      return blkioReadBytes;
+   }
+
+   public long getBlkioWriteBytes() {
+      return blkioWriteBytes;
+   }
+
+   /**
+    * CPU usage of the container since the previous sample of the daemon, as a percentage of one CPU, the way
+    * {@code docker stats} shows it. Returns 0 when the daemon has no previous sample.
+    */
+   public double getCpuPercent() {
+      long cpuDelta = cpuTotalUsage - preCpuTotalUsage;
+      long systemDelta = systemCpuUsage - preSystemCpuUsage;
+      if (preCpuTotalUsage == 0 || cpuDelta <= 0 || systemDelta <= 0) {
+         return 0;
+      }
+      return (double) cpuDelta / systemDelta * Math.max(1, onlineCpus) * 100.0;
+   }
+
+   /**
+    * Overwrites this sample with the values of the given one.
+    */
+   public void copyFrom(StatsSample other) {
+      read = other.read;
+      cpuTotalUsage = other.cpuTotalUsage;
+      cpuKernelUsage = other.cpuKernelUsage;
+      cpuUserUsage = other.cpuUserUsage;
+      systemCpuUsage = other.systemCpuUsage;
+      onlineCpus = other.onlineCpus;
+      preCpuTotalUsage = other.preCpuTotalUsage;
+      preSystemCpuUsage = other.preSystemCpuUsage;
+      memoryUsage = other.memoryUsage;
+      memoryMaxUsage = other.memoryMaxUsage;
+      memoryLimit = other.memoryLimit;
+      memoryFailCount = other.memoryFailCount;
+      rxBytes = other.rxBytes;
+      rxPackets = other.rxPackets;
+      rxErrors = other.rxErrors;
+      rxDropped = other.rxDropped;
+      txBytes = other.txBytes;
+      txPackets = other.txPackets;
+      txErrors = other.txErrors;
+      txDropped = other.txDropped;
+      blkioReadBytes = other.blkioReadBytes;
+      blkioWriteBytes = other.blkioWriteBytes;
+   }
+
+   void reset() {
+      read = null;
+      cpuTotalUsage = cpuKernelUsage = cpuUserUsage = systemCpuUsage = 0;
+      onlineCpus = 0;
+      preCpuTotalUsage = preSystemCpuUsage = 0;
+      memoryUsage = memoryMaxUsage = memoryLimit = memoryFailCount = 0;
+      rxBytes = rxPackets = rxErrors = rxDropped = 0;
+      txBytes = txPackets = txErrors = txDropped = 0;
+      blkioReadBytes = blkioWriteBytes = 0;
+   }
+
+   @Override
+   public String toString() {
+      return "StatsSample{read=" + read + ", cpuPercent=" + getCpuPercent() + ", memoryUsage=" + memoryUsage
+            + ", memoryLimit=" + memoryLimit + ", rxBytes=" + rxBytes + ", txBytes=" + txBytes + ", blkioReadBytes="
+            + blkioReadBytes + ", blkioWriteBytes=" + blkioWriteBytes + "}";
+   }
+
+}
@@ -0,0 +1,271 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.docker.util;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static com.google.common.base.Preconditions.checkNotNull;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * Decodes the samples of a Docker {@code /containers/{id}/stats} response one at a time, as they arrive.
+ * <p>
+ * The samples are read with a streaming JSON reader straight into a caller provided {@link StatsSample}, without
+ * building an object tree or binding intermediate objects, so a caller reusing one sample allocates little more than
+ * the field names per sample. Fields that are not part of {@link StatsSample} are skipped.
+ */
+public class StatsStream implements Closeable {
+
+   private final InputStream input;
+   private final JsonReader reader;
+
+   public StatsStream(InputStream input) {
+      this.input = checkNotNull(input, "input");
+      this.reader = new JsonReader(new InputStreamReader(input, UTF_8));
+      // the samples of a streamed response are concatenated JSON documents
+      this.reader.setLenient(true);
+   }
+
+   /**
+    * Reads the next sample into the given one.
+    *
+    * @return false if the stream has ended, in which case the sample is left untouched
+    */
+   public boolean read(StatsSample sample) throws IOException {
+      checkNotNull(sample, "sample");
+      if (reader.peek() == JsonToken.END_DOCUMENT) {
+         return false;
+      }
+      sample.reset();
+      reader.beginObject();
+      while (reader.hasNext()) {
+         String name = reader.nextName();
+         if ("read".equals(name)) {
+            sample.read = nextString();
+         } else if ("cpu_stats".equals(name)) {
+            readCpu(sample, false);
+         } else if ("precpu_stats".equals(name)) {
+            readCpu(sample, true);
+         } else if ("memory_stats".equals(name)) {
+            readMemory(sample);
+         } else if ("network".equals(name)) {
+            // a single interface, before API 1.21
+            readNetwork(sample);
+         } else if ("networks".equals(name)) {
+            if (beginObject()) {
+               while (reader.hasNext()) {
+                  reader.nextName();
+                  readNetwork(sample);
+               }
+               reader.endObject();
+            }
+         } else if ("blkio_stats".equals(name)) {
+            readBlkio(sample);
+         } else {
+            reader.skipValue();
+         }
+      }
+      reader.endObject();
+      return true;
+   }
+
+   private void readCpu(StatsSample sample, boolean previous) throws IOException {
+      if (!beginObject()) return;
+      while (reader.hasNext()) {
+         String name = reader.nextName();
+         if ("cpu_usage".equals(name)) {
+            readCpuUsage(sample, previous);
+         } else if ("system_cpu_usage".equals(name)) {
+            if (previous) {
+               sample.preSystemCpuUsage = nextLong();
+            } else {
+               sample.systemCpuUsage = nextLong();
+            }
+         } else {
+            reader.skipValue();
+         }
+      }
+      reader.endObject();
+   }
+
+   private void readCpuUsage(StatsSample sample, boolean previous) throws IOException {
+      if (!beginObject()) return;
+      while (reader.hasNext()) {
+         String name = reader.nextName();
+         if ("total_usage".equals(name)) {
+            if (previous) {
+               sample.preCpuTotalUsage = nextLong();
+            } else {
+               sample.cpuTotalUsage = nextLong();
+            }
+         } else if (!previous && "usage_in_kernelmode".equals(name)) {
+            sample.cpuKernelUsage = nextLong();
+         } else if (!previous && "usage_in_usermode".equals(name)) {
+            sample.cpuUserUsage = nextLong();
+         } else if (!previous && "percpu_usage".equals(name)) {
+            sample.onlineCpus = countArray();
+         } else {
+            reader.skipValue();
+         }
+      }
+      reader.endObject();
+   }
+
+   private void readMemory(StatsSample sample) throws IOException {
+      if (!beginObject()) return;
+      while (reader.hasNext()) {
+         String name = reader.nextName();
+         if ("usage".equals(name)) {
+            sample.memoryUsage = nextLong();
+         } else if ("max_usage".equals(name)) {
+            sample.memoryMaxUsage = nextLong();
+         } else if ("limit".equals(name)) {
+            sample.memoryLimit = nextLong();
+         } else if ("failcnt".equals(name)) {
+            sample.memoryFailCount = nextLong();
+         } else {
+            reader.skipValue();
+         }
+      }
+      reader.endObject();
+   }
+
+   private void readNetwork(StatsSample sample) throws IOException {
+      if (!beginObject()) return;
+      while (reader.hasNext()) {
+         String name = reader.nextName();
+         if ("rx_bytes".equals(name)) {
+            sample.rxBytes += nextLong();
+         } else if ("rx_packets".equals(name)) {
+            sample.rxPackets += nextLong();
+         } else if ("rx_errors".equals(name)) {
+            sample.rxErrors += nextLong();
+         } else if ("rx_dropped".equals(name)) {
+            sample.rxDropped += nextLong();
+         } else if ("tx_bytes".equals(name)) {
+            sample.txBytes += nextLong();
+         } else if ("tx_packets".equals(name)) {
+            sample.txPackets += nextLong();
+         } else if ("tx_errors".equals(name)) {
+            sample.txErrors += nextLong();
+         } else if ("tx_dropped".equals(name)) {
+            sample.txDropped += nextLong();
+         } else {
+            reader.skipValue();
+         }
+      }
+      reader.endObject();
+   }
+
+   private void readBlkio(StatsSample sample) throws IOException {
+      if (!beginObject()) return;
+      while (reader.hasNext()) {
+         String name = reader.nextName();
+         if ("io_service_bytes_recursive".equals(name)) {
+            // the daemon sends null rather than an empty array when it has no statistics
+            if (beginArray()) {
+               while (reader.hasNext()) {
+                  readBlkioEntry(sample);
+               }
+               reader.endArray();
+            }
+         } else {
+            reader.skipValue();
+         }
+      }
+      reader.endObject();
+   }
+
+   private void readBlkioEntry(StatsSample sample) throws IOException {
+      if (!beginObject()) return;
+      // the operation may come after the value
+      String op = null;
+      long value = 0;
+      while (reader.hasNext()) {
+         String name = reader.nextName();
+         if ("op".equals(name)) {
+            op = nextString();
+         } else if ("value".equals(name)) {
+            value = nextLong();
+         } else {
+            reader.skipValue();
+         }
+      }
+      reader.endObject();
+      if ("Read".equalsIgnoreCase(op)) {
+         sample.blkioReadBytes += value;
+      } else if ("Write".equalsIgnoreCase(op)) {
+         sample.blkioWriteBytes += value;
+      }
+   }
+
+   private int countArray() throws IOException {
+      if (!beginArray()) return 0;
+      int count = 0;
+      while (reader.hasNext()) {
+         reader.skipValue();
+         count++;
+      }
+      reader.endArray();
+      return count;
+   }
+
+   private boolean beginObject() throws IOException {
+      if (reader.peek() == JsonToken.NULL) {
+         reader.nextNull();
+         return false;
+      }
+      reader.beginObject();
+      return true;
+   }
+
+   private boolean beginArray() throws IOException {
+      if (reader.peek() == JsonToken.NULL) {
+         reader.nextNull();
+         return false;
+      }
+      reader.beginArray();
+      return true;
+   }
+
+   private long nextLong() throws IOException {
+      if (reader.peek() == JsonToken.NULL) {
+         reader.nextNull();
+         return 0;
+      }
+      return reader.nextLong();
+   }
+
+   private String nextString() throws IOException {
+      if (reader.peek() == JsonToken.NULL) {
+         reader.nextNull();
+         return null;
+      }
+      return reader.nextString();
+   }
+
+   @Override
+   public void close() throws IOException {
+      input.close();
+   }
+
+}
@@ -17,7 +17,7 @@
 
 package org.jclouds.docker.util;
 
-import java.util.Arrays;
+import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
  * Representation of single message from docker-raw-stream. It holds stream
@@ -47,7 +47,8 @@ public final class StdStreamData {
    StdStreamData(byte streamTypeId, byte[] payload, boolean truncated)
          throws ArrayIndexOutOfBoundsException, NullPointerException {
       this.type = StdStreamType.values()[streamTypeId];
-      this.payload = Arrays.copyOf(payload, payload.length);
+      // the payload array is allocated by DockerInputStream for this message only
+      this.payload = checkNotNull(payload, "payload");
       this.truncated = truncated;
    }
 
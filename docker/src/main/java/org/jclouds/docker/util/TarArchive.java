@@ -0,0 +1,423 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.docker.util;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterInputStream;
+
+import org.jclouds.io.Payload;
+import org.jclouds.io.Payloads;
+
+import com.google.common.base.Function;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
+import com.google.common.io.ByteSource;
+import com.google.common.io.CountingInputStream;
+
+/**
+ * A tar archive of a directory tree, such as a Docker build context, produced while it is read.
+ * <p>
+ * The archive is not written anywhere: {@link #openStream()} lists the files and then generates the headers and
+ * reads the files one at a time as the stream is consumed, so archiving takes constant memory whatever the size of
+ * the files. Files excluded by the {@code .dockerignore} file of the directory are left out, except the
+ * {@code Dockerfile} and the {@code .dockerignore} file themselves, which the daemon needs. The archive can be
+ * compressed with gzip on the fly, in which case its length is not known in advance.
+ */
+public final class TarArchive {
+
+   static final int BLOCK_SIZE = 512;
+
+   private static final String CONTENT_TYPE = "application/tar";
+   private static final String DOCKERFILE = "Dockerfile";
+   private static final int NAME_LENGTH = 100;
+   private static final int PREFIX_LENGTH = 155;
+   private static final long MAX_OCTAL_SIZE = 077777777777L;
+   private static final String LONG_LINK = "././@LongLink";
+   private static final byte[] ZEROS = new byte[2 * BLOCK_SIZE];
+
+   private final File directory;
+   private final DockerIgnore ignore;
+   private final boolean gzip;
+
+   private TarArchive(File directory, DockerIgnore ignore, boolean gzip) {
+      this.directory = directory;
+      this.ignore = ignore;
+      this.gzip = gzip;
+   }
+
+   /**
+    * Archives the content of a directory, leaving out the files excluded by its {@code .dockerignore} file.
+    */
+   public static TarArchive fromDirectory(File directory) throws IOException {
+      checkArgument(checkNotNull(directory, "directory").isDirectory(), "%s is not a directory", directory);
+      return new TarArchive(directory, DockerIgnore.fromDirectory(directory), false);
+   }
+
+   /**
+    * Returns an archive of the same files, compressed with gzip or not.
+    */
+   public TarArchive gzip(boolean gzip) {
+      return new TarArchive(directory, ignore, gzip);
+   }
+
+   public boolean isGzip() {
+      return gzip;
+   }
+
+   /**
+    * Returns the names of the entries of the archive, in order. Directory names end with {@code /}.
+    */
+   public List<String> getEntryNames() throws IOException {
+      ImmutableList.Builder<String> names = ImmutableList.builder();
+      for (Entry entry : entries()) {
+         names.add(entry.name);
+      }
+      return names.build();
+   }
+
+   /**
+    * Returns the length of the archive, or null if it is compressed.
+    */
+   public Long getContentLength() throws IOException {
+      return contentLength(entries());
+   }
+
+   /**
+    * Opens a new stream of the archive.
+    */
+   public InputStream openStream() throws IOException {
+      return openStream(entries());
+   }
+
+   /**
+    * Returns a repeatable payload of the archive, which opens a new stream each time it is sent. The files are listed
+    * once, so every stream of the payload has the entries its content length was computed from.
+    */
+   public Payload toPayload() throws IOException {
+      final List<Entry> entries = entries();
+      Payload payload = Payloads.newByteSourcePayload(new ByteSource() {
+         @Override
+         public InputStream openStream() throws IOException {
+            return TarArchive.this.openStream(entries);
+         }
+      });
+      payload.getContentMetadata().setContentType(CONTENT_TYPE);
+      payload.getContentMetadata().setContentLength(contentLength(entries));
+      return payload;
+   }
+
+   private Long contentLength(List<Entry> entries) {
+      if (gzip) return null;
+      long length = ZEROS.length;
+      for (Entry entry : entries) {
+         length += header(entry).length + padded(entry.size);
+      }
+      return length;
+   }
+
+   private InputStream openStream(List<Entry> entries) {
+      Iterator<InputStream> entryParts = Iterators.concat(Iterators.transform(entries.iterator(),
+            new Function<Entry, Iterator<InputStream>>() {
+               @Override
+               public Iterator<InputStream> apply(Entry entry) {
+                  if (entry.size == 0) {
+                     return Iterators.<InputStream>singletonIterator(new ByteArrayInputStream(header(entry)));
+                  }
+                  return Iterators.<InputStream>forArray(new ByteArrayInputStream(header(entry)),
+                        new FileContent(entry.file, entry.size),
+                        new ByteArrayInputStream(ZEROS, 0, (int) (padded(entry.size) - entry.size)));
+               }
+            }));
+      // the archive ends with two empty blocks
+      Iterator<InputStream> parts = Iterators.concat(entryParts,
+            Iterators.<InputStream>singletonIterator(new ByteArrayInputStream(ZEROS)));
+      InputStream tar = new SequenceInputStream(Iterators.asEnumeration(parts));
+      return gzip ? gzip(tar) : tar;
+   }
+
+   private List<Entry> entries() throws IOException {
+      List<Entry> entries = Lists.newArrayList();
+      walk(directory, "", entries);
+      return entries;
+   }
+
+   private void walk(File dir, String prefix, List<Entry> entries) throws IOException {
+      File[] children = dir.listFiles();
+      if (children == null) {
+         throw new IOException("Could not list the files of " + dir);
+      }
+      Arrays.sort(children);
+      for (File child : children) {
+         String path = prefix + child.getName();
+         boolean required = prefix.isEmpty()
+               && (DOCKERFILE.equals(child.getName()) || DockerIgnore.FILE_NAME.equals(child.getName()));
+         boolean excluded = !required && ignore.isExcluded(path);
+         Path nioPath = child.toPath();
+         if (java.nio.file.Files.isSymbolicLink(nioPath)) {
+            if (!excluded) {
+               String target = java.nio.file.Files.readSymbolicLink(nioPath).toString();
+               entries.add(new Entry(path, child, Entry.SYMLINK, 0777, 0, target));
+            }
+         } else if (child.isDirectory()) {
+            if (!excluded) {
+               entries.add(new Entry(path + "/", child, Entry.DIRECTORY, 0755, 0, null));
+            }
+            // files of an excluded directory can only be re-included by an exception
+            if (!excluded || ignore.hasExceptions()) {
+               walk(child, path + "/", entries);
+            }
+         } else if (!excluded && child.isFile()) {
+            entries.add(new Entry(path, child, Entry.FILE, child.canExecute() ? 0755 : 0644, child.length(), null));
+         }
+      }
+   }
+
+   private static long padded(long size) {
+      return (size + BLOCK_SIZE - 1) / BLOCK_SIZE * BLOCK_SIZE;
+   }
+
+   private static byte[] header(Entry entry) {
+      ByteArrayOutputStream out = new ByteArrayOutputStream(BLOCK_SIZE);
+      byte[] name = entry.name.getBytes(UTF_8);
+      byte[] prefix = new byte[0];
+      if (name.length > NAME_LENGTH) {
+         int split = prefixSplit(name);
+         if (split > 0) {
+            prefix = Arrays.copyOfRange(name, 0, split);
+            name = Arrays.copyOfRange(name, split + 1, name.length);
+         } else {
+            longLink(out, Entry.LONG_NAME, name);
+            name = Arrays.copyOf(name, NAME_LENGTH);
+         }
+      }
+      byte[] linkName = entry.linkName == null ? new byte[0] : entry.linkName.getBytes(UTF_8);
+      if (linkName.length > NAME_LENGTH) {
+         longLink(out, Entry.LONG_LINK_NAME, linkName);
+         linkName = Arrays.copyOf(linkName, NAME_LENGTH);
+      }
+      out.write(block(name, prefix, entry.type, entry.mode, entry.size, entry.file.lastModified() / 1000, linkName),
+            0, BLOCK_SIZE);
+      return out.toByteArray();
+   }
+
+   /**
+    * Returns the index of the slash splitting a long name into a ustar prefix and name, or -1 if it cannot be split.
+    */
+   private static int prefixSplit(byte[] name) {
+      for (int i = Math.max(0, name.length - NAME_LENGTH - 1); i < name.length - 1 && i <= PREFIX_LENGTH; i++) {
+         if (name[i] == '/') {
+            return i;
+         }
+      }
+      return -1;
+   }
+
+   /**
+    * Writes a GNU long name entry, which holds a name too long for the header of the entry following it.
+    */
+   private static void longLink(ByteArrayOutputStream out, char type, byte[] name) {
+      out.write(block(LONG_LINK.getBytes(UTF_8), new byte[0], type, 0, name.length + 1, 0, new byte[0]), 0,
+            BLOCK_SIZE);
+      out.write(name, 0, name.length);
+      out.write(ZEROS, 0, (int) (padded(name.length + 1) - name.length));
+   }
+
+   private static byte[] block(byte[] name, byte[] prefix, char type, int mode, long size, long mtime,
+         byte[] linkName) {
+      byte[] block = new byte[BLOCK_SIZE];
+      System.arraycopy(name, 0, block, 0, name.length);
+      octal(block, 100, 8, mode);
+      octal(block, 108, 8, 0);
+      octal(block, 116, 8, 0);
+      if (size > MAX_OCTAL_SIZE) {
+         // base-256 encoding for sizes that do not fit in 11 octal digits
+         block[124] = (byte) 0x80;
+         for (int i = 135; i > 124; i--, size >>>= 8) {
+            block[i] = (byte) size;
+         }
+      } else {
+         octal(block, 124, 12, size);
+      }
+      octal(block, 136, 12, mtime);
+      block[156] = (byte) type;
+      System.arraycopy(linkName, 0, block, 157, linkName.length);
+      System.arraycopy("ustar\u000000".getBytes(UTF_8), 0, block, 257, 8);
+      System.arraycopy(prefix, 0, block, 345, prefix.length);
+      Arrays.fill(block, 148, 156, (byte) ' ');
+      long checksum = 0;
+      for (byte b : block) {
+         checksum += b & 0xff;
+      }
+      octal(block, 148, 7, checksum);
+      return block;
+   }
+
+   /**
+    * Writes a zero padded octal number followed by a NUL.
+    */
+   private static void octal(byte[] block, int offset, int length, long value) {
+      String digits = Long.toOctalString(value);
+      int start = offset + length - 1 - digits.length();
+      Arrays.fill(block, offset, start, (byte) '0');
+      for (int i = 0; i < digits.length(); i++) {
+         block[start + i] = (byte) digits.charAt(i);
+      }
+      block[offset + length - 1] = 0;
+   }
+
+   /**
+    * Compresses the stream with gzip as it is read. The native memory of the deflater is released at the end of the
+    * data or when the stream is closed, whichever comes first.
+    */
+   private static InputStream gzip(InputStream tar) {
+      final CRC32 crc = new CRC32();
+      final CountingInputStream source = new CountingInputStream(new CheckedInputStream(tar, crc));
+      final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+      Iterator<InputStream> parts = new AbstractIterator<InputStream>() {
+         private int part;
+
+         @Override
+         protected InputStream computeNext() {
+            switch (part++) {
+               case 0:
+                  return new ByteArrayInputStream(new byte[] { 0x1f, (byte) 0x8b, 8, 0, 0, 0, 0, 0, 0, (byte) 0xff });
+               case 1:
+                  return new DeflaterInputStream(source, deflater, 8192);
+               case 2:
+                  // only asked for once the compressed data has been read, so the checksum is complete
+                  deflater.end();
+                  return new ByteArrayInputStream(littleEndian(crc.getValue(), source.getCount()));
+               default:
+                  return endOfData();
+            }
+         }
+      };
+      return new FilterInputStream(new SequenceInputStream(Iterators.asEnumeration(parts))) {
+         @Override
+         public void close() throws IOException {
+            try {
+               super.close();
+            } finally {
+               deflater.end();
+            }
+         }
+      };
+   }
+
+   private static byte[] littleEndian(long crc, long length) {
+      byte[] trailer = new byte[8];
+      for (int i = 0; i < 4; i++) {
+         trailer[i] = (byte) (crc >>> (8 * i));
+         trailer[4 + i] = (byte) (length >>> (8 * i));
+      }
+      return trailer;
+   }
+
+   private static final class Entry {
+      static final char FILE = '0';
+      static final char SYMLINK = '2';
+      static final char DIRECTORY = '5';
+      static final char LONG_NAME = 'L';
+      static final char LONG_LINK_NAME = 'K';
+
+      private final String name;
+      private final File file;
+      private final char type;
+      private final int mode;
+      private final long size;
+      private final String linkName;
+
+      Entry(String name, File file, char type, int mode, long size, String linkName) {
+         this.name = name;
+         this.file = file;
+         this.type = type;
+         this.mode = mode;
+         this.size = size;
+         this.linkName = linkName;
+      }
+   }
+
+   /**
+    * The content of a file, opened on first read and cut or padded to the size recorded in its header, in case the
+    * file changes while it is archived.
+    */
+   private static final class FileContent extends InputStream {
+      private final File file;
+      private long remaining;
+      private InputStream input;
+      private boolean exhausted;
+
+      FileContent(File file, long size) {
+         this.file = file;
+         this.remaining = size;
+      }
+
+      @Override
+      public int read() throws IOException {
+         byte[] b = new byte[1];
+         return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+      }
+
+      @Override
+      public int read(byte[] b, int off, int len) throws IOException {
+         if (remaining <= 0) return -1;
+         if (len == 0) return 0;
+         int max = (int) Math.min(len, remaining);
+         int read = -1;
+         if (!exhausted) {
+            if (input == null) {
+               input = new FileInputStream(file);
+            }
+            read = input.read(b, off, max);
+         }
+         if (read < 0) {
+            exhausted = true;
+            Arrays.fill(b, off, off + max, (byte) 0);
+            read = max;
+         }
+         remaining -= read;
+         return read;
+      }
+
+      @Override
+      public void close() throws IOException {
+         if (input != null) {
+            input.close();
+         }
+      }
+   }
+
+}
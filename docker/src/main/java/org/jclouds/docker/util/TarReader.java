@@ -0,0 +1,285 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.docker.util;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.google.common.io.ByteStreams;
+
+/**
+ * Reads the entries of a tar stream one at a time, such as the archives returned by
+ * {@link org.jclouds.docker.features.ContainerApi#getArchive(String, String)}, so files can be extracted from a
+ * container without writing the archive anywhere.
+ * <p>
+ * ustar, GNU long name and PAX path headers are supported.
+ */
+public class TarReader implements Closeable {
+
+   /**
+    * An entry of a tar stream.
+    */
+   public static final class Entry {
+      private final String name;
+      private final char type;
+      private final int mode;
+      private final long size;
+      private final long modificationTime;
+      private final String linkName;
+
+      Entry(String name, char type, int mode, long size, long modificationTime, String linkName) {
+         this.name = name;
+         this.type = type;
+         this.mode = mode;
+         this.size = size;
+         this.modificationTime = modificationTime;
+         this.linkName = linkName;
+      }
+
+      public String getName() {
+         return name;
+      }
+
+      /**
+       * The tar type flag of the entry, such as {@code '0'} for files and {@code '5'} for directories.
+       */
+      public char getType() {
+         return type;
+      }
+
+      public int getMode() {
+         return mode;
+      }
+
+      public long getSize() {
+         return size;
+      }
+
+      /**
+       * The modification time of the entry, in seconds since the epoch.
+       */
+      public long getModificationTime() {
+         return modificationTime;
+      }
+
+      /**
+       * The target of a link entry, or null.
+       */
+      public String getLinkName() {
+         return linkName;
+      }
+
+      public boolean isDirectory() {
+         return type == '5' || name.endsWith("/");
+      }
+
+      public boolean isFile() {
+         return (type == '0' || type == 0 || type == '7') && !name.endsWith("/");
+      }
+
+      @Override
+      public String toString() {
+         return "Entry{name=" + name + ", type=" + type + ", size=" + size + "}";
+      }
+   }
+
+   private final InputStream input;
+   private final byte[] header = new byte[TarArchive.BLOCK_SIZE];
+   private final InputStream content = new EntryContent();
+   private long remaining;
+   private long padding;
+   private Entry current;
+
+   public TarReader(InputStream input) {
+      this.input = checkNotNull(input, "input");
+   }
+
+   /**
+    * Moves to the next entry, skipping what was not read of the content of the current one.
+    *
+    * @return the next entry, or null at the end of the archive
+    */
+   public Entry next() throws IOException {
+      String longName = null;
+      String longLinkName = null;
+      Long paxSize = null;
+      while (true) {
+         ByteStreams.skipFully(input, remaining + padding);
+         remaining = padding = 0;
+         if (!readHeader()) {
+            current = null;
+            return null;
+         }
+         char type = (char) header[156];
+         long size = number(124, 12);
+         if (type == 'L' || type == 'K' || type == 'x') {
+            byte[] data = new byte[(int) size];
+            ByteStreams.readFully(input, data);
+            padding = padding(size);
+            if (type == 'L') {
+               longName = string(data, 0, data.length);
+            } else if (type == 'K') {
+               longLinkName = string(data, 0, data.length);
+            } else {
+               // PAX records are "<length> <key>=<value>\n"
+               String records = new String(data, UTF_8);
+               int offset = 0;
+               while (offset < records.length()) {
+                  int space = records.indexOf(' ', offset);
+                  if (space < 0) break;
+                  int length = Integer.parseInt(records.substring(offset, space));
+                  String record = records.substring(space + 1, offset + length - 1);
+                  int equals = record.indexOf('=');
+                  String key = record.substring(0, equals);
+                  String value = record.substring(equals + 1);
+                  if ("path".equals(key)) {
+                     longName = value;
+                  } else if ("linkpath".equals(key)) {
+                     longLinkName = value;
+                  } else if ("size".equals(key)) {
+                     paxSize = Long.parseLong(value);
+                  }
+                  offset += length;
+               }
+            }
+            continue;
+         }
+         if (type == 'g') {
+            remaining = size;
+            padding = padding(size);
+            continue;
+         }
+         String name = longName;
+         if (name == null) {
+            name = string(header, 0, 100);
+            String prefix = isUstar() ? string(header, 345, 155) : "";
+            if (!prefix.isEmpty()) {
+               name = prefix + "/" + name;
+            }
+         }
+         String linkName = longLinkName != null ? longLinkName : string(header, 157, 100);
+         if (paxSize != null) {
+            size = paxSize;
+         }
+         current = new Entry(name, type, (int) number(100, 8), size, number(136, 12),
+               linkName.isEmpty() ? null : linkName);
+         // links and directories have no content, whatever size they record
+         remaining = type == '1' || type == '2' || current.isDirectory() ? 0 : size;
+         padding = padding(remaining);
+         return current;
+      }
+   }
+
+   /**
+    * Returns the content of the current entry. The stream ends with the content of the entry and does not need to
+    * be closed.
+    */
+   public InputStream getContent() {
+      checkState(current != null, "no current entry");
+      return content;
+   }
+
+   @Override
+   public void close() throws IOException {
+      input.close();
+   }
+
+   private boolean readHeader() throws IOException {
+      int read = ByteStreams.read(input, header, 0, header.length);
+      if (read < header.length) {
+         return false;
+      }
+      for (byte b : header) {
+         if (b != 0) {
+            return true;
+         }
+      }
+      // an empty block marks the end of the archive
+      return false;
+   }
+
+   private boolean isUstar() {
+      return header[257] == 'u' && header[258] == 's' && header[259] == 't' && header[260] == 'a'
+            && header[261] == 'r';
+   }
+
+   private long number(int offset, int length) {
+      if ((header[offset] & 0x80) != 0) {
+         // base-256
+         long value = header[offset] & 0x7f;
+         for (int i = offset + 1; i < offset + length; i++) {
+            value = (value << 8) | (header[i] & 0xff);
+         }
+         return value;
+      }
+      long value = 0;
+      for (int i = offset; i < offset + length; i++) {
+         byte b = header[i];
+         if (b >= '0' && b <= '7') {
+            value = value * 8 + (b - '0');
+         } else if (b == 0 || (b == ' ' && value > 0)) {
+            break;
+         }
+      }
+      return value;
+   }
+
+   private static String string(byte[] bytes, int offset, int length) {
+      int end = offset;
+      while (end < offset + length && bytes[end] != 0) {
+         end++;
+      }
+      return new String(bytes, offset, end - offset, UTF_8);
+   }
+
+   private static long padding(long size) {
+      long rest = size % TarArchive.BLOCK_SIZE;
+      return rest == 0 ? 0 : TarArchive.BLOCK_SIZE - rest;
+   }
+
+   private final class EntryContent extends InputStream {
+      @Override
+      public int read() throws IOException {
+         if (remaining <= 0) return -1;
+         int b = input.read();
+         if (b >= 0) {
+            remaining--;
+         }
+         return b;
+      }
+
+      @Override
+      public int read(byte[] b, int off, int len) throws IOException {
+         if (remaining <= 0) return -1;
+         int read = input.read(b, off, (int) Math.min(len, remaining));
+         if (read > 0) {
+            remaining -= read;
+         }
+         return read;
+      }
+
+      @Override
+      public void close() {
+         // the rest of the entry is skipped by the next call to next()
+      }
+   }
+
+}
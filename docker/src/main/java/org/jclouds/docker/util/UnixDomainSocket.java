@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.docker.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.net.SocketException;
+
+import jnr.unixsocket.UnixSocket;
+import jnr.unixsocket.UnixSocketAddress;
+import jnr.unixsocket.UnixSocketChannel;
+
+/**
+ * A {@link Socket} that connects to a unix domain socket file regardless of the address it is asked to connect to.
+ * <p>
+ * Only the operations the HTTP client relies on are supported; TCP specific options are ignored.
+ */
+final class UnixDomainSocket extends Socket {
+
+   private final File path;
+   private volatile UnixSocket delegate;
+   private volatile boolean closed;
+   private int soTimeout;
+
+   UnixDomainSocket(File path) {
+      this.path = path;
+   }
+
+   @Override
+   public void connect(SocketAddress endpoint) throws IOException {
+      connect(endpoint, 0);
+   }
+
+   @Override
+   public synchronized void connect(SocketAddress endpoint, int timeout) throws IOException {
+      if (closed) throw new SocketException("Socket is closed");
+      if (delegate != null) throw new SocketException("already connected");
+      UnixSocket socket = new UnixSocket(UnixSocketChannel.open(new UnixSocketAddress(path)));
+      if (soTimeout > 0) {
+         socket.setSoTimeout(soTimeout);
+      }
+      delegate = socket;
+   }
+
+   @Override
+   public InputStream getInputStream() throws IOException {
+      return connected().getInputStream();
+   }
+
+   @Override
+   public OutputStream getOutputStream() throws IOException {
+      return connected().getOutputStream();
+   }
+
+   /**
+    * The read timeout is also used by the connection pool to probe idle connections for staleness, so it must be
+    * honoured rather than ignored.
+    */
+   @Override
+   public synchronized void setSoTimeout(int timeout) throws SocketException {
+      soTimeout = timeout;
+      if (delegate != null) {
+         delegate.setSoTimeout(timeout);
+      }
+   }
+
+   @Override
+   public synchronized int getSoTimeout() {
+      return soTimeout;
+   }
+
+   @Override
+   public void setTcpNoDelay(boolean on) {
+   }
+
+   @Override
+   public void setKeepAlive(boolean on) {
+   }
+
+   @Override
+   public void shutdownInput() throws IOException {
+      connected().shutdownInput();
+   }
+
+   @Override
+   public void shutdownOutput() throws IOException {
+      connected().shutdownOutput();
+   }
+
+   @Override
+   public boolean isConnected() {
+      return delegate != null;
+   }
+
+   @Override
+   public boolean isClosed() {
+      return closed;
+   }
+
+   @Override
+   public boolean isInputShutdown() {
+      UnixSocket socket = delegate;
+      return socket != null && socket.isInputShutdown();
+   }
+
+   @Override
+   public boolean isOutputShutdown() {
+      UnixSocket socket = delegate;
+      return socket != null && socket.isOutputShutdown();
+   }
+
+   @Override
+   public synchronized void close() throws IOException {
+      if (closed) return;
+      closed = true;
+      if (delegate != null) {
+         delegate.close();
+      }
+   }
+
+   @Override
+   public String toString() {
+      return "UnixDomainSocket[" + path + "]";
+   }
+
+   private UnixSocket connected() throws IOException {
+      if (closed) throw new SocketException("Socket is closed");
+      UnixSocket socket = delegate;
+      if (socket == null) throw new SocketException("Socket is not connected");
+      return socket;
+   }
+
+}
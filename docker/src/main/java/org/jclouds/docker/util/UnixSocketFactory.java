@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.docker.util;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+
+import javax.net.SocketFactory;
+
+/**
+ * Creates sockets connected to the unix domain socket of a local Docker daemon. The host and port requested by the HTTP
+ * client are ignored, so requests can keep using a plain {@code http://localhost} base URI while every connection
+ * (and every pooled keep-alive connection) goes through the socket file.
+ */
+public final class UnixSocketFactory extends SocketFactory {
+
+   public static final String SCHEME = "unix";
+
+   /**
+    * Returns true if the endpoint uses the {@code unix://} scheme, as in {@code unix:///var/run/docker.sock}.
+    */
+   public static boolean isUnixSocket(URI endpoint) {
+      return SCHEME.equalsIgnoreCase(endpoint.getScheme());
+   }
+
+   private final File path;
+
+   public UnixSocketFactory(File path) {
+      this.path = checkNotNull(path, "path");
+   }
+
+   public File getPath() {
+      return path;
+   }
+
+   @Override
+   public Socket createSocket() throws IOException {
+      return new UnixDomainSocket(path);
+   }
+
+   @Override
+   public Socket createSocket(String host, int port) throws IOException {
+      return connected(InetSocketAddress.createUnresolved(host, port));
+   }
+
+   @Override
+   public Socket createSocket(String host, int port, InetAddress localHost, int localPort) throws IOException {
+      return createSocket(host, port);
+   }
+
+   @Override
+   public Socket createSocket(InetAddress host, int port) throws IOException {
+      return connected(new InetSocketAddress(host, port));
+   }
+
+   @Override
+   public Socket createSocket(InetAddress address, int port, InetAddress localAddress, int localPort) throws IOException {
+      return createSocket(address, port);
+   }
+
+   private Socket connected(InetSocketAddress ignored) throws IOException {
+      Socket socket = createSocket();
+      socket.connect(ignored);
+      return socket;
+   }
+
+}
@@ -0,0 +1,219 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.docker.compute;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.easymock.EasyMock;
+import org.jclouds.compute.domain.Image;
+import org.jclouds.compute.domain.ImageBuilder;
+import org.jclouds.compute.domain.OperatingSystem;
+import org.jclouds.compute.domain.Template;
+import org.jclouds.docker.DockerApi;
+import org.jclouds.docker.compute.functions.ContainerSummaryToContainer;
+import org.jclouds.docker.compute.internal.ContainerStatusPoller;
+import org.jclouds.docker.compute.internal.DockerImageIndex;
+import org.jclouds.docker.compute.internal.DockerStateCache;
+import org.jclouds.docker.compute.options.DockerTemplateOptions;
+import org.jclouds.docker.compute.strategy.DockerComputeServiceAdapter;
+import org.jclouds.docker.config.DockerParserModule;
+import org.jclouds.docker.domain.Container;
+import org.jclouds.docker.internal.BaseDockerMockTest;
+import org.jclouds.domain.LoginCredentials;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import com.google.common.eventbus.EventBus;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.squareup.okhttp.mockwebserver.Dispatcher;
+import com.squareup.okhttp.mockwebserver.MockResponse;
+import com.squareup.okhttp.mockwebserver.MockWebServer;
+import com.squareup.okhttp.mockwebserver.RecordedRequest;
+
+/**
+ * Mock tests for the node listing and lookup of the {@link DockerComputeServiceAdapter} class.
+ */
+@Test(groups = "unit", testName = "DockerComputeServiceAdapterMockTest", singleThreaded = true)
+public class DockerComputeServiceAdapterMockTest extends BaseDockerMockTest {
+
+   private static final Pattern INSPECT = Pattern.compile(".*/containers/([^/?]+)/json");
+   private static final String INSPECTED_ID = "6c9932f478bd761f32ddb54ed28ab42ab6fac6f2a279f561ea31503ee9d39524";
+   private static final Pattern INSPECT_IMAGE = Pattern.compile(".*/images/([^/?]+)/json");
+   private static final String INSPECTED_IMAGE_ID = "cbba6639a342646deed70d7ea6162fa2a0acea9300f911f4e014555fe37d3456";
+   private static final String LISTED_ID = "6d35806c1bd2b25cd92bba2d2c2c5169dc2156f53ab45c2b62d76e2d2fee14a9";
+   private static final String UBUNTU_ID = "91e54dfb11794fad694460162bf0cb0a4fa710cfa3f60979c177d920813e267c";
+
+   private final List<String> paths = new CopyOnWriteArrayList<String>();
+   private volatile String status;
+   private ExecutorService executor;
+   private MockWebServer server;
+
+   @BeforeMethod
+   public void setUp() throws Exception {
+      paths.clear();
+      status = "Up 55 seconds";
+      executor = Executors.newCachedThreadPool();
+      server = mockWebServer();
+      server.setDispatcher(new Dispatcher() {
+         @Override
+         public MockResponse dispatch(RecordedRequest request) {
+            paths.add(request.getPath());
+            if (request.getPath().contains("/containers/json")) {
+               return new MockResponse().setBody(new String(payloadFromResource("/containers.json"), UTF_8)
+                     .replace("Up 55 seconds", status));
+            }
+            if (request.getPath().contains("/images/json")) {
+               return new MockResponse().setBody(new String(payloadFromResource("/images.json"), UTF_8)
+                     .replace("docker.io/ubuntu:latest", "jclouds/ubuntu:latest"));
+            }
+            Matcher inspectImage = INSPECT_IMAGE.matcher(request.getPath());
+            if (inspectImage.matches()) {
+               return new MockResponse().setBody(new String(payloadFromResource("/image.json"), UTF_8)
+                     .replace(INSPECTED_IMAGE_ID, inspectImage.group(1)));
+            }
+            if (request.getPath().contains("/containers/create")) {
+               return new MockResponse().setBody(new String(payloadFromResource("/container.json"), UTF_8)
+                     .replace(INSPECTED_ID, LISTED_ID));
+            }
+            Matcher inspect = INSPECT.matcher(request.getPath());
+            if (inspect.matches()) {
+               // a distinct container per id, as the listed containers are value-equal otherwise
+               return new MockResponse().setBody(new String(payloadFromResource("/container.json"), UTF_8)
+                     .replace(INSPECTED_ID, inspect.group(1)));
+            }
+            return new MockResponse().setBody(payloadFromResource("/container.json"));
+         }
+      });
+   }
+
+   @AfterMethod(alwaysRun = true)
+   public void tearDown() throws Exception {
+      server.shutdown();
+      executor.shutdownNow();
+   }
+
+   public void testListNodesInspectsOnlyChangedContainers() {
+      DockerComputeServiceAdapter adapter = adapter(false);
+
+      assertThat(adapter.listNodes()).hasSize(2);
+      assertThat(inspections()).isEqualTo(2);
+
+      paths.clear();
+      status = "Up 2 minutes";
+      assertThat(adapter.listNodes()).hasSize(2);
+      assertThat(paths).hasSize(1);
+
+      paths.clear();
+      status = "Exited (0) 5 seconds ago";
+      assertThat(adapter.listNodes()).hasSize(2);
+      assertThat(inspections()).isEqualTo(2);
+   }
+
+   public void testListNodesFromSummaries() {
+      DockerComputeServiceAdapter adapter = adapter(true);
+
+      Iterable<Container> containers = adapter.listNodes();
+      assertThat(containers).hasSize(2);
+      assertThat(inspections()).isEqualTo(0);
+      Container container = Iterables.get(containers, 0);
+      assertThat(container.state().running()).isTrue();
+      // the repo tag of the summary is resolved to the image id inspecting the container would return
+      assertThat(container.image()).isEqualTo(UBUNTU_ID);
+   }
+
+   public void testGetNodeInspectsUncreatedContainers() {
+      DockerComputeServiceAdapter adapter = adapter(false);
+
+      assertThat(adapter.getNode(LISTED_ID)).isNotNull();
+      assertThat(paths).hasSize(1);
+      assertThat(inspections()).isEqualTo(1);
+   }
+
+   public void testGetNodeInspectsOnlyChangedCreatedContainers() throws Exception {
+      DockerComputeServiceAdapter adapter = adapter(false);
+      Template template = EasyMock.createMock(Template.class);
+      expect(template.getImage()).andReturn(new ImageBuilder()
+            .id(UBUNTU_ID)
+            .description("jclouds/ubuntu:latest")
+            .operatingSystem(OperatingSystem.builder().description("ubuntu").build())
+            .status(Image.Status.AVAILABLE)
+            .defaultCredentials(LoginCredentials.builder().user("root").password("password").build())
+            .build()).anyTimes();
+      expect(template.getOptions()).andReturn(new DockerTemplateOptions()).anyTimes();
+      replay(template);
+
+      assertThat(adapter.createNodeWithGroupEncodedIntoName("test", "test-1", template).getNodeId())
+            .isEqualTo(LISTED_ID);
+
+      // the container was inspected once it was listed as running
+      paths.clear();
+      assertThat(adapter.getNode(LISTED_ID)).isNotNull();
+      assertThat(inspections()).isEqualTo(0);
+
+      // lets the shared list go stale
+      Thread.sleep(250);
+      assertThat(adapter.getNode(LISTED_ID)).isNotNull();
+      assertThat(inspections()).isEqualTo(0);
+
+      // lets the shared list go stale
+      Thread.sleep(250);
+      status = "Exited (0) 5 seconds ago";
+      assertThat(adapter.getNode(LISTED_ID)).isNotNull();
+      assertThat(inspections()).isEqualTo(1);
+   }
+
+   public void testListNodesByIds() {
+      DockerComputeServiceAdapter adapter = adapter(false);
+
+      assertThat(adapter.listNodesByIds(ImmutableList.of("a", "b", "c"))).hasSize(3);
+      assertThat(inspections()).isEqualTo(3);
+   }
+
+   private DockerComputeServiceAdapter adapter(boolean summaryListing) {
+      DockerApi api = api(DockerApi.class, server.getUrl("/").toString(), new DockerParserModule());
+      ListeningExecutorService userExecutor = MoreExecutors.listeningDecorator(executor);
+      EventBus eventBus = new EventBus();
+      DockerImageIndex imageIndex = new DockerImageIndex(api, eventBus, 60);
+      return new DockerComputeServiceAdapter(api, userExecutor, new ContainerSummaryToContainer(imageIndex),
+            new DockerStateCache(api, userExecutor, eventBus, false), imageIndex,
+            new ContainerStatusPoller(api), 2, 2, 60, summaryListing);
+   }
+
+   private int inspections() {
+      int inspections = 0;
+      for (String path : paths) {
+         if (INSPECT.matcher(path).matches()) {
+            inspections++;
+         }
+      }
+      return inspections;
+   }
+
+}
@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.docker.compute.functions;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+
+import java.util.Date;
+
+import org.easymock.EasyMock;
+import org.jclouds.docker.compute.internal.DockerImageIndex;
+import org.jclouds.docker.domain.Container;
+import org.jclouds.docker.domain.ContainerSummary;
+import org.jclouds.docker.domain.Image;
+import org.jclouds.docker.domain.Port;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Unit tests for the {@link ContainerSummaryToContainer} class.
+ */
+@Test(groups = "unit", testName = "ContainerSummaryToContainerTest")
+public class ContainerSummaryToContainerTest {
+
+   private static final String IMAGE_ID = "b39b81afc8cae27d6fc7ea89584bad5e0ba792127597d02425eaee9f3aaaa462";
+
+   private ContainerSummaryToContainer function;
+
+   @BeforeMethod
+   public void setUp() {
+      DockerImageIndex imageIndex = EasyMock.createMock(DockerImageIndex.class);
+      expect(imageIndex.getImage("jclouds/ubuntu:latest")).andReturn(Image.create(IMAGE_ID, null, null, null, null,
+            "", new Date(), "", "1.3.1", "x86_64", "linux", 0, 0, ImmutableList.of("jclouds/ubuntu:latest")))
+            .anyTimes();
+      expect(imageIndex.getImage("removed:latest")).andReturn(null).anyTimes();
+      replay(imageIndex);
+      function = new ContainerSummaryToContainer(imageIndex);
+   }
+
+   public void testRunningContainer() {
+      Container container = function.apply(summary("Up 55 seconds"));
+
+      assertThat(container.id()).isEqualTo("6d35806c1bd2b25cd92bba2d2c2c5169dc2156f53ab45c2b62d76e2d2fee14a9");
+      assertThat(container.name()).isEqualTo("/hopeful_mclean");
+      assertThat(container.created()).isEqualTo(new Date(1395472605000L));
+      assertThat(container.image()).isEqualTo(IMAGE_ID);
+      assertThat(container.config().image()).isEqualTo("jclouds/ubuntu:latest");
+      assertThat(container.ports()).containsExactly(Port.create("0.0.0.0", 22, 49231, "tcp"));
+      assertThat(container.networkSettings()).isNull();
+      assertThat(container.state().running()).isTrue();
+      assertThat(container.state().paused()).isFalse();
+   }
+
+   public void testPausedContainer() {
+      Container container = function.apply(summary("Up 2 hours (Paused)"));
+
+      assertThat(container.state().running()).isTrue();
+      assertThat(container.state().paused()).isTrue();
+   }
+
+   public void testExitedContainer() {
+      Container container = function.apply(summary("Exited (137) 3 minutes ago"));
+
+      assertThat(container.state().running()).isFalse();
+      assertThat(container.state().exitCode()).isEqualTo(137);
+   }
+
+   public void testCreatedContainer() {
+      Container container = function.apply(summary("Created"));
+
+      assertThat(container.state().running()).isFalse();
+      assertThat(container.state().exitCode()).isEqualTo(0);
+   }
+
+   public void testRemovedImage() {
+      Container container = function.apply(summary("Up 55 seconds", "removed:latest"));
+
+      assertThat(container.image()).isNull();
+      assertThat(container.config().image()).isEqualTo("removed:latest");
+   }
+
+   private static ContainerSummary summary(String status) {
+      return summary(status, "jclouds/ubuntu:latest");
+   }
+
+   private static ContainerSummary summary(String status, String image) {
+      return ContainerSummary.create("6d35806c1bd2b25cd92bba2d2c2c5169dc2156f53ab45c2b62d76e2d2fee14a9",
+            ImmutableList.of("/hopeful_mclean"), "1395472605", image, "/usr/sbin/sshd -D",
+            ImmutableList.of(Port.create("0.0.0.0", 22, 49231, "tcp")), status);
+   }
+
+}
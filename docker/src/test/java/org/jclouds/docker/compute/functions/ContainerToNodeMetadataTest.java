@@ -23,18 +23,17 @@ import static org.easymock.EasyMock.verify;
 import static org.testng.Assert.assertEquals;
 
 import java.util.Arrays;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import org.easymock.EasyMock;
-import org.jclouds.compute.domain.Image;
-import org.jclouds.compute.domain.ImageBuilder;
 import org.jclouds.compute.domain.NodeMetadata;
-import org.jclouds.compute.domain.OperatingSystem;
 import org.jclouds.compute.domain.OsFamily;
 import org.jclouds.compute.functions.GroupNamingConvention;
 import org.jclouds.date.internal.SimpleDateFormatDateService;
+import org.jclouds.docker.compute.internal.DockerImageIndex;
 import org.jclouds.docker.domain.Config;
 import org.jclouds.docker.domain.Container;
 import org.jclouds.docker.domain.HostConfig;
@@ -136,26 +135,12 @@ public class ContainerToNodeMetadataTest {
 
       GroupNamingConvention.Factory namingConvention = Guice.createInjector().getInstance(GroupNamingConvention.Factory.class);
 
-      Supplier<Map<String, ? extends Image>> images = new Supplier<Map<String, ? extends Image>>() {
-         @Override
-         public Map<String, ? extends Image> get() {
-            OperatingSystem os = OperatingSystem.builder()
-                    .description("Ubuntu 12.04 64bit")
-                    .family(OsFamily.UBUNTU)
-                    .version("12.04")
-                    .is64Bit(true)
-                    .build();
-
-            return ImmutableMap.of("af0f59f1c19eef9471c3b8c8d587c39b8f130560b54f3766931b37d76d5de4b6",
-                    new ImageBuilder()
-                            .ids("af0f59f1c19eef9471c3b8c8d587c39b8f130560b54f3766931b37d76d5de4b6")
-                            .name("ubuntu")
-                            .description("Ubuntu 12.04 64bit")
-                            .operatingSystem(os)
-                            .status(Image.Status.AVAILABLE)
-                            .build());
-         }
-      };
+      DockerImageIndex imageIndex = EasyMock.createMock(DockerImageIndex.class);
+      expect(imageIndex.getImage("af0f59f1c19eef9471c3b8c8d587c39b8f130560b54f3766931b37d76d5de4b6")).andReturn(
+            org.jclouds.docker.domain.Image.create("af0f59f1c19eef9471c3b8c8d587c39b8f130560b54f3766931b37d76d5de4b6",
+                  null, null, null, null, "", new Date(), "", "1.3.1", "x86_64", "linux", 0, 0,
+                  ImmutableList.of("ubuntu:12.04"))).anyTimes();
+      replay(imageIndex);
 
       Supplier<Set<? extends Location>> locations = new Supplier<Set< ? extends Location>>() {
          @Override
@@ -171,8 +156,8 @@ public class ContainerToNodeMetadataTest {
          }
       };
 
-      function = new ContainerToNodeMetadata(providerMetadata, toPortableStatus(), namingConvention, images, locations,
-            new LoginPortForContainer.LoginPortLookupChain(null));
+      function = new ContainerToNodeMetadata(providerMetadata, toPortableStatus(), namingConvention, imageIndex,
+            new ImageToImage(), locations, new LoginPortForContainer.LoginPortLookupChain(null));
    }
 
    private Function<State, NodeMetadata.Status> toPortableStatus() {
@@ -195,6 +180,8 @@ public class ContainerToNodeMetadataTest {
       assertEquals(node.getLoginPort(), 49199);
       assertEquals(node.getPrivateAddresses().size(), 1);
       assertEquals(node.getPublicAddresses().size(), 1);
+      assertEquals(node.getOperatingSystem().getFamily(), OsFamily.UBUNTU);
+      assertEquals(node.getOperatingSystem().getVersion(), "12.04");
    }
 
    private Container mockContainer() {
@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.docker.compute.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.jclouds.docker.DockerApi;
+import org.jclouds.docker.config.DockerParserModule;
+import org.jclouds.docker.domain.ContainerSummary;
+import org.jclouds.docker.internal.BaseDockerMockTest;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.squareup.okhttp.mockwebserver.Dispatcher;
+import com.squareup.okhttp.mockwebserver.MockResponse;
+import com.squareup.okhttp.mockwebserver.MockWebServer;
+import com.squareup.okhttp.mockwebserver.RecordedRequest;
+
+/**
+ * Mock tests for the {@link ContainerStatusPoller} class.
+ */
+@Test(groups = "unit", testName = "ContainerStatusPollerMockTest", singleThreaded = true)
+public class ContainerStatusPollerMockTest extends BaseDockerMockTest {
+
+   private static final String FIRST = "6d35806c1bd2b25cd92bba2d2c2c5169dc2156f53ab45c2b62d76e2d2fee14a9";
+   private static final String SECOND = "6d35806c1bd2b25cd92bba2d2c2c5169dc2156f53ab45c2b62d76e2d2fee14a2";
+
+   private final List<String> paths = new CopyOnWriteArrayList<String>();
+   private MockWebServer server;
+   private ContainerStatusPoller poller;
+
+   @BeforeMethod
+   public void setUp() throws Exception {
+      paths.clear();
+      server = mockWebServer();
+      server.setDispatcher(new Dispatcher() {
+         @Override
+         public MockResponse dispatch(RecordedRequest request) {
+            paths.add(request.getPath());
+            try {
+               // keeps the list in progress while the other containers start waiting
+               Thread.sleep(300);
+            } catch (InterruptedException e) {
+               Thread.currentThread().interrupt();
+            }
+            return new MockResponse().setBody(payloadFromResource("/containers.json"));
+         }
+      });
+      poller = new ContainerStatusPoller(api(DockerApi.class, server.getUrl("/").toString(),
+            new DockerParserModule()));
+   }
+
+   @AfterMethod(alwaysRun = true)
+   public void tearDown() throws Exception {
+      server.shutdown();
+   }
+
+   public void testConcurrentWaitsShareOneList() throws Exception {
+      ExecutorService executor = Executors.newFixedThreadPool(2);
+      try {
+         Future<ContainerSummary> first = executor.submit(await(FIRST));
+         Future<ContainerSummary> second = executor.submit(await(SECOND));
+         assertThat(first.get().id()).isEqualTo(FIRST);
+         assertThat(second.get().id()).isEqualTo(SECOND);
+      } finally {
+         executor.shutdownNow();
+      }
+      assertThat(paths).hasSize(1);
+      assertThat(paths.get(0)).endsWith("/containers/json?all=true");
+   }
+
+   public void testConcurrentLookupsShareOneList() throws Exception {
+      ExecutorService executor = Executors.newFixedThreadPool(3);
+      try {
+         Future<ContainerSummary> first = executor.submit(lookup(FIRST));
+         Future<ContainerSummary> second = executor.submit(lookup(SECOND));
+         Future<ContainerSummary> unknown = executor.submit(lookup("unknown"));
+         assertThat(first.get().id()).isEqualTo(FIRST);
+         assertThat(second.get().id()).isEqualTo(SECOND);
+         assertThat(unknown.get()).isNull();
+      } finally {
+         executor.shutdownNow();
+      }
+      assertThat(paths).hasSize(1);
+   }
+
+   public void testLookupListsAgainOnceTheListIsStale() throws Exception {
+      assertThat(poller.getListed(FIRST)).isNotNull();
+      assertThat(poller.getListed(SECOND)).isNotNull();
+      assertThat(paths).hasSize(1);
+
+      Thread.sleep(ContainerStatusPoller.POLL_INTERVAL_MILLIS + 50);
+      assertThat(poller.getListed(FIRST)).isNotNull();
+      assertThat(paths).hasSize(2);
+   }
+
+   public void testUnlistedContainerTimesOut() throws Exception {
+      assertThat(poller.awaitSettled("unknown", 1, TimeUnit.SECONDS)).isNull();
+      assertThat(paths).isNotEmpty();
+   }
+
+   private Callable<ContainerSummary> lookup(final String id) {
+      return new Callable<ContainerSummary>() {
+         @Override
+         public ContainerSummary call() throws Exception {
+            return poller.getListed(id);
+         }
+      };
+   }
+
+   private Callable<ContainerSummary> await(final String id) {
+      return new Callable<ContainerSummary>() {
+         @Override
+         public ContainerSummary call() throws Exception {
+            return poller.awaitSettled(id, 5, TimeUnit.SECONDS);
+         }
+      };
+   }
+
+}
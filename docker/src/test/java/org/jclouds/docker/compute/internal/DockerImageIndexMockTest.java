@@ -0,0 +1,200 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.docker.compute.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.jclouds.docker.DockerApi;
+import org.jclouds.docker.config.DockerParserModule;
+import org.jclouds.docker.domain.Event;
+import org.jclouds.docker.domain.Image;
+import org.jclouds.docker.internal.BaseDockerMockTest;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.Lists;
+import com.google.common.eventbus.EventBus;
+import com.squareup.okhttp.mockwebserver.Dispatcher;
+import com.squareup.okhttp.mockwebserver.MockResponse;
+import com.squareup.okhttp.mockwebserver.MockWebServer;
+import com.squareup.okhttp.mockwebserver.RecordedRequest;
+
+/**
+ * Mock tests for the {@link DockerImageIndex} class.
+ */
+@Test(groups = "unit", testName = "DockerImageIndexMockTest", singleThreaded = true)
+public class DockerImageIndexMockTest extends BaseDockerMockTest {
+
+   private static final String ALPINE = "f4fddc471ec22fc1f7d37768132f1753bc171121e30ac2af7fcb0302588197c0";
+
+   private final List<String> paths = new CopyOnWriteArrayList<String>();
+   private final AtomicBoolean pulled = new AtomicBoolean();
+   private MockWebServer server;
+   private EventBus eventBus;
+   private DockerImageIndex index;
+
+   @BeforeMethod
+   public void setUp() throws Exception {
+      paths.clear();
+      pulled.set(true);
+      server = mockWebServer();
+      server.setDispatcher(new Dispatcher() {
+         @Override
+         public MockResponse dispatch(RecordedRequest request) {
+            paths.add(request.getPath());
+            if (request.getPath().contains("/images/create")) {
+               try {
+                  // keeps the pull in progress while the other callers ask for the same image
+                  Thread.sleep(500);
+               } catch (InterruptedException e) {
+                  Thread.currentThread().interrupt();
+               }
+               pulled.set(true);
+               return new MockResponse().setBody("{\"status\":\"Download complete\"}");
+            }
+            if (request.getPath().contains("/images/json")) {
+               return new MockResponse().setBody(pulled.get() ? payloadFromResource("/images.json") : "[]");
+            }
+            return new MockResponse().setBody(payloadFromResource("/image.json"));
+         }
+      });
+      eventBus = new EventBus();
+      index = new DockerImageIndex(api(DockerApi.class, server.getUrl("/").toString(), new DockerParserModule()),
+            eventBus, 60, TimeUnit.SECONDS);
+   }
+
+   @AfterMethod(alwaysRun = true)
+   public void tearDown() throws Exception {
+      server.shutdown();
+   }
+
+   public void testLookupsInspectOnlyOnMiss() {
+      Image image = index.getImage("docker.io/alpine:3.2");
+      assertThat(image).isNotNull();
+      assertThat(image.repoTags()).containsExactly("docker.io/alpine:3.2");
+      assertThat(lists()).isEqualTo(1);
+      assertThat(inspections()).isEqualTo(4);
+
+      paths.clear();
+      assertThat(index.getImage(ALPINE)).isEqualTo(image);
+      assertThat(index.getImage("jclouds:testTag")).isNotNull();
+      assertThat(paths).isEmpty();
+
+      assertThat(index.listImages()).hasSize(4);
+      assertThat(lists()).isEqualTo(1);
+      assertThat(inspections()).isEqualTo(0);
+   }
+
+   public void testMissesAreRemembered() {
+      assertThat(index.getImage("unknown")).isNull();
+      paths.clear();
+
+      assertThat(index.getImage("unknown")).isNull();
+      assertThat(paths).isEmpty();
+   }
+
+   public void testIndexExpires() throws Exception {
+      index = new DockerImageIndex(api(DockerApi.class, server.getUrl("/").toString(), new DockerParserModule()),
+            new EventBus(), 200, TimeUnit.MILLISECONDS);
+      pulled.set(false);
+      assertThat(index.getImage(ALPINE)).isNull();
+
+      // added without an event being posted, as happens when the event cache is disabled
+      pulled.set(true);
+      assertThat(index.getImage(ALPINE)).isNull();
+
+      Thread.sleep(300);
+      assertThat(index.getImage(ALPINE)).isNotNull();
+   }
+
+   public void testImageEventsRefreshTheIndex() {
+      assertThat(index.getImage(ALPINE)).isNotNull();
+      paths.clear();
+
+      eventBus.post(Event.create("untag", ALPINE, null, 1374067970, "image"));
+      assertThat(index.getImage(ALPINE)).isNotNull();
+      assertThat(lists()).isEqualTo(1);
+      assertThat(inspections()).isEqualTo(0);
+
+      paths.clear();
+      eventBus.post(Event.create("start", "dfdf82bd3881", "base:latest", 1374067924, null));
+      assertThat(index.getImage(ALPINE)).isNotNull();
+      assertThat(paths).isEmpty();
+   }
+
+   public void testConcurrentPullsShareOnePull() throws Exception {
+      pulled.set(false);
+      ExecutorService executor = Executors.newFixedThreadPool(4);
+      try {
+         List<Future<Image>> pulls = Lists.newArrayList();
+         for (int i = 0; i < 4; i++) {
+            pulls.add(executor.submit(new Callable<Image>() {
+               @Override
+               public Image call() {
+                  return index.pullImage("docker.io/alpine:3.2");
+               }
+            }));
+         }
+         for (Future<Image> pull : pulls) {
+            assertThat(pull.get()).isNotNull();
+         }
+      } finally {
+         executor.shutdownNow();
+      }
+      assertThat(pulls()).hasSize(1);
+      assertThat(pulls().get(0)).contains("fromImage=docker.io").endsWith("&tag=3.2");
+   }
+
+   public void testPullSkipsPresentImages() {
+      assertThat(index.pullImage("docker.io/alpine:3.2")).isNotNull();
+      assertThat(pulls()).isEmpty();
+   }
+
+   private List<String> pulls() {
+      List<String> pulls = Lists.newArrayList();
+      for (String path : paths) {
+         if (path.contains("/images/create")) {
+            pulls.add(path);
+         }
+      }
+      return pulls;
+   }
+
+   private int lists() {
+      int lists = 0;
+      for (String path : paths) {
+         if (path.contains("/images/json")) {
+            lists++;
+         }
+      }
+      return lists;
+   }
+
+   private int inspections() {
+      return paths.size() - lists() - pulls().size();
+   }
+
+}
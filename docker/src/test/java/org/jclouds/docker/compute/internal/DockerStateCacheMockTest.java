@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.docker.compute.internal;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.jclouds.docker.DockerApi;
+import org.jclouds.docker.config.DockerParserModule;
+import org.jclouds.docker.domain.Container;
+import org.jclouds.docker.domain.Event;
+import org.jclouds.docker.internal.BaseDockerMockTest;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Predicates;
+import com.google.common.eventbus.EventBus;
+import com.google.common.eventbus.Subscribe;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.squareup.okhttp.mockwebserver.Dispatcher;
+import com.squareup.okhttp.mockwebserver.MockResponse;
+import com.squareup.okhttp.mockwebserver.MockWebServer;
+import com.squareup.okhttp.mockwebserver.RecordedRequest;
+
+/**
+ * Mock tests for the {@link DockerStateCache} class.
+ */
+@Test(groups = "unit", testName = "DockerStateCacheMockTest", singleThreaded = true)
+public class DockerStateCacheMockTest extends BaseDockerMockTest {
+
+   private static final String RUNNING = "6d35806c1bd2b25cd92bba2d2c2c5169dc2156f53ab45c2b62d76e2d2fee14a9";
+   private static final String DESTROYED = "6d35806c1bd2b25cd92bba2d2c2c5169dc2156f53ab45c2b62d76e2d2fee14a2";
+
+   private final List<Event> posted = new CopyOnWriteArrayList<Event>();
+   private final List<String> paths = new CopyOnWriteArrayList<String>();
+   private volatile boolean eventsSent;
+   private ExecutorService executor;
+   private MockWebServer server;
+   private DockerStateCache cache;
+
+   @BeforeMethod
+   public void setUp() throws Exception {
+      posted.clear();
+      paths.clear();
+      eventsSent = false;
+      executor = Executors.newCachedThreadPool();
+      server = mockWebServer();
+      server.setDispatcher(new Dispatcher() {
+         @Override
+         public MockResponse dispatch(RecordedRequest request) {
+            paths.add(request.getPath());
+            if (request.getPath().contains("/events")) {
+               if (eventsSent) {
+                  return new MockResponse().setBody("");
+               }
+               eventsSent = true;
+               return new MockResponse().setBody("{\"status\":\"destroy\",\"id\":\"" + DESTROYED
+                     + "\",\"from\":\"jclouds/ubuntu:latest\",\"time\":1395472700}");
+            }
+            if (request.getPath().contains("/containers/json")) {
+               return new MockResponse().setBody(new String(payloadFromResource("/containers.json"), UTF_8));
+            }
+            return new MockResponse().setBody(payloadFromResource("/container.json"));
+         }
+      });
+      EventBus eventBus = new EventBus();
+      eventBus.register(new Object() {
+         @Subscribe
+         public void onEvent(Event event) {
+            posted.add(event);
+         }
+      });
+      DockerApi api = api(DockerApi.class, server.getUrl("/").toString(), new DockerParserModule());
+      cache = new DockerStateCache(api, MoreExecutors.listeningDecorator(executor), eventBus, true);
+   }
+
+   @AfterMethod(alwaysRun = true)
+   public void tearDown() throws Exception {
+      cache.close();
+      executor.shutdownNow();
+      server.shutdown();
+   }
+
+   public void testSyncAndApplyEvents() throws Exception {
+      cache.isSynced();
+      awaitEvent();
+
+      assertThat(cache.isSynced()).isTrue();
+      assertThat(cache.getContainers()).hasSize(1);
+      assertThat(cache.getContainer(DESTROYED)).isNull();
+      Container container = cache.getContainer(RUNNING);
+      assertThat(container).isNotNull();
+      assertThat(posted.get(0).status()).isEqualTo("destroy");
+
+      // answered from memory
+      int requests = paths.size();
+      assertThat(cache.awaitContainer(RUNNING, Predicates.<Container>alwaysTrue(), 1, TimeUnit.SECONDS))
+            .isEqualTo(container);
+      assertThat(cache.getContainer(RUNNING)).isEqualTo(container);
+      assertThat(paths.size()).isEqualTo(requests);
+   }
+
+   public void testAwaitContainerTimesOut() throws Exception {
+      cache.isSynced();
+      awaitEvent();
+
+      assertThat(cache.awaitContainer(RUNNING, Predicates.<Container>alwaysFalse(), 100, TimeUnit.MILLISECONDS))
+            .isNull();
+      assertThat(cache.awaitContainer("unknown", Predicates.<Container>alwaysTrue(), 100, TimeUnit.MILLISECONDS))
+            .isNull();
+   }
+
+   private void awaitEvent() throws InterruptedException {
+      long deadline = System.currentTimeMillis() + 10000;
+      while (posted.isEmpty() && System.currentTimeMillis() < deadline) {
+         Thread.sleep(10);
+      }
+      assertThat(posted).isNotEmpty();
+   }
+
+}
@@ -16,9 +16,12 @@
  */
 package org.jclouds.docker.features;
 
+import static com.google.common.base.Charsets.UTF_8;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
 
 import org.jclouds.docker.DockerApi;
 import org.jclouds.docker.config.DockerParserModule;
@@ -29,11 +32,16 @@ import org.jclouds.docker.internal.BaseDockerMockTest;
 import org.jclouds.docker.options.ListContainerOptions;
 import org.jclouds.docker.parse.ContainerParseTest;
 import org.jclouds.docker.parse.ContainersParseTest;
+import org.jclouds.docker.util.StatsSample;
+import org.jclouds.docker.util.StatsStream;
+import org.jclouds.io.Payloads;
 import org.testng.annotations.Test;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteStreams;
 import com.squareup.okhttp.mockwebserver.MockResponse;
 import com.squareup.okhttp.mockwebserver.MockWebServer;
+import com.squareup.okhttp.mockwebserver.RecordedRequest;
 
 /**
  * Mock tests for the {@link org.jclouds.docker.features.ContainerApi} class.
@@ -233,4 +241,97 @@ public class ContainerApiMockTest extends BaseDockerMockTest {
       }
    }
 
+   public void testStats() throws Exception {
+      MockWebServer server = mockWebServer(new MockResponse().setBody(payloadFromResource("/stats.json")));
+      ContainerApi api = api(DockerApi.class, server.getUrl("/").toString()).getContainerApi();
+      try {
+         StatsStream stats = api.stats("1", true);
+         StatsSample sample = new StatsSample();
+         try {
+            assertThat(stats.read(sample)).isTrue();
+            assertThat(sample.getRead()).isEqualTo("2015-01-08T22:57:31.547920715Z");
+            assertThat(sample.getCpuTotalUsage()).isEqualTo(36488948);
+            assertThat(sample.getOnlineCpus()).isEqualTo(4);
+            assertThat(sample.getCpuPercent()).isEqualTo(0.0);
+            assertThat(sample.getMemoryUsage()).isEqualTo(6537216);
+            assertThat(sample.getMemoryLimit()).isEqualTo(67108864);
+            assertThat(sample.getRxBytes()).isEqualTo(648);
+            assertThat(sample.getBlkioReadBytes()).isEqualTo(4096);
+            assertThat(sample.getBlkioWriteBytes()).isEqualTo(1024);
+
+            // the same sample is decoded into again, network counters are summed over the interfaces
+            assertThat(stats.read(sample)).isTrue();
+            assertThat(sample.getCpuPercent()).isEqualTo(4.0, offset(1e-9));
+            assertThat(sample.getMemoryUsage()).isEqualTo(7000000);
+            assertThat(sample.getRxBytes()).isEqualTo(1024);
+            assertThat(sample.getTxBytes()).isEqualTo(512);
+            assertThat(sample.getBlkioReadBytes()).isEqualTo(0);
+
+            assertThat(stats.read(sample)).isFalse();
+         } finally {
+            stats.close();
+         }
+         assertSent(server, "GET", "/containers/1/stats?stream=true");
+      } finally {
+         server.shutdown();
+      }
+   }
+
+   public void testStatsWithoutBlkioStatistics() throws Exception {
+      MockWebServer server = mockWebServer(new MockResponse().setBody(payloadFromResource("/stats-null-blkio.json")));
+      ContainerApi api = api(DockerApi.class, server.getUrl("/").toString()).getContainerApi();
+      try {
+         StatsStream stats = api.stats("1", true);
+         StatsSample sample = new StatsSample();
+         try {
+            assertThat(stats.read(sample)).isTrue();
+            assertThat(sample.getBlkioReadBytes()).isEqualTo(0);
+            assertThat(sample.getBlkioWriteBytes()).isEqualTo(0);
+            // the members following the null are still read
+            assertThat(sample.getCpuTotalUsage()).isEqualTo(36488948);
+            assertThat(sample.getMemoryUsage()).isEqualTo(6537216);
+            assertThat(stats.read(sample)).isFalse();
+         } finally {
+            stats.close();
+         }
+      } finally {
+         server.shutdown();
+      }
+   }
+
+   public void testStatsOfNonexistentContainer() throws Exception {
+      MockWebServer server = mockWebServer(new MockResponse().setResponseCode(404));
+      ContainerApi api = api(DockerApi.class, server.getUrl("/").toString()).getContainerApi();
+      try {
+         assertNull(api.stats("1", false));
+         assertSent(server, "GET", "/containers/1/stats?stream=false");
+      } finally {
+         server.shutdown();
+      }
+   }
+
+   public void testGetArchive() throws Exception {
+      MockWebServer server = mockWebServer(new MockResponse().setBody("archive"));
+      ContainerApi api = api(DockerApi.class, server.getUrl("/").toString()).getContainerApi();
+      try {
+         assertThat(new String(ByteStreams.toByteArray(api.getArchive("1", "app")), UTF_8)).isEqualTo("archive");
+         assertSent(server, "GET", "/containers/1/archive?path=app");
+      } finally {
+         server.shutdown();
+      }
+   }
+
+   public void testPutArchive() throws Exception {
+      MockWebServer server = mockWebServer(new MockResponse().setResponseCode(200));
+      ContainerApi api = api(DockerApi.class, server.getUrl("/").toString()).getContainerApi();
+      try {
+         api.putArchive("1", "app", Payloads.newByteArrayPayload(new byte[1024]));
+         RecordedRequest request = assertSent(server, "PUT", "/containers/1/archive?path=app");
+         assertThat(request.getHeader("Content-Type")).isEqualTo("application/x-tar");
+         assertThat(request.getBodySize()).isEqualTo(1024);
+      } finally {
+         server.shutdown();
+      }
+   }
+
 }
@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.docker.features;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import java.net.URLDecoder;
+
+import org.jclouds.docker.DockerApi;
+import org.jclouds.docker.domain.Event;
+import org.jclouds.docker.internal.BaseDockerMockTest;
+import org.jclouds.docker.options.EventsOptions;
+import org.jclouds.docker.util.EventStream;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.squareup.okhttp.mockwebserver.MockResponse;
+import com.squareup.okhttp.mockwebserver.MockWebServer;
+import com.squareup.okhttp.mockwebserver.RecordedRequest;
+
+/**
+ * Mock tests for the {@link org.jclouds.docker.features.EventsApi} class.
+ */
+@Test(groups = "unit", testName = "EventsApiMockTest")
+public class EventsApiMockTest extends BaseDockerMockTest {
+
+   public void testEvents() throws Exception {
+      MockWebServer server = mockWebServer(new MockResponse().setBody(payloadFromResource("/events.json")));
+      EventsApi api = api(DockerApi.class, server.getUrl("/").toString()).getEventsApi();
+      try {
+         EventStream events = api.events();
+         try {
+            assertThat(ImmutableList.copyOf(events)).containsExactly(
+                  Event.create("create", "dfdf82bd3881", "base:latest", 1374067924, null),
+                  Event.create("start", "dfdf82bd3881", "base:latest", 1374067924, null),
+                  Event.create("untag", "sha256:b7e8e7d9a9c4", null, 1374067970, "image"));
+         } finally {
+            events.close();
+         }
+         assertSent(server, "GET", "/events");
+      } finally {
+         server.shutdown();
+      }
+   }
+
+   public void testEventsWithOptions() throws Exception {
+      MockWebServer server = mockWebServer(new MockResponse().setBody(""));
+      EventsApi api = api(DockerApi.class, server.getUrl("/").toString()).getEventsApi();
+      try {
+         EventStream events = api.events(EventsOptions.Builder.since(1374067924).until(1374067970)
+               .filter("event", "start", "die"));
+         assertThat(events.hasNext()).isFalse();
+         events.close();
+         RecordedRequest request = server.takeRequest();
+         assertThat(request.getMethod()).isEqualTo("GET");
+         assertThat(URLDecoder.decode(request.getPath(), UTF_8.name())).isEqualTo("/v" + API_VERSION
+               + "/events?since=1374067924&until=1374067970&filters={\"event\":[\"start\",\"die\"]}");
+      } finally {
+         server.shutdown();
+      }
+   }
+
+}
@@ -42,11 +42,13 @@ import org.jclouds.docker.parse.VersionParseTest;
 import org.jclouds.docker.util.DockerInputStream;
 import org.jclouds.docker.util.StdStreamData;
 import org.jclouds.docker.util.StdStreamData.StdStreamType;
+import org.jclouds.docker.util.TarArchive;
 import org.jclouds.io.Payload;
 import org.jclouds.io.Payloads;
 import org.testng.annotations.Test;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
 import com.squareup.okhttp.mockwebserver.MockResponse;
 import com.squareup.okhttp.mockwebserver.MockWebServer;
 import com.squareup.okhttp.mockwebserver.RecordedRequest;
@@ -107,6 +109,23 @@ public class MiscApiMockTest extends BaseDockerMockTest {
       }
    }
 
+   public void testBuildContainerFromDirectory() throws Exception {
+      MockWebServer server = mockWebServer(new MockResponse().setResponseCode(200));
+      MiscApi api = api(DockerApi.class, server.getUrl("/").toString()).getMiscApi();
+      File context = Files.createTempDir();
+      Files.write("FROM busybox\n", new File(context, "Dockerfile"), StandardCharsets.UTF_8);
+      try {
+         TarArchive archive = TarArchive.fromDirectory(context);
+         api.build(archive);
+         RecordedRequest request = assertSent(server, "POST", "/build");
+         assertDockerBuildHttpHeaders(request);
+         assertThat(request.getBodySize()).isEqualTo(archive.getContentLength());
+      } finally {
+         new File(context, "Dockerfile").delete();
+         context.delete();
+         server.shutdown();
+      }
+   }
 
    public void testExecCreate() throws Exception {
       MockWebServer server = mockWebServer(new MockResponse().setBody(payloadFromResource("/exec.json")));
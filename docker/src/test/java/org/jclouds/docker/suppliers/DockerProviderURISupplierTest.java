@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.docker.suppliers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import java.net.URI;
+
+import org.jclouds.providers.ProviderMetadata;
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests for the {@link DockerProviderURISupplier} class.
+ */
+@Test(groups = "unit", testName = "DockerProviderURISupplierTest")
+public class DockerProviderURISupplierTest {
+
+   public void testTcpEndpointIsUnchanged() {
+      assertThat(supplierFor("https://192.168.99.100:2376").get()).isEqualTo(URI.create("https://192.168.99.100:2376"));
+   }
+
+   public void testUnixEndpointUsesLocalhost() {
+      assertThat(supplierFor("unix:///var/run/docker.sock").get())
+            .isEqualTo(DockerProviderURISupplier.UNIX_SOCKET_BASE_URI);
+   }
+
+   private static DockerProviderURISupplier supplierFor(String endpoint) {
+      ProviderMetadata providerMetadata = createMock(ProviderMetadata.class);
+      expect(providerMetadata.getEndpoint()).andReturn(endpoint).anyTimes();
+      replay(providerMetadata);
+      return new DockerProviderURISupplier(providerMetadata);
+   }
+
+}
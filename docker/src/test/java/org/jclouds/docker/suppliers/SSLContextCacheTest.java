@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.docker.suppliers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.io.File;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.net.ssl.SSLContext;
+
+import org.testng.annotations.Test;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+
+/**
+ * Unit tests for the {@link SSLContextCache} class.
+ */
+@Test(groups = "unit", testName = "SSLContextCacheTest")
+public class SSLContextCacheTest {
+
+   private static final class CountingLoader implements SSLContextCache.Loader {
+      private final AtomicInteger loads = new AtomicInteger();
+
+      @Override
+      public SSLContext load() throws GeneralSecurityException {
+         loads.incrementAndGet();
+         SSLContext context = SSLContext.getInstance("TLS");
+         context.init(null, null, null);
+         return context;
+      }
+   }
+
+   public void testReusesContextWhileInputsAreUnchanged() throws IOException, GeneralSecurityException {
+      SSLContextCache cache = new SSLContextCache();
+      CountingLoader loader = new CountingLoader();
+
+      SSLContext first = cache.get(loader, "identity", "credential");
+      assertThat(cache.get(loader, "identity", "credential")).isSameAs(first);
+      assertThat(loader.loads.get()).isEqualTo(1);
+
+      assertThat(cache.get(loader, "identity", "other")).isNotSameAs(first);
+      assertThat(loader.loads.get()).isEqualTo(2);
+   }
+
+   public void testRebuildsWhenFileChanges() throws IOException, GeneralSecurityException {
+      File cert = File.createTempFile("cert", ".pem");
+      try {
+         Files.write("first", cert, Charsets.UTF_8);
+         SSLContextCache cache = new SSLContextCache();
+         CountingLoader loader = new CountingLoader();
+
+         SSLContext first = cache.get(loader, cert.getAbsolutePath());
+         assertThat(cache.get(loader, cert.getAbsolutePath())).isSameAs(first);
+
+         Files.write("second, longer", cert, Charsets.UTF_8);
+         assertThat(cert.setLastModified(cert.lastModified() + 2000)).isTrue();
+         assertThat(cache.get(loader, cert.getAbsolutePath())).isNotSameAs(first);
+         assertThat(loader.loads.get()).isEqualTo(2);
+      } finally {
+         cert.delete();
+      }
+   }
+
+}
@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.docker.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.jclouds.docker.features.ContainerApi;
+import org.testng.annotations.Test;
+
+import com.google.common.io.Resources;
+
+/**
+ * Unit tests for the {@link ContainerStatsSampler} class.
+ */
+@Test(groups = "unit", testName = "ContainerStatsSamplerTest")
+public class ContainerStatsSamplerTest {
+
+   public void testPublishesTheLatestSamples() throws Exception {
+      PipedOutputStream daemon = new PipedOutputStream();
+      PipedInputStream response = new PipedInputStream(daemon, 8192);
+      ContainerApi api = createMock(ContainerApi.class);
+      expect(api.stats("1", true)).andReturn(new StatsStream(response));
+      expect(api.stats("2", true)).andReturn(null);
+      replay(api);
+
+      ExecutorService executor = Executors.newCachedThreadPool();
+      ContainerStatsSampler sampler = new ContainerStatsSampler(api, executor);
+      try {
+         // the stream stays open after the samples, like a streamed response
+         daemon.write(Resources.toByteArray(Resources.getResource("stats.json")));
+         daemon.flush();
+         sampler.add("1");
+         sampler.add("2");
+
+         StatsSample latest = new StatsSample();
+         for (int i = 0; i < 100 && !(sampler.getLatest("1", latest) && latest.getRxBytes() == 1024); i++) {
+            Thread.sleep(50);
+         }
+         assertThat(latest.getMemoryUsage()).isEqualTo(7000000);
+         assertThat(sampler.getContainers()).containsOnly("1");
+
+         final AtomicReference<String> published = new AtomicReference<String>();
+         sampler.publish(new ContainerStatsSampler.Listener() {
+            @Override
+            public void onSample(ContainerStatsSampler.Aggregate aggregate) {
+               assertThat(aggregate.getContainers()).isEqualTo(1);
+               assertThat(aggregate.getTxBytes()).isEqualTo(512);
+               published.set(aggregate.toString());
+            }
+         });
+         assertThat(published.get()).isNotNull();
+      } finally {
+         sampler.close();
+         daemon.close();
+         executor.shutdown();
+      }
+      assertThat(sampler.getContainers()).isEmpty();
+   }
+
+}
@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.docker.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Unit tests for the {@link DockerIgnore} class.
+ */
+@Test(groups = "unit", testName = "DockerIgnoreTest")
+public class DockerIgnoreTest {
+
+   public void testPatterns() {
+      DockerIgnore ignore = DockerIgnore.parse(ImmutableList.of("# comment", "", "*.md", "!README.md", "/tmp",
+            "**/*.class", "docs/**", "file?.txt", "[ab].txt"));
+
+      assertThat(ignore.isExcluded("CHANGES.md")).isTrue();
+      assertThat(ignore.isExcluded("README.md")).isFalse();
+      assertThat(ignore.isExcluded("src/CHANGES.md")).isFalse();
+      assertThat(ignore.isExcluded("tmp")).isTrue();
+      assertThat(ignore.isExcluded("tmp/cache/data")).isTrue();
+      assertThat(ignore.isExcluded("App.class")).isTrue();
+      assertThat(ignore.isExcluded("target/classes/org/App.class")).isTrue();
+      assertThat(ignore.isExcluded("docs/guide/index.html")).isTrue();
+      assertThat(ignore.isExcluded("file1.txt")).isTrue();
+      assertThat(ignore.isExcluded("file10.txt")).isFalse();
+      assertThat(ignore.isExcluded("a.txt")).isTrue();
+      assertThat(ignore.isExcluded("c.txt")).isFalse();
+      assertThat(ignore.isExcluded("./src/Main.java")).isFalse();
+      assertThat(ignore.hasExceptions()).isTrue();
+   }
+
+   public void testNoPatterns() {
+      DockerIgnore ignore = DockerIgnore.parse(ImmutableList.<String>of());
+      assertThat(ignore.isExcluded("anything")).isFalse();
+      assertThat(ignore.hasExceptions()).isFalse();
+   }
+
+}
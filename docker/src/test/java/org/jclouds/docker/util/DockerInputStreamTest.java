@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.docker.util;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+
+import org.jclouds.docker.util.StdStreamData.StdStreamType;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Strings;
+
+/**
+ * Unit tests for the {@link DockerInputStream} class.
+ */
+@Test(groups = "unit", testName = "DockerInputStreamTest")
+public class DockerInputStreamTest {
+
+   // larger than the copy buffer, so the message is copied in several parts
+   private static final String LONG_OUTPUT = Strings.repeat("0123456789", 2000);
+
+   public void testReadStdStreamData() throws IOException {
+      DockerInputStream input = new DockerInputStream(new ByteArrayInputStream(frames()));
+
+      StdStreamData data = input.readStdStreamData();
+      assertThat(data.getType()).isEqualTo(StdStreamType.OUT);
+      assertThat(new String(data.getPayload(), UTF_8)).isEqualTo("hello ");
+      assertThat(data.isTruncated()).isFalse();
+      assertThat(input.readStdStreamData().getType()).isEqualTo(StdStreamType.ERR);
+      assertThat(input.readStdStreamData().getType()).isEqualTo(StdStreamType.OUT);
+      assertThat(input.readStdStreamData().getPayload()).hasSize(LONG_OUTPUT.length());
+      assertThat(input.readStdStreamData()).isNull();
+   }
+
+   public void testDemultiplexToStreams() throws IOException {
+      ByteArrayOutputStream stdOut = new ByteArrayOutputStream();
+      ByteArrayOutputStream stdErr = new ByteArrayOutputStream();
+
+      long read = new DockerInputStream(new ByteArrayInputStream(frames())).demultiplex(stdOut, stdErr);
+
+      assertThat(new String(stdOut.toByteArray(), UTF_8)).isEqualTo("hello world" + LONG_OUTPUT);
+      assertThat(new String(stdErr.toByteArray(), UTF_8)).isEqualTo("oops");
+      assertThat(read).isEqualTo("hello worldoops".length() + LONG_OUTPUT.length());
+   }
+
+   public void testDemultiplexToChannels() throws IOException {
+      ByteArrayOutputStream stdOut = new ByteArrayOutputStream();
+
+      new DockerInputStream(new ByteArrayInputStream(frames())).demultiplex(Channels.newChannel(stdOut), null);
+
+      assertThat(new String(stdOut.toByteArray(), UTF_8)).isEqualTo("hello world" + LONG_OUTPUT);
+   }
+
+   private static byte[] frames() throws IOException {
+      ByteArrayOutputStream frames = new ByteArrayOutputStream();
+      frame(frames, 1, "hello ");
+      frame(frames, 2, "oops");
+      frame(frames, 1, "world");
+      frame(frames, 1, LONG_OUTPUT);
+      return frames.toByteArray();
+   }
+
+   private static void frame(ByteArrayOutputStream frames, int type, String payload) throws IOException {
+      byte[] data = payload.getBytes(UTF_8);
+      frames.write(new byte[] { (byte) type, 0, 0, 0, (byte) (data.length >>> 24), (byte) (data.length >>> 16),
+            (byte) (data.length >>> 8), (byte) data.length });
+      frames.write(data);
+   }
+
+}
@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.docker.util;
+
+import static java.lang.String.format;
+import static java.util.logging.Logger.getAnonymousLogger;
+import static org.assertj.core.api.Assertions.assertThat;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.google.common.io.ByteStreams;
+
+/**
+ * Compares the throughput of reading a large framed stream with {@link DockerInputStream#readStdStreamData()} and
+ * with {@link DockerInputStream#demultiplex(java.io.OutputStream, java.io.OutputStream)}. The performance group is
+ * excluded from the default build; run it with {@code mvn test -Pperformance}.
+ */
+@Test(groups = "performance", singleThreaded = true, testName = "DockerInputStreamThroughputTest")
+public class DockerInputStreamThroughputTest {
+
+   private static final int FRAMES = 4096;
+   private static final int FRAME_SIZE = 16 * 1024;
+   private static final long PAYLOAD = (long) FRAMES * FRAME_SIZE;
+
+   private byte[] frames;
+
+   @BeforeClass
+   public void setUp() {
+      frames = new byte[FRAMES * (8 + FRAME_SIZE)];
+      int offset = 0;
+      for (int i = 0; i < FRAMES; i++) {
+         // every other frame is written to the standard error
+         frames[offset] = (byte) (i % 2 == 0 ? 1 : 2);
+         frames[offset + 4] = (byte) (FRAME_SIZE >>> 24);
+         frames[offset + 5] = (byte) (FRAME_SIZE >>> 16);
+         frames[offset + 6] = (byte) (FRAME_SIZE >>> 8);
+         frames[offset + 7] = (byte) FRAME_SIZE;
+         offset += 8 + FRAME_SIZE;
+      }
+   }
+
+   public void testReadStdStreamData() throws IOException {
+      DockerInputStream in = new DockerInputStream(new ByteArrayInputStream(frames));
+      long start = System.nanoTime();
+      long bytes = 0;
+      StdStreamData data;
+      while ((data = in.readStdStreamData()) != null) {
+         bytes += data.getPayload().length;
+      }
+      report("readStdStreamData", bytes, start);
+   }
+
+   public void testDemultiplexToStreams() throws IOException {
+      DockerInputStream in = new DockerInputStream(new ByteArrayInputStream(frames));
+      long start = System.nanoTime();
+      report("demultiplex to streams", in.demultiplex(ByteStreams.nullOutputStream(), ByteStreams.nullOutputStream()),
+            start);
+   }
+
+   public void testDemultiplexToChannels() throws IOException {
+      DockerInputStream in = new DockerInputStream(new ByteArrayInputStream(frames));
+      long start = System.nanoTime();
+      report("demultiplex to channels", in.demultiplex(Channels.newChannel(ByteStreams.nullOutputStream()),
+            Channels.newChannel(ByteStreams.nullOutputStream())), start);
+   }
+
+   private static void report(String name, long bytes, long start) {
+      long elapsed = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+      assertThat(bytes).isEqualTo(PAYLOAD);
+      getAnonymousLogger().info(format("%s: %d MiB in %d ms (%.1f MiB/s)", name, bytes >> 20, elapsed,
+            (bytes >> 20) * 1000.0 / elapsed));
+   }
+
+}
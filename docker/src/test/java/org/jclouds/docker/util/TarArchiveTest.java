@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.docker.util;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import org.jclouds.io.Payload;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+
+/**
+ * Unit tests for the {@link TarArchive} and {@link TarReader} classes.
+ */
+@Test(groups = "unit", testName = "TarArchiveTest", singleThreaded = true)
+public class TarArchiveTest {
+
+   private static final String LONG_NAME = Strings.repeat("directory/", 12) + Strings.repeat("x", 120);
+
+   private File context;
+
+   @BeforeMethod
+   public void createContext() throws IOException {
+      context = Files.createTempDir();
+      write("Dockerfile", "FROM busybox\nCOPY . /app\n");
+      write(".dockerignore", "# build output\ntarget\n*.log\n!keep.log\nDockerfile\n");
+      write("app/main.sh", "echo hello\n");
+      write("app/empty", "");
+      write("debug.log", "ignored");
+      write("keep.log", "kept");
+      write("target/classes/App.class", "ignored");
+      write(LONG_NAME, Strings.repeat("0123456789", 100));
+   }
+
+   @AfterMethod(alwaysRun = true)
+   public void deleteContext() throws IOException {
+      delete(context);
+   }
+
+   public void testEntriesHonourDockerignore() throws IOException {
+      List<String> names = TarArchive.fromDirectory(context).getEntryNames();
+      assertThat(names).contains(".dockerignore", "Dockerfile", "app/", "app/main.sh", "keep.log", LONG_NAME);
+      assertThat(names).doesNotContain("debug.log", "target/", "target/classes/App.class");
+   }
+
+   public void testRoundTrip() throws IOException {
+      TarArchive archive = TarArchive.fromDirectory(context);
+      byte[] tar = ByteStreams.toByteArray(archive.openStream());
+      assertThat((long) tar.length).isEqualTo(archive.getContentLength());
+      assertThat(tar.length % 512).isEqualTo(0);
+
+      Map<String, String> files = read(new ByteArrayInputStream(tar));
+      assertThat(files.keySet()).containsExactlyElementsOf(archive.getEntryNames());
+      assertThat(files.get("app/main.sh")).isEqualTo("echo hello\n");
+      assertThat(files.get("app/empty")).isEmpty();
+      assertThat(files.get(LONG_NAME)).isEqualTo(Strings.repeat("0123456789", 100));
+      assertThat(files.get("app/")).isNull();
+   }
+
+   public void testGzipRoundTrip() throws IOException {
+      TarArchive archive = TarArchive.fromDirectory(context).gzip(true);
+      assertThat(archive.getContentLength()).isNull();
+
+      Map<String, String> files = read(new GZIPInputStream(archive.openStream()));
+      assertThat(files.keySet()).containsExactlyElementsOf(archive.getEntryNames());
+      assertThat(files.get("keep.log")).isEqualTo("kept");
+   }
+
+   public void testPayloadKeepsItsEntries() throws IOException {
+      Payload payload = TarArchive.fromDirectory(context).toPayload();
+      write("added.txt", "added after the payload");
+
+      byte[] tar = ByteStreams.toByteArray(payload.openStream());
+      assertThat((long) tar.length).isEqualTo(payload.getContentMetadata().getContentLength());
+      assertThat(read(new ByteArrayInputStream(tar))).doesNotContainKey("added.txt");
+   }
+
+   public void testGzipStreamClosedBeforeTheEnd() throws IOException {
+      InputStream gzip = TarArchive.fromDirectory(context).gzip(true).openStream();
+      assertThat(gzip.read(new byte[16])).isPositive();
+      gzip.close();
+   }
+
+   public void testReaderSkipsUnreadContent() throws IOException {
+      TarReader reader = new TarReader(TarArchive.fromDirectory(context).openStream());
+      List<String> names = Lists.newArrayList();
+      try {
+         for (TarReader.Entry entry = reader.next(); entry != null; entry = reader.next()) {
+            names.add(entry.getName());
+         }
+      } finally {
+         reader.close();
+      }
+      assertThat(names).isEqualTo(TarArchive.fromDirectory(context).getEntryNames());
+   }
+
+   private static Map<String, String> read(InputStream tar) throws IOException {
+      Map<String, String> files = Maps.newLinkedHashMap();
+      TarReader reader = new TarReader(tar);
+      try {
+         for (TarReader.Entry entry = reader.next(); entry != null; entry = reader.next()) {
+            files.put(entry.getName(), entry.isFile()
+                  ? new String(ByteStreams.toByteArray(reader.getContent()), UTF_8) : null);
+         }
+      } finally {
+         reader.close();
+      }
+      return files;
+   }
+
+   private void write(String path, String content) throws IOException {
+      File file = new File(context, path);
+      Files.createParentDirs(file);
+      Files.write(content, file, UTF_8);
+   }
+
+   private static void delete(File file) {
+      File[] children = file.listFiles();
+      if (children != null) {
+         for (File child : children) {
+            delete(child);
+         }
+      }
+      file.delete();
+   }
+
+}
@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.docker.util;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.ByteBuffer;
+
+import jnr.unixsocket.UnixServerSocketChannel;
+import jnr.unixsocket.UnixSocketAddress;
+import jnr.unixsocket.UnixSocketChannel;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.io.ByteStreams;
+
+/**
+ * Unit tests for the {@link UnixSocketFactory} class.
+ */
+@Test(groups = "unit", testName = "UnixSocketFactoryTest", singleThreaded = true)
+public class UnixSocketFactoryTest {
+
+   private File path;
+   private UnixServerSocketChannel server;
+
+   @BeforeMethod
+   public void startServer() throws IOException {
+      path = File.createTempFile("docker", ".sock");
+      path.delete();
+      server = UnixServerSocketChannel.open();
+      server.socket().bind(new UnixSocketAddress(path));
+   }
+
+   @AfterMethod(alwaysRun = true)
+   public void stopServer() throws IOException {
+      server.close();
+      path.delete();
+   }
+
+   public void testIsUnixSocket() {
+      assertThat(UnixSocketFactory.isUnixSocket(URI.create("unix:///var/run/docker.sock"))).isTrue();
+      assertThat(UnixSocketFactory.isUnixSocket(URI.create("https://localhost:2376"))).isFalse();
+   }
+
+   public void testConnectIgnoresRequestedAddress() throws Exception {
+      Thread echo = new Thread(new Runnable() {
+         @Override
+         public void run() {
+            try {
+               UnixSocketChannel channel = server.accept();
+               try {
+                  ByteBuffer buffer = ByteBuffer.allocate(4);
+                  while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                  }
+                  buffer.flip();
+                  channel.write(buffer);
+               } finally {
+                  channel.close();
+               }
+            } catch (IOException e) {
+               throw new RuntimeException(e);
+            }
+         }
+      });
+      echo.start();
+
+      Socket socket = new UnixSocketFactory(path).createSocket();
+      try {
+         socket.connect(new InetSocketAddress("localhost", 80), 1000);
+         assertThat(socket.isConnected()).isTrue();
+         socket.getOutputStream().write("ping".getBytes(UTF_8));
+         socket.getOutputStream().flush();
+         InputStream in = socket.getInputStream();
+         byte[] response = new byte[4];
+         ByteStreams.readFully(in, response);
+         assertThat(new String(response, UTF_8)).isEqualTo("ping");
+      } finally {
+         socket.close();
+      }
+      assertThat(socket.isClosed()).isTrue();
+      echo.join(5000);
+   }
+
+   @Test(expectedExceptions = IOException.class)
+   public void testStreamsRequireConnection() throws IOException {
+      new UnixSocketFactory(path).createSocket().getInputStream();
+   }
+
+}
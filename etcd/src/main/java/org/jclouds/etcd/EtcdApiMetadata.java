@@ -17,6 +17,9 @@
 
 package org.jclouds.etcd;
 
+import static org.jclouds.etcd.config.EtcdProperties.CLUSTER_REFRESH;
+import static org.jclouds.etcd.config.EtcdProperties.CLUSTER_ROUTING;
+
 import java.net.URI;
 import java.util.Properties;
 
@@ -49,6 +52,8 @@ public class EtcdApiMetadata extends BaseHttpApiMetadata<EtcdApi> {
 
    public static Properties defaultProperties() {
       Properties properties = BaseHttpApiMetadata.defaultProperties();
+      properties.setProperty(CLUSTER_ROUTING, "false");
+      properties.setProperty(CLUSTER_REFRESH, "5");
       return properties;
    }
 
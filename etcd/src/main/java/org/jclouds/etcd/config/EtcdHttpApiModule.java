@@ -19,6 +19,7 @@ package org.jclouds.etcd.config;
 
 import org.jclouds.etcd.EtcdApi;
 import org.jclouds.http.HttpErrorHandler;
+import org.jclouds.http.IOExceptionRetryHandler;
 import org.jclouds.http.annotation.ClientError;
 import org.jclouds.http.annotation.Redirection;
 import org.jclouds.http.annotation.ServerError;
@@ -26,6 +27,7 @@ import org.jclouds.rest.ConfiguresHttpApi;
 import org.jclouds.rest.config.HttpApiModule;
 
 import org.jclouds.etcd.handlers.EtcdErrorHandler;
+import org.jclouds.etcd.handlers.RetryOnAnotherMember;
 
 @ConfiguresHttpApi
 public class EtcdHttpApiModule extends HttpApiModule<EtcdApi> {
@@ -39,5 +41,6 @@ public class EtcdHttpApiModule extends HttpApiModule<EtcdApi> {
 
    protected void configure() {
       super.configure();
+      bind(IOExceptionRetryHandler.class).to(RetryOnAnotherMember.class);
    }
 }
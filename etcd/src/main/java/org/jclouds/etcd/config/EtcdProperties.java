@@ -0,0 +1,37 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.etcd.config;
+
+/**
+ * Configuration properties of the etcd api.
+ */
+public class EtcdProperties {
+
+   /**
+    * Controls if the requests of the keys api are routed across the members of the cluster: writes, and reads asking
+    * for a quorum, to the leader, and the other reads to the healthy members in turn. The members are discovered from
+    * the configured endpoint.
+    * Default: false
+    */
+   public static final String CLUSTER_ROUTING = "jclouds.etcd.cluster-routing";
+
+   /**
+    * Time in seconds between two checks of the members, leader and health of the cluster when routing requests.
+    * Default: 5
+    */
+   public static final String CLUSTER_REFRESH = "jclouds.etcd.cluster-refresh";
+}
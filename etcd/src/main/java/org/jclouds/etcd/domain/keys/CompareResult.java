@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.etcd.domain.keys;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import org.jclouds.javax.annotation.Nullable;
+
+import com.google.auto.value.AutoValue;
+
+/**
+ * The outcome of a conditional write or delete of a key: the changed key when the condition held, or the reason it
+ * did not.
+ */
+@AutoValue
+public abstract class CompareResult {
+
+   /** Error code of a compared key that does not exist, or has expired. */
+   public static final int KEY_NOT_FOUND = 100;
+
+   public abstract boolean succeeded();
+
+   /**
+    * The changed key, when the condition held.
+    */
+   @Nullable
+   public abstract Key key();
+
+   /**
+    * The etcd error code, when the condition did not hold: 101 when the compared value or index differ, 100 when the
+    * key does not exist and 105 when it already exists.
+    */
+   @Nullable
+   public abstract Integer errorCode();
+
+   /**
+    * The explanation given by etcd, when the condition did not hold.
+    */
+   @Nullable
+   public abstract String cause();
+
+   /**
+    * The index of the etcd cluster when the condition was checked.
+    */
+   @Nullable
+   public abstract Long etcdIndex();
+
+   CompareResult() {
+   }
+
+   public static CompareResult success(Key key) {
+      checkNotNull(key, "key");
+      return new AutoValue_CompareResult(true, key, null, null, key.etcdIndex());
+   }
+
+   public static CompareResult failure(Integer errorCode, String cause, Long etcdIndex) {
+      return new AutoValue_CompareResult(false, null, errorCode, cause, etcdIndex);
+   }
+}
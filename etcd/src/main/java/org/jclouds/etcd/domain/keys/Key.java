@@ -32,11 +32,17 @@ public abstract class Key {
    @Nullable
    public abstract Node prevNode();
 
+   /**
+    * The index of the etcd cluster when the response was sent, taken from the {@code X-Etcd-Index} header.
+    */
+   @Nullable
+   public abstract Long etcdIndex();
+
    Key() {
    }
 
-   @SerializedNames({ "action", "node", "prevNode" })
-   public static Key create(String action, Node node, Node prevNode) {
-      return new AutoValue_Key(action, node, prevNode);
+   @SerializedNames({ "action", "node", "prevNode", "etcdIndex" })
+   public static Key create(String action, Node node, Node prevNode, Long etcdIndex) {
+      return new AutoValue_Key(action, node, prevNode, etcdIndex);
    }
 }
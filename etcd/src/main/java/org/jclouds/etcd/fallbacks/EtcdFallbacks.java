@@ -20,8 +20,14 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Predicates.equalTo;
 import static com.google.common.base.Throwables.propagate;
 import static org.jclouds.http.HttpUtils.returnValueOnCodeOrNull;
+import static org.jclouds.util.Throwables2.getFirstThrowableOfType;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import org.jclouds.Fallback;
+import org.jclouds.etcd.domain.keys.CompareResult;
+import org.jclouds.http.HttpResponseException;
 import org.jclouds.http.HttpUtils;
 
 public final class EtcdFallbacks {
@@ -45,4 +51,35 @@ public final class EtcdFallbacks {
          throw propagate(t);
       }
    }
+
+   /**
+    * Turns the 412 returned when the condition of a conditional write or delete does not hold, and the 404 returned
+    * when the compared key does not exist, into a failed {@link CompareResult}.
+    */
+   public static final class CompareFailedOn412And404 implements Fallback<CompareResult> {
+
+      private static final Pattern ERROR_CODE = Pattern.compile("\"errorCode\"\\s*:\\s*(\\d+)");
+      private static final Pattern CAUSE = Pattern.compile("\"cause\"\\s*:\\s*\"((?:[^\"\\\\]|\\\\.)*)\"");
+      private static final Pattern INDEX = Pattern.compile("\"index\"\\s*:\\s*(\\d+)");
+
+      public CompareResult createOrPropagate(Throwable t) throws Exception {
+         HttpResponseException exception = getFirstThrowableOfType(checkNotNull(t, "throwable"),
+               HttpResponseException.class);
+         if (exception != null && exception.getMessage() != null
+               && (returnValueOnCodeOrNull(t, true, equalTo(412)) != null
+                     || exception.getMessage().contains("Key not found") && HttpUtils.contains404(t))) {
+            String message = exception.getMessage();
+            String errorCode = find(ERROR_CODE, message);
+            String index = find(INDEX, message);
+            return CompareResult.failure(errorCode == null ? null : Integer.valueOf(errorCode), find(CAUSE, message),
+                  index == null ? null : Long.valueOf(index));
+         }
+         throw propagate(t);
+      }
+
+      private static String find(Pattern pattern, String message) {
+         Matcher matcher = pattern.matcher(message);
+         return matcher.find() ? matcher.group(1) : null;
+      }
+   }
 }
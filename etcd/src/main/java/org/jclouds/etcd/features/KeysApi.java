@@ -22,38 +22,137 @@ import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
 import javax.ws.rs.FormParam;
 import javax.ws.rs.GET;
+import javax.ws.rs.POST;
 import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.core.MediaType;
 
+import org.jclouds.etcd.domain.keys.CompareResult;
 import org.jclouds.etcd.domain.keys.Key;
+import org.jclouds.etcd.fallbacks.EtcdFallbacks.CompareFailedOn412And404;
 import org.jclouds.etcd.fallbacks.EtcdFallbacks.NullOnKeyNonFoundAnd404;
+import org.jclouds.etcd.filters.RouteToClusterMember;
+import org.jclouds.etcd.functions.ParseCompareResult;
+import org.jclouds.etcd.functions.ParseKey;
+import org.jclouds.etcd.options.CompareOptions;
+import org.jclouds.etcd.options.GetKeyOptions;
+import org.jclouds.etcd.options.WatchKeyOptions;
 import org.jclouds.rest.annotations.Fallback;
+import org.jclouds.rest.annotations.QueryParams;
+import org.jclouds.rest.annotations.RequestFilters;
+import org.jclouds.rest.annotations.ResponseParser;
 
 @Consumes(MediaType.APPLICATION_JSON)
 @Path("/{jclouds.api-version}/keys")
+@RequestFilters(RouteToClusterMember.class)
 public interface KeysApi {
 
    @Named("keys:create")
    @PUT
    @Path("/{key}")
+   @ResponseParser(ParseKey.class)
    Key createKey(@PathParam("key") String key, @FormParam("value") String value);
 
    @Named("keys:create")
    @PUT
    @Path("/{key}")
+   @ResponseParser(ParseKey.class)
    Key createKey(@PathParam("key") String key, @FormParam("value") String value, @FormParam("ttl") int seconds);
 
+   /**
+    * Resets the time to live of an existing key without changing its value, and without notifying its watchers.
+    *
+    * @return the refreshed key, or a failure with error code 100 if the key has expired already
+    */
+   @Named("keys:refresh")
+   @PUT
+   @Path("/{key}")
+   @QueryParams(keys = { "refresh", "prevExist" }, values = { "true", "true" })
+   @ResponseParser(ParseCompareResult.class)
+   @Fallback(CompareFailedOn412And404.class)
+   CompareResult refreshKey(@PathParam("key") String key, @FormParam("ttl") int seconds);
+
+   /**
+    * Creates a key with a name generated by etcd in the directory, greater than the names of the keys created in it
+    * before, so the keys of a directory read sorted are in creation order.
+    */
+   @Named("keys:createInOrder")
+   @POST
+   @Path("/{dir}")
+   @ResponseParser(ParseKey.class)
+   Key createInOrderKey(@PathParam("dir") String dir, @FormParam("value") String value,
+         @FormParam("ttl") int seconds);
+
+   /**
+    * Sets the key to the value only if the conditions hold, atomically.
+    *
+    * @return the changed key, or the reason the conditions did not hold
+    */
+   @Named("keys:compareAndSwap")
+   @PUT
+   @Path("/{key}")
+   @ResponseParser(ParseCompareResult.class)
+   @Fallback(CompareFailedOn412And404.class)
+   CompareResult compareAndSwap(@PathParam("key") String key, @FormParam("value") String value,
+         CompareOptions options);
+
+   /**
+    * Deletes the key only if the conditions hold, atomically.
+    *
+    * @return the deleted key, or the reason the conditions did not hold
+    */
+   @Named("keys:compareAndDelete")
+   @DELETE
+   @Path("/{key}")
+   @ResponseParser(ParseCompareResult.class)
+   @Fallback(CompareFailedOn412And404.class)
+   CompareResult compareAndDelete(@PathParam("key") String key, CompareOptions options);
+
    @Named("keys:get")
    @GET
    @Path("/{key}")
+   @ResponseParser(ParseKey.class)
    @Fallback(NullOnKeyNonFoundAnd404.class)
    Key getKey(@PathParam("key") String key);
 
+   @Named("keys:get")
+   @GET
+   @Path("/{key}")
+   @ResponseParser(ParseKey.class)
+   @Fallback(NullOnKeyNonFoundAnd404.class)
+   Key getKey(@PathParam("key") String key, GetKeyOptions options);
+
+   /**
+    * Waits for the next change to the key and returns it. The request is held open by etcd until the change happens,
+    * or fails once the socket read timeout of the API ({@code jclouds.so-timeout}) expires.
+    *
+    * @see org.jclouds.etcd.util.Watcher
+    */
+   @Named("keys:watch")
+   @GET
+   @Path("/{key}")
+   @QueryParams(keys = "wait", values = "true")
+   @ResponseParser(ParseKey.class)
+   Key watchKey(@PathParam("key") String key);
+
+   /**
+    * Waits for the next change to the key, or below it when recursive, and returns it. Given a wait index, returns
+    * the first change made at or after that index, which may already have happened.
+    *
+    * @see org.jclouds.etcd.util.Watcher
+    */
+   @Named("keys:watch")
+   @GET
+   @Path("/{key}")
+   @QueryParams(keys = "wait", values = "true")
+   @ResponseParser(ParseKey.class)
+   Key watchKey(@PathParam("key") String key, WatchKeyOptions options);
+
    @Named("keys:delete")
    @DELETE
    @Path("/{key}")
+   @ResponseParser(ParseKey.class)
    @Fallback(NullOnKeyNonFoundAnd404.class)
    Key deleteKey(@PathParam("key") String key);
 }
@@ -17,6 +17,7 @@
 
 package org.jclouds.etcd.features;
 
+import java.net.URI;
 import java.util.List;
 
 import javax.inject.Named;
@@ -33,6 +34,7 @@ import org.jclouds.etcd.domain.members.CreateMember;
 import org.jclouds.etcd.domain.members.Member;
 import org.jclouds.rest.ResourceAlreadyExistsException;
 import org.jclouds.rest.annotations.BinderParam;
+import org.jclouds.rest.annotations.EndpointParam;
 import org.jclouds.rest.annotations.Fallback;
 import org.jclouds.rest.annotations.SelectJson;
 import org.jclouds.rest.binders.BindToJsonPayload;
@@ -49,6 +51,16 @@ public interface MembersApi {
    @GET
    List<Member> list();
 
+   /**
+    * @param endpoint
+    *           client URL of the member to ask
+    * @return list of members within cluster, as known by the given member
+    */
+   @Named("members:list")
+   @SelectJson("members")
+   @GET
+   List<Member> list(@EndpointParam URI endpoint);
+
    /**
     * @param member
     *           non-existing member to add to cluster
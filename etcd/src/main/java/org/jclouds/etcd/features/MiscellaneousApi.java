@@ -17,6 +17,8 @@
 
 package org.jclouds.etcd.features;
 
+import java.net.URI;
+
 import javax.inject.Named;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.GET;
@@ -25,6 +27,7 @@ import javax.ws.rs.core.MediaType;
 
 import org.jclouds.etcd.domain.miscellaneous.Version;
 import org.jclouds.etcd.fallbacks.EtcdFallbacks.FalseOn503;
+import org.jclouds.rest.annotations.EndpointParam;
 import org.jclouds.rest.annotations.Fallback;
 import org.jclouds.rest.annotations.SelectJson;
 
@@ -44,6 +47,14 @@ public interface MiscellaneousApi {
    @GET
    boolean health();
 
+   @Named("miscellaneous:health")
+   @Consumes(MediaType.APPLICATION_JSON)
+   @Path("/health")
+   @SelectJson("health")
+   @Fallback(FalseOn503.class)
+   @GET
+   boolean health(@EndpointParam URI endpoint);
+
    @Named("miscellaneous:metrics")
    @Consumes(MediaType.TEXT_PLAIN)
    @Path("/metrics")
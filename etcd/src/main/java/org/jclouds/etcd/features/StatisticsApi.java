@@ -17,6 +17,8 @@
 
 package org.jclouds.etcd.features;
 
+import java.net.URI;
+
 import javax.inject.Named;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.GET;
@@ -26,6 +28,7 @@ import javax.ws.rs.core.MediaType;
 import org.jclouds.etcd.domain.statistics.Leader;
 import org.jclouds.etcd.domain.statistics.Self;
 import org.jclouds.etcd.domain.statistics.Store;
+import org.jclouds.rest.annotations.EndpointParam;
 
 @Consumes(MediaType.APPLICATION_JSON)
 @Path("/{jclouds.api-version}/stats")
@@ -48,6 +51,16 @@ public interface StatisticsApi {
    @GET
    Self self();
 
+   /**
+    * @param endpoint
+    *           client URL of the member to ask
+    * @return information on the given member
+    */
+   @Named("statistics:self")
+   @Path("/self")
+   @GET
+   Self self(@EndpointParam URI endpoint);
+
    /**
     * @return information about operations this node has handled
     */
@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.etcd.filters;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.net.URI;
+import java.util.regex.Pattern;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.jclouds.etcd.internal.ClusterRouter;
+import org.jclouds.http.HttpException;
+import org.jclouds.http.HttpRequest;
+import org.jclouds.http.HttpRequestFilter;
+
+/**
+ * Sends the requests to the member of the cluster chosen by the {@link ClusterRouter} when routing is enabled:
+ * writes, and reads asking for a quorum, to the leader, and the other reads to the healthy members in turn.
+ */
+@Singleton
+public class RouteToClusterMember implements HttpRequestFilter {
+
+   private static final Pattern QUORUM = Pattern.compile("(^|&)quorum=true(&|$)");
+
+   private final ClusterRouter router;
+
+   @Inject
+   RouteToClusterMember(ClusterRouter router) {
+      this.router = checkNotNull(router, "router");
+   }
+
+   @Override
+   public HttpRequest filter(HttpRequest request) throws HttpException {
+      if (!router.isEnabled()) {
+         return request;
+      }
+      URI member = isLocalRead(request) ? router.getReadEndpoint() : router.getWriteEndpoint();
+      // the filters run again on every attempt, so a retry after a failover goes to another member
+      router.routedTo(member);
+      return request.toBuilder().endpoint(rebase(request.getEndpoint(), member)).build();
+   }
+
+   /**
+    * Reads that any member can answer from its own copy of the store, which is all of them but quorum reads.
+    */
+   static boolean isLocalRead(HttpRequest request) {
+      String query = request.getEndpoint().getRawQuery();
+      return "GET".equals(request.getMethod()) && (query == null || !QUORUM.matcher(query).find());
+   }
+
+   /**
+    * Returns the endpoint with the scheme, host and port of the member.
+    */
+   static URI rebase(URI endpoint, URI member) {
+      StringBuilder rebased = new StringBuilder(member.getScheme()).append("://").append(member.getRawAuthority())
+            .append(endpoint.getRawPath());
+      if (endpoint.getRawQuery() != null) {
+         rebased.append('?').append(endpoint.getRawQuery());
+      }
+      return URI.create(rebased.toString());
+   }
+}
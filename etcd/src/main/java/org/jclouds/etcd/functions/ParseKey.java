@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.etcd.functions;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.jclouds.etcd.domain.keys.Key;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.http.functions.ParseJson;
+
+import com.google.common.base.Function;
+
+/**
+ * Parses a {@link Key} and records the {@code X-Etcd-Index} header of the response in it.
+ */
+@Singleton
+public class ParseKey implements Function<HttpResponse, Key> {
+
+   public static final String ETCD_INDEX = "X-Etcd-Index";
+
+   private final ParseJson<Key> parser;
+
+   @Inject
+   ParseKey(ParseJson<Key> parser) {
+      this.parser = checkNotNull(parser, "parser");
+   }
+
+   @Override
+   public Key apply(HttpResponse response) {
+      Key key = parser.apply(response);
+      if (key == null) {
+         return null;
+      }
+      String etcdIndex = response.getFirstHeaderOrNull(ETCD_INDEX);
+      if (etcdIndex == null) {
+         return key;
+      }
+      return Key.create(key.action(), key.node(), key.prevNode(), Long.valueOf(etcdIndex.trim()));
+   }
+}
@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.etcd.handlers;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.URI;
+import java.net.UnknownHostException;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import org.jclouds.etcd.filters.RouteToClusterMember;
+import org.jclouds.etcd.internal.ClusterRouter;
+import org.jclouds.http.HttpCommand;
+import org.jclouds.http.HttpRequestFilter;
+import org.jclouds.http.IOExceptionRetryHandler;
+import org.jclouds.http.handlers.BackoffLimitedRetryHandler;
+
+/**
+ * When cluster routing is enabled and a request could not connect to the member it was routed to, marks that member
+ * down and sends the request again at once, so it goes to the leader, or to another healthy member, without waiting
+ * for the next refresh of the members. The request is failed over once; other failures, and failures of the request
+ * sent again, are retried with the usual backoff.
+ */
+@Singleton
+public class RetryOnAnotherMember implements IOExceptionRetryHandler {
+
+   // the router needs the api, which needs this handler
+   private final Provider<ClusterRouter> router;
+   private final BackoffLimitedRetryHandler backoffHandler;
+
+   @Inject
+   RetryOnAnotherMember(Provider<ClusterRouter> router, BackoffLimitedRetryHandler backoffHandler) {
+      this.router = checkNotNull(router, "router");
+      this.backoffHandler = checkNotNull(backoffHandler, "backoffHandler");
+   }
+
+   @Override
+   public boolean shouldRetryRequest(HttpCommand command, IOException error) {
+      // the filter of a routed request records its member on this thread just before sending it
+      if (isConnectionFailure(error) && isRouted(command) && router.get().isEnabled()) {
+         URI member = router.get().lastRouted();
+         if (member != null) {
+            router.get().markDown(member);
+            if (command.getFailureCount() == 0) {
+               command.incrementFailureCount();
+               return true;
+            }
+         }
+      }
+      return backoffHandler.shouldRetryRequest(command, error);
+   }
+
+   private static boolean isRouted(HttpCommand command) {
+      for (HttpRequestFilter filter : command.getCurrentRequest().getFilters()) {
+         if (filter instanceof RouteToClusterMember) {
+            return true;
+         }
+      }
+      return false;
+   }
+
+   static boolean isConnectionFailure(IOException error) {
+      return error instanceof ConnectException || error instanceof NoRouteToHostException
+            || error instanceof UnknownHostException;
+   }
+}
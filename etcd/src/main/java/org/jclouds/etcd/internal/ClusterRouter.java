@@ -0,0 +1,238 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.etcd.internal;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.jclouds.etcd.config.EtcdProperties.CLUSTER_REFRESH;
+import static org.jclouds.etcd.config.EtcdProperties.CLUSTER_ROUTING;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Resource;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.Constants;
+import org.jclouds.etcd.EtcdApi;
+import org.jclouds.etcd.domain.members.Member;
+import org.jclouds.etcd.domain.statistics.Self;
+import org.jclouds.location.Provider;
+import org.jclouds.logging.Logger;
+
+import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ListeningExecutorService;
+
+/**
+ * Knows the members of the etcd cluster, which of them are healthy and which one is the leader, so requests can be
+ * sent to the right member without paying for a redirect.
+ * <p>
+ * The members are listed from any member that answers, the configured endpoint first, and each of them is checked
+ * with {@code /health} and asked whether it leads with {@code /v2/stats/self}. The first request waits for this
+ * discovery; afterwards it is repeated in the background every
+ * {@link org.jclouds.etcd.config.EtcdProperties#CLUSTER_REFRESH} seconds, and requests use the last known state
+ * meanwhile. A member that cannot be connected to is dropped at once by {@link #markDown(URI)}, which also brings
+ * the next refresh forward, so a failed member stops receiving requests after the first request that fails on it.
+ */
+@Singleton
+public class ClusterRouter {
+
+   static final String LEADER_STATE = "StateLeader";
+
+   static final class Topology {
+      // null when no healthy member leads
+      private final URI leader;
+      private final List<URI> healthy;
+      private final List<URI> members;
+      private final long refreshed;
+
+      Topology(URI leader, List<URI> healthy, List<URI> members, long refreshed) {
+         this.leader = leader;
+         this.healthy = ImmutableList.copyOf(healthy);
+         this.members = ImmutableList.copyOf(members);
+         this.refreshed = refreshed;
+      }
+   }
+
+   @Resource
+   protected Logger logger = Logger.NULL;
+
+   private final EtcdApi api;
+   private final Supplier<URI> endpoint;
+   private final boolean enabled;
+   private final long refreshNanos;
+   private final ListeningExecutorService userExecutor;
+   private final AtomicBoolean refreshing = new AtomicBoolean();
+   private final AtomicInteger nextRead = new AtomicInteger();
+   private final ThreadLocal<URI> routed = new ThreadLocal<URI>();
+   private volatile Topology topology;
+
+   @Inject
+   ClusterRouter(EtcdApi api, @Provider Supplier<URI> endpoint, @Named(CLUSTER_ROUTING) boolean enabled,
+         @Named(CLUSTER_REFRESH) long refreshSeconds,
+         @Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService userExecutor) {
+      this.api = checkNotNull(api, "api");
+      this.endpoint = checkNotNull(endpoint, "endpoint");
+      this.enabled = enabled;
+      this.refreshNanos = TimeUnit.SECONDS.toNanos(refreshSeconds);
+      this.userExecutor = checkNotNull(userExecutor, "userExecutor");
+   }
+
+   public boolean isEnabled() {
+      return enabled;
+   }
+
+   /**
+    * Returns the client URL of the leader, or of a healthy member, which forwards writes to the leader, when no
+    * leader is known, or of the configured endpoint when none is known to be healthy either.
+    */
+   public URI getWriteEndpoint() {
+      Topology current = current();
+      if (current.leader != null) {
+         return current.leader;
+      }
+      return current.healthy.isEmpty() ? endpoint.get() : current.healthy.get(0);
+   }
+
+   /**
+    * Returns the client URL of the next healthy member, taking them in turn, or of the leader or the configured
+    * endpoint when none is known to be healthy.
+    */
+   public URI getReadEndpoint() {
+      Topology current = current();
+      if (current.healthy.isEmpty()) {
+         return current.leader != null ? current.leader : endpoint.get();
+      }
+      int next = nextRead.getAndIncrement() & Integer.MAX_VALUE;
+      return current.healthy.get(next % current.healthy.size());
+   }
+
+   /**
+    * Records the member the request being sent by the calling thread goes to.
+    */
+   public void routedTo(URI member) {
+      routed.set(member);
+   }
+
+   /**
+    * Returns the member the last request sent by the calling thread went to, or null if it was not routed.
+    */
+   public URI lastRouted() {
+      return routed.get();
+   }
+
+   /**
+    * Stops sending requests to the member until a refresh finds it healthy again, and refreshes the members on the
+    * next request.
+    */
+   public void markDown(URI member) {
+      checkNotNull(member, "member");
+      synchronized (this) {
+         Topology current = topology;
+         if (current == null || !(member.equals(current.leader) || current.healthy.contains(member))) {
+            return;
+         }
+         List<URI> healthy = Lists.newArrayList(current.healthy);
+         healthy.remove(member);
+         topology = new Topology(member.equals(current.leader) ? null : current.leader, healthy, current.members,
+               System.nanoTime() - refreshNanos - 1);
+      }
+      logger.warn("etcd cluster member %s is unreachable, sending its requests to another member", member);
+   }
+
+   private Topology current() {
+      Topology current = topology;
+      if (current == null) {
+         synchronized (this) {
+            if (topology == null) {
+               topology = discover(null);
+            }
+            return topology;
+         }
+      }
+      if (System.nanoTime() - current.refreshed > refreshNanos && refreshing.compareAndSet(false, true)) {
+         final Topology previous = current;
+         userExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+               try {
+                  topology = discover(previous);
+               } catch (RuntimeException e) {
+                  logger.warn(e, "could not refresh the etcd cluster members");
+               } finally {
+                  refreshing.set(false);
+               }
+            }
+         });
+      }
+      return current;
+   }
+
+   private Topology discover(Topology previous) {
+      Set<URI> candidates = Sets.newLinkedHashSet();
+      candidates.add(endpoint.get());
+      if (previous != null) {
+         candidates.addAll(previous.members);
+      }
+      List<Member> listed = null;
+      for (URI candidate : candidates) {
+         try {
+            listed = api.membersApi().list(candidate);
+            break;
+         } catch (RuntimeException e) {
+            logger.debug("could not list the etcd cluster members from %s: %s", candidate, e.getMessage());
+         }
+      }
+      if (listed == null) {
+         logger.warn("no etcd cluster member could list the members, keeping the last known ones");
+         return previous != null ? new Topology(previous.leader, previous.healthy, previous.members, System.nanoTime())
+               : new Topology(null, ImmutableList.<URI> of(), ImmutableList.<URI> of(), System.nanoTime());
+      }
+      URI leader = null;
+      ImmutableList.Builder<URI> healthy = ImmutableList.builder();
+      ImmutableList.Builder<URI> members = ImmutableList.builder();
+      for (Member member : listed) {
+         // members that have not started yet have no client URLs
+         if (member.clientURLs().isEmpty()) {
+            continue;
+         }
+         URI clientURL = URI.create(member.clientURLs().get(0));
+         members.add(clientURL);
+         try {
+            if (!api.miscellaneousApi().health(clientURL)) {
+               continue;
+            }
+            healthy.add(clientURL);
+            Self self = api.statisticsApi().self(clientURL);
+            if (LEADER_STATE.equals(self.state())) {
+               leader = clientURL;
+            }
+         } catch (RuntimeException e) {
+            logger.debug("etcd cluster member %s is unavailable: %s", clientURL, e.getMessage());
+         }
+      }
+      return new Topology(leader, healthy.build(), members.build(), System.nanoTime());
+   }
+}
@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.etcd.options;
+
+import org.jclouds.http.options.BaseHttpRequestOptions;
+
+/**
+ * Conditions of a compare-and-swap or compare-and-delete of a key. The change is only made if all of them hold.
+ */
+public class CompareOptions extends BaseHttpRequestOptions {
+
+   /**
+    * Requires the key to have the given value.
+    */
+   public CompareOptions prevValue(String prevValue) {
+      this.queryParameters.put("prevValue", prevValue);
+      return this;
+   }
+
+   /**
+    * Requires the key to have been last modified at the given index.
+    */
+   public CompareOptions prevIndex(long prevIndex) {
+      this.queryParameters.put("prevIndex", String.valueOf(prevIndex));
+      return this;
+   }
+
+   /**
+    * Requires the key to exist, or not to exist.
+    */
+   public CompareOptions prevExist(boolean prevExist) {
+      this.queryParameters.put("prevExist", String.valueOf(prevExist));
+      return this;
+   }
+
+   public static class Builder {
+      /**
+       * @see CompareOptions#prevValue
+       */
+      public static CompareOptions prevValue(String prevValue) {
+         CompareOptions options = new CompareOptions();
+         return options.prevValue(prevValue);
+      }
+
+      /**
+       * @see CompareOptions#prevIndex
+       */
+      public static CompareOptions prevIndex(long prevIndex) {
+         CompareOptions options = new CompareOptions();
+         return options.prevIndex(prevIndex);
+      }
+
+      /**
+       * @see CompareOptions#prevExist
+       */
+      public static CompareOptions prevExist(boolean prevExist) {
+         CompareOptions options = new CompareOptions();
+         return options.prevExist(prevExist);
+      }
+   }
+}
@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.etcd.options;
+
+import org.jclouds.http.options.BaseHttpRequestOptions;
+
+/**
+ * Options to read a key or a directory.
+ */
+public class GetKeyOptions extends BaseHttpRequestOptions {
+
+   /**
+    * Returns the whole tree below a directory instead of its direct children only.
+    */
+   public GetKeyOptions recursive(boolean recursive) {
+      this.queryParameters.put("recursive", String.valueOf(recursive));
+      return this;
+   }
+
+   /**
+    * Returns the children of a directory sorted by key.
+    */
+   public GetKeyOptions sorted(boolean sorted) {
+      this.queryParameters.put("sorted", String.valueOf(sorted));
+      return this;
+   }
+
+   /**
+    * Asks for a value agreed on by a quorum of the cluster instead of the local copy of the member answering, which
+    * may lag behind the leader. Quorum reads are sent to the leader when the cluster routing is enabled.
+    */
+   public GetKeyOptions quorum(boolean quorum) {
+      this.queryParameters.put("quorum", String.valueOf(quorum));
+      return this;
+   }
+
+   public static class Builder {
+      /**
+       * @see GetKeyOptions#recursive
+       */
+      public static GetKeyOptions recursive(boolean recursive) {
+         GetKeyOptions options = new GetKeyOptions();
+         return options.recursive(recursive);
+      }
+
+      /**
+       * @see GetKeyOptions#sorted
+       */
+      public static GetKeyOptions sorted(boolean sorted) {
+         GetKeyOptions options = new GetKeyOptions();
+         return options.sorted(sorted);
+      }
+
+      /**
+       * @see GetKeyOptions#quorum
+       */
+      public static GetKeyOptions quorum(boolean quorum) {
+         GetKeyOptions options = new GetKeyOptions();
+         return options.quorum(quorum);
+      }
+   }
+}
@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.etcd.options;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import org.jclouds.http.options.BaseHttpRequestOptions;
+
+/**
+ * Options to watch a key or a directory for changes.
+ */
+public class WatchKeyOptions extends BaseHttpRequestOptions {
+
+   /**
+    * Watches the whole tree below a directory, so one request waits on changes to any key in it.
+    */
+   public WatchKeyOptions recursive(boolean recursive) {
+      this.queryParameters.put("recursive", String.valueOf(recursive));
+      return this;
+   }
+
+   /**
+    * Returns the first change made at or after the given index, even if it happened before the request, so a watch
+    * can resume where the previous one stopped without missing changes.
+    */
+   public WatchKeyOptions waitIndex(long waitIndex) {
+      checkArgument(waitIndex > 0, "waitIndex must be positive");
+      this.queryParameters.put("waitIndex", String.valueOf(waitIndex));
+      return this;
+   }
+
+   public static class Builder {
+      /**
+       * @see WatchKeyOptions#recursive
+       */
+      public static WatchKeyOptions recursive(boolean recursive) {
+         WatchKeyOptions options = new WatchKeyOptions();
+         return options.recursive(recursive);
+      }
+
+      /**
+       * @see WatchKeyOptions#waitIndex
+       */
+      public static WatchKeyOptions waitIndex(long waitIndex) {
+         WatchKeyOptions options = new WatchKeyOptions();
+         return options.waitIndex(waitIndex);
+      }
+   }
+}
@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.etcd.util;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.jclouds.etcd.domain.keys.CompareResult;
+import org.jclouds.etcd.domain.keys.Key;
+import org.jclouds.etcd.features.KeysApi;
+import org.jclouds.etcd.options.CompareOptions;
+import org.jclouds.etcd.options.GetKeyOptions;
+
+import com.google.common.base.Throwables;
+
+/**
+ * A counter stored in a key, updated atomically with compare-and-swap on the index the value was read at. A missing
+ * key counts as zero.
+ */
+public class AtomicCounter {
+
+   static final long MIN_BACKOFF_MILLIS = 5;
+   static final long MAX_BACKOFF_MILLIS = TimeUnit.SECONDS.toMillis(1);
+
+   private final KeysApi api;
+   private final String path;
+   private final Random random = new Random();
+
+   public AtomicCounter(KeysApi api, String key) {
+      this.api = checkNotNull(api, "api");
+      this.path = Watcher.path(Watcher.normalize(checkNotNull(key, "key")));
+   }
+
+   public long get() {
+      Key current = api.getKey(path, GetKeyOptions.Builder.quorum(true));
+      return current == null ? 0 : Long.parseLong(current.node().value());
+   }
+
+   public long incrementAndGet() {
+      return addAndGet(1);
+   }
+
+   public long decrementAndGet() {
+      return addAndGet(-1);
+   }
+
+   /**
+    * Adds the delta to the value, reading it again and retrying when another client changed it in between. Retries
+    * wait a random time below a bound that doubles with every conflict, so contending clients spread out instead of
+    * conflicting again in step.
+    */
+   public long addAndGet(long delta) {
+      long backoff = MIN_BACKOFF_MILLIS;
+      while (true) {
+         Key current = api.getKey(path, GetKeyOptions.Builder.quorum(true));
+         CompareResult result;
+         if (current == null) {
+            result = api.compareAndSwap(path, String.valueOf(delta), CompareOptions.Builder.prevExist(false));
+         } else {
+            long value = Long.parseLong(current.node().value());
+            result = api.compareAndSwap(path, String.valueOf(value + delta),
+                  CompareOptions.Builder.prevIndex(current.node().modifiedIndex()));
+         }
+         if (result.succeeded()) {
+            return Long.parseLong(result.key().node().value());
+         }
+         try {
+            Thread.sleep((long) (random.nextDouble() * backoff));
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw Throwables.propagate(e);
+         }
+         backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+      }
+   }
+
+   /**
+    * Sets the value to the update if it is the expected one.
+    */
+   public boolean compareAndSet(long expect, long update) {
+      CompareResult result = api.compareAndSwap(path, String.valueOf(update),
+            CompareOptions.Builder.prevValue(String.valueOf(expect)));
+      if (!result.succeeded() && expect == 0 && result.errorCode() != null
+            && result.errorCode() == CompareResult.KEY_NOT_FOUND) {
+         result = api.compareAndSwap(path, String.valueOf(update), CompareOptions.Builder.prevExist(false));
+      }
+      return result.succeeded();
+   }
+}
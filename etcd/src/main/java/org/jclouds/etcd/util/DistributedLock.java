@@ -0,0 +1,218 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.etcd.util;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import org.jclouds.etcd.domain.keys.CompareResult;
+import org.jclouds.etcd.domain.keys.Key;
+import org.jclouds.etcd.domain.keys.Node;
+import org.jclouds.etcd.features.KeysApi;
+import org.jclouds.etcd.options.GetKeyOptions;
+import org.jclouds.etcd.options.WatchKeyOptions;
+import org.jclouds.javax.annotation.Nullable;
+
+/**
+ * A lock shared by the clients of an etcd cluster, held by one of them at a time.
+ * <p>
+ * Each client wanting the lock creates an in-order key in the directory of the lock, and holds it when its key is
+ * the oldest one. A client that has to wait only watches the key created just before its own, so releasing the lock
+ * wakes the next client in line and no other: contention does not turn into every waiter reading the directory again.
+ * The keys expire after their time to live, so the lock of a client that disappears is released. A waiting client
+ * keeps its key alive by refreshing it before each watch, and watches again when a watch ends with the read timeout
+ * of the API, so the time to live must be longer than that timeout; a holder must release the lock, or refresh its
+ * key, before it expires. When a {@link LeaseKeeper} is given, it keeps the key alive instead, while the client waits
+ * and while it holds the lock, whatever the time to live.
+ */
+public class DistributedLock {
+
+   private final KeysApi api;
+   private final String directory;
+   private final String owner;
+   private final int ttlSeconds;
+   private final LeaseKeeper keeper;
+   private volatile Key held;
+
+   /**
+    * Creates a lock on the given directory, recording the owner as the value of the keys this client creates.
+    */
+   public DistributedLock(KeysApi api, String directory, String owner, int ttlSeconds) {
+      this(api, directory, owner, ttlSeconds, null);
+   }
+
+   /**
+    * Creates a lock on the given directory whose keys are kept alive by the lease keeper, if not null, from their
+    * creation until the lock is released.
+    */
+   public DistributedLock(KeysApi api, String directory, String owner, int ttlSeconds, @Nullable LeaseKeeper keeper) {
+      checkArgument(ttlSeconds > 0, "ttlSeconds must be positive");
+      this.api = checkNotNull(api, "api");
+      this.directory = Watcher.normalize(checkNotNull(directory, "directory"));
+      this.owner = checkNotNull(owner, "owner");
+      this.ttlSeconds = ttlSeconds;
+      this.keeper = keeper;
+   }
+
+   /**
+    * Waits until this client holds the lock.
+    *
+    * @throws IllegalStateException if the key of this client expired while waiting
+    */
+   public void lock() {
+      checkState(held == null, "lock %s already held", directory);
+      Key mine = enqueue();
+      boolean acquired = false;
+      try {
+         acquired = acquire(mine, true);
+      } finally {
+         if (!acquired) {
+            release(mine);
+         }
+      }
+      held = mine;
+   }
+
+   /**
+    * Takes the lock if no other client holds it or waits for it, without waiting.
+    */
+   public boolean tryLock() {
+      checkState(held == null, "lock %s already held", directory);
+      Key mine = enqueue();
+      boolean acquired = false;
+      try {
+         acquired = acquire(mine, false);
+      } finally {
+         if (!acquired) {
+            release(mine);
+         }
+      }
+      if (acquired) {
+         held = mine;
+      }
+      return acquired;
+   }
+
+   public void unlock() {
+      Key mine = held;
+      checkState(mine != null, "lock %s not held", directory);
+      held = null;
+      release(mine);
+   }
+
+   public boolean isHeld() {
+      return held != null;
+   }
+
+   /**
+    * Returns the key of this client while it holds the lock, to refresh its time to live, or null.
+    */
+   public String getHeldKey() {
+      Key mine = held;
+      return mine == null ? null : mine.node().key();
+   }
+
+   String getDirectory() {
+      return directory;
+   }
+
+   private Key enqueue() {
+      Key mine = api.createInOrderKey(Watcher.path(directory), owner, ttlSeconds);
+      if (keeper != null) {
+         keeper.keep(mine.node().key(), ttlSeconds);
+      }
+      return mine;
+   }
+
+   private void release(Key mine) {
+      if (keeper != null) {
+         keeper.release(mine.node().key());
+      }
+      api.deleteKey(Watcher.path(mine.node().key()));
+   }
+
+   private void refresh(String key) {
+      if (keeper != null) {
+         return;
+      }
+      CompareResult result = api.refreshKey(Watcher.path(key), ttlSeconds);
+      checkState(result.succeeded(), "key %s expired before the lock %s was acquired", key, directory);
+   }
+
+   /**
+    * Returns true once the key is the oldest of the directory, waiting for the removal of the key before it in turn
+    * when asked to wait.
+    */
+   private boolean acquire(Key mine, boolean wait) {
+      String key = mine.node().key();
+      while (true) {
+         Key listing = api.getKey(Watcher.path(directory), GetKeyOptions.Builder.sorted(true).quorum(true));
+         String predecessor = null;
+         boolean found = false;
+         if (listing != null) {
+            for (Node child : listing.node().nodes()) {
+               if (child.key().equals(key)) {
+                  found = true;
+                  break;
+               }
+               predecessor = child.key();
+            }
+         }
+         checkState(found, "key %s expired before the lock %s was acquired", key, directory);
+         if (predecessor == null) {
+            return true;
+         }
+         if (!wait) {
+            return false;
+         }
+         awaitRemoval(predecessor, Watcher.nextIndexAfter(listing), key);
+      }
+   }
+
+   /**
+    * Watches the key from the index of the listing it was found in until it is removed, so a removal made in
+    * between is not missed. The key of this client is refreshed before each watch, so it outlives the wait.
+    */
+   private void awaitRemoval(String key, long fromIndex, String mine) {
+      long index = fromIndex;
+      while (true) {
+         refresh(mine);
+         Key change;
+         try {
+            change = api.watchKey(Watcher.path(key), WatchKeyOptions.Builder.waitIndex(index));
+         } catch (RuntimeException e) {
+            if (Watcher.isIndexCleared(e)) {
+               // the directory is read again to find out whether the key is still there
+               return;
+            }
+            if (Watcher.isReadTimeout(e)) {
+               // no change within the read timeout, watched again from the same index
+               continue;
+            }
+            throw e;
+         }
+         if (change == null || change.node() == null) {
+            continue;
+         }
+         if (Watcher.isRemoval(change)) {
+            return;
+         }
+         index = change.node().modifiedIndex() + 1;
+      }
+   }
+}
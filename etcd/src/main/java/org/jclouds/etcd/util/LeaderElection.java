@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.etcd.util;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import org.jclouds.etcd.domain.keys.Key;
+import org.jclouds.etcd.features.KeysApi;
+import org.jclouds.etcd.options.GetKeyOptions;
+
+/**
+ * Elects one leader among the clients campaigning on a directory.
+ * <p>
+ * The election is a {@link DistributedLock} on the directory: the candidates queue with in-order keys holding their
+ * names, the oldest one leads, and each of the others only watches the candidate before it. When the leader resigns
+ * or its key expires, the next candidate in line takes over.
+ */
+public class LeaderElection {
+
+   private final KeysApi api;
+   private final DistributedLock lock;
+
+   public LeaderElection(KeysApi api, String directory, String candidate, int ttlSeconds) {
+      this.api = checkNotNull(api, "api");
+      this.lock = new DistributedLock(api, directory, candidate, ttlSeconds);
+   }
+
+   /**
+    * Waits until this candidate is elected.
+    */
+   public void campaign() {
+      lock.lock();
+   }
+
+   public boolean isLeader() {
+      return lock.isHeld();
+   }
+
+   /**
+    * Steps down, handing the lead to the next candidate.
+    */
+   public void resign() {
+      lock.unlock();
+   }
+
+   /**
+    * Returns the key of this candidate while it leads, to refresh its time to live, or null.
+    */
+   public String getLeaderKey() {
+      return lock.getHeldKey();
+   }
+
+   /**
+    * Returns the name of the current leader, or null if there are no candidates.
+    */
+   public String getLeader() {
+      Key listing = api.getKey(Watcher.path(lock.getDirectory()), GetKeyOptions.Builder.sorted(true).quorum(true));
+      if (listing == null || listing.node().nodes().isEmpty()) {
+         return null;
+      }
+      return listing.node().nodes().get(0).value();
+   }
+}
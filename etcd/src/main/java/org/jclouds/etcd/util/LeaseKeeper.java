@@ -0,0 +1,274 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.etcd.util;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Resource;
+
+import org.jclouds.etcd.domain.keys.CompareResult;
+import org.jclouds.etcd.features.KeysApi;
+import org.jclouds.logging.Logger;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Keeps large numbers of keys with a time to live from expiring, by refreshing their time to live without rewriting
+ * their values.
+ * <p>
+ * Each key is refreshed when half of its time to live has passed. The refreshes are placed on a timing wheel turned by
+ * a single scheduled task, so the number of keys kept costs no timers or threads. The first refresh of a key is placed
+ * at random in the second quarter of its time to live, so keys added together are refreshed apart from then on. Due
+ * refreshes are sent in parallel by at most {@code parallelism} tasks of the refresh executor, over the pooled
+ * connections of the api. A refresh that fails is retried; a key that expired before its refresh reached etcd is
+ * no longer kept, and handed to the {@link Listener}.
+ */
+public class LeaseKeeper implements Closeable {
+
+   /**
+    * Told about the keys that expired before they could be refreshed.
+    */
+   public interface Listener {
+
+      /**
+       * Called with a key that had expired when its refresh reached etcd, and with how long after its expected
+       * expiry the refresh was sent. The key is no longer kept.
+       */
+      void onExpired(String key, long lateMillis);
+   }
+
+   static final int WHEEL_SIZE = 512;
+   static final long RETRY_MILLIS = 1000;
+
+   private static final class Lease {
+      private final String key;
+      private final int ttlSeconds;
+      // estimated from the last successful refresh
+      private volatile long expiresAt;
+      private volatile long dueAt;
+      private volatile boolean released;
+      // turns of the wheel left before it is due, only used by the ticking thread
+      private long rounds;
+
+      Lease(String key, int ttlSeconds, long expiresAt) {
+         this.key = key;
+         this.ttlSeconds = ttlSeconds;
+         this.expiresAt = expiresAt;
+      }
+
+      long refreshIntervalMillis() {
+         return TimeUnit.SECONDS.toMillis(ttlSeconds) / 2;
+      }
+   }
+
+   @Resource
+   protected Logger logger = Logger.NULL;
+
+   private final KeysApi api;
+   private final Executor refreshExecutor;
+   private final int parallelism;
+   private final Listener listener;
+   private final ConcurrentMap<String, Lease> leases = Maps.newConcurrentMap();
+   private final Queue<Lease> scheduled = new ConcurrentLinkedQueue<Lease>();
+   private final Queue<Lease> due = new ConcurrentLinkedQueue<Lease>();
+   private final AtomicInteger refreshers = new AtomicInteger();
+   private final Random random = new Random();
+   private final Runnable refresher = new Runnable() {
+      @Override
+      public void run() {
+         try {
+            Lease lease;
+            while ((lease = due.poll()) != null) {
+               refresh(lease);
+            }
+         } finally {
+            refreshers.decrementAndGet();
+         }
+      }
+   };
+   // only used by the ticking thread
+   private final List<List<Lease>> wheel = Lists.newArrayListWithCapacity(WHEEL_SIZE);
+   private long tick;
+   private long tickMillis;
+   private volatile ScheduledFuture<?> ticker;
+
+   /**
+    * @param refreshExecutor sends the refreshes, with at most {@code parallelism} of its threads at a time
+    */
+   public LeaseKeeper(KeysApi api, Executor refreshExecutor, int parallelism, Listener listener) {
+      checkArgument(parallelism > 0, "parallelism must be positive");
+      this.api = checkNotNull(api, "api");
+      this.refreshExecutor = checkNotNull(refreshExecutor, "refreshExecutor");
+      this.parallelism = parallelism;
+      this.listener = checkNotNull(listener, "listener");
+      for (int i = 0; i < WHEEL_SIZE; i++) {
+         wheel.add(Lists.<Lease> newLinkedList());
+      }
+   }
+
+   /**
+    * Starts turning the wheel one slot every tick. The tick is the precision the refreshes are sent with.
+    */
+   public synchronized void start(ScheduledExecutorService scheduler, long tick, TimeUnit unit) {
+      checkState(ticker == null, "lease keeper already started");
+      this.tickMillis = Math.max(1, unit.toMillis(tick));
+      ticker = scheduler.scheduleAtFixedRate(new Runnable() {
+         @Override
+         public void run() {
+            try {
+               turn();
+            } catch (RuntimeException e) {
+               logger.warn(e, "could not turn the lease wheel");
+            }
+         }
+      }, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+   }
+
+   /**
+    * Keeps the key from expiring. The key must have just been created or refreshed with the given time to live.
+    */
+   public void keep(String key, int ttlSeconds) {
+      checkNotNull(key, "key");
+      checkArgument(ttlSeconds > 0, "ttlSeconds must be positive");
+      long now = System.currentTimeMillis();
+      Lease lease = new Lease(key, ttlSeconds, now + TimeUnit.SECONDS.toMillis(ttlSeconds));
+      Lease previous = leases.put(Watcher.normalize(key), lease);
+      if (previous != null) {
+         previous.released = true;
+      }
+      long interval = lease.refreshIntervalMillis();
+      schedule(lease, now + interval / 2 + (long) (random.nextDouble() * (interval / 2)));
+   }
+
+   /**
+    * Stops refreshing the key, which then expires with its time to live.
+    */
+   public void release(String key) {
+      Lease lease = leases.remove(Watcher.normalize(checkNotNull(key, "key")));
+      if (lease != null) {
+         lease.released = true;
+      }
+   }
+
+   public Set<String> getKeys() {
+      ImmutableSet.Builder<String> keys = ImmutableSet.builder();
+      for (Lease lease : leases.values()) {
+         keys.add(lease.key);
+      }
+      return keys.build();
+   }
+
+   /**
+    * Stops refreshing all the keys.
+    */
+   @Override
+   public void close() {
+      ScheduledFuture<?> current = ticker;
+      if (current != null) {
+         current.cancel(false);
+      }
+      for (Lease lease : leases.values()) {
+         lease.released = true;
+      }
+      leases.clear();
+   }
+
+   private void schedule(Lease lease, long dueAt) {
+      lease.dueAt = dueAt;
+      scheduled.add(lease);
+   }
+
+   /**
+    * Places the newly scheduled refreshes on the wheel, then hands the refreshes due in the current slot to the
+    * refreshers.
+    */
+   private void turn() {
+      long now = System.currentTimeMillis();
+      Lease lease;
+      while ((lease = scheduled.poll()) != null) {
+         long ticks = Math.max(0, (lease.dueAt - now) / tickMillis);
+         lease.rounds = ticks / WHEEL_SIZE;
+         wheel.get((int) ((tick + ticks) % WHEEL_SIZE)).add(lease);
+      }
+      Iterator<Lease> slot = wheel.get((int) (tick % WHEEL_SIZE)).iterator();
+      while (slot.hasNext()) {
+         lease = slot.next();
+         if (lease.released) {
+            slot.remove();
+         } else if (lease.rounds > 0) {
+            lease.rounds--;
+         } else {
+            slot.remove();
+            due.add(lease);
+         }
+      }
+      tick++;
+      while (!due.isEmpty()) {
+         int running = refreshers.get();
+         if (running >= parallelism) {
+            break;
+         }
+         if (refreshers.compareAndSet(running, running + 1)) {
+            refreshExecutor.execute(refresher);
+         }
+      }
+   }
+
+   private void refresh(Lease lease) {
+      if (lease.released) {
+         return;
+      }
+      long sentAt = System.currentTimeMillis();
+      CompareResult result;
+      try {
+         result = api.refreshKey(Watcher.path(Watcher.normalize(lease.key)), lease.ttlSeconds);
+      } catch (RuntimeException e) {
+         logger.debug("could not refresh %s, retrying: %s", lease.key, e.getMessage());
+         schedule(lease, sentAt + Math.min(RETRY_MILLIS, lease.refreshIntervalMillis()));
+         return;
+      }
+      if (result.succeeded()) {
+         lease.expiresAt = sentAt + TimeUnit.SECONDS.toMillis(lease.ttlSeconds);
+         schedule(lease, sentAt + lease.refreshIntervalMillis());
+      } else if (result.errorCode() != null && result.errorCode() == CompareResult.KEY_NOT_FOUND) {
+         if (leases.remove(Watcher.normalize(lease.key), lease)) {
+            listener.onExpired(lease.key, sentAt - lease.expiresAt);
+         }
+      } else {
+         logger.debug("could not refresh %s, retrying: %s", lease.key, result.cause());
+         schedule(lease, sentAt + Math.min(RETRY_MILLIS, lease.refreshIntervalMillis()));
+      }
+   }
+}
@@ -0,0 +1,310 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.etcd.util;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executor;
+
+import org.jclouds.etcd.domain.keys.Key;
+import org.jclouds.etcd.domain.keys.Node;
+import org.jclouds.etcd.features.KeysApi;
+import org.jclouds.etcd.options.GetKeyOptions;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.collect.Lists;
+
+/**
+ * Answers reads of the keys and directories below a directory from memory, kept up to date by a {@link Watcher}.
+ * <p>
+ * The cache is filled by a recursive read of the directory and then applies the changes of a recursive watch from
+ * the index of that read, so its answers are those etcd gave at {@link #getIndex()}, the last index watched. A change
+ * is only applied over an older version of a node, so keys read from etcd on a miss can be cached as well.
+ * <p>
+ * At most {@code maximumSize} nodes are kept, the least recently used ones being evicted first. Evictions are tracked
+ * per directory: a key missing from the cache does not exist and a directory is listed from memory unless a node they
+ * depend on has been evicted, in which case the read is sent to etcd. Reading an evicted directory again caches its
+ * children, so it is listed from memory again afterwards.
+ */
+public class NearCache implements Closeable {
+
+   private final KeysApi api;
+   private final String directory;
+   private final Watcher watcher;
+   private final Cache<String, Node> nodes;
+   // the keys of the cached nodes, in order, to list directories
+   private final NavigableSet<String> keys = new ConcurrentSkipListSet<String>();
+   // the directories some direct children of which have been evicted, so their listings are not complete
+   private final NavigableSet<String> evictedBelow = new ConcurrentSkipListSet<String>();
+   // set once the directory has been read
+   private volatile boolean loaded;
+   private volatile long index;
+
+   /**
+    * Creates a cache of the given directory, {@code "/"} for the whole key space, keeping at most the given number
+    * of keys and directories.
+    */
+   public NearCache(KeysApi api, String directory, long maximumSize) {
+      checkArgument(maximumSize > 0, "maximumSize must be positive");
+      this.api = checkNotNull(api, "api");
+      this.directory = Watcher.normalize(checkNotNull(directory, "directory"));
+      this.watcher = new Watcher(api, this.directory);
+      this.nodes = CacheBuilder.newBuilder().maximumSize(maximumSize)
+            .removalListener(new RemovalListener<String, Node>() {
+               @Override
+               public void onRemoval(RemovalNotification<String, Node> notification) {
+                  if (notification.getCause() == RemovalCause.SIZE) {
+                     String parent = parentOf(notification.getKey());
+                     if (parent != null && contains(parent)) {
+                        evictedBelow.add(parent);
+                     }
+                     keys.remove(notification.getKey());
+                  }
+               }
+            }).build();
+   }
+
+   /**
+    * Fills the cache with a recursive read of the directory, then keeps it up to date from a thread of the executor.
+    */
+   public void start(Executor executor) {
+      watcher.addListener(directory, new Watcher.Listener() {
+         @Override
+         public void onSnapshot(Key snapshot) {
+            reset(snapshot);
+         }
+
+         @Override
+         public void onChange(Key change) {
+            apply(change);
+         }
+      });
+      watcher.start(executor);
+   }
+
+   /**
+    * Returns the index of the last change applied to the cache.
+    */
+   public long getIndex() {
+      return index;
+   }
+
+   /**
+    * Returns the number of keys and directories cached.
+    */
+   public long size() {
+      return nodes.size();
+   }
+
+   /**
+    * Returns the key, or the directory with its direct children, as {@link KeysApi#getKey(String)} would.
+    */
+   public Key getKey(String key) {
+      return getKey(key, false);
+   }
+
+   /**
+    * Returns the key, or the directory with its children, or its whole tree when recursive. Keys outside the cached
+    * directory are read from etcd.
+    */
+   public Key getKey(String key, boolean recursive) {
+      String normalized = Watcher.normalize(checkNotNull(key, "key"));
+      if (!contains(normalized)) {
+         return api.getKey(Watcher.path(normalized), GetKeyOptions.Builder.recursive(recursive));
+      }
+      long current = index;
+      Node node = nodes.getIfPresent(normalized);
+      if (node != null && !node.dir()) {
+         return Key.create("get", node, null, current);
+      }
+      if (loaded) {
+         if (node == null && isAbsent(normalized)) {
+            return null;
+         }
+         if (node != null && isListed(normalized, recursive)) {
+            return Key.create("get", withChildren(node, recursive), null, current);
+         }
+      }
+      if (!recursive) {
+         return fill(api.getKey(Watcher.path(normalized)));
+      }
+      return api.getKey(Watcher.path(normalized), GetKeyOptions.Builder.recursive(recursive));
+   }
+
+   @Override
+   public void close() {
+      watcher.close();
+   }
+
+   private boolean contains(String key) {
+      return directory.equals("/") || key.equals(directory) || key.startsWith(directory + "/");
+   }
+
+   /**
+    * Returns whether a key missing from the cache does not exist: its closest cached ancestor has none of its
+    * children evicted, as an evicted ancestor in between marks the directory above it.
+    */
+   private boolean isAbsent(String key) {
+      for (String parent = parentOf(key); parent != null && contains(parent); parent = parentOf(parent)) {
+         if (evictedBelow.contains(parent)) {
+            return false;
+         }
+         if (nodes.getIfPresent(parent) != null) {
+            return true;
+         }
+      }
+      return false;
+   }
+
+   /**
+    * Returns whether the cached directory has all its children, or its whole tree when recursive, in the cache.
+    */
+   private boolean isListed(String dir, boolean recursive) {
+      if (evictedBelow.contains(dir)) {
+         return false;
+      }
+      String prefix = dir.equals("/") ? "/" : dir + "/";
+      return !recursive || evictedBelow.subSet(prefix, prefix + Character.MAX_VALUE).isEmpty();
+   }
+
+   private Node withChildren(Node dir, boolean recursive) {
+      String prefix = dir.key().equals("/") ? "/" : dir.key() + "/";
+      List<Node> children = Lists.newArrayList();
+      for (String child : keys.subSet(prefix, false, prefix + Character.MAX_VALUE, false)) {
+         if (child.indexOf('/', prefix.length()) >= 0) {
+            continue;
+         }
+         Node node = nodes.getIfPresent(child);
+         if (node != null) {
+            children.add(recursive && node.dir() ? withChildren(node, true) : node);
+         }
+      }
+      return Node.create(dir.createdIndex(), true, children, dir.expiration(), dir.key(), dir.modifiedIndex(),
+            dir.ttl(), null);
+   }
+
+   /**
+    * Caches a key or directory read from etcd, unless the watch has already gone past the index it was read at. A
+    * directory read has all its children, so it is listed from memory again until one of them is evicted.
+    */
+   private synchronized Key fill(Key read) {
+      if (read == null || read.etcdIndex() == null || read.etcdIndex() <= index) {
+         return read;
+      }
+      Node node = read.node();
+      if (node.dir()) {
+         evictedBelow.remove(Watcher.normalize(node.key() == null ? "/" : node.key()));
+         for (Node child : node.nodes()) {
+            put(child);
+         }
+      }
+      put(node);
+      return read;
+   }
+
+   private synchronized void reset(Key snapshot) {
+      nodes.invalidateAll();
+      keys.clear();
+      evictedBelow.clear();
+      loaded = true;
+      if (snapshot != null) {
+         putTree(snapshot.node());
+         index = Watcher.nextIndexAfter(snapshot) - 1;
+      }
+   }
+
+   private synchronized void apply(Key change) {
+      Node node = change.node();
+      String key = Watcher.normalize(node.key());
+      int changeIndex = node.modifiedIndex();
+      if (Watcher.isRemoval(change)) {
+         Node removed = nodes.getIfPresent(key);
+         if (removed == null || removed.modifiedIndex() < changeIndex) {
+            // the directory is gone with whatever was evicted from it
+            evictedBelow.remove(key);
+            evictedBelow.subSet(key + "/", key + "/" + Character.MAX_VALUE).clear();
+         }
+         remove(key, changeIndex);
+         for (String below : Lists.newArrayList(keys.subSet(key + "/", false, key + "/" + Character.MAX_VALUE,
+               false))) {
+            remove(below, changeIndex);
+         }
+      } else {
+         Node cached = nodes.getIfPresent(key);
+         if (cached == null || cached.modifiedIndex() < changeIndex) {
+            put(node);
+         }
+         // etcd creates the missing directories above a key
+         for (String parent = parent(key); parent != null && contains(parent); parent = parent(parent)) {
+            if (nodes.getIfPresent(parent) != null) {
+               break;
+            }
+            put(Node.create(changeIndex, true, null, null, parent, changeIndex, 0, null));
+         }
+      }
+      index = Math.max(index, changeIndex);
+   }
+
+   private void remove(String key, int changeIndex) {
+      Node cached = nodes.getIfPresent(key);
+      if (cached != null && cached.modifiedIndex() < changeIndex) {
+         nodes.invalidate(key);
+         keys.remove(key);
+      }
+   }
+
+   private void putTree(Node node) {
+      put(node);
+      for (Node child : node.nodes()) {
+         putTree(child);
+      }
+   }
+
+   private void put(Node node) {
+      String key = Watcher.normalize(node.key() == null ? "/" : node.key());
+      // directories are kept without their children, which are cached on their own
+      Node shallow = node.nodes().isEmpty() ? node : Node.create(node.createdIndex(), node.dir(), null,
+            node.expiration(), key, node.modifiedIndex(), node.ttl(), node.value());
+      keys.add(key);
+      nodes.put(key, shallow);
+   }
+
+   private static String parent(String key) {
+      int slash = key.lastIndexOf('/');
+      return slash <= 0 ? null : key.substring(0, slash);
+   }
+
+   /**
+    * Returns the directory holding the key, {@code "/"} for the top level keys, or null for the root.
+    */
+   private static String parentOf(String key) {
+      if (key.equals("/")) {
+         return null;
+      }
+      int slash = key.lastIndexOf('/');
+      return slash == 0 ? "/" : key.substring(0, slash);
+   }
+}
@@ -0,0 +1,357 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.etcd.util;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import java.io.Closeable;
+import java.net.SocketTimeoutException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+
+import javax.annotation.Resource;
+
+import org.jclouds.etcd.domain.keys.Key;
+import org.jclouds.etcd.domain.keys.Node;
+import org.jclouds.etcd.features.KeysApi;
+import org.jclouds.etcd.options.GetKeyOptions;
+import org.jclouds.etcd.options.WatchKeyOptions;
+import org.jclouds.logging.Logger;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.UncheckedTimeoutException;
+
+/**
+ * Keeps a recursive watch on a directory going and hands its changes to the listeners of the keys they affect.
+ * <p>
+ * A single long-poll request is open at a time for the whole directory, whatever the number of keys listened to.
+ * The watcher starts from a recursive read of the directory, handed to every listener, and then asks for the
+ * changes made after the {@code X-Etcd-Index} of that read. Each following request asks for the changes after the
+ * {@code modifiedIndex} of the last one received, so none are missed when a request fails or etcd ends it. When
+ * etcd has already cleared the history at that index, the directory is read again and the listeners are handed the
+ * new snapshot.
+ * <p>
+ * etcd keeps a watch open until a change arrives, however long that takes, so a request on a quiet directory ends
+ * when the socket read timeout of the API expires ({@link org.jclouds.Constants#PROPERTY_SO_TIMEOUT}, 60 seconds by
+ * default). That is not an error: the watch is asked again at once from the same index. A longer timeout means fewer
+ * requests on quiet directories; the retries of failed requests ({@link org.jclouds.Constants#PROPERTY_MAX_RETRIES})
+ * apply to timed out watches as well, so they are best disabled for the API the watcher uses.
+ */
+public class Watcher implements Closeable {
+
+   /**
+    * Receives the snapshots and the changes of a {@link Watcher}. Calls are made from the watching thread, one at a
+    * time and in index order.
+    */
+   public interface Listener {
+
+      /**
+       * Called with the recursive read of the watched directory the changes follow, or null if the directory does
+       * not exist. Called on start and again whenever the watch had to be resumed from a new read.
+       */
+      void onSnapshot(Key snapshot);
+
+      /**
+       * Called with a change to the key listened to, to a key below it, or to a directory above it.
+       */
+      void onChange(Key change);
+   }
+
+   static final long MIN_BACKOFF_MILLIS = 100;
+   static final long MAX_BACKOFF_MILLIS = TimeUnit.SECONDS.toMillis(30);
+   /** Error returned by etcd when the history at the requested index has been cleared. */
+   private static final Pattern INDEX_CLEARED = Pattern.compile("\"errorCode\"\\s*:\\s*401\\b");
+   private static final ImmutableSet<String> REMOVALS = ImmutableSet.of("delete", "expire", "compareAndDelete");
+
+   @Resource
+   protected Logger logger = Logger.NULL;
+
+   private final KeysApi api;
+   private final String directory;
+   private final ConcurrentMap<String, Set<Listener>> listeners = Maps.newConcurrentMap();
+   private final AtomicBoolean started = new AtomicBoolean();
+   private final AtomicBoolean closed = new AtomicBoolean();
+   private volatile long nextIndex;
+   private volatile Thread thread;
+
+   /**
+    * Creates a watcher on the given directory, {@code "/"} for the whole key space.
+    */
+   public Watcher(KeysApi api, String directory) {
+      this.api = checkNotNull(api, "api");
+      this.directory = normalize(checkNotNull(directory, "directory"));
+   }
+
+   /**
+    * Hands the snapshots of the directory, and the changes to the given key, the keys below it and the directories
+    * above it, to the listener.
+    */
+   public Watcher addListener(String key, Listener listener) {
+      checkNotNull(listener, "listener");
+      String normalized = normalize(checkNotNull(key, "key"));
+      Set<Listener> keyListeners = listeners.get(normalized);
+      if (keyListeners == null) {
+         Set<Listener> created = new CopyOnWriteArraySet<Listener>();
+         keyListeners = listeners.putIfAbsent(normalized, created);
+         if (keyListeners == null) {
+            keyListeners = created;
+         }
+      }
+      keyListeners.add(listener);
+      return this;
+   }
+
+   public void removeListener(String key, Listener listener) {
+      Set<Listener> keyListeners = listeners.get(normalize(checkNotNull(key, "key")));
+      if (keyListeners != null) {
+         keyListeners.remove(listener);
+      }
+   }
+
+   public String getDirectory() {
+      return directory;
+   }
+
+   /**
+    * Returns the index the next watch request will ask for changes from, or 0 before the first one is known.
+    */
+   public long getNextIndex() {
+      return nextIndex;
+   }
+
+   /**
+    * Reads the directory, hands the snapshot to the listeners, and then watches it on a thread of the executor.
+    */
+   public void start(Executor executor) {
+      checkNotNull(executor, "executor");
+      checkState(started.compareAndSet(false, true), "watcher already started");
+      snapshot();
+      watch(executor);
+   }
+
+   /**
+    * Watches the directory on a thread of the executor, starting with the changes made at the given index, as
+    * returned by {@link #getNextIndex()} of a previous watcher.
+    */
+   public void start(Executor executor, long fromIndex) {
+      checkNotNull(executor, "executor");
+      checkArgument(fromIndex > 0, "fromIndex must be positive");
+      checkState(started.compareAndSet(false, true), "watcher already started");
+      nextIndex = fromIndex;
+      watch(executor);
+   }
+
+   /**
+    * Stops watching. The request in progress, if any, is abandoned.
+    */
+   @Override
+   public void close() {
+      if (closed.compareAndSet(false, true)) {
+         Thread current = thread;
+         if (current != null) {
+            current.interrupt();
+         }
+      }
+   }
+
+   private void watch(Executor executor) {
+      executor.execute(new Runnable() {
+         @Override
+         public void run() {
+            thread = Thread.currentThread();
+            try {
+               if (!closed.get()) {
+                  watchLoop();
+               }
+            } finally {
+               thread = null;
+            }
+         }
+      });
+   }
+
+   private void watchLoop() {
+      String path = path(directory);
+      long backoff = MIN_BACKOFF_MILLIS;
+      boolean resync = false;
+      while (!closed.get()) {
+         try {
+            if (resync) {
+               snapshot();
+               resync = false;
+            }
+            WatchKeyOptions options = WatchKeyOptions.Builder.recursive(true);
+            long index = nextIndex;
+            if (index > 0) {
+               options.waitIndex(index);
+            }
+            Key change = api.watchKey(path, options);
+            backoff = MIN_BACKOFF_MILLIS;
+            if (change != null && change.node() != null && !closed.get()) {
+               nextIndex = change.node().modifiedIndex() + 1;
+               dispatch(change);
+            }
+         } catch (RuntimeException e) {
+            if (closed.get()) {
+               return;
+            }
+            if (isIndexCleared(e)) {
+               logger.debug("history of %s cleared at index %s, reading it again", directory, nextIndex);
+               resync = true;
+               continue;
+            }
+            if (isReadTimeout(e)) {
+               // no change within the read timeout, the connection itself is fine
+               backoff = MIN_BACKOFF_MILLIS;
+               continue;
+            }
+            logger.warn(e, "error watching %s from index %s, retrying in %sms", directory, nextIndex, backoff);
+            try {
+               Thread.sleep(backoff);
+            } catch (InterruptedException interrupted) {
+               Thread.currentThread().interrupt();
+               return;
+            }
+            backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+         }
+      }
+   }
+
+   private void snapshot() {
+      Key snapshot = api.getKey(path(directory), GetKeyOptions.Builder.recursive(true));
+      // a missing directory has no index to resume from, so the watch starts from its first change
+      nextIndex = snapshot == null ? 0 : nextIndexAfter(snapshot);
+      for (Set<Listener> keyListeners : listeners.values()) {
+         for (Listener listener : keyListeners) {
+            try {
+               listener.onSnapshot(snapshot);
+            } catch (RuntimeException e) {
+               logger.warn(e, "listener failed on the snapshot of %s", directory);
+            }
+         }
+      }
+   }
+
+   /**
+    * Hands the change to the listeners of its key and of the directories above it, and when a directory changed,
+    * to the listeners of the keys below it.
+    */
+   private void dispatch(Key change) {
+      String key = normalize(change.node().key() == null ? "/" : change.node().key());
+      for (String current = key; current != null; current = parent(current)) {
+         notify(listeners.get(current), change);
+      }
+      if (change.node().dir()) {
+         String below = key.equals("/") ? "/" : key + "/";
+         for (Map.Entry<String, Set<Listener>> entry : listeners.entrySet()) {
+            if (entry.getKey().startsWith(below) && !entry.getKey().equals(key)) {
+               notify(entry.getValue(), change);
+            }
+         }
+      }
+   }
+
+   private void notify(Set<Listener> keyListeners, Key change) {
+      if (keyListeners == null) {
+         return;
+      }
+      for (Listener listener : keyListeners) {
+         try {
+            listener.onChange(change);
+         } catch (RuntimeException e) {
+            logger.warn(e, "listener failed on the change of %s", change.node().key());
+         }
+      }
+   }
+
+   static long nextIndexAfter(Key snapshot) {
+      if (snapshot.etcdIndex() != null) {
+         return snapshot.etcdIndex() + 1;
+      }
+      return maxModifiedIndex(snapshot.node()) + 1;
+   }
+
+   private static long maxModifiedIndex(Node node) {
+      long max = node.modifiedIndex();
+      for (Node child : node.nodes()) {
+         max = Math.max(max, maxModifiedIndex(child));
+      }
+      return max;
+   }
+
+   /**
+    * Returns whether the change removed the key, by deleting it or letting it expire.
+    */
+   static boolean isRemoval(Key change) {
+      return REMOVALS.contains(change.action());
+   }
+
+   static boolean isIndexCleared(Throwable t) {
+      for (Throwable cause : Throwables.getCausalChain(t)) {
+         if (cause instanceof IllegalArgumentException && cause.getMessage() != null
+               && INDEX_CLEARED.matcher(cause.getMessage()).find()) {
+            return true;
+         }
+      }
+      return false;
+   }
+
+   static boolean isReadTimeout(Throwable t) {
+      for (Throwable cause : Throwables.getCausalChain(t)) {
+         if (cause instanceof SocketTimeoutException || cause instanceof UncheckedTimeoutException) {
+            return true;
+         }
+      }
+      return false;
+   }
+
+   /**
+    * Returns the key with a leading and no trailing slash, as etcd returns them.
+    */
+   static String normalize(String key) {
+      String normalized = key.startsWith("/") ? key : "/" + key;
+      while (normalized.length() > 1 && normalized.endsWith("/")) {
+         normalized = normalized.substring(0, normalized.length() - 1);
+      }
+      return normalized;
+   }
+
+   private static String parent(String key) {
+      if (key.equals("/")) {
+         return null;
+      }
+      int slash = key.lastIndexOf('/');
+      return slash <= 0 ? "/" : key.substring(0, slash);
+   }
+
+   /**
+    * Returns the key as the path parameter of {@link KeysApi}, which adds the leading slash.
+    */
+   static String path(String key) {
+      return key.substring(1);
+   }
+}
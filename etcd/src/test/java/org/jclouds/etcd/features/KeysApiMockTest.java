@@ -16,18 +16,24 @@
  */
 package org.jclouds.etcd.features;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
 
 import org.jclouds.etcd.EtcdApi;
 import org.jclouds.etcd.EtcdApiMetadata;
+import org.jclouds.etcd.domain.keys.CompareResult;
 import org.jclouds.etcd.domain.keys.Key;
 import org.jclouds.etcd.internal.BaseEtcdMockTest;
+import org.jclouds.etcd.options.CompareOptions;
+import org.jclouds.etcd.options.GetKeyOptions;
+import org.jclouds.etcd.options.WatchKeyOptions;
 import org.testng.annotations.Test;
 
 import com.squareup.okhttp.mockwebserver.MockResponse;
 import com.squareup.okhttp.mockwebserver.MockWebServer;
+import com.squareup.okhttp.mockwebserver.RecordedRequest;
 
 /**
  * Mock tests for the {@link org.jclouds.etcd.features.KeysApi} class.
@@ -108,6 +114,182 @@ public class KeysApiMockTest extends BaseEtcdMockTest {
       }
    }
 
+   public void testGetKeyRecursive() throws Exception {
+      MockWebServer server = mockEtcdJavaWebServer();
+
+      server.enqueue(new MockResponse().setBody(payloadFromResource("/keys-get-recursive.json"))
+            .setHeader("X-Etcd-Index", "10").setResponseCode(200));
+      EtcdApi etcdApi = api(server.getUrl("/"));
+      KeysApi api = etcdApi.keysApi();
+      try {
+         Key directory = api.getKey("config", GetKeyOptions.Builder.recursive(true));
+         assertTrue(directory.node().dir());
+         assertThat(directory.node().nodes()).hasSize(2);
+         assertThat(directory.etcdIndex()).isEqualTo(10L);
+         assertSent(server, "GET", "/" + EtcdApiMetadata.API_VERSION + "/keys/config?recursive=true");
+      } finally {
+         etcdApi.close();
+         server.shutdown();
+      }
+   }
+
+   public void testWatchKey() throws Exception {
+      MockWebServer server = mockEtcdJavaWebServer();
+
+      server.enqueue(new MockResponse().setBody(payloadFromResource("/keys-watch.json")).setResponseCode(200));
+      EtcdApi etcdApi = api(server.getUrl("/"));
+      KeysApi api = etcdApi.keysApi();
+      try {
+         Key change = api.watchKey("config/a");
+         assertThat(change.action()).isEqualTo("set");
+         assertThat(change.node().modifiedIndex()).isEqualTo(11);
+         assertThat(change.prevNode().value()).isEqualTo("1");
+         assertThat(change.etcdIndex()).isNull();
+         assertSent(server, "GET", "/" + EtcdApiMetadata.API_VERSION + "/keys/config/a?wait=true");
+      } finally {
+         etcdApi.close();
+         server.shutdown();
+      }
+   }
+
+   public void testWatchKeyRecursiveFromIndex() throws Exception {
+      MockWebServer server = mockEtcdJavaWebServer();
+
+      server.enqueue(new MockResponse().setBody(payloadFromResource("/keys-watch.json"))
+            .setHeader("X-Etcd-Index", "12").setResponseCode(200));
+      EtcdApi etcdApi = api(server.getUrl("/"));
+      KeysApi api = etcdApi.keysApi();
+      try {
+         Key change = api.watchKey("config", WatchKeyOptions.Builder.recursive(true).waitIndex(11));
+         assertThat(change.node().key()).isEqualTo("/config/a");
+         assertThat(change.etcdIndex()).isEqualTo(12L);
+         RecordedRequest request = server.takeRequest();
+         assertThat(request.getMethod()).isEqualTo("GET");
+         assertThat(request.getPath()).startsWith("/" + EtcdApiMetadata.API_VERSION + "/keys/config?")
+               .contains("wait=true").contains("recursive=true").contains("waitIndex=11");
+      } finally {
+         etcdApi.close();
+         server.shutdown();
+      }
+   }
+
+   public void testCreateInOrderKey() throws Exception {
+      MockWebServer server = mockEtcdJavaWebServer();
+
+      server.enqueue(new MockResponse().setResponseCode(201).setBody("{\"action\":\"create\",\"node\":{"
+            + "\"key\":\"/queue/00000000000000000012\",\"value\":\"job\",\"ttl\":30,"
+            + "\"modifiedIndex\":12,\"createdIndex\":12}}"));
+      EtcdApi etcdApi = api(server.getUrl("/"));
+      KeysApi api = etcdApi.keysApi();
+      try {
+         Key createdKey = api.createInOrderKey("queue", "job", 30);
+         assertThat(createdKey.node().key()).isEqualTo("/queue/00000000000000000012");
+         assertSentWithFormData(server, "POST", "/" + EtcdApiMetadata.API_VERSION + "/keys/queue", "value=job&ttl=30");
+      } finally {
+         etcdApi.close();
+         server.shutdown();
+      }
+   }
+
+   public void testCompareAndSwap() throws Exception {
+      MockWebServer server = mockEtcdJavaWebServer();
+
+      server.enqueue(new MockResponse().setBody(payloadFromResource("/keys-create.json"))
+            .setHeader("X-Etcd-Index", "40"));
+      EtcdApi etcdApi = api(server.getUrl("/"));
+      KeysApi api = etcdApi.keysApi();
+      try {
+         CompareResult result = api.compareAndSwap("hello", "world", CompareOptions.Builder.prevValue("one"));
+         assertThat(result.succeeded()).isTrue();
+         assertThat(result.key().node().value()).isEqualTo("world");
+         assertThat(result.etcdIndex()).isEqualTo(40L);
+         assertSentWithFormData(server, "PUT", "/" + EtcdApiMetadata.API_VERSION + "/keys/hello?prevValue=one",
+               "value=world");
+      } finally {
+         etcdApi.close();
+         server.shutdown();
+      }
+   }
+
+   public void testCompareAndSwapFailed() throws Exception {
+      MockWebServer server = mockEtcdJavaWebServer();
+
+      server.enqueue(new MockResponse().setBody(payloadFromResource("/keys-compare-failed.json"))
+            .setResponseCode(412));
+      EtcdApi etcdApi = api(server.getUrl("/"));
+      KeysApi api = etcdApi.keysApi();
+      try {
+         CompareResult result = api.compareAndSwap("hello", "world", CompareOptions.Builder.prevIndex(7));
+         assertThat(result.succeeded()).isFalse();
+         assertThat(result.key()).isNull();
+         assertThat(result.errorCode()).isEqualTo(101);
+         assertThat(result.cause()).isEqualTo("[two != one]");
+         assertThat(result.etcdIndex()).isEqualTo(8L);
+         assertSentWithFormData(server, "PUT", "/" + EtcdApiMetadata.API_VERSION + "/keys/hello?prevIndex=7",
+               "value=world");
+      } finally {
+         etcdApi.close();
+         server.shutdown();
+      }
+   }
+
+   public void testCompareAndDeleteNonExistentKey() throws Exception {
+      MockWebServer server = mockEtcdJavaWebServer();
+
+      server.enqueue(
+            new MockResponse().setBody(payloadFromResource("/keys-get-delete-nonexistent.json")).setResponseCode(404));
+      EtcdApi etcdApi = api(server.getUrl("/"));
+      KeysApi api = etcdApi.keysApi();
+      try {
+         CompareResult result = api.compareAndDelete("foo", CompareOptions.Builder.prevExist(true));
+         assertThat(result.succeeded()).isFalse();
+         assertThat(result.errorCode()).isEqualTo(100);
+         assertThat(result.etcdIndex()).isEqualTo(16L);
+         assertSent(server, "DELETE", "/" + EtcdApiMetadata.API_VERSION + "/keys/foo?prevExist=true");
+      } finally {
+         etcdApi.close();
+         server.shutdown();
+      }
+   }
+
+   public void testRefreshKey() throws Exception {
+      MockWebServer server = mockEtcdJavaWebServer();
+
+      server.enqueue(new MockResponse().setBody(payloadFromResource("/keys-create-ttl.json")));
+      EtcdApi etcdApi = api(server.getUrl("/"));
+      KeysApi api = etcdApi.keysApi();
+      try {
+         CompareResult result = api.refreshKey("hello", 5);
+         assertThat(result.succeeded()).isTrue();
+         assertThat(result.key().node().ttl()).isEqualTo(5);
+         RecordedRequest request = server.takeRequest();
+         assertThat(request.getMethod()).isEqualTo("PUT");
+         assertThat(request.getPath()).startsWith("/" + EtcdApiMetadata.API_VERSION + "/keys/hello?")
+               .contains("refresh=true").contains("prevExist=true");
+         assertThat(request.getUtf8Body()).isEqualTo("ttl=5");
+      } finally {
+         etcdApi.close();
+         server.shutdown();
+      }
+   }
+
+   public void testRefreshExpiredKey() throws Exception {
+      MockWebServer server = mockEtcdJavaWebServer();
+
+      server.enqueue(
+            new MockResponse().setBody(payloadFromResource("/keys-get-delete-nonexistent.json")).setResponseCode(404));
+      EtcdApi etcdApi = api(server.getUrl("/"));
+      KeysApi api = etcdApi.keysApi();
+      try {
+         CompareResult result = api.refreshKey("hello", 5);
+         assertThat(result.succeeded()).isFalse();
+         assertThat(result.errorCode()).isEqualTo(CompareResult.KEY_NOT_FOUND);
+      } finally {
+         etcdApi.close();
+         server.shutdown();
+      }
+   }
+
    public void testDeleteKey() throws Exception {
       MockWebServer server = mockEtcdJavaWebServer();
 
@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.etcd.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.jclouds.etcd.EtcdApi;
+import org.jclouds.etcd.config.EtcdProperties;
+import org.jclouds.etcd.options.GetKeyOptions;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.squareup.okhttp.mockwebserver.Dispatcher;
+import com.squareup.okhttp.mockwebserver.MockResponse;
+import com.squareup.okhttp.mockwebserver.MockWebServer;
+import com.squareup.okhttp.mockwebserver.RecordedRequest;
+
+/**
+ * Mock tests for the {@link ClusterRouter} class and the routing of the keys api.
+ */
+@Test(groups = "unit", testName = "ClusterRouterMockTest", singleThreaded = true)
+public class ClusterRouterMockTest extends BaseEtcdMockTest {
+
+   private final List<String> leaderRequests = new CopyOnWriteArrayList<String>();
+   private final List<String> followerRequests = new CopyOnWriteArrayList<String>();
+   private MockWebServer leader;
+   private MockWebServer follower;
+   private EtcdApi etcdApi;
+   private boolean leaderDown;
+
+   @BeforeMethod
+   public void setUp() throws Exception {
+      leaderRequests.clear();
+      followerRequests.clear();
+      leaderDown = false;
+      leader = mockEtcdJavaWebServer();
+      follower = mockEtcdJavaWebServer();
+      String members = "{\"members\":[" + member("1", leader) + "," + member("2", follower) + "]}";
+      leader.setDispatcher(new MemberDispatcher(members, "StateLeader", leaderRequests));
+      follower.setDispatcher(new MemberDispatcher(members, "StateFollower", followerRequests));
+      // the configured endpoint is a follower, the leader is discovered from it
+      etcdApi = api(follower.getUrl("/"));
+   }
+
+   @AfterMethod(alwaysRun = true)
+   public void tearDown() throws Exception {
+      etcdApi.close();
+      if (!leaderDown) {
+         leader.shutdown();
+      }
+      follower.shutdown();
+   }
+
+   @Override
+   protected Properties setupProperties() {
+      Properties properties = super.setupProperties();
+      properties.setProperty(EtcdProperties.CLUSTER_ROUTING, "true");
+      properties.setProperty(EtcdProperties.CLUSTER_REFRESH, "3600");
+      return properties;
+   }
+
+   public void testWritesGoToTheLeader() {
+      etcdApi.keysApi().createKey("hello", "world");
+      etcdApi.keysApi().deleteKey("hello");
+
+      assertThat(leaderRequests).containsExactly("PUT /v2/keys/hello", "DELETE /v2/keys/hello");
+      assertThat(followerRequests).isEmpty();
+   }
+
+   public void testReadsAreSpreadAcrossMembers() {
+      etcdApi.keysApi().getKey("hello");
+      etcdApi.keysApi().getKey("hello");
+
+      assertThat(leaderRequests).containsExactly("GET /v2/keys/hello");
+      assertThat(followerRequests).containsExactly("GET /v2/keys/hello");
+   }
+
+   public void testQuorumReadsGoToTheLeader() {
+      etcdApi.keysApi().getKey("hello", GetKeyOptions.Builder.quorum(true));
+      etcdApi.keysApi().getKey("hello", GetKeyOptions.Builder.quorum(true));
+
+      assertThat(leaderRequests).containsExactly("GET /v2/keys/hello?quorum=true", "GET /v2/keys/hello?quorum=true");
+      assertThat(followerRequests).isEmpty();
+   }
+
+   public void testUnhealthyMembersAreSkipped() {
+      follower.setDispatcher(new MemberDispatcher("{\"members\":[" + member("1", leader) + "," + member("2", follower) + "]}",
+            "StateFollower", followerRequests) {
+         @Override
+         MockResponse health() {
+            return new MockResponse().setResponseCode(503).setBody("{\"health\": \"false\"}");
+         }
+      });
+
+      etcdApi.keysApi().getKey("hello");
+      etcdApi.keysApi().getKey("hello");
+
+      assertThat(leaderRequests).containsExactly("GET /v2/keys/hello", "GET /v2/keys/hello");
+      assertThat(followerRequests).isEmpty();
+   }
+
+   public void testFailsOverWhenMemberIsUnreachable() throws Exception {
+      etcdApi.keysApi().getKey("hello");
+      leader.shutdown();
+      leaderDown = true;
+
+      // the write goes to the leader first, then to the remaining member
+      etcdApi.keysApi().createKey("hello", "world");
+      // the leader is no longer among the members reads are spread across
+      etcdApi.keysApi().getKey("hello");
+      etcdApi.keysApi().getKey("hello");
+
+      assertThat(leaderRequests).containsExactly("GET /v2/keys/hello");
+      assertThat(followerRequests).containsExactly("PUT /v2/keys/hello", "GET /v2/keys/hello", "GET /v2/keys/hello");
+   }
+
+   private static String member(String id, MockWebServer server) {
+      String clientURL = "http://" + server.getHostName() + ":" + server.getPort();
+      return "{\"id\":\"" + id + "\",\"name\":\"infra" + id + "\",\"peerURLs\":[\"http://10.0.0.1" + id
+            + ":2380\"],\"clientURLs\":[\"" + clientURL + "\"]}";
+   }
+
+   /**
+    * Answers the cluster requests as a member in the given state, and records the keys requests it receives.
+    */
+   private class MemberDispatcher extends Dispatcher {
+      private final String members;
+      private final String state;
+      private final List<String> keysRequests;
+
+      MemberDispatcher(String members, String state, List<String> keysRequests) {
+         this.members = members;
+         this.state = state;
+         this.keysRequests = keysRequests;
+      }
+
+      MockResponse health() {
+         return new MockResponse().setBody(payloadFromResource("/health.json"));
+      }
+
+      @Override
+      public MockResponse dispatch(RecordedRequest request) {
+         String path = request.getPath();
+         if (path.startsWith("/v2/members")) {
+            return new MockResponse().setBody(members);
+         } else if (path.startsWith("/health")) {
+            return health();
+         } else if (path.startsWith("/v2/stats/self")) {
+            return new MockResponse().setBody(payloadFromResource("/self.json").replace("StateLeader", state));
+         }
+         keysRequests.add(request.getMethod() + " " + path);
+         if (request.getMethod().equals("PUT")) {
+            return new MockResponse().setBody(payloadFromResource("/keys-create.json")).setResponseCode(201);
+         } else if (request.getMethod().equals("DELETE")) {
+            return new MockResponse().setBody(payloadFromResource("/keys-delete.json"));
+         }
+         return new MockResponse().setBody(payloadFromResource("/keys-get.json"));
+      }
+   }
+}
@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.etcd.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.jclouds.etcd.EtcdApi;
+import org.jclouds.etcd.internal.BaseEtcdMockTest;
+import org.testng.annotations.Test;
+
+import com.squareup.okhttp.mockwebserver.MockResponse;
+import com.squareup.okhttp.mockwebserver.MockWebServer;
+
+/**
+ * Mock tests for the {@link AtomicCounter} class.
+ */
+@Test(groups = "unit", testName = "AtomicCounterMockTest")
+public class AtomicCounterMockTest extends BaseEtcdMockTest {
+
+   public void testAddRetriesWhenChangedConcurrently() throws Exception {
+      MockWebServer server = mockEtcdJavaWebServer();
+
+      server.enqueue(new MockResponse().setBody(counter("get", 5, 20)));
+      server.enqueue(new MockResponse().setBody(payloadFromResource("/keys-compare-failed.json"))
+            .setResponseCode(412));
+      server.enqueue(new MockResponse().setBody(counter("get", 6, 21)));
+      server.enqueue(new MockResponse().setBody(counter("compareAndSwap", 7, 22)));
+      EtcdApi etcdApi = api(server.getUrl("/"));
+      try {
+         AtomicCounter counter = new AtomicCounter(etcdApi.keysApi(), "counter");
+         assertThat(counter.incrementAndGet()).isEqualTo(7);
+
+         assertSent(server, "GET", "/v2/keys/counter?quorum=true");
+         assertSentWithFormData(server, "PUT", "/v2/keys/counter?prevIndex=20", "value=6");
+         assertSent(server, "GET", "/v2/keys/counter?quorum=true");
+         assertSentWithFormData(server, "PUT", "/v2/keys/counter?prevIndex=21", "value=7");
+      } finally {
+         etcdApi.close();
+         server.shutdown();
+      }
+   }
+
+   public void testAddCreatesMissingCounter() throws Exception {
+      MockWebServer server = mockEtcdJavaWebServer();
+
+      server.enqueue(
+            new MockResponse().setBody(payloadFromResource("/keys-get-delete-nonexistent.json")).setResponseCode(404));
+      server.enqueue(new MockResponse().setBody(counter("create", 3, 9)).setResponseCode(201));
+      EtcdApi etcdApi = api(server.getUrl("/"));
+      try {
+         AtomicCounter counter = new AtomicCounter(etcdApi.keysApi(), "counter");
+         assertThat(counter.addAndGet(3)).isEqualTo(3);
+
+         assertSent(server, "GET", "/v2/keys/counter?quorum=true");
+         assertSentWithFormData(server, "PUT", "/v2/keys/counter?prevExist=false", "value=3");
+      } finally {
+         etcdApi.close();
+         server.shutdown();
+      }
+   }
+
+   private static String counter(String action, long value, int index) {
+      return "{\"action\":\"" + action + "\",\"node\":{\"key\":\"/counter\",\"value\":\"" + value
+            + "\",\"modifiedIndex\":" + index + ",\"createdIndex\":1}}";
+   }
+}
@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.etcd.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jclouds.Constants;
+import org.jclouds.ContextBuilder;
+import org.jclouds.etcd.EtcdApi;
+import org.jclouds.etcd.internal.BaseEtcdMockTest;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.Lists;
+import com.squareup.okhttp.mockwebserver.Dispatcher;
+import com.squareup.okhttp.mockwebserver.MockResponse;
+import com.squareup.okhttp.mockwebserver.MockWebServer;
+import com.squareup.okhttp.mockwebserver.RecordedRequest;
+import com.squareup.okhttp.mockwebserver.SocketPolicy;
+
+/**
+ * Mock tests for the {@link DistributedLock} class.
+ */
+@Test(groups = "unit", testName = "DistributedLockMockTest", singleThreaded = true)
+public class DistributedLockMockTest extends BaseEtcdMockTest {
+
+   private static final String PREDECESSOR = "/locks/x/00000000000000000011";
+   private static final String MINE = "/locks/x/00000000000000000012";
+
+   private final List<String> requests = new CopyOnWriteArrayList<String>();
+   private volatile boolean predecessorRemoved;
+   private final AtomicInteger watchTimeouts = new AtomicInteger();
+   private MockWebServer server;
+   private EtcdApi etcdApi;
+
+   @BeforeMethod
+   public void setUp() throws Exception {
+      requests.clear();
+      predecessorRemoved = false;
+      watchTimeouts.set(0);
+      server = mockEtcdJavaWebServer();
+      server.setDispatcher(new Dispatcher() {
+         @Override
+         public MockResponse dispatch(RecordedRequest request) {
+            String path = request.getPath();
+            requests.add(request.getMethod() + " " + path);
+            if (request.getMethod().equals("POST")) {
+               return new MockResponse().setResponseCode(201).setBody(key("create", MINE, 12));
+            } else if (request.getMethod().equals("DELETE")) {
+               return new MockResponse().setBody(key("delete", MINE, 15));
+            } else if (request.getMethod().equals("PUT")) {
+               return new MockResponse().setBody(key("update", MINE, 12));
+            } else if (path.contains("wait=true")) {
+               if (watchTimeouts.getAndDecrement() > 0) {
+                  return new MockResponse().setSocketPolicy(SocketPolicy.NO_RESPONSE);
+               }
+               predecessorRemoved = true;
+               return new MockResponse().setBody(key("expire", PREDECESSOR, 14));
+            }
+            String children = predecessorRemoved ? node(MINE, 12) : node(PREDECESSOR, 11) + "," + node(MINE, 12);
+            return new MockResponse().setHeader("X-Etcd-Index", "12").setBody("{\"action\":\"get\",\"node\":{"
+                  + "\"key\":\"/locks/x\",\"dir\":true,\"nodes\":[" + children + "],\"modifiedIndex\":11,"
+                  + "\"createdIndex\":11}}");
+         }
+      });
+      etcdApi = api(server.getUrl("/"));
+   }
+
+   @AfterMethod(alwaysRun = true)
+   public void tearDown() throws Exception {
+      etcdApi.close();
+      server.shutdown();
+   }
+
+   public void testLockWaitsForThePredecessorOnly() throws Exception {
+      DistributedLock lock = new DistributedLock(etcdApi.keysApi(), "locks/x", "me", 30);
+
+      lock.lock();
+      assertThat(lock.isHeld()).isTrue();
+      assertThat(lock.getHeldKey()).isEqualTo(MINE);
+      lock.unlock();
+      assertThat(lock.isHeld()).isFalse();
+
+      assertThat(requests).hasSize(6);
+      assertThat(requests.get(0)).isEqualTo("POST /v2/keys/locks/x");
+      assertThat(requests.get(1)).startsWith("GET /v2/keys/locks/x?").contains("sorted=true").contains("quorum=true");
+      assertThat(requests.get(2)).startsWith("PUT /v2/keys" + MINE + "?").contains("refresh=true");
+      assertThat(requests.get(3)).startsWith("GET /v2" + "/keys" + PREDECESSOR + "?").contains("wait=true")
+            .contains("waitIndex=13");
+      assertThat(requests.get(4)).startsWith("GET /v2/keys/locks/x?");
+      assertThat(requests.get(5)).isEqualTo("DELETE /v2/keys" + MINE);
+   }
+
+   public void testWaitLongerThanTheTimeToLive() throws Exception {
+      Properties overrides = setupProperties();
+      overrides.setProperty(Constants.PROPERTY_SO_TIMEOUT, "400");
+      EtcdApi timingOut = ContextBuilder.newBuilder(provider).endpoint(server.getUrl("/").toString())
+            .overrides(overrides).buildApi(EtcdApi.class);
+      try {
+         // three watches end with the read timeout, the wait outlasts the time to live of the key
+         watchTimeouts.set(3);
+         DistributedLock lock = new DistributedLock(timingOut.keysApi(), "locks/x", "me", 1);
+         long start = System.nanoTime();
+         lock.lock();
+         assertThat(lock.isHeld()).isTrue();
+         assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isGreaterThan(1000);
+
+         // the key was refreshed before each of the four watches, all from the same index
+         List<String> sent = Lists.newArrayList(requests);
+         for (int i = 2; i < 10; i += 2) {
+            assertThat(sent.get(i)).startsWith("PUT /v2/keys" + MINE + "?").contains("refresh=true");
+            assertThat(sent.get(i + 1)).startsWith("GET /v2" + "/keys" + PREDECESSOR + "?").contains("waitIndex=13");
+         }
+         lock.unlock();
+      } finally {
+         timingOut.close();
+      }
+   }
+
+   public void testTryLockLeavesTheQueueWhenTaken() throws Exception {
+      DistributedLock lock = new DistributedLock(etcdApi.keysApi(), "locks/x", "me", 30);
+
+      assertThat(lock.tryLock()).isFalse();
+      assertThat(lock.isHeld()).isFalse();
+
+      assertThat(requests).hasSize(3);
+      assertThat(requests.get(2)).isEqualTo("DELETE /v2/keys" + MINE);
+   }
+
+   private static String key(String action, String key, int index) {
+      return "{\"action\":\"" + action + "\",\"node\":" + node(key, index) + "}";
+   }
+
+   private static String node(String key, int index) {
+      return "{\"key\":\"" + key + "\",\"value\":\"me\",\"ttl\":30,\"modifiedIndex\":" + index
+            + ",\"createdIndex\":" + index + "}";
+   }
+}
@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.etcd.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.jclouds.etcd.EtcdApi;
+import org.jclouds.etcd.internal.BaseEtcdMockTest;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.squareup.okhttp.mockwebserver.Dispatcher;
+import com.squareup.okhttp.mockwebserver.MockResponse;
+import com.squareup.okhttp.mockwebserver.MockWebServer;
+import com.squareup.okhttp.mockwebserver.RecordedRequest;
+
+/**
+ * Mock tests for the {@link LeaseKeeper} class.
+ */
+@Test(groups = "unit", testName = "LeaseKeeperMockTest", singleThreaded = true)
+public class LeaseKeeperMockTest extends BaseEtcdMockTest {
+
+   private final List<String> refreshed = new CopyOnWriteArrayList<String>();
+   private final BlockingQueue<String> expired = new LinkedBlockingQueue<String>();
+   private MockWebServer server;
+   private EtcdApi etcdApi;
+   private ExecutorService refreshExecutor;
+   private ScheduledExecutorService scheduler;
+   private LeaseKeeper keeper;
+
+   @BeforeMethod
+   public void setUp() throws Exception {
+      refreshed.clear();
+      expired.clear();
+      server = mockEtcdJavaWebServer();
+      server.setDispatcher(new Dispatcher() {
+         @Override
+         public MockResponse dispatch(RecordedRequest request) {
+            String path = request.getPath();
+            if (!path.contains("refresh=true") || !path.contains("prevExist=true")
+                  || !request.getUtf8Body().equals("ttl=1")) {
+               return new MockResponse().setResponseCode(400);
+            }
+            if (path.startsWith("/v2/keys/services/gone?")) {
+               return new MockResponse().setBody(payloadFromResource("/keys-get-delete-nonexistent.json"))
+                     .setResponseCode(404);
+            }
+            refreshed.add(path.substring(0, path.indexOf('?')));
+            return new MockResponse().setBody(payloadFromResource("/keys-create-ttl.json"));
+         }
+      });
+      etcdApi = api(server.getUrl("/"));
+      refreshExecutor = Executors.newFixedThreadPool(2);
+      scheduler = Executors.newSingleThreadScheduledExecutor();
+      keeper = new LeaseKeeper(etcdApi.keysApi(), refreshExecutor, 2, new LeaseKeeper.Listener() {
+         @Override
+         public void onExpired(String key, long lateMillis) {
+            expired.add(key);
+         }
+      });
+      keeper.start(scheduler, 10, TimeUnit.MILLISECONDS);
+   }
+
+   @AfterMethod(alwaysRun = true)
+   public void tearDown() throws Exception {
+      keeper.close();
+      scheduler.shutdownNow();
+      refreshExecutor.shutdownNow();
+      etcdApi.close();
+      server.shutdown();
+   }
+
+   public void testRefreshesBeforeExpiry() throws Exception {
+      keeper.keep("services/a", 1);
+      keeper.keep("services/b", 1);
+
+      // a time to live of one second is refreshed every half second
+      Thread.sleep(1300);
+      assertThat(count("/v2/keys/services/a")).isBetween(2, 3);
+      assertThat(count("/v2/keys/services/b")).isBetween(2, 3);
+      assertThat(keeper.getKeys()).containsOnly("services/a", "services/b");
+      assertThat(expired).isEmpty();
+   }
+
+   public void testReportsExpiredKeys() throws Exception {
+      keeper.keep("services/a", 1);
+      keeper.keep("services/gone", 1);
+
+      assertThat(expired.poll(5, TimeUnit.SECONDS)).isEqualTo("services/gone");
+      assertThat(keeper.getKeys()).containsOnly("services/a");
+   }
+
+   public void testReleasedKeysAreNotRefreshed() throws Exception {
+      keeper.keep("services/a", 1);
+      keeper.release("services/a");
+
+      Thread.sleep(700);
+      assertThat(refreshed).isEmpty();
+      assertThat(keeper.getKeys()).isEmpty();
+   }
+
+   private int count(String path) {
+      int count = 0;
+      for (String refreshedPath : refreshed) {
+         if (refreshedPath.equals(path)) {
+            count++;
+         }
+      }
+      return count;
+   }
+}
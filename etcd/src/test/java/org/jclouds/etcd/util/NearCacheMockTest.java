@@ -0,0 +1,215 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.etcd.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.jclouds.etcd.EtcdApi;
+import org.jclouds.etcd.domain.keys.Key;
+import org.jclouds.etcd.domain.keys.Node;
+import org.jclouds.etcd.internal.BaseEtcdMockTest;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.Lists;
+import com.squareup.okhttp.mockwebserver.Dispatcher;
+import com.squareup.okhttp.mockwebserver.MockResponse;
+import com.squareup.okhttp.mockwebserver.MockWebServer;
+import com.squareup.okhttp.mockwebserver.RecordedRequest;
+
+/**
+ * Mock tests for the {@link NearCache} class.
+ */
+@Test(groups = "unit", testName = "NearCacheMockTest", singleThreaded = true)
+public class NearCacheMockTest extends BaseEtcdMockTest {
+
+   private static final String DELETE_B = "{\"action\":\"delete\",\"node\":{\"key\":\"/config/b\","
+         + "\"modifiedIndex\":12,\"createdIndex\":8}}";
+   private static final String NESTED = "{\"action\":\"get\",\"node\":{\"key\":\"/config\",\"dir\":true,"
+         + "\"nodes\":[{\"key\":\"/config/a\",\"value\":\"1\",\"modifiedIndex\":7,\"createdIndex\":7},"
+         + "{\"key\":\"/config/sub\",\"dir\":true,\"nodes\":["
+         + "{\"key\":\"/config/sub/x\",\"value\":\"x\",\"modifiedIndex\":8,\"createdIndex\":8},"
+         + "{\"key\":\"/config/sub/y\",\"value\":\"y\",\"modifiedIndex\":9,\"createdIndex\":9}],"
+         + "\"modifiedIndex\":8,\"createdIndex\":8}],\"modifiedIndex\":7,\"createdIndex\":7}}";
+   private static final String SET_Z = "{\"action\":\"set\",\"node\":{\"key\":\"/config/sub/z\",\"value\":\"z\","
+         + "\"modifiedIndex\":11,\"createdIndex\":11}}";
+   private static final String SUB = "{\"action\":\"get\",\"node\":{\"key\":\"/config/sub\",\"dir\":true,"
+         + "\"nodes\":[{\"key\":\"/config/sub/y\",\"value\":\"y\",\"modifiedIndex\":9,\"createdIndex\":9},"
+         + "{\"key\":\"/config/sub/z\",\"value\":\"z\",\"modifiedIndex\":11,\"createdIndex\":11}],"
+         + "\"modifiedIndex\":8,\"createdIndex\":8}}";
+
+   private final BlockingQueue<MockResponse> changes = new LinkedBlockingQueue<MockResponse>();
+   private final List<String> reads = new CopyOnWriteArrayList<String>();
+   private volatile String snapshot;
+   private MockWebServer server;
+   private EtcdApi etcdApi;
+   private ExecutorService executor;
+
+   @BeforeMethod
+   public void setUp() throws Exception {
+      changes.clear();
+      reads.clear();
+      snapshot = null;
+      server = mockEtcdJavaWebServer();
+      server.setDispatcher(new Dispatcher() {
+         @Override
+         public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+            if (request.getPath().contains("wait=true")) {
+               MockResponse change = changes.poll(500, TimeUnit.MILLISECONDS);
+               // an empty response ends the watch without a change, as etcd does
+               return change != null ? change : new MockResponse();
+            }
+            reads.add(request.getPath());
+            if (request.getPath().endsWith("/keys/config?recursive=true")) {
+               return new MockResponse()
+                     .setBody(snapshot != null ? snapshot : payloadFromResource("/keys-get-recursive.json"))
+                     .setHeader("X-Etcd-Index", "10");
+            }
+            if (request.getPath().endsWith("/keys/config/sub")) {
+               return new MockResponse().setBody(SUB).setHeader("X-Etcd-Index", "20");
+            }
+            return new MockResponse().setBody(payloadFromResource("/keys-get-delete-nonexistent.json"))
+                  .setResponseCode(404);
+         }
+      });
+      etcdApi = api(server.getUrl("/"));
+      executor = Executors.newSingleThreadExecutor();
+   }
+
+   @AfterMethod(alwaysRun = true)
+   public void tearDown() throws Exception {
+      etcdApi.close();
+      executor.shutdownNow();
+      server.shutdown();
+   }
+
+   public void testReadsFromMemory() throws Exception {
+      NearCache cache = new NearCache(etcdApi.keysApi(), "config", 100);
+      try {
+         cache.start(executor);
+         assertThat(cache.getIndex()).isEqualTo(10);
+         assertThat(cache.size()).isEqualTo(3);
+
+         assertThat(cache.getKey("config/a").node().value()).isEqualTo("1");
+         assertThat(cache.getKey("/config/b").etcdIndex()).isEqualTo(10L);
+         assertThat(cache.getKey("config/missing")).isNull();
+         Key directory = cache.getKey("config");
+         assertThat(directory.node().dir()).isTrue();
+         assertThat(children(directory)).containsExactly("/config/a", "/config/b");
+         assertThat(reads).hasSize(1);
+      } finally {
+         cache.close();
+      }
+   }
+
+   public void testAppliesWatchedChanges() throws Exception {
+      NearCache cache = new NearCache(etcdApi.keysApi(), "config", 100);
+      try {
+         cache.start(executor);
+         changes.add(new MockResponse().setBody(payloadFromResource("/keys-watch.json")));
+         awaitIndex(cache, 11);
+         assertThat(cache.getKey("config/a").node().value()).isEqualTo("3");
+
+         changes.add(new MockResponse().setBody(DELETE_B));
+         awaitIndex(cache, 12);
+         assertThat(cache.getKey("config/b")).isNull();
+         assertThat(children(cache.getKey("config"))).containsExactly("/config/a");
+         assertThat(reads).hasSize(1);
+      } finally {
+         cache.close();
+      }
+   }
+
+   public void testMissesGoToEtcdOnceEvicted() throws Exception {
+      NearCache cache = new NearCache(etcdApi.keysApi(), "config", 2);
+      try {
+         cache.start(executor);
+         assertThat(cache.size()).isEqualTo(2);
+
+         assertThat(cache.getKey("config/missing")).isNull();
+         assertThat(reads).hasSize(2);
+         assertThat(reads.get(1)).endsWith("/keys/config/missing");
+      } finally {
+         cache.close();
+      }
+   }
+
+   public void testEvictionsOnlyAffectTheirDirectory() throws Exception {
+      snapshot = NESTED;
+      NearCache cache = new NearCache(etcdApi.keysApi(), "config", 5);
+      try {
+         cache.start(executor);
+         assertThat(children(cache.getKey("config"))).containsExactly("/config/a", "/config/sub");
+         // the new key evicts /config/sub/x, the least recently used node
+         changes.add(new MockResponse().setBody(SET_Z));
+         awaitIndex(cache, 11);
+         assertThat(cache.size()).isEqualTo(5);
+
+         assertThat(cache.getKey("config/missing")).isNull();
+         assertThat(cache.getKey("config/a").node().value()).isEqualTo("1");
+         assertThat(children(cache.getKey("config"))).containsExactly("/config/a", "/config/sub");
+         assertThat(reads).hasSize(1);
+
+         assertThat(children(cache.getKey("config/sub"))).containsExactly("/config/sub/y", "/config/sub/z");
+         assertThat(reads).hasSize(2);
+         assertThat(reads.get(1)).endsWith("/keys/config/sub");
+
+         // read again, the directory is complete
+         assertThat(children(cache.getKey("config/sub"))).containsExactly("/config/sub/y", "/config/sub/z");
+         assertThat(cache.getKey("config/sub/x")).isNull();
+         assertThat(reads).hasSize(2);
+      } finally {
+         cache.close();
+      }
+   }
+
+   public void testKeysOutsideTheDirectoryGoToEtcd() throws Exception {
+      NearCache cache = new NearCache(etcdApi.keysApi(), "config", 100);
+      try {
+         cache.start(executor);
+         assertThat(cache.getKey("other")).isNull();
+         assertThat(reads).hasSize(2);
+      } finally {
+         cache.close();
+      }
+   }
+
+   private static void awaitIndex(NearCache cache, long index) throws InterruptedException {
+      long deadline = System.currentTimeMillis() + 5000;
+      while (cache.getIndex() < index && System.currentTimeMillis() < deadline) {
+         Thread.sleep(10);
+      }
+      assertThat(cache.getIndex()).isEqualTo(index);
+   }
+
+   private static List<String> children(Key directory) {
+      List<String> children = Lists.newArrayList();
+      for (Node child : directory.node().nodes()) {
+         children.add(child.key());
+      }
+      return children;
+   }
+}
@@ -0,0 +1,183 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.etcd.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Properties;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.jclouds.Constants;
+import org.jclouds.ContextBuilder;
+import org.jclouds.etcd.EtcdApi;
+import org.jclouds.etcd.EtcdApiMetadata;
+import org.jclouds.etcd.domain.keys.Key;
+import org.jclouds.etcd.internal.BaseEtcdMockTest;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.squareup.okhttp.mockwebserver.MockResponse;
+import com.squareup.okhttp.mockwebserver.MockWebServer;
+import com.squareup.okhttp.mockwebserver.RecordedRequest;
+import com.squareup.okhttp.mockwebserver.SocketPolicy;
+
+/**
+ * Mock tests for the {@link Watcher} class.
+ */
+@Test(groups = "unit", testName = "WatcherMockTest", singleThreaded = true)
+public class WatcherMockTest extends BaseEtcdMockTest {
+
+   private static final String CHANGE_B = "{\"action\":\"set\",\"node\":{\"key\":\"/config/b\",\"value\":\"4\","
+         + "\"modifiedIndex\":12,\"createdIndex\":12}}";
+
+   private MockWebServer server;
+   private EtcdApi etcdApi;
+   private ExecutorService executor;
+   private Watcher watcher;
+
+   @BeforeMethod
+   public void setUp() throws Exception {
+      server = mockEtcdJavaWebServer();
+      etcdApi = api(server.getUrl("/"));
+      executor = Executors.newSingleThreadExecutor();
+      watcher = new Watcher(etcdApi.keysApi(), "config");
+   }
+
+   @AfterMethod(alwaysRun = true)
+   public void tearDown() throws Exception {
+      watcher.close();
+      server.shutdown();
+      etcdApi.close();
+      executor.shutdownNow();
+   }
+
+   public void testResumesFromLastModifiedIndex() throws Exception {
+      server.enqueue(new MockResponse().setBody(payloadFromResource("/keys-get-recursive.json"))
+            .setHeader("X-Etcd-Index", "10"));
+      server.enqueue(new MockResponse().setBody(payloadFromResource("/keys-watch.json")));
+      server.enqueue(new MockResponse().setBody(CHANGE_B));
+
+      BlockingQueue<String> a = new LinkedBlockingQueue<String>();
+      BlockingQueue<String> all = new LinkedBlockingQueue<String>();
+      watcher.addListener("/config/a", recorder(a)).addListener("/config/", recorder(all));
+      watcher.start(executor);
+
+      assertThat(a.poll(5, TimeUnit.SECONDS)).isEqualTo("snapshot /config");
+      assertThat(a.poll(5, TimeUnit.SECONDS)).isEqualTo("set /config/a");
+      assertThat(all.poll(5, TimeUnit.SECONDS)).isEqualTo("snapshot /config");
+      assertThat(all.poll(5, TimeUnit.SECONDS)).isEqualTo("set /config/a");
+      assertThat(all.poll(5, TimeUnit.SECONDS)).isEqualTo("set /config/b");
+      assertThat(a.poll(200, TimeUnit.MILLISECONDS)).isNull();
+
+      assertSent(server, "GET", "/" + EtcdApiMetadata.API_VERSION + "/keys/config?recursive=true");
+      assertWatched(11);
+      assertWatched(12);
+      assertWatched(13);
+      assertThat(watcher.getNextIndex()).isEqualTo(13);
+   }
+
+   public void testReadsAgainWhenIndexIsCleared() throws Exception {
+      server.enqueue(new MockResponse().setBody(payloadFromResource("/keys-get-recursive.json"))
+            .setHeader("X-Etcd-Index", "10"));
+      server.enqueue(new MockResponse().setBody(payloadFromResource("/keys-watch-index-cleared.json"))
+            .setResponseCode(400));
+      server.enqueue(new MockResponse().setBody(payloadFromResource("/keys-get-recursive.json"))
+            .setHeader("X-Etcd-Index", "2007"));
+
+      BlockingQueue<String> events = new LinkedBlockingQueue<String>();
+      watcher.addListener("/config", recorder(events));
+      watcher.start(executor);
+
+      assertThat(events.poll(5, TimeUnit.SECONDS)).isEqualTo("snapshot /config");
+      assertThat(events.poll(5, TimeUnit.SECONDS)).isEqualTo("snapshot /config");
+
+      assertSent(server, "GET", "/" + EtcdApiMetadata.API_VERSION + "/keys/config?recursive=true");
+      assertWatched(11);
+      assertSent(server, "GET", "/" + EtcdApiMetadata.API_VERSION + "/keys/config?recursive=true");
+      assertWatched(2008);
+   }
+
+   public void testPollsAgainAfterReadTimeout() throws Exception {
+      Properties overrides = setupProperties();
+      overrides.setProperty(Constants.PROPERTY_SO_TIMEOUT, "500");
+      EtcdApi timingOut = ContextBuilder.newBuilder(provider).endpoint(server.getUrl("/").toString())
+            .overrides(overrides).buildApi(EtcdApi.class);
+      try {
+         server.enqueue(new MockResponse().setBody(payloadFromResource("/keys-get-recursive.json"))
+               .setHeader("X-Etcd-Index", "10"));
+         server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.NO_RESPONSE));
+         server.enqueue(new MockResponse().setBody(CHANGE_B));
+
+         BlockingQueue<String> events = new LinkedBlockingQueue<String>();
+         Watcher quiet = new Watcher(timingOut.keysApi(), "config");
+         try {
+            quiet.addListener("/config/b", recorder(events));
+            quiet.start(executor);
+
+            assertThat(events.poll(5, TimeUnit.SECONDS)).isEqualTo("snapshot /config");
+            assertThat(events.poll(5, TimeUnit.SECONDS)).isEqualTo("set /config/b");
+            assertSent(server, "GET", "/" + EtcdApiMetadata.API_VERSION + "/keys/config?recursive=true");
+            assertWatched(11);
+            assertWatched(11);
+            assertThat(quiet.getNextIndex()).isEqualTo(13);
+         } finally {
+            quiet.close();
+         }
+      } finally {
+         timingOut.close();
+      }
+   }
+
+   public void testDirectoryChangeReachesKeysBelowIt() throws Exception {
+      server.enqueue(new MockResponse().setBody(payloadFromResource("/keys-get-recursive.json"))
+            .setHeader("X-Etcd-Index", "10"));
+      server.enqueue(new MockResponse().setBody("{\"action\":\"delete\",\"node\":{\"key\":\"/config\",\"dir\":true,"
+            + "\"modifiedIndex\":11,\"createdIndex\":7}}"));
+
+      BlockingQueue<String> b = new LinkedBlockingQueue<String>();
+      watcher.addListener("config/b", recorder(b));
+      watcher.start(executor);
+
+      assertThat(b.poll(5, TimeUnit.SECONDS)).isEqualTo("snapshot /config");
+      assertThat(b.poll(5, TimeUnit.SECONDS)).isEqualTo("delete /config");
+   }
+
+   private void assertWatched(long waitIndex) throws InterruptedException {
+      RecordedRequest request = server.takeRequest();
+      assertThat(request.getPath()).startsWith("/" + EtcdApiMetadata.API_VERSION + "/keys/config?")
+            .contains("wait=true").contains("recursive=true").contains("waitIndex=" + waitIndex);
+   }
+
+   private static Watcher.Listener recorder(final BlockingQueue<String> events) {
+      return new Watcher.Listener() {
+         @Override
+         public void onSnapshot(Key snapshot) {
+            events.add("snapshot " + snapshot.node().key());
+         }
+
+         @Override
+         public void onChange(Key change) {
+            events.add(change.action() + " " + change.node().key());
+         }
+      };
+   }
+}
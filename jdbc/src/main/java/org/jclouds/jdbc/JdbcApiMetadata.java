@@ -25,6 +25,22 @@ import org.jclouds.blobstore.BlobStoreContext;
 import org.jclouds.jdbc.config.JdbcBlobStoreContextModule;
 
 import java.net.URI;
+import java.util.Properties;
+
+import static org.jclouds.jdbc.reference.JdbcConstants.DEFAULT_CHUNK_SIZE;
+import static org.jclouds.jdbc.reference.JdbcConstants.PROPERTY_ASYNC_CONTAINER_DELETE;
+import static org.jclouds.jdbc.reference.JdbcConstants.PROPERTY_CHUNK_DEDUPLICATION;
+import static org.jclouds.jdbc.reference.JdbcConstants.PROPERTY_CHUNK_SIZE;
+import static org.jclouds.jdbc.reference.JdbcConstants.PROPERTY_DELETE_BATCH_SIZE;
+import static org.jclouds.jdbc.reference.JdbcConstants.PROPERTY_INLINE_THRESHOLD;
+import static org.jclouds.jdbc.reference.JdbcConstants.PROPERTY_METADATA_CACHE_EXPIRY;
+import static org.jclouds.jdbc.reference.JdbcConstants.PROPERTY_METADATA_CACHE_SIZE;
+import static org.jclouds.jdbc.reference.JdbcConstants.PROPERTY_MULTIPART_PARALLELISM;
+import static org.jclouds.jdbc.reference.JdbcConstants.PROPERTY_MULTIPART_PART_SIZE;
+import static org.jclouds.jdbc.reference.JdbcConstants.PROPERTY_PAYLOAD_READ_TIMEOUT;
+import static org.jclouds.jdbc.reference.JdbcConstants.PROPERTY_READ_AHEAD_CHUNKS;
+import static org.jclouds.jdbc.reference.JdbcConstants.PROPERTY_SUBSTRING_READS;
+import static org.jclouds.jdbc.reference.JdbcConstants.PROPERTY_WRITE_BATCH_CHUNKS;
 
 /**
  * Implementation of {@link ApiMetadata} for jclouds Jdbc BlobStore
@@ -45,6 +61,24 @@ public class JdbcApiMetadata extends BaseApiMetadata {
       super(builder);
    }
 
+   public static Properties defaultProperties() {
+      Properties properties = BaseApiMetadata.defaultProperties();
+      properties.setProperty(PROPERTY_CHUNK_SIZE, String.valueOf(DEFAULT_CHUNK_SIZE));
+      properties.setProperty(PROPERTY_INLINE_THRESHOLD, "4096");
+      properties.setProperty(PROPERTY_READ_AHEAD_CHUNKS, "2");
+      properties.setProperty(PROPERTY_WRITE_BATCH_CHUNKS, "4");
+      properties.setProperty(PROPERTY_DELETE_BATCH_SIZE, "1000");
+      properties.setProperty(PROPERTY_ASYNC_CONTAINER_DELETE, "false");
+      properties.setProperty(PROPERTY_CHUNK_DEDUPLICATION, "false");
+      properties.setProperty(PROPERTY_SUBSTRING_READS, "true");
+      properties.setProperty(PROPERTY_MULTIPART_PART_SIZE, String.valueOf(32 * 1024 * 1024));
+      properties.setProperty(PROPERTY_MULTIPART_PARALLELISM, "4");
+      properties.setProperty(PROPERTY_PAYLOAD_READ_TIMEOUT, "300");
+      properties.setProperty(PROPERTY_METADATA_CACHE_SIZE, "10000");
+      properties.setProperty(PROPERTY_METADATA_CACHE_EXPIRY, "60");
+      return properties;
+   }
+
    public static class Builder extends BaseApiMetadata.Builder<Builder> {
 
       protected Builder() {
@@ -57,6 +91,7 @@ public class JdbcApiMetadata extends BaseApiMetadata {
          .defaultCredential("unused")
          .version("1")
          .documentation(URI.create("http://www.jclouds.org/documentation/userguide/blobstore-guide"))
+         .defaultProperties(JdbcApiMetadata.defaultProperties())
          .view(BlobStoreContext.class)
          .defaultModules(ImmutableSet.<Class<? extends Module>>of(JdbcBlobStoreContextModule.class));
       }
@@ -18,25 +18,37 @@ package org.jclouds.jdbc.conversion;
 
 import com.google.common.base.Function;
 import com.google.common.hash.HashCode;
+import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
+import org.jclouds.Constants;
 import org.jclouds.blobstore.domain.Blob;
 import org.jclouds.blobstore.domain.BlobBuilder;
 import org.jclouds.blobstore.domain.StorageType;
 import org.jclouds.jdbc.entity.BlobEntity;
 import org.jclouds.jdbc.entity.PayloadEntity;
 import org.jclouds.jdbc.service.JdbcService;
-import org.jclouds.jdbc.util.JdbcInputStream;
+import org.jclouds.jdbc.util.JdbcByteSource;
+
+import javax.inject.Named;
+
+import static org.jclouds.jdbc.reference.JdbcConstants.PROPERTY_READ_AHEAD_CHUNKS;
 
 public class BlobEntityToBlob implements Function<BlobEntity, Blob> {
 
    private final Provider<BlobBuilder> blobBuilders;
    private final JdbcService jdbcService;
+   private final ListeningExecutorService userExecutor;
+   private final int readAheadChunks;
 
    @Inject
-   BlobEntityToBlob(Provider<BlobBuilder> blobBuilders, JdbcService jdbcService) {
+   BlobEntityToBlob(Provider<BlobBuilder> blobBuilders, JdbcService jdbcService,
+         @Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService userExecutor,
+         @Named(PROPERTY_READ_AHEAD_CHUNKS) int readAheadChunks) {
       this.blobBuilders = blobBuilders;
       this.jdbcService = jdbcService;
+      this.userExecutor = userExecutor;
+      this.readAheadChunks = readAheadChunks;
    }
 
    @Override
@@ -53,8 +65,13 @@ public class BlobEntityToBlob implements Function<BlobEntity, Blob> {
       if (blobEntity.isDirectory()) {
          builder.type(StorageType.FOLDER);
       }
+      else if (payload.getInlineData() != null) {
+         builder.payload(payload.getInlineData());
+      }
       else {
-         builder.payload(new JdbcInputStream(jdbcService, blobEntity.getPayload().getChunks()));
+         // the chunks are only read when the payload is opened, so fetching a blob for its metadata stays cheap
+         builder.payload(new JdbcByteSource(jdbcService, payload.getChunks(), blobEntity.getSize(), userExecutor,
+               readAheadChunks));
       }
 
       Blob blob = builder.build();
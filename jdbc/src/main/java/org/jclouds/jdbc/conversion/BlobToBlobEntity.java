@@ -18,7 +18,7 @@ package org.jclouds.jdbc.conversion;
 
 import com.google.common.base.Function;
 import org.jclouds.blobstore.domain.Blob;
-import org.jclouds.blobstore.domain.MutableBlobMetadata;
+import org.jclouds.blobstore.domain.BlobMetadata;
 import org.jclouds.io.ContentMetadata;
 import org.jclouds.jdbc.entity.BlobEntity;
 import org.jclouds.jdbc.entity.PayloadEntity;
@@ -26,7 +26,15 @@ import org.jclouds.jdbc.entity.PayloadEntity;
 public class BlobToBlobEntity implements Function<Blob, BlobEntity> {
    @Override
    public BlobEntity apply(Blob blob) {
-      MutableBlobMetadata metadata = blob.getMetadata();
+      BlobEntity blobEntity = fromBlobMetadata(blob.getMetadata());
+      blobEntity.setSize(blob.getPayload().getContentMetadata().getContentLength());
+      return blobEntity;
+   }
+
+   /**
+    * Converts the metadata of a blob whose content is not known yet, as when a multipart upload is completed.
+    */
+   public BlobEntity fromBlobMetadata(BlobMetadata metadata) {
       ContentMetadata contentMetadata = metadata.getContentMetadata();
       PayloadEntity payload = PayloadEntity.builder()
             .cacheControl(contentMetadata.getCacheControl())
@@ -43,7 +51,6 @@ public class BlobToBlobEntity implements Function<Blob, BlobEntity> {
       return BlobEntity.builder(null, null)
             .payload(payload)
             .userMetadata(metadata.getUserMetadata())
-            .size(blob.getPayload().getContentMetadata().getContentLength())
             .build();
    }
 }
@@ -19,13 +19,17 @@ package org.jclouds.jdbc.entity;
 import org.jclouds.blobstore.domain.BlobAccess;
 
 import javax.persistence.CascadeType;
+import javax.persistence.CollectionTable;
+import javax.persistence.Column;
 import javax.persistence.ElementCollection;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
 import javax.persistence.Id;
 import javax.persistence.IdClass;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.MapKeyColumn;
 import javax.persistence.OneToOne;
 import javax.persistence.PrePersist;
 import javax.persistence.Table;
@@ -33,22 +37,36 @@ import java.util.Date;
 import java.util.Map;
 
 @Entity
-@Table
+@Table(indexes = @Index(name = "blob_parent_directory", columnList = "id, parent_directory"))
 @IdClass(value = BlobEntityPK.class)
 public class BlobEntity {
 
+   private static final String SEPARATOR = "/";
+
    @Id
    @ManyToOne
    @JoinColumn(name = "id")
    private ContainerEntity containerEntity;
 
    @Id
+   @Column(name = "blob_key")
    private String key;
 
+   // Directory holding the blob, ending with the separator, or the empty string for the container root
+   @Column(name = "parent_directory")
+   private String parentDirectory;
+
    @OneToOne(cascade = CascadeType.ALL, fetch = FetchType.EAGER)
+   @JoinColumn(name = "payload_id")
    private PayloadEntity payload;
 
+   // Table and column names are fixed so the bulk deletes in BlobRepository can address them with native SQL
    @ElementCollection(fetch = FetchType.EAGER)
+   @CollectionTable(name = "BlobEntity_userMetadata", joinColumns = {
+         @JoinColumn(name = "container_id", referencedColumnName = "id"),
+         @JoinColumn(name = "blob_key", referencedColumnName = "blob_key") })
+   @MapKeyColumn(name = "metadata_key")
+   @Column(name = "metadata_value")
    public Map<String, String> userMetadata;
 
    private Date creationDate;
@@ -76,6 +94,7 @@ public class BlobEntity {
          BlobAccess blobAccess, Map<String, String> userMetadata, Long size, String etag, boolean directory) {
       this.containerEntity = containerEntity;
       this.key = key;
+      this.parentDirectory = parentDirectoryOf(key);
       this.creationDate = creationDate;
       this.lastModified = lastModified;
       this.payload = payload;
@@ -108,6 +127,24 @@ public class BlobEntity {
 
    public void setKey(String key) {
       this.key = key;
+      this.parentDirectory = parentDirectoryOf(key);
+   }
+
+   public String getParentDirectory() {
+      return parentDirectory;
+   }
+
+   /**
+    * Returns the directory part of a blob key including the trailing separator, or the empty string if the key
+    * is at the root of the container. A trailing separator of the key itself is ignored, so "a/b/" is in "a/".
+    */
+   public static String parentDirectoryOf(String key) {
+      if (key == null) {
+         return null;
+      }
+      int end = key.endsWith(SEPARATOR) ? key.length() - SEPARATOR.length() : key.length();
+      int index = key.lastIndexOf(SEPARATOR, end - 1);
+      return index < 0 ? "" : key.substring(0, index + SEPARATOR.length());
    }
 
    public PayloadEntity getPayload() {
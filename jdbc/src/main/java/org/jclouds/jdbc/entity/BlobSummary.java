@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.entity;
+
+import java.util.Date;
+
+/**
+ * Projection of the {@link BlobEntity} columns needed to list blobs, so listings do not load payloads, chunk
+ * lists or user metadata.
+ */
+public class BlobSummary {
+
+   private final String key;
+   private final Long size;
+   private final String etag;
+   private final Date creationDate;
+   private final Date lastModified;
+   private final boolean directory;
+   private final String contentType;
+
+   public BlobSummary(String key, Long size, String etag, Date creationDate, Date lastModified, boolean directory,
+         String contentType) {
+      this.key = key;
+      this.size = size;
+      this.etag = etag;
+      this.creationDate = creationDate;
+      this.lastModified = lastModified;
+      this.directory = directory;
+      this.contentType = contentType;
+   }
+
+   public String getKey() {
+      return key;
+   }
+
+   public Long getSize() {
+      return size;
+   }
+
+   public String getEtag() {
+      return etag;
+   }
+
+   public Date getCreationDate() {
+      return creationDate;
+   }
+
+   public Date getLastModified() {
+      return lastModified;
+   }
+
+   public boolean isDirectory() {
+      return directory;
+   }
+
+   public String getContentType() {
+      return contentType;
+   }
+
+}
@@ -18,15 +18,18 @@ package org.jclouds.jdbc.entity;
 
 import org.jclouds.jdbc.reference.JdbcConstants;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.Lob;
 import javax.persistence.Table;
 
 @Entity
-@Table
+@Table(indexes = @Index(name = "chunk_digest", columnList = "digest"))
+@Cacheable(false)
 public class ChunkEntity {
 
    @Id
@@ -34,14 +37,27 @@ public class ChunkEntity {
    private Long id;
 
    @Lob
-   @Column(length = JdbcConstants.DEFAULT_CHUNK_SIZE)
+   @Column(name = "data", length = JdbcConstants.MAX_CHUNK_SIZE)
    private byte[] data;
 
    private int size;
 
+   // SHA-256 of the data in hex, only set when the chunk can be shared between blobs
+   @Column(name = "digest", length = 64)
+   private String digest;
+
+   // Number of payload positions referring to the chunk, the chunk is deleted when it drops to zero
+   @Column(name = "ref_count")
+   private int refCount = 1;
+
    public ChunkEntity(byte[] data, int size) {
+      this(data, size, null);
+   }
+
+   public ChunkEntity(byte[] data, int size, String digest) {
       this.data = data;
       this.size = size;
+      this.digest = digest;
    }
 
    public ChunkEntity() {
@@ -70,4 +86,20 @@ public class ChunkEntity {
    public void setSize(int size) {
       this.size = size;
    }
+
+   public String getDigest() {
+      return digest;
+   }
+
+   public void setDigest(String digest) {
+      this.digest = digest;
+   }
+
+   public int getRefCount() {
+      return refCount;
+   }
+
+   public void setRefCount(int refCount) {
+      this.refCount = refCount;
+   }
 }
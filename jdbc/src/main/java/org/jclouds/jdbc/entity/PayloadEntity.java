@@ -17,12 +17,17 @@
 package org.jclouds.jdbc.entity;
 
 import com.google.common.collect.ImmutableList;
+import org.jclouds.jdbc.reference.JdbcConstants;
 
+import javax.persistence.CollectionTable;
+import javax.persistence.Column;
 import javax.persistence.ElementCollection;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.JoinColumn;
+import javax.persistence.OrderColumn;
 import java.util.Date;
 import java.util.List;
 
@@ -34,8 +39,14 @@ public class PayloadEntity {
    private Long id;
 
    @ElementCollection(fetch = FetchType.EAGER)
+   @CollectionTable(name = "PayloadEntity_chunks", joinColumns = @JoinColumn(name = "payload_id"))
+   @Column(name = "chunk_id")
+   @OrderColumn(name = "chunk_index")
    private List<Long> chunks;
 
+   @Column(length = JdbcConstants.MAX_INLINE_SIZE)
+   private byte[] inlineData;
+
    private String cacheControl;
    private String contentType;
    private Long contentLength;
@@ -45,9 +56,11 @@ public class PayloadEntity {
    private String contentEncoding;
    private Date expires;
 
-   public PayloadEntity(List<Long> chunks, String cacheControl, String contentType, Long contentLength, byte[] contentMD5,
-         String contentDisposition, String contentLanguage, String contentEncoding, Date expires) {
+   public PayloadEntity(List<Long> chunks, byte[] inlineData, String cacheControl, String contentType,
+         Long contentLength, byte[] contentMD5, String contentDisposition, String contentLanguage,
+         String contentEncoding, Date expires) {
       this.chunks = chunks;
+      this.inlineData = inlineData;
       this.cacheControl = cacheControl;
       this.contentType = contentType;
       this.contentLength = contentLength;
@@ -77,6 +90,17 @@ public class PayloadEntity {
       this.chunks = chunks;
    }
 
+   /**
+    * Returns the payload data when it is stored inline, or null when it is stored in chunks.
+    */
+   public byte[] getInlineData() {
+      return inlineData;
+   }
+
+   public void setInlineData(byte[] inlineData) {
+      this.inlineData = inlineData;
+   }
+
    public String getCacheControl() {
       return cacheControl;
    }
@@ -147,6 +171,7 @@ public class PayloadEntity {
 
    public static class Builder {
       private List<Long> chunks;
+      private byte[] inlineData;
       private String cacheControl;
       private String contentType;
       private Long contentLength;
@@ -165,6 +190,11 @@ public class PayloadEntity {
          return this;
       }
 
+      public Builder inlineData(byte[] inlineData) {
+         this.inlineData = inlineData;
+         return this;
+      }
+
       public Builder cacheControl(String cacheControl) {
          this.cacheControl = cacheControl;
          return this;
@@ -206,7 +236,7 @@ public class PayloadEntity {
       }
 
       public PayloadEntity build() {
-         return new PayloadEntity(chunks, cacheControl, contentType, contentLength, contentMD5, contentDisposition, contentLanguage, contentEncoding, expires);
+         return new PayloadEntity(chunks, inlineData, cacheControl, contentType, contentLength, contentMD5, contentDisposition, contentLanguage, contentEncoding, expires);
       }
    }
 
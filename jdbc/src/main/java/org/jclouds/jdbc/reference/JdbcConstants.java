@@ -23,6 +23,88 @@ public final class JdbcConstants {
 
     public static final int DEFAULT_CHUNK_SIZE = 1024 * 1024;
 
+    /**
+     * Largest chunk size the chunk table can hold.
+     */
+    public static final int MAX_CHUNK_SIZE = 16 * 1024 * 1024;
+
+    /**
+     * Largest payload that can be stored inline in the payload table.
+     */
+    public static final int MAX_INLINE_SIZE = 32 * 1024;
+
+    /**
+     * Size in bytes of the chunks blob data is split into. Must not exceed {@link #MAX_CHUNK_SIZE}.
+     */
+    public static final String PROPERTY_CHUNK_SIZE = "jclouds.jdbc.chunk-size";
+
+    /**
+     * Payloads up to this size in bytes are stored inline in the payload row instead of in chunks. Must not exceed
+     * {@link #MAX_INLINE_SIZE}. A value of 0 disables inline storage.
+     */
+    public static final String PROPERTY_INLINE_THRESHOLD = "jclouds.jdbc.inline-threshold";
+
+    /**
+     * Number of chunks fetched in the background while the current chunk of a blob is being read.
+     * A value of 0 disables read-ahead.
+     */
+    public static final String PROPERTY_READ_AHEAD_CHUNKS = "jclouds.jdbc.read-ahead-chunks";
+
+    /**
+     * Number of chunks inserted in one JDBC batch when storing a blob. Blob data is buffered in memory for at
+     * most this number of chunks plus two.
+     */
+    public static final String PROPERTY_WRITE_BATCH_CHUNKS = "jclouds.jdbc.write-batch-chunks";
+
+    /**
+     * Maximum number of blobs removed per transaction when a container or directory is cleared.
+     */
+    public static final String PROPERTY_DELETE_BATCH_SIZE = "jclouds.jdbc.delete-batch-size";
+
+    /**
+     * When true, deleting a container only hides it and its blobs are removed in the background.
+     */
+    public static final String PROPERTY_ASYNC_CONTAINER_DELETE = "jclouds.jdbc.async-container-delete";
+
+    /**
+     * When true, chunks are stored once per distinct content and shared between blobs through a reference count.
+     */
+    public static final String PROPERTY_CHUNK_DEDUPLICATION = "jclouds.jdbc.chunk-deduplication";
+
+    /**
+     * When true, ranged reads fetch only the requested bytes of a chunk with a SQL SUBSTRING. Falls back to reading
+     * whole chunks once the database rejects the statement as unsupported.
+     */
+    public static final String PROPERTY_SUBSTRING_READS = "jclouds.jdbc.substring-reads";
+
+    /**
+     * Seconds a blob upload waits for the next chunk of its payload to be read before failing.
+     */
+    public static final String PROPERTY_PAYLOAD_READ_TIMEOUT = "jclouds.jdbc.payload-read-timeout";
+
+    /**
+     * Size in bytes of the parts a blob is split into by {@code JdbcStorageStrategy.putBlobMultipart}.
+     */
+    public static final String PROPERTY_MULTIPART_PART_SIZE = "jclouds.jdbc.multipart-part-size";
+
+    /**
+     * Maximum number of parts of one blob stored at the same time by {@code JdbcStorageStrategy.putBlobMultipart}.
+     * Each part holds a database connection while it is stored, so this should not exceed the connection pool size.
+     */
+    public static final String PROPERTY_MULTIPART_PARALLELISM = "jclouds.jdbc.multipart-parallelism";
+
+    /**
+     * Maximum number of containers, and separately of blobs, whose metadata is cached. A value of 0 disables the
+     * cache.
+     */
+    public static final String PROPERTY_METADATA_CACHE_SIZE = "jclouds.jdbc.metadata-cache-size";
+
+    /**
+     * Seconds after which a cached metadata entry is reloaded from the database. Bounds how long changes made by
+     * other processes sharing the database stay unnoticed.
+     */
+    public static final String PROPERTY_METADATA_CACHE_EXPIRY = "jclouds.jdbc.metadata-cache-expiry";
+
     private JdbcConstants() {
         throw new AssertionError("Intentionally Unimplemented");
     }
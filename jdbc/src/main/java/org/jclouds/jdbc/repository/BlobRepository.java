@@ -21,14 +21,22 @@ import com.google.inject.Provider;
 import com.google.inject.Singleton;
 import org.jclouds.jdbc.entity.BlobEntity;
 import org.jclouds.jdbc.entity.BlobEntityPK;
+import org.jclouds.jdbc.entity.BlobSummary;
 import org.jclouds.jdbc.entity.ContainerEntity;
+import org.jclouds.jdbc.entity.PayloadEntity;
 
 import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import javax.persistence.TypedQuery;
 import java.util.List;
 
 @Singleton
 public class BlobRepository extends GenericRepository<BlobEntity, BlobEntityPK> {
 
+   // native condition matching the blobs directly inside a directory up to a key, see setChildParameters
+   private static final String NATIVE_CHILDREN = "id = ?1 AND parent_directory = ?2 AND blob_key <> ?2"
+         + " AND directory = ?3 AND blob_key <= ?4";
+
    @Inject
    private BlobRepository(Provider<EntityManager> entityManager) {
       super(entityManager);
@@ -42,13 +50,226 @@ public class BlobRepository extends GenericRepository<BlobEntity, BlobEntityPK>
                 .getResultList();
     }
 
-   public List<BlobEntity> findBlobsByDirectory(ContainerEntity containerEntity, String directory) {
-      return entityManager.get().createQuery("SELECT b FROM " + entityClass.getName() + " b "
-            + "WHERE b.containerEntity = :containerEntity AND b.key != :directoryName AND b.key LIKE :directoryLike ", entityClass)
+   /**
+    * Finds the blobs inside a directory with a single query.
+    *
+    * @param prefix the directory name ending with the separator, or the empty string for the container root
+    * @param recursive whether blobs in subdirectories are included
+    */
+   public List<BlobEntity> findBlobsByDirectory(ContainerEntity containerEntity, String prefix, boolean recursive) {
+      return setDirectoryParameters(entityManager.get().createQuery("SELECT b FROM "
+            + entityClass.getName() + " b WHERE b.containerEntity = :containerEntity AND "
+            + directoryCondition(recursive) + " ORDER BY b.key", entityClass), containerEntity, prefix, recursive)
+            .getResultList();
+   }
+
+   public long countBlobs(ContainerEntity containerEntity) {
+      return entityManager.get().createQuery("SELECT COUNT(b) FROM " + entityClass.getName() + " b "
+            + "WHERE b.containerEntity = :containerEntity", Long.class)
+            .setParameter("containerEntity", containerEntity)
+            .getSingleResult();
+   }
+
+   /**
+    * Counts the blobs inside a directory without loading them.
+    *
+    * @param prefix the directory name ending with the separator, or the empty string for the container root
+    * @param recursive whether blobs in subdirectories are counted
+    */
+   public long countBlobsByDirectory(ContainerEntity containerEntity, String prefix, boolean recursive) {
+      return setDirectoryParameters(entityManager.get().createQuery("SELECT COUNT(b) FROM "
+            + entityClass.getName() + " b WHERE b.containerEntity = :containerEntity AND "
+            + directoryCondition(recursive), Long.class), containerEntity, prefix, recursive)
+            .getSingleResult();
+   }
+
+   /**
+    * Direct children are found through the indexed parent directory column, the whole subtree through a key
+    * prefix range. Neither matches the directory blob itself.
+    */
+   private static String directoryCondition(boolean recursive) {
+      return recursive ? "b.key LIKE :directory ESCAPE '\\' AND b.key <> :prefix"
+            : "b.parentDirectory = :prefix AND b.key <> :prefix";
+   }
+
+   private static <T extends Query> T setDirectoryParameters(T query, ContainerEntity containerEntity,
+         String prefix, boolean recursive) {
+      query.setParameter("containerEntity", containerEntity)
+            .setParameter("prefix", prefix);
+      if (recursive) {
+         query.setParameter("directory", escapeLike(prefix) + "%");
+      }
+      return query;
+   }
+
+   public List<String> findBlobKeysByContainer(ContainerEntity containerEntity) {
+      return entityManager.get().createQuery("SELECT b.key FROM " + entityClass.getName() + " b "
+            + "WHERE b.containerEntity = :containerEntity ORDER BY b.key", String.class)
             .setParameter("containerEntity", containerEntity)
-            .setParameter("directoryName", directory)
-            .setParameter("directoryLike", directory + "%")
             .getResultList();
    }
 
+   /**
+    * Finds, in key order, the summaries of the blobs whose key starts with the given prefix and sorts after the
+    * given key.
+    *
+    * @param prefix the key prefix, may be empty
+    * @param from the lower bound of the keys, null for no lower bound
+    * @param inclusive whether a key equal to {@code from} is included
+    * @param maxResults the maximum number of summaries to return
+    */
+   public List<BlobSummary> findBlobSummaries(ContainerEntity containerEntity, String prefix, String from,
+         boolean inclusive, int maxResults) {
+      String query = "SELECT NEW " + BlobSummary.class.getName()
+            + "(b.key, b.size, b.etag, b.creationDate, b.lastModified, b.directory, p.contentType) "
+            + "FROM " + entityClass.getName() + " b JOIN b.payload p "
+            + "WHERE b.containerEntity = :containerEntity AND b.key LIKE :prefix ESCAPE '\\'"
+            + (from == null ? "" : (inclusive ? " AND b.key >= :from" : " AND b.key > :from"))
+            + " ORDER BY b.key";
+      TypedQuery<BlobSummary> typedQuery = entityManager.get().createQuery(query, BlobSummary.class)
+            .setParameter("containerEntity", containerEntity)
+            .setParameter("prefix", escapeLike(prefix) + "%")
+            .setMaxResults(maxResults);
+      if (from != null) {
+         typedQuery.setParameter("from", from);
+      }
+      return typedQuery.getResultList();
+   }
+
+   /**
+    * Finds, in key order, the keys and payload ids of the blobs whose key starts with the given prefix.
+    *
+    * @param excludedKey a key that is never returned, may be null
+    * @return pairs of blob key and payload id
+    */
+   public List<Object[]> findKeysAndPayloadIds(ContainerEntity containerEntity, String prefix, String excludedKey,
+         int maxResults) {
+      TypedQuery<Object[]> query = entityManager.get().createQuery("SELECT b.key, p.id FROM "
+            + entityClass.getName() + " b JOIN b.payload p WHERE b.containerEntity = :containerEntity"
+            + " AND b.key LIKE :prefix ESCAPE '\\'" + (excludedKey == null ? "" : " AND b.key <> :excludedKey")
+            + " ORDER BY b.key", Object[].class)
+            .setParameter("containerEntity", containerEntity)
+            .setParameter("prefix", escapeLike(prefix) + "%")
+            .setMaxResults(maxResults);
+      if (excludedKey != null) {
+         query.setParameter("excludedKey", excludedKey);
+      }
+      return query.getResultList();
+   }
+
+   /**
+    * Deletes with set-based statements the blobs whose key starts with the given prefix and sorts up to
+    * {@code lastKey}, together with their user metadata, chunk lists and payloads. The chunks themselves must
+    * have been deleted beforehand.
+    *
+    * @param excludedKey a key that is never deleted, may be null
+    * @param payloadIds the payload ids of the deleted blobs, as returned by {@link #findKeysAndPayloadIds}
+    */
+   public void deleteBlobRange(ContainerEntity containerEntity, String prefix, String excludedKey, String lastKey,
+         List<Long> payloadIds) {
+      EntityManager em = entityManager.get();
+      String pattern = escapeLike(prefix) + "%";
+      setRangeParameters(em.createNativeQuery("DELETE FROM BlobEntity_userMetadata WHERE "
+            + nativeKeyRange("container_id", excludedKey != null)), containerEntity, pattern, lastKey, excludedKey)
+            .executeUpdate();
+      setRangeParameters(em.createNativeQuery("DELETE FROM PayloadEntity_chunks WHERE payload_id IN"
+            + " (SELECT payload_id FROM BlobEntity WHERE " + nativeKeyRange("id", excludedKey != null) + ")"),
+            containerEntity, pattern, lastKey, excludedKey)
+            .executeUpdate();
+
+      Query deleteBlobs = em.createQuery("DELETE FROM " + entityClass.getName() + " b"
+            + " WHERE b.containerEntity = :containerEntity AND b.key LIKE :prefix ESCAPE '\\' AND b.key <= :lastKey"
+            + (excludedKey == null ? "" : " AND b.key <> :excludedKey"))
+            .setParameter("containerEntity", containerEntity)
+            .setParameter("prefix", pattern)
+            .setParameter("lastKey", lastKey);
+      if (excludedKey != null) {
+         deleteBlobs.setParameter("excludedKey", excludedKey);
+      }
+      deleteBlobs.executeUpdate();
+
+      em.createQuery("DELETE FROM " + PayloadEntity.class.getName() + " p WHERE p.id IN :payloadIds")
+            .setParameter("payloadIds", payloadIds)
+            .executeUpdate();
+   }
+
+   /**
+    * Finds, in key order, the keys and payload ids of the blobs directly inside a directory, leaving out its
+    * subdirectories.
+    *
+    * @param prefix the directory name ending with the separator
+    * @return pairs of blob key and payload id
+    */
+   public List<Object[]> findChildKeysAndPayloadIds(ContainerEntity containerEntity, String prefix, int maxResults) {
+      return entityManager.get().createQuery("SELECT b.key, p.id FROM " + entityClass.getName()
+            + " b JOIN b.payload p WHERE b.containerEntity = :containerEntity AND b.parentDirectory = :prefix"
+            + " AND b.key <> :prefix AND b.directory = :directory ORDER BY b.key", Object[].class)
+            .setParameter("containerEntity", containerEntity)
+            .setParameter("prefix", prefix)
+            .setParameter("directory", false)
+            .setMaxResults(maxResults)
+            .getResultList();
+   }
+
+   /**
+    * Deletes with set-based statements the blobs directly inside a directory whose key sorts up to
+    * {@code lastKey}, together with their user metadata, chunk lists and payloads. Subdirectories are kept. The
+    * chunks themselves must have been deleted beforehand.
+    *
+    * @param payloadIds the payload ids of the deleted blobs, as returned by {@link #findChildKeysAndPayloadIds}
+    */
+   public void deleteChildBlobs(ContainerEntity containerEntity, String prefix, String lastKey,
+         List<Long> payloadIds) {
+      EntityManager em = entityManager.get();
+      setChildParameters(em.createNativeQuery("DELETE FROM BlobEntity_userMetadata WHERE container_id = ?1"
+            + " AND blob_key IN (SELECT blob_key FROM BlobEntity WHERE " + NATIVE_CHILDREN + ")"),
+            containerEntity, prefix, lastKey)
+            .executeUpdate();
+      setChildParameters(em.createNativeQuery("DELETE FROM PayloadEntity_chunks WHERE payload_id IN"
+            + " (SELECT payload_id FROM BlobEntity WHERE " + NATIVE_CHILDREN + ")"),
+            containerEntity, prefix, lastKey)
+            .executeUpdate();
+
+      em.createQuery("DELETE FROM " + entityClass.getName() + " b"
+            + " WHERE b.containerEntity = :containerEntity AND b.parentDirectory = :prefix AND b.key <> :prefix"
+            + " AND b.directory = :directory AND b.key <= :lastKey")
+            .setParameter("containerEntity", containerEntity)
+            .setParameter("prefix", prefix)
+            .setParameter("directory", false)
+            .setParameter("lastKey", lastKey)
+            .executeUpdate();
+
+      em.createQuery("DELETE FROM " + PayloadEntity.class.getName() + " p WHERE p.id IN :payloadIds")
+            .setParameter("payloadIds", payloadIds)
+            .executeUpdate();
+   }
+
+   private static Query setChildParameters(Query query, ContainerEntity containerEntity, String prefix,
+         String lastKey) {
+      return query.setParameter(1, containerEntity.getId())
+            .setParameter(2, prefix)
+            .setParameter(3, false)
+            .setParameter(4, lastKey);
+   }
+
+   private static String nativeKeyRange(String containerColumn, boolean excludeKey) {
+      return containerColumn + " = ?1 AND blob_key LIKE ?2 ESCAPE '\\' AND blob_key <= ?3"
+            + (excludeKey ? " AND blob_key <> ?4" : "");
+   }
+
+   private static Query setRangeParameters(Query query, ContainerEntity containerEntity, String pattern,
+         String lastKey, String excludedKey) {
+      query.setParameter(1, containerEntity.getId())
+            .setParameter(2, pattern)
+            .setParameter(3, lastKey);
+      if (excludedKey != null) {
+         query.setParameter(4, excludedKey);
+      }
+      return query;
+   }
+
+   static String escapeLike(String value) {
+      return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+   }
+
 }
@@ -16,12 +16,27 @@
  */
 package org.jclouds.jdbc.repository;
 
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Multiset;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
 import com.google.inject.Singleton;
 import org.jclouds.jdbc.entity.ChunkEntity;
+import org.jclouds.jdbc.entity.PayloadEntity;
 
 import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
+import java.sql.Blob;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 
 @Singleton
 public class ChunkRepository extends GenericRepository<ChunkEntity, Long> {
@@ -31,4 +46,128 @@ public class ChunkRepository extends GenericRepository<ChunkEntity, Long> {
       super(entityManager);
    }
 
+   /**
+    * Writes the pending chunks to the database and removes them from the persistence context, so their data
+    * is no longer referenced once the insert has been executed.
+    */
+   public void flushAndDetach(List<ChunkEntity> chunkEntities) {
+      EntityManager em = entityManager.get();
+      em.flush();
+      for (ChunkEntity chunkEntity : chunkEntities) {
+         em.detach(chunkEntity);
+      }
+   }
+
+   /**
+    * Adds a reference to the stored chunk with the given digest.
+    *
+    * @return the id of the chunk, or null if no chunk with this digest is stored
+    */
+   public Long acquireChunk(String digest) {
+      EntityManager em = entityManager.get();
+      List<Long> ids = em.createQuery("SELECT c.id FROM " + entityClass.getName() + " c WHERE c.digest = :digest",
+            Long.class)
+            .setParameter("digest", digest)
+            .setMaxResults(1)
+            .getResultList();
+      if (ids.isEmpty()) {
+         return null;
+      }
+      int updated = em.createQuery("UPDATE " + entityClass.getName() + " c SET c.refCount = c.refCount + 1"
+            + " WHERE c.id = :id AND c.refCount > 0")
+            .setParameter("id", ids.get(0))
+            .executeUpdate();
+      // the chunk may have been released concurrently between the two statements
+      return updated == 1 ? ids.get(0) : null;
+   }
+
+   /**
+    * Removes one reference per occurrence of a chunk id in the list, then deletes the chunks that are no longer
+    * referenced. Statements are issued for at most {@code batchSize} ids at a time.
+    */
+   public void releaseChunks(List<Long> chunkIds, int batchSize) {
+      if (chunkIds.isEmpty()) {
+         return;
+      }
+      EntityManager em = entityManager.get();
+      Multiset<Long> references = HashMultiset.create(chunkIds);
+      Multimap<Integer, Long> idsByCount = ArrayListMultimap.create();
+      for (Multiset.Entry<Long> entry : references.entrySet()) {
+         idsByCount.put(entry.getCount(), entry.getElement());
+      }
+      for (Map.Entry<Integer, Collection<Long>> entry : idsByCount.asMap().entrySet()) {
+         for (List<Long> batch : Lists.partition(ImmutableList.copyOf(entry.getValue()), batchSize)) {
+            em.createQuery("UPDATE " + entityClass.getName() + " c SET c.refCount = c.refCount - :count"
+                  + " WHERE c.id IN :ids")
+                  .setParameter("count", entry.getKey())
+                  .setParameter("ids", batch)
+                  .executeUpdate();
+         }
+      }
+      for (List<Long> batch : Lists.partition(ImmutableList.copyOf(references.elementSet()), batchSize)) {
+         em.createQuery("DELETE FROM " + entityClass.getName() + " c WHERE c.id IN :ids AND c.refCount <= 0")
+               .setParameter("ids", batch)
+               .executeUpdate();
+      }
+   }
+
+   /**
+    * Finds the sizes of the given chunks without reading their data, querying at most {@code batchSize} ids at a
+    * time.
+    *
+    * @return the size of each chunk that exists, by id
+    */
+   public Map<Long, Integer> findChunkSizes(List<Long> chunkIds, int batchSize) {
+      Map<Long, Integer> sizes = new HashMap<Long, Integer>();
+      for (List<Long> batch : Lists.partition(ImmutableList.copyOf(new LinkedHashSet<Long>(chunkIds)), batchSize)) {
+         List<Object[]> rows = entityManager.get().createQuery("SELECT c.id, c.size FROM " + entityClass.getName()
+               + " c WHERE c.id IN :ids", Object[].class)
+               .setParameter("ids", batch)
+               .getResultList();
+         for (Object[] row : rows) {
+            sizes.put((Long) row[0], (Integer) row[1]);
+         }
+      }
+      return sizes;
+   }
+
+   /**
+    * Reads part of a chunk with a SQL SUBSTRING, so only the requested bytes leave the database.
+    *
+    * @param offset the zero-based offset of the first byte
+    * @return the bytes read, or null if the chunk does not exist
+    * @throws PersistenceException if the database does not support SUBSTRING on binary data
+    */
+   public byte[] findChunkRange(Long id, int offset, int length) {
+      List<?> result = entityManager.get().createNativeQuery("SELECT SUBSTRING(data FROM ?1 FOR ?2) FROM "
+            + entityClass.getSimpleName() + " WHERE id = ?3")
+            .setParameter(1, offset + 1)
+            .setParameter(2, length)
+            .setParameter(3, id)
+            .getResultList();
+      if (result.isEmpty()) {
+         return null;
+      }
+      Object data = result.get(0);
+      if (data instanceof Blob) {
+         Blob blob = (Blob) data;
+         try {
+            return blob.getBytes(1, (int) blob.length());
+         } catch (SQLException e) {
+            throw new PersistenceException(e);
+         }
+      }
+      return (byte[]) data;
+   }
+
+   /**
+    * Finds the chunk ids referenced by the given payloads, an id appearing once per reference.
+    */
+   public List<Long> findChunkIdsOfPayloads(List<Long> payloadIds) {
+      return entityManager.get().createQuery("SELECT ch FROM " + PayloadEntity.class.getName() + " p"
+            + " JOIN p.chunks ch WHERE p.id IN :payloadIds", Long.class)
+            .setParameter("payloadIds", payloadIds)
+            .getResultList();
+   }
+
 }
@@ -28,6 +28,12 @@ import java.util.List;
 @Singleton
 public class ContainerRepository extends GenericRepository<ContainerEntity, Long> {
 
+   /**
+    * Prefix of the names given to dropped containers. Valid container names cannot contain "/", so a dropped
+    * container never clashes with a live one.
+    */
+   public static final String DROPPED_CONTAINER_PREFIX = "/dropped/";
+
    @Inject
    private ContainerRepository(Provider<EntityManager> entityManager) {
       super(entityManager);
@@ -44,7 +50,19 @@ public class ContainerRepository extends GenericRepository<ContainerEntity, Long
    }
 
    public List<ContainerEntity> findAllContainers() {
-      return entityManager.get().createQuery("SELECT c FROM " + entityClass.getName() + " c", entityClass)
+      return entityManager.get().createQuery("SELECT c FROM " + entityClass.getName() + " c "
+            + "WHERE c.name NOT LIKE :droppedPrefix", entityClass)
+            .setParameter("droppedPrefix", DROPPED_CONTAINER_PREFIX + "%")
+            .getResultList();
+   }
+
+   /**
+    * Finds the containers that have been dropped but whose blobs have not been reclaimed yet.
+    */
+   public List<ContainerEntity> findDroppedContainers() {
+      return entityManager.get().createQuery("SELECT c FROM " + entityClass.getName() + " c "
+            + "WHERE c.name LIKE :droppedPrefix", entityClass)
+            .setParameter("droppedPrefix", DROPPED_CONTAINER_PREFIX + "%")
             .getResultList();
    }
 
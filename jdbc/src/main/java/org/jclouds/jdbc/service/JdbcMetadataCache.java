@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.service;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Optional;
+import com.google.common.base.Supplier;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import org.jclouds.jdbc.entity.BlobEntity;
+import org.jclouds.jdbc.entity.ContainerEntity;
+
+import javax.inject.Named;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.jclouds.jdbc.reference.JdbcConstants.PROPERTY_METADATA_CACHE_EXPIRY;
+import static org.jclouds.jdbc.reference.JdbcConstants.PROPERTY_METADATA_CACHE_SIZE;
+
+/**
+ * Caches, in front of {@link JdbcService}, the containers looked up by name and the blobs looked up by key,
+ * including the fact that they do not exist. Cached blobs carry their metadata, their chunk list and their inline
+ * data, which is bounded by the inline threshold, but never chunk data. Cached entities are shared and must not be
+ * modified.
+ * <p>
+ * Every write must invalidate the entries it changes once it has been committed. A lookup that raced with an
+ * invalidation does not keep its result, so a value read before a write can never outlive the write's
+ * invalidation.
+ */
+@Singleton
+public class JdbcMetadataCache {
+
+   private final JdbcService jdbcService;
+   private final Cache<String, Optional<ContainerEntity>> containers;
+   private final Cache<BlobKey, Optional<BlobEntity>> blobs;
+   private final AtomicLong invalidations = new AtomicLong();
+
+   @Inject
+   JdbcMetadataCache(JdbcService jdbcService, @Named(PROPERTY_METADATA_CACHE_SIZE) long maximumSize,
+         @Named(PROPERTY_METADATA_CACHE_EXPIRY) long expirySeconds) {
+      this.jdbcService = jdbcService;
+      this.containers = CacheBuilder.newBuilder()
+            .maximumSize(Math.max(0, maximumSize))
+            .expireAfterWrite(expirySeconds, TimeUnit.SECONDS)
+            .recordStats()
+            .build();
+      this.blobs = CacheBuilder.newBuilder()
+            .maximumSize(Math.max(0, maximumSize))
+            .expireAfterWrite(expirySeconds, TimeUnit.SECONDS)
+            .recordStats()
+            .build();
+   }
+
+   /**
+    * Returns the container with the given name, or null if it does not exist.
+    */
+   public ContainerEntity findContainerByName(final String containerName) {
+      return get(containers, containerName, new Supplier<ContainerEntity>() {
+         @Override
+         public ContainerEntity get() {
+            return jdbcService.findContainerByName(containerName);
+         }
+      });
+   }
+
+   /**
+    * Returns the blob with the given key, or null if it or its container does not exist.
+    */
+   public BlobEntity findBlobById(final String containerName, final String key) {
+      return get(blobs, new BlobKey(containerName, key), new Supplier<BlobEntity>() {
+         @Override
+         public BlobEntity get() {
+            return jdbcService.findBlobById(containerName, key);
+         }
+      });
+   }
+
+   public void invalidateContainer(String containerName) {
+      invalidations.incrementAndGet();
+      containers.invalidate(containerName);
+   }
+
+   public void invalidateBlob(String containerName, String key) {
+      invalidations.incrementAndGet();
+      blobs.invalidate(new BlobKey(containerName, key));
+   }
+
+   /**
+    * Invalidates the blobs of a container whose key starts with the given prefix.
+    */
+   public void invalidateBlobs(String containerName, String prefix) {
+      invalidations.incrementAndGet();
+      for (Iterator<BlobKey> it = blobs.asMap().keySet().iterator(); it.hasNext();) {
+         BlobKey blobKey = it.next();
+         if (blobKey.containerName.equals(containerName) && blobKey.key.startsWith(prefix)) {
+            it.remove();
+         }
+      }
+   }
+
+   public CacheStats containerStats() {
+      return containers.stats();
+   }
+
+   public CacheStats blobStats() {
+      return blobs.stats();
+   }
+
+   private <K, V> V get(Cache<K, Optional<V>> cache, K key, Supplier<V> loader) {
+      Optional<V> cached = cache.getIfPresent(key);
+      if (cached != null) {
+         return cached.orNull();
+      }
+      long before = invalidations.get();
+      V value = loader.get();
+      cache.put(key, Optional.fromNullable(value));
+      if (invalidations.get() != before) {
+         // an invalidation may have run between the load and the put, the value may be stale
+         cache.invalidate(key);
+      }
+      return value;
+   }
+
+   private static final class BlobKey {
+      private final String containerName;
+      private final String key;
+
+      BlobKey(String containerName, String key) {
+         this.containerName = containerName;
+         this.key = key;
+      }
+
+      @Override
+      public boolean equals(Object obj) {
+         if (!(obj instanceof BlobKey)) {
+            return false;
+         }
+         BlobKey other = (BlobKey) obj;
+         return containerName.equals(other.containerName) && key.equals(other.key);
+      }
+
+      @Override
+      public int hashCode() {
+         return Objects.hashCode(containerName, key);
+      }
+   }
+
+}
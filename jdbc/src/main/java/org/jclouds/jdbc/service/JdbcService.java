@@ -16,54 +16,136 @@
  */
 package org.jclouds.jdbc.service;
 
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
 import com.google.common.hash.Hashing;
-import com.google.common.hash.HashingInputStream;
 import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.google.inject.persist.Transactional;
+import org.jclouds.Constants;
+import org.jclouds.blobstore.reference.BlobStoreConstants;
 import org.jclouds.blobstore.domain.Blob;
 import org.jclouds.blobstore.domain.BlobAccess;
 import org.jclouds.blobstore.domain.ContainerAccess;
 import org.jclouds.jdbc.conversion.BlobToBlobEntity;
 import org.jclouds.jdbc.entity.BlobEntity;
 import org.jclouds.jdbc.entity.BlobEntityPK;
+import org.jclouds.jdbc.entity.BlobSummary;
 import org.jclouds.jdbc.entity.ChunkEntity;
 import org.jclouds.jdbc.entity.ContainerEntity;
+import org.jclouds.jdbc.entity.MultipartPartEntity;
+import org.jclouds.jdbc.entity.MultipartUploadEntity;
 import org.jclouds.jdbc.entity.PayloadEntity;
 import org.jclouds.jdbc.reference.JdbcConstants;
 import org.jclouds.jdbc.repository.BlobRepository;
 import org.jclouds.jdbc.repository.ChunkRepository;
 import org.jclouds.jdbc.repository.ContainerRepository;
+import org.jclouds.jdbc.repository.MultipartPartRepository;
+import org.jclouds.jdbc.repository.MultipartUploadRepository;
+import org.jclouds.jdbc.util.ChunkedPayloadReader;
+import org.jclouds.logging.Logger;
 import org.jclouds.util.Closeables2;
 
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import javax.inject.Named;
+import javax.persistence.PersistenceException;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLSyntaxErrorException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.io.BaseEncoding.base16;
+import static org.jclouds.jdbc.reference.JdbcConstants.PROPERTY_CHUNK_DEDUPLICATION;
+import static org.jclouds.jdbc.reference.JdbcConstants.PROPERTY_CHUNK_SIZE;
+import static org.jclouds.jdbc.reference.JdbcConstants.PROPERTY_DELETE_BATCH_SIZE;
+import static org.jclouds.jdbc.reference.JdbcConstants.PROPERTY_INLINE_THRESHOLD;
+import static org.jclouds.jdbc.reference.JdbcConstants.PROPERTY_PAYLOAD_READ_TIMEOUT;
+import static org.jclouds.jdbc.reference.JdbcConstants.PROPERTY_SUBSTRING_READS;
+import static org.jclouds.jdbc.reference.JdbcConstants.PROPERTY_WRITE_BATCH_CHUNKS;
 
 @Singleton
 public class JdbcService {
 
    private static final String DIRECTORY_MD5 = Hashing.md5().hashBytes(new byte[0]).toString();
+   private static final String SEPARATOR = "/";
+
+   @Resource
+   @Named(BlobStoreConstants.BLOBSTORE_LOGGER)
+   protected Logger logger = Logger.NULL;
 
    private final ContainerRepository containerRepository;
    private final BlobRepository blobRepository;
    private final ChunkRepository chunkRepository;
+   private final MultipartUploadRepository multipartUploadRepository;
+   private final MultipartPartRepository multipartPartRepository;
    private final BlobToBlobEntity blobToBlobEntity;
+   private final ListeningExecutorService userExecutor;
+   // runs the background reads of the payloads being stored, see storeChunks
+   private final ExecutorService payloadReaders;
+   private final long payloadReadTimeoutMillis;
+   private final int writeBatchChunks;
+   private final int chunkSize;
+   private final int inlineThreshold;
+   private final int deleteBatchSize;
+   private final boolean chunkDeduplication;
+   private volatile boolean substringReads;
 
    @Inject
    JdbcService(ContainerRepository containerRepository, BlobRepository blobRepository, ChunkRepository chunkRepository,
-         BlobToBlobEntity blobToBlobEntity) {
+         MultipartUploadRepository multipartUploadRepository, MultipartPartRepository multipartPartRepository,
+         BlobToBlobEntity blobToBlobEntity, @Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService userExecutor,
+         @Named(PROPERTY_WRITE_BATCH_CHUNKS) int writeBatchChunks, @Named(PROPERTY_CHUNK_SIZE) int chunkSize,
+         @Named(PROPERTY_INLINE_THRESHOLD) int inlineThreshold, @Named(PROPERTY_DELETE_BATCH_SIZE) int deleteBatchSize,
+         @Named(PROPERTY_CHUNK_DEDUPLICATION) boolean chunkDeduplication,
+         @Named(PROPERTY_SUBSTRING_READS) boolean substringReads,
+         @Named(PROPERTY_PAYLOAD_READ_TIMEOUT) int payloadReadTimeout) {
+      checkArgument(chunkSize > 0 && chunkSize <= JdbcConstants.MAX_CHUNK_SIZE,
+            "%s must be between 1 and %s", PROPERTY_CHUNK_SIZE, JdbcConstants.MAX_CHUNK_SIZE);
+      checkArgument(inlineThreshold >= 0 && inlineThreshold <= JdbcConstants.MAX_INLINE_SIZE,
+            "%s must be between 0 and %s", PROPERTY_INLINE_THRESHOLD, JdbcConstants.MAX_INLINE_SIZE);
       this.containerRepository = containerRepository;
       this.blobRepository = blobRepository;
       this.chunkRepository = chunkRepository;
+      this.multipartUploadRepository = multipartUploadRepository;
+      this.multipartPartRepository = multipartPartRepository;
       this.blobToBlobEntity = blobToBlobEntity;
+      this.userExecutor = userExecutor;
+      this.writeBatchChunks = Math.max(1, writeBatchChunks);
+      this.chunkSize = chunkSize;
+      this.inlineThreshold = inlineThreshold;
+      this.deleteBatchSize = Math.max(1, deleteBatchSize);
+      this.chunkDeduplication = chunkDeduplication;
+      this.substringReads = substringReads;
+      this.payloadReadTimeoutMillis = TimeUnit.SECONDS.toMillis(Math.max(1, payloadReadTimeout));
+      this.payloadReaders = Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+            .setNameFormat("jdbc-payload-reader-%d").setDaemon(true).build());
+   }
+
+   /**
+    * Stops the payload reader threads when the context is closed, interrupting any read still running.
+    */
+   @PreDestroy
+   public void shutdown() {
+      payloadReaders.shutdownNow();
    }
 
    @Transactional
@@ -88,6 +170,12 @@ public class JdbcService {
 
    @Transactional
    public void deleteContainerByName(String containerName) {
+      ContainerEntity containerEntity = containerRepository.findContainerByName(containerName);
+      if (containerEntity != null) {
+         for (MultipartUploadEntity upload : multipartUploadRepository.findUploadsByContainer(containerEntity)) {
+            abortMultipartUpload(upload.getId());
+         }
+      }
       containerRepository.deleteContainerByName(containerName);
    }
 
@@ -105,37 +193,74 @@ public class JdbcService {
 
    @Transactional(rollbackOn = IOException.class)
    public BlobEntity createOrModifyBlob(String containerName, Blob blob, BlobAccess blobAccess) throws IOException {
-      List<Long> chunks;
-      HashingInputStream his = new HashingInputStream(Hashing.md5(), blob.getPayload().openStream());
-      try {
-         chunks = storeData(his);
-      } finally {
-         Closeables2.closeQuietly(his);
+      List<Long> chunks = ImmutableList.of();
+      HashCode actualHashCode;
+      long actualSize;
+      InputStream input = blob.getPayload().openStream();
+      byte[] inlineData = null;
+      if (inlineThreshold > 0) {
+         byte[] head;
+         try {
+            head = ByteStreams.toByteArray(ByteStreams.limit(input, inlineThreshold + 1));
+         } catch (IOException e) {
+            Closeables2.closeQuietly(input);
+            throw e;
+         }
+         if (head.length <= inlineThreshold) {
+            inlineData = head;
+            Closeables2.closeQuietly(input);
+         } else {
+            input = new SequenceInputStream(new ByteArrayInputStream(head), input);
+         }
+      }
+      if (inlineData != null) {
+         actualHashCode = Hashing.md5().hashBytes(inlineData);
+         actualSize = inlineData.length;
+      } else {
+         StoredChunks stored = storeChunks(input, blob.getPayload().getContentMetadata().getContentLength());
+         chunks = stored.chunks;
+         actualHashCode = stored.hash;
+         actualSize = stored.size;
       }
-      HashCode actualHashCode = his.hash();
       HashCode expectedHashCode = blob.getPayload().getContentMetadata().getContentMD5AsHashCode();
       if (expectedHashCode != null && !actualHashCode.equals(expectedHashCode)) {
          throw new IOException("MD5 hash code mismatch, actual: " + actualHashCode +
                " expected: " + expectedHashCode);
       }
 
-      String key = blob.getMetadata().getName();
+      BlobEntity blobEntity = blobToBlobEntity.apply(blob);
+      blobEntity.getPayload().setChunks(chunks);
+      blobEntity.getPayload().setInlineData(inlineData);
+      blobEntity.getPayload().setContentMD5(actualHashCode.asBytes());
+      blobEntity.setEtag(base16().lowerCase().encode(actualHashCode.asBytes()));
+      return saveBlob(containerName, blob.getMetadata().getName(), blobEntity, blobAccess, actualSize);
+   }
+
+   /**
+    * Saves a blob whose content has already been stored, replacing the blob with the same key if there is one.
+    */
+   private BlobEntity saveBlob(String containerName, String key, BlobEntity blobEntity, BlobAccess blobAccess,
+         long size) {
       Date creationDate = null;
+      List<Long> oldChunks = ImmutableList.of();
       BlobEntity oldBlobEntity = findBlobById(containerName, key);
       if (oldBlobEntity != null) {
          creationDate = oldBlobEntity.getCreationDate();
+         oldChunks = ImmutableList.copyOf(oldBlobEntity.getPayload().getChunks());
+         // reuse the payload row, otherwise the old one is left behind
+         blobEntity.getPayload().setId(oldBlobEntity.getPayload().getId());
       }
-      BlobEntity blobEntity = blobToBlobEntity.apply(blob);
-      blobEntity.getPayload().setChunks(chunks);
       blobEntity.setContainerEntity(containerRepository.findContainerByName(containerName));
       blobEntity.setKey(key);
       blobEntity.setBlobAccess(blobAccess);
       blobEntity.setCreationDate(creationDate);
       blobEntity.setLastModified(new Date());
-      blobEntity.setEtag(base16().lowerCase().encode(actualHashCode.asBytes()));
-      blobEntity.getPayload().setContentMD5(actualHashCode.asBytes());
+      blobEntity.setSize(size);
+      blobEntity.getPayload().setContentLength(size);
 
       BlobEntity result = blobRepository.save(blobEntity);
+      // released after the new chunks are referenced, so chunks shared by both versions are kept
+      releaseChunks(oldChunks);
       return result;
    }
 
@@ -174,60 +299,375 @@ public class JdbcService {
       return chunkRepository.find(id);
    }
 
+   @Transactional
+   public Map<Long, Integer> findChunkSizes(List<Long> chunkIds) {
+      return chunkRepository.findChunkSizes(chunkIds, deleteBatchSize);
+   }
+
+   /**
+    * Reads {@code length} bytes of a chunk starting at {@code offset}. The bytes are cut out by the database when
+    * it supports SUBSTRING on binary data. Once the database rejects the statement itself, whole chunks are read
+    * for good; any other failure, such as a lock timeout or a dropped connection, is rethrown.
+    *
+    * @throws IllegalArgumentException if the chunk does not exist
+    */
+   public byte[] readChunkRange(Long id, int offset, int length) {
+      byte[] data = null;
+      boolean found = false;
+      if (substringReads) {
+         try {
+            data = findChunkRange(id, offset, length);
+            found = true;
+         } catch (PersistenceException e) {
+            if (!isRejectedStatement(e)) {
+               throw e;
+            }
+            logger.warn(e, "SUBSTRING on chunk data is not supported, reading whole chunks");
+            substringReads = false;
+         }
+      }
+      if (!found) {
+         ChunkEntity chunkEntity = findChunkById(id);
+         data = chunkEntity == null ? null
+               : Arrays.copyOfRange(chunkEntity.getData(), offset, Math.min(offset + length, chunkEntity.getSize()));
+      }
+      checkArgument(data != null, "Chunk %s does not exist", id);
+      return data;
+   }
+
+   @Transactional
+   public byte[] findChunkRange(Long id, int offset, int length) {
+      return chunkRepository.findChunkRange(id, offset, length);
+   }
+
+   /**
+    * Whether the failure comes from the database rejecting the statement, with a syntax error, an access rule
+    * violation or an unsupported feature (SQLSTATE classes 42 and 0A), rather than from a transient error.
+    */
+   static boolean isRejectedStatement(Throwable failure) {
+      for (Throwable cause : Throwables.getCausalChain(failure)) {
+         if (cause instanceof SQLSyntaxErrorException || cause instanceof SQLFeatureNotSupportedException) {
+            return true;
+         }
+         if (cause instanceof SQLException) {
+            String state = ((SQLException) cause).getSQLState();
+            if (state != null && (state.startsWith("42") || state.startsWith("0A"))) {
+               return true;
+            }
+         }
+      }
+      return false;
+   }
+
    @Transactional
    public List<BlobEntity> findBlobsByContainer(String containerName) {
       return blobRepository.findBlobsByContainer(containerRepository.findContainerByName(containerName));
    }
 
+   @Transactional
+   public List<String> findBlobKeysByContainer(String containerName) {
+      return blobRepository.findBlobKeysByContainer(containerRepository.findContainerByName(containerName));
+   }
+
+   @Transactional
+   public List<BlobSummary> findBlobSummaries(String containerName, String prefix, String from, boolean inclusive,
+         int maxResults) {
+      return blobRepository.findBlobSummaries(containerRepository.findContainerByName(containerName), prefix, from,
+            inclusive, maxResults);
+   }
+
    @Transactional
    public List<BlobEntity> findBlobsByDirectory(String containerName, String directoryName, boolean recursive) {
-      ImmutableList.Builder<BlobEntity> result = ImmutableList.builder();
-      List<BlobEntity> blobEntities = blobRepository
-            .findBlobsByDirectory(containerRepository.findContainerByName(containerName), directoryName);
-      result.addAll(blobEntities);
+      return blobRepository.findBlobsByDirectory(containerRepository.findContainerByName(containerName),
+            directoryPrefix(directoryName), recursive);
+   }
+
+   /**
+    * Counts the blobs of a container, or of one of its directories, without loading them.
+    *
+    * @param directoryName the directory to count, null for the whole container
+    */
+   @Transactional
+   public long countBlobs(String containerName, String directoryName, boolean recursive) {
+      ContainerEntity containerEntity = containerRepository.findContainerByName(containerName);
+      if (containerEntity == null) {
+         return 0;
+      }
+      if (directoryName == null) {
+         return blobRepository.countBlobs(containerEntity);
+      }
+      return blobRepository.countBlobsByDirectory(containerEntity, directoryPrefix(directoryName), recursive);
+   }
+
+   /**
+    * Deletes all the blobs of a container with set-based statements, in transactions of at most
+    * {@code deleteBatchSize} blobs.
+    */
+   public void deleteBlobsByContainer(String containerName) {
+      while (deleteBlobBatch(containerName, "", null) == deleteBatchSize) {
+         // keep deleting until the last batch is not full
+      }
+   }
+
+   /**
+    * Deletes the blobs of a directory with set-based statements, in transactions of at most
+    * {@code deleteBatchSize} blobs. Unless recursive, only the blobs directly inside the directory are deleted and
+    * its subdirectories are left alone.
+    */
+   public void deleteBlobsByDirectory(String containerName, String directoryName, boolean recursive) {
+      String prefix = directoryPrefix(directoryName);
       if (recursive) {
-         for (BlobEntity blobEntity : blobEntities) {
-            if (blobEntity.isDirectory()) {
-               result.addAll(findBlobsByDirectory(containerName, blobEntity.getKey(), true));
-            }
+         while (deleteBlobBatch(containerName, prefix, directoryName) == deleteBatchSize) {
+            // keep deleting until the last batch is not full
          }
+         return;
+      }
+      while (deleteChildBlobBatch(containerName, prefix) == deleteBatchSize) {
+         // keep deleting until the last batch is not full
       }
-      return result.build();
    }
 
+   /**
+    * Deletes, in key order, up to {@code deleteBatchSize} blobs whose key starts with the given prefix, along
+    * with their chunks, payloads and metadata.
+    *
+    * @param excludedKey a key that is not deleted, may be null
+    * @return the number of blobs deleted
+    */
    @Transactional
-   public void deleteBlobsByContainer(String containerName) {
-      List<BlobEntity> blobs = findBlobsByContainer(containerName);
-      for (BlobEntity blob : blobs) {
-         deleteBlob(containerName, blob.getKey());
+   public int deleteBlobBatch(String containerName, String prefix, String excludedKey) {
+      ContainerEntity containerEntity = containerRepository.findContainerByName(containerName);
+      if (containerEntity == null) {
+         return 0;
+      }
+      List<Object[]> rows = blobRepository.findKeysAndPayloadIds(containerEntity, prefix, excludedKey,
+            deleteBatchSize);
+      if (rows.isEmpty()) {
+         return 0;
       }
+      List<Long> payloadIds = new ArrayList<Long>(rows.size());
+      for (Object[] row : rows) {
+         payloadIds.add((Long) row[1]);
+      }
+      String lastKey = (String) rows.get(rows.size() - 1)[0];
+      releaseChunks(chunkRepository.findChunkIdsOfPayloads(payloadIds));
+      blobRepository.deleteBlobRange(containerEntity, prefix, excludedKey, lastKey, payloadIds);
+      return rows.size();
    }
 
+   /**
+    * Deletes, in key order, up to {@code deleteBatchSize} of the blobs directly inside a directory, along with
+    * their chunks, payloads and metadata. Subdirectories are not deleted.
+    *
+    * @param prefix the directory name ending with the separator
+    * @return the number of blobs deleted
+    */
    @Transactional
-   public void deleteBlobsByDirectory(String containerName, String directoryName, boolean recursive) {
-      List<BlobEntity> blobs = findBlobsByDirectory(containerName, directoryName, false);
-      for (BlobEntity blob : blobs) {
-         if (!blob.isDirectory()) {
-            deleteBlob(containerName, blob.getKey());
-         }
-         else {
-            if (recursive) {
-               deleteBlobsByDirectory(containerName, blob.getKey(), true);
-               deleteBlob(containerName, blob.getKey());
+   public int deleteChildBlobBatch(String containerName, String prefix) {
+      ContainerEntity containerEntity = containerRepository.findContainerByName(containerName);
+      if (containerEntity == null) {
+         return 0;
+      }
+      List<Object[]> rows = blobRepository.findChildKeysAndPayloadIds(containerEntity, prefix, deleteBatchSize);
+      if (rows.isEmpty()) {
+         return 0;
+      }
+      List<Long> payloadIds = new ArrayList<Long>(rows.size());
+      for (Object[] row : rows) {
+         payloadIds.add((Long) row[1]);
+      }
+      String lastKey = (String) rows.get(rows.size() - 1)[0];
+      releaseChunks(chunkRepository.findChunkIdsOfPayloads(payloadIds));
+      blobRepository.deleteChildBlobs(containerEntity, prefix, lastKey, payloadIds);
+      return rows.size();
+   }
+
+   /**
+    * Turns a directory name into the key prefix of its content, the empty string standing for the container root.
+    */
+   private static String directoryPrefix(String directoryName) {
+      if (directoryName.isEmpty() || directoryName.endsWith(SEPARATOR)) {
+         return directoryName;
+      }
+      return directoryName + SEPARATOR;
+   }
+
+   /**
+    * Drops a container without waiting for its blobs to be deleted. The container is renamed so it disappears
+    * at once and its name can be reused, and its blobs are reclaimed on the user executor.
+    */
+   public void dropContainer(String containerName) {
+      if (markContainerDropped(containerName)) {
+         userExecutor.submit(new Runnable() {
+            @Override
+            public void run() {
+               reclaimDroppedContainers();
             }
+         });
+      }
+   }
+
+   @Transactional
+   public boolean markContainerDropped(String containerName) {
+      ContainerEntity containerEntity = containerRepository.findContainerByName(containerName);
+      if (containerEntity == null) {
+         return false;
+      }
+      containerEntity.setName(ContainerRepository.DROPPED_CONTAINER_PREFIX + containerEntity.getId());
+      containerRepository.save(containerEntity);
+      return true;
+   }
+
+   /**
+    * Deletes the blobs and the entities of every dropped container, including the ones left over by a previous
+    * run that stopped before finishing.
+    */
+   public void reclaimDroppedContainers() {
+      for (ContainerEntity containerEntity : findDroppedContainers()) {
+         try {
+            deleteBlobsByContainer(containerEntity.getName());
+            deleteContainerByName(containerEntity.getName());
+         } catch (RuntimeException e) {
+            logger.warn(e, "Could not reclaim dropped container %s", containerEntity.getName());
          }
       }
    }
 
+   @Transactional
+   public List<ContainerEntity> findDroppedContainers() {
+      return containerRepository.findDroppedContainers();
+   }
+
    @Transactional
    public void deleteBlob(String containerName, String key) {
       BlobEntity blobEntity = findBlobById(containerName, key);
       if (blobEntity != null) {
-         deleteChunks(blobEntity.getPayload().getChunks());
+         releaseChunks(blobEntity.getPayload().getChunks());
          blobRepository.delete(blobEntity);
       }
    }
 
+   @Transactional
+   public MultipartUploadEntity createMultipartUpload(String containerName, String key) {
+      ContainerEntity containerEntity = containerRepository.findContainerByName(containerName);
+      checkArgument(containerEntity != null, "Container %s does not exist", containerName);
+      return multipartUploadRepository.create(new MultipartUploadEntity(containerEntity, key));
+   }
+
+   @Transactional
+   public MultipartUploadEntity findMultipartUpload(Long uploadId) {
+      return multipartUploadRepository.find(uploadId);
+   }
+
+   @Transactional
+   public List<MultipartUploadEntity> findMultipartUploads(String containerName) {
+      ContainerEntity containerEntity = containerRepository.findContainerByName(containerName);
+      return containerEntity == null ? ImmutableList.<MultipartUploadEntity>of()
+            : multipartUploadRepository.findUploadsByContainer(containerEntity);
+   }
+
+   @Transactional
+   public List<MultipartPartEntity> findMultipartParts(Long uploadId) {
+      MultipartUploadEntity upload = multipartUploadRepository.find(uploadId);
+      return upload == null ? ImmutableList.<MultipartPartEntity>of()
+            : multipartPartRepository.findPartsByUpload(upload);
+   }
+
+   /**
+    * Stores a part of a multipart upload, replacing the part with the same number if there is one. Each part is
+    * stored in its own transaction, so parts uploaded from different threads are written over different
+    * connections at the same time.
+    */
+   @Transactional(rollbackOn = IOException.class)
+   public MultipartPartEntity createOrModifyPart(Long uploadId, int partNumber, InputStream input,
+         Long contentLength) throws IOException {
+      MultipartUploadEntity upload = multipartUploadRepository.find(uploadId);
+      if (upload == null) {
+         Closeables2.closeQuietly(input);
+         throw new IllegalArgumentException("Multipart upload " + uploadId + " does not exist");
+      }
+      StoredChunks stored = storeChunks(input, contentLength);
+      List<Long> oldChunks = ImmutableList.of();
+      MultipartPartEntity part = multipartPartRepository.findPart(upload, partNumber);
+      if (part == null) {
+         part = new MultipartPartEntity(upload, partNumber);
+      } else {
+         oldChunks = ImmutableList.copyOf(part.getChunks());
+      }
+      part.setChunks(stored.chunks);
+      part.setSize(stored.size);
+      part.setEtag(base16().lowerCase().encode(stored.hash.asBytes()));
+      part.setLastModified(new Date());
+      MultipartPartEntity result = multipartPartRepository.save(part);
+      releaseChunks(oldChunks);
+      return result;
+   }
+
+   /**
+    * Completes a multipart upload by concatenating the chunk lists of the given parts into the payload of the
+    * blob, without copying any data. Chunks of parts left out are released.
+    *
+    * @param blobEntity the metadata of the blob to create
+    * @param partNumbers the numbers of the parts making up the blob, in order
+    * @param blobAccess the access of the blob, as requested when the upload was initiated
+    */
+   @Transactional
+   public BlobEntity completeMultipartUpload(Long uploadId, BlobEntity blobEntity, List<Integer> partNumbers,
+         BlobAccess blobAccess) {
+      MultipartUploadEntity upload = multipartUploadRepository.find(uploadId);
+      checkArgument(upload != null, "Multipart upload %s does not exist", uploadId);
+      Map<Integer, MultipartPartEntity> parts = new HashMap<Integer, MultipartPartEntity>();
+      for (MultipartPartEntity part : multipartPartRepository.findPartsByUpload(upload)) {
+         parts.put(part.getPartNumber(), part);
+      }
+      ImmutableList.Builder<Long> chunks = ImmutableList.builder();
+      Hasher etags = Hashing.md5().newHasher();
+      long size = 0;
+      for (Integer partNumber : partNumbers) {
+         MultipartPartEntity part = parts.remove(partNumber);
+         checkArgument(part != null, "Part %s of multipart upload %s has not been uploaded", partNumber, uploadId);
+         chunks.addAll(part.getChunks());
+         etags.putBytes(base16().lowerCase().decode(part.getEtag()));
+         size += part.getSize();
+      }
+      ImmutableList.Builder<Long> unusedChunks = ImmutableList.builder();
+      for (MultipartPartEntity part : parts.values()) {
+         unusedChunks.addAll(part.getChunks());
+      }
+
+      blobEntity.getPayload().setChunks(chunks.build());
+      blobEntity.getPayload().setInlineData(null);
+      blobEntity.getPayload().setContentMD5(null);
+      // same form as the ETag of an S3 multipart object
+      blobEntity.setEtag(etags.hash() + "-" + partNumbers.size());
+      BlobEntity result = saveBlob(upload.getContainerEntity().getName(), upload.getKey(), blobEntity, blobAccess,
+            size);
+      deleteUpload(upload);
+      releaseChunks(unusedChunks.build());
+      return result;
+   }
+
+   @Transactional
+   public void abortMultipartUpload(Long uploadId) {
+      MultipartUploadEntity upload = multipartUploadRepository.find(uploadId);
+      if (upload == null) {
+         return;
+      }
+      ImmutableList.Builder<Long> chunks = ImmutableList.builder();
+      for (MultipartPartEntity part : multipartPartRepository.findPartsByUpload(upload)) {
+         chunks.addAll(part.getChunks());
+      }
+      deleteUpload(upload);
+      releaseChunks(chunks.build());
+   }
+
+   private void deleteUpload(MultipartUploadEntity upload) {
+      for (MultipartPartEntity part : multipartPartRepository.findPartsByUpload(upload)) {
+         multipartPartRepository.delete(part);
+      }
+      multipartUploadRepository.delete(upload);
+   }
+
    @Transactional
    public void setBlobAccessById(String containerName, String key, BlobAccess access) {
       BlobEntity blobEntity = findBlobById(containerName, key);
@@ -235,26 +675,110 @@ public class JdbcService {
       blobRepository.save(blobEntity);
    }
 
-   @Transactional
-   private void deleteChunks(List<Long> chunkIds) {
-      for (Long chunkId : chunkIds) {
-         chunkRepository.delete(chunkRepository.find(chunkId));
+   private void releaseChunks(List<Long> chunkIds) {
+      chunkRepository.releaseChunks(chunkIds, deleteBatchSize);
+   }
+
+   /**
+    * Splits the input into chunks and stores them, hashing the data on the way. The input is read on a thread of
+    * its own rather than on the user executor: blobs are often stored from user executor threads, such as the parts
+    * of a multipart upload, and a bounded user executor could otherwise be filled with uploads waiting for reads that
+    * never get a thread. The content length, when known, keeps the reader from allocating more than the payload.
+    */
+   private StoredChunks storeChunks(InputStream input, Long contentLength) throws IOException {
+      ChunkedPayloadReader reader = new ChunkedPayloadReader(input, Hashing.md5(), chunkSize, writeBatchChunks + 2,
+            contentLength != null ? contentLength : -1, payloadReaders, payloadReadTimeoutMillis);
+      try {
+         List<Long> chunks = storeData(reader);
+         return new StoredChunks(chunks, reader.hash(), reader.size());
+      } finally {
+         Closeables2.closeQuietly(reader);
       }
    }
 
+   /**
+    * Stores the chunks produced by the reader. Chunks are inserted in batches of {@code writeBatchChunks}; after
+    * each batch is flushed the chunks are detached and their buffers given back to the reader, so memory usage
+    * does not grow with the size of the blob. With chunk deduplication, a chunk whose content is already stored,
+    * or pending in the current batch, only gains a reference.
+    */
    @Transactional(rollbackOn = IOException.class)
-   private List<Long> storeData(InputStream data) throws IOException {
+   private List<Long> storeData(ChunkedPayloadReader reader) throws IOException {
       ImmutableList.Builder<Long> chunks = ImmutableList.builder();
-      while (true) {
-         byte[] buffer = new byte[JdbcConstants.DEFAULT_CHUNK_SIZE];
-         int bytes = ByteStreams.read(data, buffer, 0, JdbcConstants.DEFAULT_CHUNK_SIZE);
-         if (bytes == 0) {
-            break;
-         } else if (bytes != buffer.length) {
-            buffer = Arrays.copyOf(buffer, bytes);
+      List<ChunkEntity> pendingEntities = new ArrayList<ChunkEntity>(writeBatchChunks);
+      List<ChunkEntity> pendingReferences = new ArrayList<ChunkEntity>(writeBatchChunks);
+      Map<String, ChunkEntity> pendingByDigest = new HashMap<String, ChunkEntity>();
+      List<ChunkedPayloadReader.Chunk> pendingBuffers = new ArrayList<ChunkedPayloadReader.Chunk>(writeBatchChunks);
+      ChunkedPayloadReader.Chunk chunk;
+      while ((chunk = reader.next()) != null) {
+         String digest = null;
+         if (chunkDeduplication) {
+            digest = Hashing.sha256().hashBytes(chunk.getData(), 0, chunk.getSize()).toString();
+            ChunkEntity pending = pendingByDigest.get(digest);
+            if (pending != null) {
+               pending.setRefCount(pending.getRefCount() + 1);
+               pendingReferences.add(pending);
+               reader.release(chunk);
+               continue;
+            }
+            Long id = chunkRepository.acquireChunk(digest);
+            if (id != null) {
+               ChunkEntity stored = new ChunkEntity();
+               stored.setId(id);
+               pendingReferences.add(stored);
+               reader.release(chunk);
+               continue;
+            }
+         }
+         byte[] data = chunk.getData();
+         if (chunk.getSize() != data.length) {
+            data = Arrays.copyOf(data, chunk.getSize());
+         }
+         ChunkEntity chunkEntity = chunkRepository.create(new ChunkEntity(data, chunk.getSize(), digest));
+         if (digest != null) {
+            pendingByDigest.put(digest, chunkEntity);
+         }
+         pendingEntities.add(chunkEntity);
+         pendingReferences.add(chunkEntity);
+         pendingBuffers.add(chunk);
+         if (pendingEntities.size() >= writeBatchChunks) {
+            flushChunks(pendingEntities, pendingReferences, pendingBuffers, reader, chunks);
+            pendingByDigest.clear();
          }
-         chunks.add(chunkRepository.create(new ChunkEntity(buffer, bytes)).getId());
       }
+      flushChunks(pendingEntities, pendingReferences, pendingBuffers, reader, chunks);
       return chunks.build();
    }
+
+   /**
+    * Inserts the pending chunks and appends the ids of the pending references, in upload order, to the chunk list.
+    */
+   private void flushChunks(List<ChunkEntity> pendingEntities, List<ChunkEntity> pendingReferences,
+         List<ChunkedPayloadReader.Chunk> pendingBuffers, ChunkedPayloadReader reader,
+         ImmutableList.Builder<Long> chunks) {
+      if (!pendingEntities.isEmpty()) {
+         chunkRepository.flushAndDetach(pendingEntities);
+      }
+      for (ChunkEntity chunkEntity : pendingReferences) {
+         chunks.add(chunkEntity.getId());
+      }
+      for (ChunkedPayloadReader.Chunk buffer : pendingBuffers) {
+         reader.release(buffer);
+      }
+      pendingEntities.clear();
+      pendingReferences.clear();
+      pendingBuffers.clear();
+   }
+
+   private static final class StoredChunks {
+      private final List<Long> chunks;
+      private final HashCode hash;
+      private final long size;
+
+      StoredChunks(List<Long> chunks, HashCode hash, long size) {
+         this.chunks = chunks;
+         this.hash = hash;
+         this.size = size;
+      }
+   }
 }
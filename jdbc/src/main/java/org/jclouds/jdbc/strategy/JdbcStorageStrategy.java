@@ -16,63 +16,115 @@
  */
 package org.jclouds.jdbc.strategy;
 
+import static org.jclouds.jdbc.reference.JdbcConstants.PROPERTY_ASYNC_CONTAINER_DELETE;
+import static org.jclouds.jdbc.reference.JdbcConstants.PROPERTY_MULTIPART_PARALLELISM;
+import static org.jclouds.jdbc.reference.JdbcConstants.PROPERTY_MULTIPART_PART_SIZE;
+
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.sql.SQLException;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
 
 import javax.inject.Inject;
+import javax.inject.Named;
 import javax.inject.Provider;
 import javax.persistence.PersistenceException;
 
+import org.jclouds.Constants;
+import org.jclouds.blobstore.ContainerNotFoundException;
 import org.jclouds.blobstore.LocalStorageStrategy;
 import org.jclouds.blobstore.domain.Blob;
 import org.jclouds.blobstore.domain.BlobAccess;
 import org.jclouds.blobstore.domain.BlobBuilder;
+import org.jclouds.blobstore.domain.BlobMetadata;
 import org.jclouds.blobstore.domain.ContainerAccess;
+import org.jclouds.blobstore.domain.MultipartPart;
+import org.jclouds.blobstore.domain.MultipartUpload;
+import org.jclouds.blobstore.domain.MutableBlobMetadata;
 import org.jclouds.blobstore.domain.MutableStorageMetadata;
+import org.jclouds.blobstore.domain.PageSet;
 import org.jclouds.blobstore.domain.StorageMetadata;
 import org.jclouds.blobstore.domain.StorageType;
+import org.jclouds.blobstore.domain.internal.MutableBlobMetadataImpl;
 import org.jclouds.blobstore.domain.internal.MutableStorageMetadataImpl;
+import org.jclouds.blobstore.domain.internal.PageSetImpl;
 import org.jclouds.blobstore.options.CreateContainerOptions;
 import org.jclouds.blobstore.options.ListContainerOptions;
+import org.jclouds.blobstore.options.PutOptions;
 import org.jclouds.domain.Location;
 import org.jclouds.domain.LocationBuilder;
 import org.jclouds.domain.LocationScope;
 import org.jclouds.io.ContentMetadata;
+import org.jclouds.io.Payload;
+import org.jclouds.io.payloads.ByteSourcePayload;
 import org.jclouds.jdbc.conversion.BlobEntityToBlob;
+import org.jclouds.jdbc.conversion.BlobToBlobEntity;
 import org.jclouds.jdbc.entity.BlobEntity;
+import org.jclouds.jdbc.entity.BlobSummary;
 import org.jclouds.jdbc.entity.ContainerEntity;
+import org.jclouds.jdbc.entity.MultipartPartEntity;
+import org.jclouds.jdbc.entity.MultipartUploadEntity;
 import org.jclouds.jdbc.predicates.validators.JdbcBlobKeyValidator;
 import org.jclouds.jdbc.predicates.validators.JdbcContainerNameValidator;
+import org.jclouds.jdbc.service.JdbcMetadataCache;
 import org.jclouds.jdbc.service.JdbcService;
 
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteSource;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
 
 /**
  * JdbcStorageStrategy implements a blob store that stores objects
  * on a jdbc supported database. Content metadata and user attributes are stored in
- * the database as well.
+ * the database as well. Container and blob lookups go through a {@link JdbcMetadataCache}, which every write
+ * invalidates.
  */
 public class JdbcStorageStrategy implements LocalStorageStrategy {
 
+   private static final int DEFAULT_MAX_RESULTS = 1000;
+
    private final Provider<BlobBuilder> blobBuilders;
    private final JdbcService jdbcService;
+   private final JdbcMetadataCache metadataCache;
    private final JdbcContainerNameValidator jdbcContainerNameValidator;
    private final JdbcBlobKeyValidator jdbcBlobKeyValidator;
    private final BlobEntityToBlob blobEntityToBlob;
+   private final BlobToBlobEntity blobToBlobEntity;
+   private final ListeningExecutorService userExecutor;
+   private final long multipartPartSize;
+   private final int multipartParallelism;
    private final Location mockLocation;
+   private final boolean asyncContainerDelete;
 
    @Inject
    JdbcStorageStrategy(Provider<BlobBuilder> blobBuilders,
          JdbcContainerNameValidator jdbcContainerNameValidator, JdbcBlobKeyValidator jdbcBlobKeyValidator,
-         JdbcService jdbcService, BlobEntityToBlob blobEntityToBlob)
+         JdbcService jdbcService, JdbcMetadataCache metadataCache, BlobEntityToBlob blobEntityToBlob,
+         BlobToBlobEntity blobToBlobEntity,
+         @Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService userExecutor,
+         @Named(PROPERTY_ASYNC_CONTAINER_DELETE) boolean asyncContainerDelete,
+         @Named(PROPERTY_MULTIPART_PART_SIZE) long multipartPartSize,
+         @Named(PROPERTY_MULTIPART_PARALLELISM) int multipartParallelism)
          throws ClassNotFoundException, IllegalAccessException, InstantiationException, SQLException {
       this.jdbcService = jdbcService;
+      this.metadataCache = metadataCache;
       this.blobBuilders = blobBuilders;
       this.jdbcContainerNameValidator = jdbcContainerNameValidator;
       this.jdbcBlobKeyValidator = jdbcBlobKeyValidator;
       this.blobEntityToBlob = blobEntityToBlob;
+      this.blobToBlobEntity = blobToBlobEntity;
+      this.userExecutor = userExecutor;
+      this.multipartPartSize = Math.max(1, multipartPartSize);
+      this.multipartParallelism = Math.max(1, multipartParallelism);
+      this.asyncContainerDelete = asyncContainerDelete;
       this.mockLocation = new LocationBuilder()
             .id("jdbc")
             .scope(LocationScope.PROVIDER)
@@ -89,7 +141,7 @@ public class JdbcStorageStrategy implements LocalStorageStrategy {
    @Override
    public boolean containerExists(String container) {
       jdbcContainerNameValidator.validate(container);
-      return jdbcService.findContainerByName(container) != null;
+      return metadataCache.findContainerByName(container) != null;
    }
 
    /**
@@ -130,6 +182,7 @@ public class JdbcStorageStrategy implements LocalStorageStrategy {
       } catch (IllegalArgumentException e) {
          return false;
       }
+      metadataCache.invalidateContainer(container);
       return true;
    }
 
@@ -141,7 +194,7 @@ public class JdbcStorageStrategy implements LocalStorageStrategy {
     */
    @Override
    public ContainerAccess getContainerAccess(String container) {
-      return jdbcService.findContainerByName(container).getContainerAccess();
+      return metadataCache.findContainerByName(container).getContainerAccess();
    }
 
    /**
@@ -152,19 +205,34 @@ public class JdbcStorageStrategy implements LocalStorageStrategy {
     */
    @Override
    public void setContainerAccess(String container, ContainerAccess containerAccess) {
-      jdbcService.setContainerAccessByName(container, containerAccess);
+      try {
+         jdbcService.setContainerAccessByName(container, containerAccess);
+      } finally {
+         metadataCache.invalidateContainer(container);
+      }
    }
 
    /**
-    * Deletes a container and all the blobs in it
+    * Deletes a container and all the blobs in it. When asynchronous container deletion is enabled the container
+    * is removed at once and its blobs are deleted in the background.
     *
     * @param container the name of the container to delete
     */
    @Override
    public void deleteContainer(String container) {
       jdbcContainerNameValidator.validate(container);
-      jdbcService.deleteBlobsByContainer(container);
-      jdbcService.deleteContainerByName(container);
+      try {
+         if (asyncContainerDelete) {
+            jdbcService.dropContainer(container);
+         }
+         else {
+            jdbcService.deleteBlobsByContainer(container);
+            jdbcService.deleteContainerByName(container);
+         }
+      } finally {
+         metadataCache.invalidateContainer(container);
+         metadataCache.invalidateBlobs(container, "");
+      }
    }
 
    /**
@@ -174,7 +242,11 @@ public class JdbcStorageStrategy implements LocalStorageStrategy {
     */
    @Override
    public void clearContainer(String container) {
-      jdbcService.deleteBlobsByContainer(container);
+      try {
+         jdbcService.deleteBlobsByContainer(container);
+      } finally {
+         metadataCache.invalidateBlobs(container, "");
+      }
    }
 
    /**
@@ -186,7 +258,11 @@ public class JdbcStorageStrategy implements LocalStorageStrategy {
    @Override
    public void clearContainer(String container, ListContainerOptions options) {
       if (options.getDir() != null) {
-         jdbcService.deleteBlobsByDirectory(container, options.getDir(), true);
+         try {
+            jdbcService.deleteBlobsByDirectory(container, options.getDir(), true);
+         } finally {
+            metadataCache.invalidateBlobs(container, options.getDir());
+         }
       }
       else {
          clearContainer(container);
@@ -201,7 +277,7 @@ public class JdbcStorageStrategy implements LocalStorageStrategy {
     */
    @Override
    public StorageMetadata getContainerMetadata(String containerName) {
-      ContainerEntity containerEntity = jdbcService.findContainerByName(containerName);
+      ContainerEntity containerEntity = metadataCache.findContainerByName(containerName);
       MutableStorageMetadata metadata = null;
       if (containerEntity != null) {
          metadata = new MutableStorageMetadataImpl();
@@ -224,7 +300,7 @@ public class JdbcStorageStrategy implements LocalStorageStrategy {
    public boolean blobExists(String container, String key) {
       jdbcContainerNameValidator.validate(container);
       jdbcBlobKeyValidator.validate(key);
-      return jdbcService.blobExists(container, key);
+      return metadataCache.findBlobById(container, key) != null;
    }
 
    /**
@@ -235,12 +311,75 @@ public class JdbcStorageStrategy implements LocalStorageStrategy {
     */
    @Override
    public Iterable<String> getBlobKeysInsideContainer(String container) throws IOException {
-      List<BlobEntity> blobEntities = jdbcService.findBlobsByContainer(container);
-      ImmutableList.Builder<String> result = ImmutableList.builder();
-      for (BlobEntity blobEntity : blobEntities) {
-         result.add(blobEntity.getKey());
+      return ImmutableList.copyOf(jdbcService.findBlobKeysByContainer(container));
+   }
+
+   /**
+    * Lists the blobs in a container. The directory, marker and maximum number of results are applied by the
+    * database, and only the columns needed for the metadata are read. Unless the listing is recursive, keys
+    * containing the separator below the listed directory are grouped into a single relative path entry, and the
+    * keys under it are skipped without being read.
+    *
+    * @param container the name of the container
+    * @param options options to filter what blobs are listed
+    * @return a page with the blobs, directories and relative paths in key order
+    */
+   public PageSet<? extends StorageMetadata> list(String container, ListContainerOptions options) {
+      if (metadataCache.findContainerByName(container) == null) {
+         throw new ContainerNotFoundException(container, "");
       }
-      return result.build();
+      String separator = getSeparator();
+      String prefix = options.getDir() == null ? "" : options.getDir();
+      if (!prefix.isEmpty() && !prefix.endsWith(separator)) {
+         prefix = prefix + separator;
+      }
+      boolean recursive = options.isRecursive();
+      int maxResults = options.getMaxResults() == null ? DEFAULT_MAX_RESULTS : options.getMaxResults();
+
+      String from = options.getMarker();
+      boolean inclusive = false;
+      if (!recursive && from != null && from.length() > prefix.length() && from.startsWith(prefix)
+            && from.endsWith(separator)) {
+         // The marker is a relative path returned by the previous page
+         from = successor(from);
+         inclusive = true;
+      }
+
+      ImmutableList.Builder<StorageMetadata> contents = ImmutableList.builder();
+      int count = 0;
+      String lastName = null;
+      boolean exhausted = false;
+      while (count < maxResults && !exhausted) {
+         int requested = maxResults - count;
+         List<BlobSummary> page = jdbcService.findBlobSummaries(container, prefix, from, inclusive, requested);
+         exhausted = page.size() < requested;
+         for (BlobSummary summary : page) {
+            String key = summary.getKey();
+            int index = recursive ? -1 : key.indexOf(separator, prefix.length());
+            if (index >= 0) {
+               String relativePath = key.substring(0, index + separator.length());
+               contents.add(toRelativePathMetadata(relativePath));
+               count++;
+               lastName = relativePath;
+               // Skip every key below the relative path with a new query
+               from = successor(relativePath);
+               inclusive = true;
+               exhausted = false;
+               break;
+            }
+            contents.add(toStorageMetadata(container, summary));
+            count++;
+            lastName = key;
+            from = key;
+            inclusive = false;
+         }
+      }
+
+      String nextMarker = null;
+      if (count == maxResults && !jdbcService.findBlobSummaries(container, prefix, from, inclusive, 1).isEmpty()) {
+         nextMarker = lastName;
+      }
+      return new PageSetImpl<StorageMetadata>(contents.build(), nextMarker);
    }
 
    /**
@@ -252,7 +391,7 @@ public class JdbcStorageStrategy implements LocalStorageStrategy {
     */
    @Override
    public Blob getBlob(String container, String key) {
-      return blobEntityToBlob.apply(jdbcService.findBlobById(container, key));
+      return blobEntityToBlob.apply(metadataCache.findBlobById(container, key));
    }
 
    /**
@@ -267,7 +406,180 @@ public class JdbcStorageStrategy implements LocalStorageStrategy {
       String key = blob.getMetadata().getName();
       jdbcContainerNameValidator.validate(container);
       jdbcBlobKeyValidator.validate(key);
-      return jdbcService.createOrModifyBlob(container, blob).getEtag();
+      try {
+         return jdbcService.createOrModifyBlob(container, blob).getEtag();
+      } finally {
+         metadataCache.invalidateBlob(container, key);
+      }
+   }
+
+   /**
+    * Stores a blob as a multipart upload whose parts are stored concurrently on the user executor, each in its own
+    * transaction and over its own connection, and then stitched together without copying data. Blobs that fit in a
+    * single part, or whose payload cannot be read more than once, are stored with {@link #putBlob}.
+    *
+    * @param container the name of the container
+    * @param blob the blob to store
+    * @return the blob's etag
+    */
+   public String putBlobMultipart(String container, Blob blob) throws IOException {
+      final Payload payload = blob.getPayload();
+      Long length = payload.getContentMetadata().getContentLength();
+      if (length == null || length <= multipartPartSize || !payload.isRepeatable()) {
+         return putBlob(container, blob);
+      }
+      ByteSource content = new ByteSource() {
+         @Override
+         public InputStream openStream() throws IOException {
+            return payload.openStream();
+         }
+      };
+      final MultipartUpload mpu = initiateMultipartUpload(container, blob.getMetadata(), PutOptions.NONE);
+      final Semaphore permits = new Semaphore(multipartParallelism);
+      ImmutableList.Builder<ListenableFuture<MultipartPart>> futures = ImmutableList.builder();
+      try {
+         int partCount = (int) ((length + multipartPartSize - 1) / multipartPartSize);
+         for (int i = 0; i < partCount; i++) {
+            final int partNumber = i + 1;
+            final ByteSource part = content.slice(i * multipartPartSize, multipartPartSize);
+            permits.acquire();
+            futures.add(userExecutor.submit(new Callable<MultipartPart>() {
+               @Override
+               public MultipartPart call() throws IOException {
+                  try {
+                     return uploadMultipartPart(mpu, partNumber, new ByteSourcePayload(part));
+                  } finally {
+                     permits.release();
+                  }
+               }
+            }));
+         }
+         List<MultipartPart> parts = Futures.allAsList(futures.build()).get();
+         return completeMultipartUpload(mpu, parts);
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         abortMultipartUpload(mpu, futures.build());
+         throw new InterruptedIOException("Interrupted while storing " + mpu.blobName());
+      } catch (ExecutionException e) {
+         abortMultipartUpload(mpu, futures.build());
+         Throwables.propagateIfPossible(e.getCause(), IOException.class);
+         throw new IOException("Could not store " + mpu.blobName(), e.getCause());
+      } catch (RuntimeException e) {
+         abortMultipartUpload(mpu, futures.build());
+         throw e;
+      }
+   }
+
+   private void abortMultipartUpload(MultipartUpload mpu, List<ListenableFuture<MultipartPart>> futures) {
+      for (ListenableFuture<MultipartPart> future : futures) {
+         future.cancel(true);
+      }
+      abortMultipartUpload(mpu);
+   }
+
+   /**
+    * Starts a multipart upload. The metadata of the blob is applied when the upload is completed.
+    *
+    * @param container the name of the container
+    * @param blobMetadata the metadata of the blob to create
+    * @param options the put options of the blob
+    * @return the multipart upload
+    */
+   public MultipartUpload initiateMultipartUpload(String container, BlobMetadata blobMetadata, PutOptions options) {
+      jdbcContainerNameValidator.validate(container);
+      jdbcBlobKeyValidator.validate(blobMetadata.getName());
+      if (metadataCache.findContainerByName(container) == null) {
+         throw new ContainerNotFoundException(container, "");
+      }
+      MultipartUploadEntity upload = jdbcService.createMultipartUpload(container, blobMetadata.getName());
+      return MultipartUpload.create(container, blobMetadata.getName(), String.valueOf(upload.getId()), blobMetadata,
+            options);
+   }
+
+   /**
+    * Stores a part of a multipart upload. Parts can be stored concurrently from different threads.
+    *
+    * @param mpu the multipart upload
+    * @param partNumber the number of the part, replacing a part previously stored with the same number
+    * @param payload the content of the part
+    * @return the stored part
+    */
+   public MultipartPart uploadMultipartPart(MultipartUpload mpu, int partNumber, Payload payload) throws IOException {
+      return toMultipartPart(jdbcService.createOrModifyPart(uploadId(mpu), partNumber, payload.openStream(),
+            payload.getContentMetadata().getContentLength()));
+   }
+
+   /**
+    * Completes a multipart upload, replacing the blob with the same key if there is one.
+    *
+    * @param mpu the multipart upload
+    * @param parts the parts making up the blob, in order
+    * @return the blob's etag
+    */
+   public String completeMultipartUpload(MultipartUpload mpu, List<MultipartPart> parts) {
+      BlobMetadata blobMetadata = mpu.blobMetadata() != null ? mpu.blobMetadata()
+            : blobBuilders.get().name(mpu.blobName()).build().getMetadata();
+      ImmutableList.Builder<Integer> partNumbers = ImmutableList.builder();
+      for (MultipartPart part : parts) {
+         partNumbers.add(part.partNumber());
+      }
+      BlobAccess blobAccess = mpu.putOptions() != null ? mpu.putOptions().getBlobAccess() : null;
+      try {
+         return jdbcService.completeMultipartUpload(uploadId(mpu), blobToBlobEntity.fromBlobMetadata(blobMetadata),
+               partNumbers.build(), blobAccess).getEtag();
+      } finally {
+         metadataCache.invalidateBlob(mpu.containerName(), mpu.blobName());
+      }
+   }
+
+   /**
+    * Aborts a multipart upload and deletes the parts stored so far.
+    *
+    * @param mpu the multipart upload
+    */
+   public void abortMultipartUpload(MultipartUpload mpu) {
+      jdbcService.abortMultipartUpload(uploadId(mpu));
+   }
+
+   /**
+    * Lists the parts stored so far of a multipart upload, by part number.
+    *
+    * @param mpu the multipart upload
+    * @return the parts of the upload
+    */
+   public List<MultipartPart> listMultipartUpload(MultipartUpload mpu) {
+      ImmutableList.Builder<MultipartPart> parts = ImmutableList.builder();
+      for (MultipartPartEntity part : jdbcService.findMultipartParts(uploadId(mpu))) {
+         parts.add(toMultipartPart(part));
+      }
+      return parts.build();
+   }
+
+   /**
+    * Lists the multipart uploads in progress in a container. Their blob metadata is not known until they are
+    * completed.
+    *
+    * @param container the name of the container
+    * @return the multipart uploads of the container
+    */
+   public List<MultipartUpload> listMultipartUploads(String container) {
+      ImmutableList.Builder<MultipartUpload> uploads = ImmutableList.builder();
+      for (MultipartUploadEntity upload : jdbcService.findMultipartUploads(container)) {
+         uploads.add(MultipartUpload.create(container, upload.getKey(), String.valueOf(upload.getId()), null, null));
+      }
+      return uploads.build();
+   }
+
+   private static Long uploadId(MultipartUpload mpu) {
+      try {
+         return Long.valueOf(mpu.id());
+      } catch (NumberFormatException e) {
+         throw new IllegalArgumentException("Invalid multipart upload id: " + mpu.id(), e);
+      }
+   }
+
+   private static MultipartPart toMultipartPart(MultipartPartEntity part) {
+      return MultipartPart.create(part.getPartNumber(), part.getSize(), part.getEtag(), part.getLastModified());
    }
 
    /**
@@ -278,7 +590,11 @@ public class JdbcStorageStrategy implements LocalStorageStrategy {
     */
    @Override
    public void removeBlob(String container, String key) {
-      jdbcService.deleteBlob(container, key);
+      try {
+         jdbcService.deleteBlob(container, key);
+      } finally {
+         metadataCache.invalidateBlob(container, key);
+      }
    }
 
    /**
@@ -290,7 +606,7 @@ public class JdbcStorageStrategy implements LocalStorageStrategy {
     */
    @Override
    public BlobAccess getBlobAccess(String container, String key) {
-      return jdbcService.findBlobById(container, key).getBlobAccess();
+      return metadataCache.findBlobById(container, key).getBlobAccess();
    }
 
    /**
@@ -302,7 +618,11 @@ public class JdbcStorageStrategy implements LocalStorageStrategy {
     */
    @Override
    public void setBlobAccess(String container, String key, BlobAccess blobAccess) {
-      jdbcService.setBlobAccessById(container, key, blobAccess);
+      try {
+         jdbcService.setBlobAccessById(container, key, blobAccess);
+      } finally {
+         metadataCache.invalidateBlob(container, key);
+      }
    }
 
    /**
@@ -333,8 +653,7 @@ public class JdbcStorageStrategy implements LocalStorageStrategy {
     * @return the number of blobs in the container
     */
    public long countBlobs(String container, ListContainerOptions options) {
-      return options.getDir() == null ? jdbcService.findBlobsByContainer(container).size()
-             : jdbcService.findBlobsByDirectory(container, options.getDir(), options.isRecursive()).size();
+      return jdbcService.countBlobs(container, options.getDir(), options.isRecursive());
    }
 
    /**
@@ -365,7 +684,11 @@ public class JdbcStorageStrategy implements LocalStorageStrategy {
          throw new IllegalArgumentException(
                "Directory blob cannot have content: " + blobKey);
       }
-      return jdbcService.createDirectoryBlob(container, blob).getEtag();
+      try {
+         return jdbcService.createDirectoryBlob(container, blob).getEtag();
+      } finally {
+         metadataCache.invalidateBlob(container, blobKey);
+      }
    }
 
    /**
@@ -389,8 +712,51 @@ public class JdbcStorageStrategy implements LocalStorageStrategy {
    public void deleteDirectory(String container, String directory) {
       BlobEntity entity = jdbcService.findBlobById(container, directory);
       if (entity != null && entity.isDirectory()) {
-         jdbcService.deleteBlob(container, directory);
+         try {
+            jdbcService.deleteBlob(container, directory);
+         } finally {
+            metadataCache.invalidateBlob(container, directory);
+         }
+      }
+   }
+
+   private StorageMetadata toStorageMetadata(String container, BlobSummary summary) {
+      MutableStorageMetadata metadata;
+      if (summary.isDirectory()) {
+         metadata = new MutableStorageMetadataImpl();
+         metadata.setType(StorageType.FOLDER);
       }
+      else {
+         MutableBlobMetadata blobMetadata = new MutableBlobMetadataImpl();
+         blobMetadata.setContainer(container);
+         blobMetadata.getContentMetadata().setContentType(summary.getContentType());
+         blobMetadata.getContentMetadata().setContentLength(summary.getSize());
+         metadata = blobMetadata;
+         metadata.setType(StorageType.BLOB);
+      }
+      metadata.setName(summary.getKey());
+      metadata.setLocation(mockLocation);
+      metadata.setETag(summary.getEtag());
+      metadata.setSize(summary.getSize());
+      metadata.setCreationDate(summary.getCreationDate());
+      metadata.setLastModified(summary.getLastModified());
+      return metadata;
+   }
+
+   private StorageMetadata toRelativePathMetadata(String name) {
+      MutableStorageMetadata metadata = new MutableStorageMetadataImpl();
+      metadata.setName(name);
+      metadata.setType(StorageType.RELATIVE_PATH);
+      metadata.setLocation(mockLocation);
+      return metadata;
+   }
+
+   /**
+    * Returns the smallest string that sorts after every string starting with the given prefix.
+    */
+   private static String successor(String prefix) {
+      int last = prefix.length() - 1;
+      return prefix.substring(0, last) + (char) (prefix.charAt(last) + 1);
    }
 
 }
@@ -0,0 +1,246 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.util;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.io.ByteStreams;
+import org.jclouds.util.Closeables2;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Splits an input stream into chunks on a background thread, hashing the data as it is read. Chunks are read
+ * into a ring of reusable buffers, so at most {@code buffers} chunks are held in memory at any time: the reader
+ * blocks until a chunk handed out by {@link #next()} is given back with {@link #release(Chunk)}. Buffers are only
+ * allocated when no released one is available and, when the expected size of the input is known, are no larger
+ * than the data left to read, so small payloads do not cost whole chunks.
+ * <p>
+ * The executor must be able to run the background read while the caller waits in {@link #next()}, so it should
+ * not be a bounded pool the caller itself runs on. Waiting for a chunk gives up after the read timeout.
+ */
+public class ChunkedPayloadReader implements Closeable {
+
+   private static final Chunk END = new Chunk(new byte[0], 0);
+
+   private final InputStream input;
+   private final BlockingQueue<byte[]> free;
+   private final BlockingQueue<Chunk> filled;
+   private final Hasher hasher;
+   private final Future<?> task;
+   private final long timeoutMillis;
+   private final int chunkSize;
+   private final int buffers;
+   private final long expectedSize;
+   // only used by the background read
+   private int allocated;
+   private volatile Throwable failure;
+   private volatile long size;
+   private boolean finished;
+
+   public ChunkedPayloadReader(InputStream input, HashFunction hashFunction, int chunkSize, int buffers,
+         ExecutorService executor) {
+      this(input, hashFunction, chunkSize, buffers, executor, Long.MAX_VALUE);
+   }
+
+   public ChunkedPayloadReader(InputStream input, HashFunction hashFunction, int chunkSize, int buffers,
+         ExecutorService executor, long timeoutMillis) {
+      this(input, hashFunction, chunkSize, buffers, -1, executor, timeoutMillis);
+   }
+
+   /**
+    * @param expectedSize the size of the input if it is known, or -1
+    * @param timeoutMillis how long {@link #next()} waits for a chunk to be read before failing
+    */
+   public ChunkedPayloadReader(final InputStream input, HashFunction hashFunction, int chunkSize, int buffers,
+         long expectedSize, ExecutorService executor, long timeoutMillis) {
+      this.input = checkNotNull(input, "input");
+      checkArgument(timeoutMillis > 0, "timeoutMillis must be positive");
+      this.timeoutMillis = timeoutMillis;
+      checkArgument(chunkSize > 0, "chunkSize must be positive");
+      checkArgument(buffers > 0, "buffers must be positive");
+      this.chunkSize = chunkSize;
+      this.buffers = buffers;
+      this.expectedSize = expectedSize;
+      this.hasher = checkNotNull(hashFunction, "hashFunction").newHasher();
+      this.free = new LinkedBlockingQueue<byte[]>();
+      this.filled = new LinkedBlockingQueue<Chunk>();
+      this.task = checkNotNull(executor, "executor").submit(new Runnable() {
+         @Override
+         public void run() {
+            try {
+               readChunks();
+            } catch (Throwable t) {
+               failure = t;
+            } finally {
+               Closeables2.closeQuietly(input);
+               filled.add(END);
+            }
+         }
+      });
+   }
+
+   private void readChunks() throws IOException, InterruptedException {
+      while (true) {
+         int capacity = capacity();
+         byte[] buffer = takeBuffer(capacity);
+         int bytes = ByteStreams.read(input, buffer, 0, capacity);
+         if (bytes == capacity && capacity < chunkSize) {
+            // the input is longer than expected: fill a whole chunk so the chunk boundaries do not move
+            buffer = Arrays.copyOf(buffer, chunkSize);
+            bytes += ByteStreams.read(input, buffer, bytes, chunkSize - bytes);
+            capacity = chunkSize;
+         }
+         if (bytes == 0) {
+            free.add(buffer);
+            return;
+         }
+         hasher.putBytes(buffer, 0, bytes);
+         size += bytes;
+         filled.add(new Chunk(buffer, bytes));
+         if (bytes < capacity) {
+            return;
+         }
+      }
+   }
+
+   /**
+    * Returns how many bytes to read into the next chunk: a whole chunk, or one byte more than the data left when
+    * less than a chunk is expected, so that the end of the input still shows as a short read.
+    */
+   private int capacity() {
+      if (expectedSize < 0) {
+         return chunkSize;
+      }
+      return (int) Math.min(chunkSize, Math.max(0, expectedSize - size) + 1);
+   }
+
+   /**
+    * Takes a released buffer, allocating one while fewer than {@code buffers} exist. A released buffer smaller than
+    * the capacity is replaced by a larger one.
+    */
+   private byte[] takeBuffer(int capacity) throws InterruptedException {
+      byte[] buffer = free.poll();
+      if (buffer == null) {
+         if (allocated < buffers) {
+            allocated++;
+            return new byte[capacity];
+         }
+         buffer = free.take();
+      }
+      return buffer.length < capacity ? new byte[capacity] : buffer;
+   }
+
+   /**
+    * Waits for the next chunk of data.
+    *
+    * @return the next chunk, or null when the input has been fully read
+    * @throws IOException if the input could not be read, or no chunk was read within the timeout
+    */
+   public Chunk next() throws IOException {
+      if (finished) {
+         return null;
+      }
+      Chunk chunk;
+      try {
+         chunk = filled.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new InterruptedIOException("Interrupted while reading payload");
+      }
+      if (chunk == null) {
+         close();
+         throw new IOException("Timed out after " + timeoutMillis + " ms waiting for payload data");
+      }
+      if (chunk == END) {
+         finished = true;
+         if (failure != null) {
+            if (failure instanceof IOException) {
+               throw (IOException) failure;
+            }
+            throw new IOException("Could not read payload", failure);
+         }
+         return null;
+      }
+      return chunk;
+   }
+
+   /**
+    * Gives the buffer of a chunk back to the ring so it can be filled again.
+    */
+   public void release(Chunk chunk) {
+      free.add(chunk.getData());
+   }
+
+   /**
+    * Returns the hash of the data read. Only available once {@link #next()} has returned null.
+    */
+   public HashCode hash() {
+      checkState(finished && failure == null, "payload has not been fully read");
+      return hasher.hash();
+   }
+
+   /**
+    * Returns the number of bytes read. Only available once {@link #next()} has returned null.
+    */
+   public long size() {
+      checkState(finished && failure == null, "payload has not been fully read");
+      return size;
+   }
+
+   @Override
+   public void close() {
+      task.cancel(true);
+      Closeables2.closeQuietly(input);
+   }
+
+   /**
+    * A chunk of data backed by one of the reader buffers. Only the first {@link #getSize()} bytes are valid.
+    */
+   public static final class Chunk {
+      private final byte[] data;
+      private final int size;
+
+      private Chunk(byte[] data, int size) {
+         this.data = data;
+         this.size = size;
+      }
+
+      public byte[] getData() {
+         return data;
+      }
+
+      public int getSize() {
+         return size;
+      }
+   }
+
+}
@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.util;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.io.ByteSource;
+import org.jclouds.jdbc.service.JdbcService;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * The content of a blob stored in chunks. Reading the whole source streams every chunk through a
+ * {@link JdbcInputStream}, while a {@link #slice(long, long) slice} only fetches the chunks covering its byte
+ * range: the first and last of them are cut by the database, the ones in between are streamed whole.
+ * <p>
+ * The chunk offsets are loaded once, on the first ranged read, and shared by all the slices of a source, so the
+ * ranges of a multi-range request each read their own bytes only.
+ */
+public class JdbcByteSource extends ByteSource {
+
+   private final JdbcService jdbcService;
+   private final List<Long> chunks;
+   private final ExecutorService executor;
+   private final int readAhead;
+   private final Supplier<long[]> offsets;
+   private final long size;
+   private final long start;
+   private final long end;
+
+   /**
+    * @param size the size of the content, computed from the chunk sizes when null
+    */
+   public JdbcByteSource(JdbcService jdbcService, List<Long> chunks, Long size, ExecutorService executor,
+         int readAhead) {
+      this(jdbcService, chunks, executor, readAhead, offsetsSupplier(jdbcService, chunks), size);
+   }
+
+   private JdbcByteSource(JdbcService jdbcService, List<Long> chunks, ExecutorService executor, int readAhead,
+         Supplier<long[]> offsets, Long size) {
+      this(jdbcService, chunks, executor, readAhead, offsets, contentSize(offsets, size), 0,
+            contentSize(offsets, size));
+   }
+
+   private JdbcByteSource(JdbcService jdbcService, List<Long> chunks, ExecutorService executor, int readAhead,
+         Supplier<long[]> offsets, long size, long start, long end) {
+      this.jdbcService = checkNotNull(jdbcService, "jdbcService");
+      this.chunks = checkNotNull(chunks, "chunks");
+      this.executor = executor;
+      this.readAhead = readAhead;
+      this.offsets = offsets;
+      this.size = size;
+      this.start = start;
+      this.end = end;
+   }
+
+   @Override
+   public InputStream openStream() {
+      if (start == 0 && end == size) {
+         return new JdbcInputStream(jdbcService, chunks, executor, readAhead);
+      }
+      return new SequenceInputStream(new RangeStreams(offsets.get()));
+   }
+
+   @Override
+   public long size() {
+      return end - start;
+   }
+
+   @Override
+   public ByteSource slice(long offset, long length) {
+      checkArgument(offset >= 0, "offset (%s) may not be negative", offset);
+      checkArgument(length >= 0, "length (%s) may not be negative", length);
+      long sliceStart = Math.min(start + offset, end);
+      long sliceEnd = Math.min(end, sliceStart + length);
+      return new JdbcByteSource(jdbcService, chunks, executor, readAhead, offsets, size, sliceStart, sliceEnd);
+   }
+
+   private static Supplier<long[]> offsetsSupplier(final JdbcService jdbcService, final List<Long> chunks) {
+      return Suppliers.memoize(new Supplier<long[]>() {
+         @Override
+         public long[] get() {
+            return chunkOffsets(jdbcService, chunks);
+         }
+      });
+   }
+
+   private static long contentSize(Supplier<long[]> offsets, Long size) {
+      if (size != null) {
+         return size;
+      }
+      long[] chunkOffsets = offsets.get();
+      return chunkOffsets[chunkOffsets.length - 1];
+   }
+
+   /**
+    * Returns the offset of each chunk in the content, followed by the size of the content.
+    */
+   private static long[] chunkOffsets(JdbcService jdbcService, List<Long> chunks) {
+      Map<Long, Integer> sizes = jdbcService.findChunkSizes(chunks);
+      long[] offsets = new long[chunks.size() + 1];
+      for (int i = 0; i < chunks.size(); i++) {
+         Integer size = sizes.get(chunks.get(i));
+         checkArgument(size != null, "Chunk %s does not exist", chunks.get(i));
+         offsets[i + 1] = offsets[i] + size;
+      }
+      return offsets;
+   }
+
+   /**
+    * Opens, one after the other as they are consumed, the streams of the chunks covering the range.
+    */
+   private class RangeStreams implements Enumeration<InputStream> {
+      private final long[] offsets;
+      private final int lastChunk;
+      private int nextChunk;
+
+      RangeStreams(long[] offsets) {
+         this.offsets = offsets;
+         this.nextChunk = chunkAt(start);
+         this.lastChunk = start == end ? nextChunk - 1 : chunkAt(end - 1);
+      }
+
+      @Override
+      public boolean hasMoreElements() {
+         return nextChunk <= lastChunk;
+      }
+
+      @Override
+      public InputStream nextElement() {
+         if (!hasMoreElements()) {
+            throw new NoSuchElementException();
+         }
+         int chunk = nextChunk;
+         long chunkStart = offsets[chunk];
+         long chunkEnd = offsets[chunk + 1];
+         if (start <= chunkStart && end >= chunkEnd) {
+            // whole chunks are streamed together, up to the last chunk read entirely
+            int wholeChunks = chunk;
+            while (wholeChunks + 1 <= lastChunk && offsets[wholeChunks + 2] <= end) {
+               wholeChunks++;
+            }
+            nextChunk = wholeChunks + 1;
+            return new JdbcInputStream(jdbcService, chunks.subList(chunk, wholeChunks + 1), executor, readAhead);
+         }
+         nextChunk++;
+         long from = Math.max(start, chunkStart);
+         long to = Math.min(end, chunkEnd);
+         return new ByteArrayInputStream(jdbcService.readChunkRange(chunks.get(chunk), (int) (from - chunkStart),
+               (int) (to - from)));
+      }
+
+      /**
+       * Returns the index of the chunk holding the byte at the given position.
+       */
+      private int chunkAt(long position) {
+         int low = 0;
+         int high = offsets.length - 2;
+         while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (offsets[middle] <= position) {
+               low = middle;
+            } else {
+               high = middle - 1;
+            }
+         }
+         return low;
+      }
+   }
+
+}
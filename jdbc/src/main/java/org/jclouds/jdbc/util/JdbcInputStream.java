@@ -21,24 +21,50 @@ import org.jclouds.jdbc.service.JdbcService;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
-import java.util.LinkedHashSet;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
+/**
+ * Streams the chunks of a blob. Bulk reads copy whole chunk slices, and when an executor is given the next
+ * {@code readAhead} chunks are loaded in the background while the current one is consumed.
+ * <p>
+ * Instances are not thread safe.
+ */
 public class JdbcInputStream extends InputStream {
 
-   private JdbcService jdbcService;
+   private final JdbcService jdbcService;
+   private final ExecutorService executor;
+   private final int readAhead;
 
    private final List<Long> chunks;
+   private final Queue<Future<ChunkEntity>> prefetched;
+   private int nextChunk;
    private ChunkEntity currentChunk;
    private int bytesRead;
 
    public JdbcInputStream(JdbcService jdbcService, List<Long> chunks) {
+      this(jdbcService, chunks, null, 0);
+   }
+
+   public JdbcInputStream(JdbcService jdbcService, List<Long> chunks, ExecutorService executor, int readAhead) {
+      checkArgument(readAhead >= 0, "readAhead must be non-negative");
       this.jdbcService = checkNotNull(jdbcService, "jdbcService");
-      // Need to remove duplicates due to https://hibernate.atlassian.net/browse/HHH-6783
-      this.chunks = new ArrayList<Long>(new LinkedHashSet<Long>(checkNotNull(chunks, "chunks")));
+      // the same chunk may legitimately appear several times when chunks are deduplicated
+      this.chunks = new ArrayList<Long>(checkNotNull(chunks, "chunks"));
+      this.executor = executor;
+      this.readAhead = executor == null ? 0 : readAhead;
+      this.prefetched = new LinkedList<Future<ChunkEntity>>();
       try {
          readNextChunk();
       } catch (IOException e) {
@@ -47,30 +73,130 @@ public class JdbcInputStream extends InputStream {
    }
 
    @Override
-   public synchronized int read() throws IOException {
-      if (hasFinished()) {
+   public int read() throws IOException {
+      if (!ensureData()) {
          return -1;
       }
       int b = currentChunk.getData()[bytesRead] & 0xff;
       bytesRead = bytesRead + 1;
-      if (bytesRead >= currentChunk.getSize()) {
-         readNextChunk();
-      }
       return b;
    }
 
-   private boolean hasFinished() {
-      return currentChunk == null || (chunks.size() == 0 && bytesRead >= currentChunk.getSize());
+   @Override
+   public int read(byte[] b, int off, int len) throws IOException {
+      checkNotNull(b, "b");
+      if (off < 0 || len < 0 || len > b.length - off) {
+         throw new IndexOutOfBoundsException();
+      }
+      if (len == 0) {
+         return 0;
+      }
+      int total = 0;
+      while (total < len && ensureData()) {
+         int n = Math.min(len - total, currentChunk.getSize() - bytesRead);
+         System.arraycopy(currentChunk.getData(), bytesRead, b, off + total, n);
+         bytesRead = bytesRead + n;
+         total = total + n;
+      }
+      return total == 0 ? -1 : total;
+   }
+
+   @Override
+   public long skip(long n) throws IOException {
+      long skipped = 0;
+      while (skipped < n && ensureData()) {
+         int step = (int) Math.min(n - skipped, currentChunk.getSize() - bytesRead);
+         bytesRead = bytesRead + step;
+         skipped = skipped + step;
+      }
+      return skipped;
+   }
+
+   @Override
+   public int available() {
+      return currentChunk == null ? 0 : currentChunk.getSize() - bytesRead;
+   }
+
+   /**
+    * Writes the remaining content of the stream to the given output stream, handing it every chunk slice
+    * directly instead of copying through an intermediate buffer.
+    *
+    * @param out the destination of the data
+    * @return the number of bytes transferred
+    */
+   public long copyTo(OutputStream out) throws IOException {
+      checkNotNull(out, "out");
+      long transferred = 0;
+      while (ensureData()) {
+         int n = currentChunk.getSize() - bytesRead;
+         out.write(currentChunk.getData(), bytesRead, n);
+         bytesRead = bytesRead + n;
+         transferred = transferred + n;
+      }
+      return transferred;
+   }
+
+   @Override
+   public void close() throws IOException {
+      for (Future<ChunkEntity> future : prefetched) {
+         future.cancel(true);
+      }
+      prefetched.clear();
+      nextChunk = chunks.size();
+      currentChunk = null;
+   }
+
+   /**
+    * Makes sure there are unread bytes in the current chunk, moving to the next chunk if needed.
+    *
+    * @return false if the end of the stream has been reached
+    */
+   private boolean ensureData() throws IOException {
+      while (currentChunk != null && bytesRead >= currentChunk.getSize()) {
+         readNextChunk();
+      }
+      return currentChunk != null;
    }
 
    private void readNextChunk() throws IOException {
-      if (chunks.size() > 0) {
-         this.currentChunk = jdbcService.findChunkById(chunks.get(0));
-         if (currentChunk == null) {
-            throw new IOException("Could not find chunk.");
-         }
-         chunks.remove(0);
+      ChunkEntity chunk;
+      if (!prefetched.isEmpty()) {
+         chunk = await(prefetched.poll());
+      } else if (nextChunk < chunks.size()) {
+         chunk = jdbcService.findChunkById(chunks.get(nextChunk++));
+      } else {
+         this.currentChunk = null;
          this.bytesRead = 0;
+         return;
+      }
+      if (chunk == null) {
+         throw new IOException("Could not find chunk.");
+      }
+      this.currentChunk = chunk;
+      this.bytesRead = 0;
+      prefetch();
+   }
+
+   private void prefetch() {
+      while (prefetched.size() < readAhead && nextChunk < chunks.size()) {
+         final Long id = chunks.get(nextChunk++);
+         prefetched.add(executor.submit(new Callable<ChunkEntity>() {
+            @Override
+            public ChunkEntity call() {
+               return jdbcService.findChunkById(id);
+            }
+         }));
+      }
+   }
+
+   private static ChunkEntity await(Future<ChunkEntity> future) throws IOException {
+      try {
+         return future.get();
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new InterruptedIOException("Interrupted while waiting for chunk");
+      } catch (ExecutionException e) {
+         throw new IOException("Could not read chunk", e.getCause());
       }
    }
 
@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc;
+
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteSource;
+import org.jclouds.jdbc.util.ChunkedPayloadReader;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.jclouds.utils.TestUtils.randomByteSource;
+
+@Test(groups = "unit", testName = "ChunkedPayloadReaderTest")
+public class ChunkedPayloadReaderTest {
+
+   private ExecutorService executor;
+
+   @BeforeMethod
+   public void setUp() {
+      executor = Executors.newSingleThreadExecutor();
+   }
+
+   @AfterMethod
+   public void tearDown() {
+      executor.shutdownNow();
+   }
+
+   @Test
+   public void testReadChunksAndHash() throws IOException {
+      ByteSource source = randomByteSource().slice(0, 10 * 1024 + 7);
+      ChunkedPayloadReader reader = new ChunkedPayloadReader(source.openStream(), Hashing.md5(), 1024, 2, executor);
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      int chunks = 0;
+      ChunkedPayloadReader.Chunk chunk;
+      while ((chunk = reader.next()) != null) {
+         out.write(chunk.getData(), 0, chunk.getSize());
+         reader.release(chunk);
+         chunks++;
+      }
+      reader.close();
+      assertThat(chunks).isEqualTo(11);
+      assertThat(out.toByteArray()).isEqualTo(source.read());
+      assertThat(reader.hash()).isEqualTo(source.hash(Hashing.md5()));
+   }
+
+   @Test
+   public void testEmptyPayload() throws IOException {
+      ChunkedPayloadReader reader = new ChunkedPayloadReader(ByteSource.empty().openStream(), Hashing.md5(), 1024, 2,
+            executor);
+      assertThat(reader.next()).isNull();
+      assertThat(reader.hash()).isEqualTo(Hashing.md5().hashBytes(new byte[0]));
+   }
+
+   @Test
+   public void testBuffersAreBounded() throws Exception {
+      ByteSource source = randomByteSource().slice(0, 8 * 1024);
+      ChunkedPayloadReader reader = new ChunkedPayloadReader(source.openStream(), Hashing.md5(), 1024, 2, executor);
+      ChunkedPayloadReader.Chunk first = reader.next();
+      ChunkedPayloadReader.Chunk second = reader.next();
+      assertThat(first.getData()).isNotSameAs(second.getData());
+      // No buffer has been released, so the reader cannot have produced a third chunk
+      TimeUnit.MILLISECONDS.sleep(100);
+      reader.release(first);
+      ChunkedPayloadReader.Chunk third = reader.next();
+      assertThat(third.getData()).isSameAs(first.getData());
+      reader.close();
+   }
+
+   @Test
+   public void testBuffersAreSizedByExpectedSize() throws IOException {
+      ByteSource source = randomByteSource().slice(0, 100);
+      ChunkedPayloadReader reader = new ChunkedPayloadReader(source.openStream(), Hashing.md5(), 1024, 4, 100,
+            executor, Long.MAX_VALUE);
+      ChunkedPayloadReader.Chunk chunk = reader.next();
+      assertThat(chunk.getSize()).isEqualTo(100);
+      assertThat(chunk.getData().length).isLessThan(1024);
+      assertThat(reader.next()).isNull();
+      assertThat(reader.hash()).isEqualTo(source.hash(Hashing.md5()));
+   }
+
+   @Test
+   public void testInputLongerThanExpected() throws IOException {
+      ByteSource source = randomByteSource().slice(0, 2 * 1024 + 7);
+      ChunkedPayloadReader reader = new ChunkedPayloadReader(source.openStream(), Hashing.md5(), 1024, 4, 100,
+            executor, Long.MAX_VALUE);
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      ChunkedPayloadReader.Chunk chunk;
+      while ((chunk = reader.next()) != null) {
+         // the chunk boundaries do not depend on the expected size
+         assertThat(chunk.getSize()).isEqualTo(out.size() < 2 * 1024 ? 1024 : 7);
+         out.write(chunk.getData(), 0, chunk.getSize());
+         reader.release(chunk);
+      }
+      assertThat(out.toByteArray()).isEqualTo(source.read());
+      assertThat(reader.size()).isEqualTo(source.size());
+   }
+
+   @Test(expectedExceptions = IOException.class)
+   public void testReadFailure() throws IOException {
+      InputStream failing = new InputStream() {
+         @Override
+         public int read() throws IOException {
+            throw new IOException("boom");
+         }
+      };
+      ChunkedPayloadReader reader = new ChunkedPayloadReader(failing, Hashing.md5(), 1024, 2, executor);
+      reader.next();
+   }
+
+   @Test(expectedExceptions = IOException.class, timeOut = 10000)
+   public void testReadTimeout() throws Exception {
+      final CountDownLatch done = new CountDownLatch(1);
+      // occupy the only thread of the executor, as the caller would on a bounded pool it runs on itself
+      executor.submit(new Callable<Void>() {
+         @Override
+         public Void call() throws InterruptedException {
+            done.await();
+            return null;
+         }
+      });
+      ChunkedPayloadReader reader = new ChunkedPayloadReader(randomByteSource().slice(0, 1024).openStream(),
+            Hashing.md5(), 1024, 2, executor, 100);
+      try {
+         reader.next();
+      } finally {
+         done.countDown();
+      }
+   }
+
+}
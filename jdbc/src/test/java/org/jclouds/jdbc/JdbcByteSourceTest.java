@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.ByteSource;
+import org.jclouds.jdbc.entity.ChunkEntity;
+import org.jclouds.jdbc.service.JdbcService;
+import org.jclouds.jdbc.util.JdbcByteSource;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+
+@Test(groups = "unit", testName = "JdbcByteSourceTest")
+public class JdbcByteSourceTest {
+
+   private static final List<Long> CHUNKS = ImmutableList.of(1L, 2L, 3L);
+
+   private JdbcService mockJdbcService;
+
+   @BeforeMethod
+   public void setUp() {
+      mockJdbcService = createMock(JdbcService.class);
+   }
+
+   @Test
+   public void testFullReadDoesNotLoadOffsets() throws IOException {
+      expect(mockJdbcService.findChunkById(1L)).andReturn(new ChunkEntity("abc".getBytes(), 3));
+      expect(mockJdbcService.findChunkById(2L)).andReturn(new ChunkEntity("def".getBytes(), 3));
+      expect(mockJdbcService.findChunkById(3L)).andReturn(new ChunkEntity("g".getBytes(), 1));
+      replay(mockJdbcService);
+
+      ByteSource source = new JdbcByteSource(mockJdbcService, CHUNKS, 7L, null, 0);
+      assertThat(source.size()).isEqualTo(7);
+      assertThat(new String(source.read())).isEqualTo("abcdefg");
+      verify(mockJdbcService);
+   }
+
+   @Test
+   public void testSliceWithinAndAcrossChunks() throws IOException {
+      expectOffsets();
+      expect(mockJdbcService.readChunkRange(1L, 1, 1)).andReturn("b".getBytes());
+      expect(mockJdbcService.readChunkRange(1L, 2, 1)).andReturn("c".getBytes());
+      expect(mockJdbcService.readChunkRange(2L, 0, 2)).andReturn("de".getBytes());
+      replay(mockJdbcService);
+
+      ByteSource source = new JdbcByteSource(mockJdbcService, CHUNKS, 7L, null, 0);
+      assertThat(new String(source.slice(1, 1).read())).isEqualTo("b");
+      assertThat(new String(source.slice(2, 3).read())).isEqualTo("cde");
+      verify(mockJdbcService);
+   }
+
+   @Test
+   public void testSliceStreamsWholeChunks() throws IOException {
+      expectOffsets();
+      expect(mockJdbcService.readChunkRange(1L, 2, 1)).andReturn("c".getBytes());
+      expect(mockJdbcService.findChunkById(2L)).andReturn(new ChunkEntity("def".getBytes(), 3));
+      expect(mockJdbcService.findChunkById(3L)).andReturn(new ChunkEntity("g".getBytes(), 1));
+      replay(mockJdbcService);
+
+      ByteSource source = new JdbcByteSource(mockJdbcService, CHUNKS, 7L, null, 0);
+      assertThat(new String(source.slice(2, 100).read())).isEqualTo("cdefg");
+      verify(mockJdbcService);
+   }
+
+   @Test
+   public void testEmptyAndNestedSlices() throws IOException {
+      expectOffsets();
+      expect(mockJdbcService.readChunkRange(2L, 1, 1)).andReturn("e".getBytes());
+      replay(mockJdbcService);
+
+      ByteSource source = new JdbcByteSource(mockJdbcService, CHUNKS, 7L, null, 0);
+      assertThat(source.slice(3, 0).read()).isEmpty();
+      assertThat(source.slice(10, 5).read()).isEmpty();
+      ByteSource nested = source.slice(3, 3).slice(1, 1);
+      assertThat(nested.size()).isEqualTo(1);
+      assertThat(new String(nested.read())).isEqualTo("e");
+      verify(mockJdbcService);
+   }
+
+   @Test
+   public void testRepeatedChunk() throws IOException {
+      expect(mockJdbcService.findChunkSizes(ImmutableList.of(1L, 1L))).andReturn(ImmutableMap.of(1L, 3)).once();
+      expect(mockJdbcService.readChunkRange(1L, 1, 2)).andReturn("bc".getBytes());
+      expect(mockJdbcService.readChunkRange(1L, 0, 1)).andReturn("a".getBytes());
+      replay(mockJdbcService);
+
+      ByteSource source = new JdbcByteSource(mockJdbcService, ImmutableList.of(1L, 1L), 6L, null, 0);
+      assertThat(new String(source.slice(4, 2).read())).isEqualTo("bc");
+      assertThat(new String(source.slice(3, 1).read())).isEqualTo("a");
+      verify(mockJdbcService);
+   }
+
+   @Test
+   public void testUnknownSizeIsComputedFromChunks() throws IOException {
+      expectOffsets();
+      replay(mockJdbcService);
+
+      assertThat(new JdbcByteSource(mockJdbcService, CHUNKS, null, null, 0).size()).isEqualTo(7);
+      verify(mockJdbcService);
+   }
+
+   private void expectOffsets() {
+      expect(mockJdbcService.findChunkSizes(CHUNKS)).andReturn(ImmutableMap.of(1L, 3, 2L, 3, 3L, 1)).once();
+   }
+
+}
@@ -17,25 +17,40 @@
 package org.jclouds.jdbc;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteStreams;
+import org.jclouds.jdbc.entity.ChunkEntity;
 import org.jclouds.jdbc.service.JdbcService;
 import org.jclouds.jdbc.util.JdbcInputStream;
+import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.easymock.EasyMock.createNiceMock;
 import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
 
 @Test(groups = "unit", testName = "JdbcInputStreamTest")
 public class JdbcInputStreamTest {
 
    private JdbcService mockJdbcService;
+   private ExecutorService executor;
 
    @BeforeMethod
    public void setUp() {
       mockJdbcService = createNiceMock(JdbcService.class);
+      executor = Executors.newFixedThreadPool(2);
+   }
+
+   @AfterMethod
+   public void tearDown() {
+      executor.shutdownNow();
    }
 
    @Test(expectedExceptions = IllegalArgumentException.class)
@@ -56,4 +71,65 @@ public class JdbcInputStreamTest {
       assertThat(jdbcInputStream.read()).isEqualTo(-1);
    }
 
+   @Test
+   public void testBulkReadAcrossChunks() throws IOException {
+      expectChunks();
+      JdbcInputStream jdbcInputStream = new JdbcInputStream(mockJdbcService, ImmutableList.of(1L, 2L, 3L));
+      byte[] buffer = new byte[8];
+      assertThat(ByteStreams.read(jdbcInputStream, buffer, 0, buffer.length)).isEqualTo(7);
+      assertThat(buffer).startsWith("abcdefg".getBytes());
+      assertThat(jdbcInputStream.read(buffer, 0, buffer.length)).isEqualTo(-1);
+      verify(mockJdbcService);
+   }
+
+   @Test
+   public void testMixedSingleAndBulkRead() throws IOException {
+      expectChunks();
+      JdbcInputStream jdbcInputStream = new JdbcInputStream(mockJdbcService, ImmutableList.of(1L, 2L, 3L));
+      assertThat(jdbcInputStream.read()).isEqualTo('a');
+      byte[] buffer = new byte[3];
+      assertThat(jdbcInputStream.read(buffer, 0, 3)).isEqualTo(3);
+      assertThat(buffer).isEqualTo("bcd".getBytes());
+      assertThat(jdbcInputStream.skip(2)).isEqualTo(2);
+      assertThat(jdbcInputStream.read()).isEqualTo('g');
+      assertThat(jdbcInputStream.read()).isEqualTo(-1);
+   }
+
+   @Test
+   public void testReadAhead() throws IOException {
+      expectChunks();
+      JdbcInputStream jdbcInputStream = new JdbcInputStream(mockJdbcService, ImmutableList.of(1L, 2L, 3L),
+            executor, 2);
+      assertThat(new String(ByteStreams.toByteArray(jdbcInputStream))).isEqualTo("abcdefg");
+      verify(mockJdbcService);
+   }
+
+   @Test
+   public void testCopyTo() throws IOException {
+      expectChunks();
+      JdbcInputStream jdbcInputStream = new JdbcInputStream(mockJdbcService, ImmutableList.of(1L, 2L, 3L),
+            executor, 1);
+      assertThat(jdbcInputStream.read()).isEqualTo('a');
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      assertThat(jdbcInputStream.copyTo(out)).isEqualTo(6);
+      assertThat(new String(out.toByteArray())).isEqualTo("bcdefg");
+   }
+
+   @Test(expectedExceptions = IOException.class)
+   public void testMissingPrefetchedChunk() throws IOException {
+      expect(mockJdbcService.findChunkById(1L)).andReturn(new ChunkEntity("ab".getBytes(), 2));
+      expect(mockJdbcService.findChunkById(2L)).andReturn(null);
+      replay(mockJdbcService);
+      JdbcInputStream jdbcInputStream = new JdbcInputStream(mockJdbcService, ImmutableList.of(1L, 2L),
+            executor, 1);
+      ByteStreams.toByteArray(jdbcInputStream);
+   }
+
+   private void expectChunks() {
+      expect(mockJdbcService.findChunkById(1L)).andReturn(new ChunkEntity("abc".getBytes(), 3));
+      expect(mockJdbcService.findChunkById(2L)).andReturn(new ChunkEntity("def".getBytes(), 3));
+      expect(mockJdbcService.findChunkById(3L)).andReturn(new ChunkEntity("g".getBytes(), 1));
+      replay(mockJdbcService);
+   }
+
 }
@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteStreams;
+import org.easymock.IAnswer;
+import org.jclouds.jdbc.entity.ChunkEntity;
+import org.jclouds.jdbc.reference.JdbcConstants;
+import org.jclouds.jdbc.service.JdbcService;
+import org.jclouds.jdbc.util.JdbcInputStream;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.String.format;
+import static java.util.logging.Logger.getAnonymousLogger;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.easymock.EasyMock.anyLong;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+
+/**
+ * Measures the throughput of {@link JdbcInputStream} against a {@link JdbcService} that simulates the latency of
+ * a database round trip per chunk. The performance group is excluded from the default build; run it with
+ * {@code mvn test -Pperformance}.
+ */
+@Test(groups = "performance", singleThreaded = true, testName = "JdbcInputStreamThroughputTest")
+public class JdbcInputStreamThroughputTest {
+
+   private static final int CHUNKS = 64;
+   private static final long LATENCY_MILLIS = 5;
+
+   private final List<Long> chunkIds;
+   private JdbcService mockJdbcService;
+   private ExecutorService executor;
+
+   public JdbcInputStreamThroughputTest() {
+      ImmutableList.Builder<Long> ids = ImmutableList.builder();
+      for (long i = 0; i < CHUNKS; i++) {
+         ids.add(i);
+      }
+      this.chunkIds = ids.build();
+   }
+
+   @BeforeClass
+   public void setUp() {
+      final byte[] data = new byte[JdbcConstants.DEFAULT_CHUNK_SIZE];
+      mockJdbcService = createMock(JdbcService.class);
+      expect(mockJdbcService.findChunkById(anyLong())).andAnswer(new IAnswer<ChunkEntity>() {
+         @Override
+         public ChunkEntity answer() throws Throwable {
+            TimeUnit.MILLISECONDS.sleep(LATENCY_MILLIS);
+            return new ChunkEntity(data, data.length);
+         }
+      }).anyTimes();
+      replay(mockJdbcService);
+      executor = Executors.newFixedThreadPool(4);
+   }
+
+   @AfterClass
+   public void tearDown() {
+      executor.shutdownNow();
+   }
+
+   public void testSingleByteRead() throws IOException {
+      InputStream in = new JdbcInputStream(mockJdbcService, chunkIds);
+      long start = System.nanoTime();
+      long bytes = 0;
+      while (in.read() != -1) {
+         bytes++;
+      }
+      report("single byte read", bytes, start);
+   }
+
+   public void testBulkRead() throws IOException {
+      InputStream in = new JdbcInputStream(mockJdbcService, chunkIds);
+      long start = System.nanoTime();
+      report("bulk read", ByteStreams.copy(in, ByteStreams.nullOutputStream()), start);
+   }
+
+   public void testBulkReadWithReadAhead() throws IOException {
+      InputStream in = new JdbcInputStream(mockJdbcService, chunkIds, executor, 4);
+      long start = System.nanoTime();
+      report("bulk read with read-ahead", ByteStreams.copy(in, ByteStreams.nullOutputStream()), start);
+   }
+
+   public void testCopyToWithReadAhead() throws IOException {
+      JdbcInputStream in = new JdbcInputStream(mockJdbcService, chunkIds, executor, 4);
+      long start = System.nanoTime();
+      report("copyTo with read-ahead", in.copyTo(ByteStreams.nullOutputStream()), start);
+   }
+
+   private static void report(String name, long bytes, long start) {
+      long elapsed = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+      assertThat(bytes).isEqualTo((long) CHUNKS * JdbcConstants.DEFAULT_CHUNK_SIZE);
+      getAnonymousLogger().info(format("%s: %d MiB in %d ms (%.1f MiB/s)", name, bytes >> 20, elapsed,
+            (bytes >> 20) * 1000.0 / elapsed));
+   }
+
+}
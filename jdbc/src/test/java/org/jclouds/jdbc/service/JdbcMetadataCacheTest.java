@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.service;
+
+import org.easymock.IAnswer;
+import org.jclouds.jdbc.entity.BlobEntity;
+import org.jclouds.jdbc.entity.ContainerEntity;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+
+@Test(groups = "unit", testName = "JdbcMetadataCacheTest")
+public class JdbcMetadataCacheTest {
+
+   private static final String CONTAINER_NAME = "container";
+
+   private JdbcService mockJdbcService;
+
+   @BeforeMethod
+   public void setUp() {
+      mockJdbcService = createMock(JdbcService.class);
+   }
+
+   public void testContainerLookupIsCached() {
+      ContainerEntity containerEntity = ContainerEntity.builder().name(CONTAINER_NAME).build();
+      expect(mockJdbcService.findContainerByName(CONTAINER_NAME)).andReturn(containerEntity).once();
+      replay(mockJdbcService);
+
+      JdbcMetadataCache cache = new JdbcMetadataCache(mockJdbcService, 10, 60);
+      assertThat(cache.findContainerByName(CONTAINER_NAME)).isSameAs(containerEntity);
+      assertThat(cache.findContainerByName(CONTAINER_NAME)).isSameAs(containerEntity);
+      assertThat(cache.containerStats().hitCount()).isEqualTo(1);
+      assertThat(cache.containerStats().missCount()).isEqualTo(1);
+      verify(mockJdbcService);
+   }
+
+   public void testMissingBlobIsCachedUntilInvalidated() {
+      BlobEntity blobEntity = BlobEntity.builder(null, null).build();
+      expect(mockJdbcService.findBlobById(CONTAINER_NAME, "key")).andReturn(null).once();
+      expect(mockJdbcService.findBlobById(CONTAINER_NAME, "key")).andReturn(blobEntity).once();
+      replay(mockJdbcService);
+
+      JdbcMetadataCache cache = new JdbcMetadataCache(mockJdbcService, 10, 60);
+      assertThat(cache.findBlobById(CONTAINER_NAME, "key")).isNull();
+      assertThat(cache.findBlobById(CONTAINER_NAME, "key")).isNull();
+      cache.invalidateBlob(CONTAINER_NAME, "key");
+      assertThat(cache.findBlobById(CONTAINER_NAME, "key")).isSameAs(blobEntity);
+      assertThat(cache.findBlobById(CONTAINER_NAME, "key")).isSameAs(blobEntity);
+      verify(mockJdbcService);
+   }
+
+   public void testInvalidateBlobsByPrefix() {
+      expect(mockJdbcService.findBlobById(CONTAINER_NAME, "dir/a")).andReturn(null).times(2);
+      expect(mockJdbcService.findBlobById(CONTAINER_NAME, "other")).andReturn(null).once();
+      expect(mockJdbcService.findBlobById("other-container", "dir/a")).andReturn(null).once();
+      replay(mockJdbcService);
+
+      JdbcMetadataCache cache = new JdbcMetadataCache(mockJdbcService, 10, 60);
+      cache.findBlobById(CONTAINER_NAME, "dir/a");
+      cache.findBlobById(CONTAINER_NAME, "other");
+      cache.findBlobById("other-container", "dir/a");
+      cache.invalidateBlobs(CONTAINER_NAME, "dir/");
+      cache.findBlobById(CONTAINER_NAME, "dir/a");
+      cache.findBlobById(CONTAINER_NAME, "other");
+      cache.findBlobById("other-container", "dir/a");
+      verify(mockJdbcService);
+   }
+
+   public void testLookupRacingWithInvalidationIsNotCached() {
+      final JdbcMetadataCache cache = new JdbcMetadataCache(mockJdbcService, 10, 60);
+      expect(mockJdbcService.findContainerByName(CONTAINER_NAME)).andAnswer(new IAnswer<ContainerEntity>() {
+         @Override
+         public ContainerEntity answer() {
+            // a write commits and invalidates while the lookup is in flight
+            cache.invalidateContainer(CONTAINER_NAME);
+            return null;
+         }
+      }).once();
+      expect(mockJdbcService.findContainerByName(CONTAINER_NAME)).andReturn(null).once();
+      replay(mockJdbcService);
+
+      cache.findContainerByName(CONTAINER_NAME);
+      cache.findContainerByName(CONTAINER_NAME);
+      assertThat(cache.containerStats().missCount()).isEqualTo(2);
+      verify(mockJdbcService);
+   }
+
+   public void testZeroSizeDisablesCaching() {
+      expect(mockJdbcService.findContainerByName(CONTAINER_NAME)).andReturn(null).times(2);
+      replay(mockJdbcService);
+
+      JdbcMetadataCache cache = new JdbcMetadataCache(mockJdbcService, 0, 60);
+      cache.findContainerByName(CONTAINER_NAME);
+      cache.findContainerByName(CONTAINER_NAME);
+      verify(mockJdbcService);
+   }
+
+}
@@ -0,0 +1,48 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.jdbc.service;
+
+import org.testng.annotations.Test;
+
+import javax.persistence.PersistenceException;
+import java.sql.SQLException;
+import java.sql.SQLSyntaxErrorException;
+import java.sql.SQLTransientConnectionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Test(groups = "unit", testName = "JdbcServiceTest")
+public class JdbcServiceTest {
+
+   public void testRejectedStatement() {
+      assertThat(JdbcService.isRejectedStatement(new PersistenceException(
+            new SQLSyntaxErrorException("unexpected token: FROM")))).isTrue();
+      assertThat(JdbcService.isRejectedStatement(new PersistenceException(
+            new SQLException("function substring(oid, integer, integer) does not exist", "42883")))).isTrue();
+      assertThat(JdbcService.isRejectedStatement(new PersistenceException(
+            new SQLException("feature not supported", "0A000")))).isTrue();
+   }
+
+   public void testTransientFailureIsNotRejectedStatement() {
+      assertThat(JdbcService.isRejectedStatement(new PersistenceException(
+            new SQLException("lock timeout", "40001")))).isFalse();
+      assertThat(JdbcService.isRejectedStatement(new PersistenceException(
+            new SQLTransientConnectionException("connection lost", "08006")))).isFalse();
+      assertThat(JdbcService.isRejectedStatement(new PersistenceException("no SQL cause"))).isFalse();
+   }
+
+}
@@ -16,20 +16,36 @@
  */
 package org.jclouds.jdbc.strategy;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.io.ByteSource;
+import com.google.common.io.ByteStreams;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
 import com.google.inject.Module;
 import com.google.inject.persist.PersistService;
 import com.google.inject.persist.jpa.JpaPersistModule;
+import org.jclouds.Constants;
 import org.jclouds.blobstore.domain.Blob;
 import org.jclouds.blobstore.domain.BlobAccess;
 import org.jclouds.blobstore.domain.ContainerAccess;
+import org.jclouds.blobstore.domain.MultipartPart;
+import org.jclouds.blobstore.domain.MultipartUpload;
+import org.jclouds.blobstore.domain.PageSet;
 import org.jclouds.blobstore.domain.StorageMetadata;
 import org.jclouds.blobstore.domain.StorageType;
 import org.jclouds.blobstore.domain.internal.BlobBuilderImpl;
 import org.jclouds.blobstore.options.CreateContainerOptions;
+import org.jclouds.blobstore.options.ListContainerOptions;
+import org.jclouds.blobstore.options.PutOptions;
+import org.jclouds.io.payloads.ByteSourcePayload;
+import org.jclouds.jdbc.entity.PayloadEntity;
 import org.jclouds.jdbc.module.TestContextModule;
+import org.jclouds.jdbc.reference.JdbcConstants;
+import org.jclouds.jdbc.service.JdbcMetadataCache;
+import org.jclouds.jdbc.service.JdbcService;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
@@ -38,6 +54,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
+import java.util.Properties;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.jclouds.utils.TestUtils.randomByteSource;
@@ -58,7 +76,12 @@ public abstract class BaseJdbcStorageStrategyTest {
 
    @BeforeMethod
    protected void setUp() throws Exception {
-      injector = Guice.createInjector(ImmutableSet.<Module> of(new TestContextModule(), new JpaPersistModule(jpaModuleName)));
+      createInjector(new Properties());
+   }
+
+   private void createInjector(Properties overrides) {
+      injector = Guice.createInjector(ImmutableSet.<Module> of(new TestContextModule(overrides),
+            new JpaPersistModule(jpaModuleName)));
       storageStrategy = injector.getInstance(JdbcStorageStrategy.class);
    }
 
@@ -152,6 +175,45 @@ public abstract class BaseJdbcStorageStrategyTest {
             .containsExactly(BLOB_NAME + "1", BLOB_NAME + "2", BLOB_NAME + "3");
    }
 
+   @Test
+   public void testListWithMarkerAndMaxResults() throws IOException {
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      for (String key : new String[] { "a", "b", "c", "d", "e" }) {
+         storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(key).payload(key).build());
+      }
+      PageSet<? extends StorageMetadata> page = storageStrategy.list(CONTAINER_NAME,
+            ListContainerOptions.Builder.maxResults(2));
+      assertThat(names(page)).containsExactly("a", "b");
+      assertThat(page.getNextMarker()).isEqualTo("b");
+
+      page = storageStrategy.list(CONTAINER_NAME, ListContainerOptions.Builder.afterMarker("b").maxResults(3));
+      assertThat(names(page)).containsExactly("c", "d", "e");
+      assertThat(page.getNextMarker()).isNull();
+      assertThat(page.iterator().next().getType()).isEqualTo(StorageType.BLOB);
+      assertThat(page.iterator().next().getSize()).isEqualTo(1L);
+   }
+
+   @Test
+   public void testListDirectory() throws IOException {
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      for (String key : new String[] { "dir/a", "dir/sub/b", "dir/sub/c", "dir/x/d", "dir/z", "dir_1", "other" }) {
+         storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(key).payload(key).build());
+      }
+      PageSet<? extends StorageMetadata> page = storageStrategy.list(CONTAINER_NAME,
+            ListContainerOptions.Builder.inDirectory("dir"));
+      assertThat(names(page)).containsExactly("dir/a", "dir/sub/", "dir/x/", "dir/z");
+      assertThat(Iterables.get(page, 1).getType()).isEqualTo(StorageType.RELATIVE_PATH);
+
+      page = storageStrategy.list(CONTAINER_NAME, ListContainerOptions.Builder.inDirectory("dir").maxResults(2));
+      assertThat(names(page)).containsExactly("dir/a", "dir/sub/");
+      page = storageStrategy.list(CONTAINER_NAME,
+            ListContainerOptions.Builder.inDirectory("dir").afterMarker(page.getNextMarker()));
+      assertThat(names(page)).containsExactly("dir/x/", "dir/z");
+
+      page = storageStrategy.list(CONTAINER_NAME, ListContainerOptions.Builder.inDirectory("dir").recursive());
+      assertThat(names(page)).containsExactly("dir/a", "dir/sub/b", "dir/sub/c", "dir/x/d", "dir/z");
+   }
+
     @Test
     public void testGetBlob() throws IOException {
         assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
@@ -167,6 +229,79 @@ public abstract class BaseJdbcStorageStrategyTest {
         }
     }
 
+   @Test
+   public void testGetSmallBlob() throws IOException {
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      byte[] content = getByteArray('b', 200);
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(BLOB_NAME).payload(content).build());
+      Blob blob = storageStrategy.getBlob(CONTAINER_NAME, BLOB_NAME);
+      assertThat(ByteStreams.toByteArray(blob.getPayload().openStream())).isEqualTo(content);
+      assertThat(blob.getMetadata().getSize()).isEqualTo(200L);
+   }
+
+   @Test
+   public void testSmallBlobIsStoredInline() throws IOException {
+      JdbcService jdbcService = injector.getInstance(JdbcService.class);
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      byte[] content = getByteArray('b', 200);
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(BLOB_NAME).payload(content).build());
+      PayloadEntity payload = jdbcService.findBlobById(CONTAINER_NAME, BLOB_NAME).getPayload();
+      assertThat(payload.getInlineData()).isEqualTo(content);
+      assertThat(payload.getChunks()).isEmpty();
+   }
+
+   @Test
+   public void testConfiguredChunkSize() throws IOException {
+      injector.getInstance(PersistService.class).stop();
+      Properties overrides = new Properties();
+      overrides.setProperty(JdbcConstants.PROPERTY_CHUNK_SIZE, String.valueOf(64 * 1024));
+      createInjector(overrides);
+      JdbcService jdbcService = injector.getInstance(JdbcService.class);
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      ByteSource content = randomByteSource().slice(0, 256 * 1024 + 1);
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(BLOB_NAME).payload(content).build());
+      PayloadEntity payload = jdbcService.findBlobById(CONTAINER_NAME, BLOB_NAME).getPayload();
+      assertThat(payload.getInlineData()).isNull();
+      assertThat(payload.getChunks()).hasSize(5);
+      assertThat(storageStrategy.getBlob(CONTAINER_NAME, BLOB_NAME).getPayload().openStream())
+            .hasSameContentAs(content.openStream());
+   }
+
+   @Test
+   public void testGetBlobSpanningChunks() throws IOException {
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      ByteSource content = randomByteSource().slice(0, 2 * 1024 * 1024 + 3);
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(BLOB_NAME).payload(content).build());
+      Blob blob = storageStrategy.getBlob(CONTAINER_NAME, BLOB_NAME);
+      assertThat(ByteStreams.toByteArray(blob.getPayload().openStream())).isEqualTo(content.read());
+   }
+
+   @Test
+   public void testPutBlobWithoutContentLength() throws IOException {
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      ByteSource content = randomByteSource().slice(0, 1024 * 1024 + 3);
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(BLOB_NAME)
+            .payload(content.openStream()).build());
+      Blob blob = storageStrategy.getBlob(CONTAINER_NAME, BLOB_NAME);
+      assertThat(blob.getMetadata().getSize()).isEqualTo(content.size());
+      assertThat(blob.getMetadata().getContentMetadata().getContentLength()).isEqualTo(content.size());
+   }
+
+   @Test
+   public void testGetBlobRanges() throws IOException {
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      ByteSource content = randomByteSource().slice(0, 3 * 1024 * 1024 + 3);
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(BLOB_NAME).payload(content).build());
+      ByteSource source = (ByteSource) storageStrategy.getBlob(CONTAINER_NAME, BLOB_NAME).getPayload()
+            .getRawContent();
+      assertThat(source.size()).isEqualTo(content.size());
+      assertThat(source.slice(1024 * 1024 - 10, 20).read()).isEqualTo(content.slice(1024 * 1024 - 10, 20).read());
+      assertThat(source.slice(1024 * 1024 - 10, 2 * 1024 * 1024).read())
+            .isEqualTo(content.slice(1024 * 1024 - 10, 2 * 1024 * 1024).read());
+      assertThat(source.slice(content.size() - 100, 100).read())
+            .isEqualTo(content.slice(content.size() - 100, 100).read());
+   }
+
    @Test
    public void testRemoveBlob() throws IOException {
       assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
@@ -203,6 +338,240 @@ public abstract class BaseJdbcStorageStrategyTest {
       assertThat(storageStrategy.containerExists(CONTAINER_NAME)).isFalse();
    }
 
+   private static List<String> names(PageSet<? extends StorageMetadata> page) {
+      ImmutableList.Builder<String> names = ImmutableList.builder();
+      for (StorageMetadata metadata : page) {
+         names.add(metadata.getName());
+      }
+      return names.build();
+   }
+
+   @Test
+   public void testClearContainerDirectory() throws IOException {
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      storageStrategy.createDirectory(CONTAINER_NAME, "dir");
+      for (String key : new String[] { "dir/a", "dir/sub/b", "dirt", "other" }) {
+         storageStrategy.putBlob(CONTAINER_NAME,
+               new BlobBuilderImpl().name(key).payload(randomByteSource().slice(0, 2 * 1024 * 1024)).build());
+      }
+      storageStrategy.clearContainer(CONTAINER_NAME, ListContainerOptions.Builder.inDirectory("dir").recursive());
+      assertThat(storageStrategy.getBlobKeysInsideContainer(CONTAINER_NAME)).containsExactly("dir", "dirt", "other");
+   }
+
+   @Test
+   public void testDeleteDirectoryChildren() throws IOException {
+      injector.getInstance(PersistService.class).stop();
+      Properties overrides = new Properties();
+      overrides.setProperty(JdbcConstants.PROPERTY_DELETE_BATCH_SIZE, "2");
+      createInjector(overrides);
+      JdbcService jdbcService = injector.getInstance(JdbcService.class);
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      storageStrategy.createDirectory(CONTAINER_NAME, "dir");
+      storageStrategy.createDirectory(CONTAINER_NAME, "dir/sub");
+      for (String key : new String[] { "dir/a", "dir/b", "dir/c", "dir/sub/d", "dirt" }) {
+         storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(key).payload(
+               randomByteSource().slice(0, 8 * 1024)).userMetadata(ImmutableMap.of("key", key)).build());
+      }
+      List<Long> chunks = jdbcService.findBlobById(CONTAINER_NAME, "dir/c").getPayload().getChunks();
+      assertThat(chunks).isNotEmpty();
+
+      jdbcService.deleteBlobsByDirectory(CONTAINER_NAME, "dir", false);
+      assertThat(storageStrategy.getBlobKeysInsideContainer(CONTAINER_NAME))
+            .containsExactly("dir", "dir/sub", "dir/sub/d", "dirt");
+      assertThat(jdbcService.findChunkById(chunks.get(0))).isNull();
+      assertThat(jdbcService.findBlobById(CONTAINER_NAME, "dir/sub/d").getUserMetadata())
+            .containsEntry("key", "dir/sub/d");
+   }
+
+   @Test
+   public void testCountBlobs() throws IOException {
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      storageStrategy.createDirectory(CONTAINER_NAME, "dir");
+      for (String key : new String[] { "dir/a", "dir/b", "dir/sub/c", "dir_x", "other" }) {
+         storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(key).payload(key).build());
+      }
+      assertThat(storageStrategy.countBlobs(CONTAINER_NAME, ListContainerOptions.NONE)).isEqualTo(6);
+      assertThat(storageStrategy.countBlobs(CONTAINER_NAME, ListContainerOptions.Builder.inDirectory("dir")))
+            .isEqualTo(2);
+      assertThat(storageStrategy.countBlobs(CONTAINER_NAME,
+            ListContainerOptions.Builder.inDirectory("dir").recursive())).isEqualTo(3);
+      assertThat(storageStrategy.countBlobs(CONTAINER_NAME, ListContainerOptions.Builder.inDirectory("")))
+            .isEqualTo(3);
+      assertThat(storageStrategy.countBlobs("missing", ListContainerOptions.NONE)).isEqualTo(0);
+   }
+
+   @Test
+   public void testOverwriteReleasesChunks() throws IOException {
+      JdbcService jdbcService = injector.getInstance(JdbcService.class);
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      storageStrategy.putBlob(CONTAINER_NAME,
+            new BlobBuilderImpl().name(BLOB_NAME).payload(randomByteSource().slice(0, 2 * 1024 * 1024)).build());
+      List<Long> oldChunks = jdbcService.findBlobById(CONTAINER_NAME, BLOB_NAME).getPayload().getChunks();
+      assertThat(oldChunks).hasSize(2);
+
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(BLOB_NAME).payload("small").build());
+      for (Long chunkId : oldChunks) {
+         assertThat(jdbcService.findChunkById(chunkId)).isNull();
+      }
+      assertThat(storageStrategy.getBlob(CONTAINER_NAME, BLOB_NAME).getPayload().openStream())
+            .hasSameContentAs(ByteSource.wrap("small".getBytes()).openStream());
+   }
+
+   @Test
+   public void testChunkDeduplication() throws IOException {
+      injector.getInstance(PersistService.class).stop();
+      Properties overrides = new Properties();
+      overrides.setProperty(JdbcConstants.PROPERTY_CHUNK_DEDUPLICATION, "true");
+      createInjector(overrides);
+      JdbcService jdbcService = injector.getInstance(JdbcService.class);
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+
+      byte[] repeated = getByteArray('a', 3 * JdbcConstants.DEFAULT_CHUNK_SIZE);
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name("first").payload(repeated).build());
+      List<Long> chunks = jdbcService.findBlobById(CONTAINER_NAME, "first").getPayload().getChunks();
+      assertThat(ImmutableSet.copyOf(chunks)).hasSize(1);
+      Long chunkId = chunks.get(0);
+      assertThat(jdbcService.findChunkById(chunkId).getRefCount()).isEqualTo(3);
+
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name("second").payload(repeated).build());
+      assertThat(jdbcService.findBlobById(CONTAINER_NAME, "second").getPayload().getChunks())
+            .containsExactly(chunkId, chunkId, chunkId);
+      assertThat(jdbcService.findChunkById(chunkId).getRefCount()).isEqualTo(6);
+
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name("first").payload(repeated).build());
+      assertThat(jdbcService.findChunkById(chunkId).getRefCount()).isEqualTo(6);
+
+      storageStrategy.removeBlob(CONTAINER_NAME, "first");
+      assertThat(jdbcService.findChunkById(chunkId).getRefCount()).isEqualTo(3);
+      assertThat(storageStrategy.getBlob(CONTAINER_NAME, "second").getPayload().openStream())
+            .hasSameContentAs(ByteSource.wrap(repeated).openStream());
+
+      storageStrategy.removeBlob(CONTAINER_NAME, "second");
+      assertThat(jdbcService.findChunkById(chunkId)).isNull();
+   }
+
+   @Test
+   public void testMetadataCacheFollowsWrites() throws IOException {
+      JdbcMetadataCache metadataCache = injector.getInstance(JdbcMetadataCache.class);
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      assertThat(storageStrategy.blobExists(CONTAINER_NAME, BLOB_NAME)).isFalse();
+
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(BLOB_NAME).payload("first").build());
+      assertThat(storageStrategy.blobExists(CONTAINER_NAME, BLOB_NAME)).isTrue();
+      long hits = metadataCache.blobStats().hitCount();
+      assertThat(storageStrategy.getBlob(CONTAINER_NAME, BLOB_NAME).getMetadata().getSize()).isEqualTo(5);
+      assertThat(metadataCache.blobStats().hitCount()).isEqualTo(hits + 1);
+
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(BLOB_NAME).payload("second").build());
+      assertThat(storageStrategy.getBlob(CONTAINER_NAME, BLOB_NAME).getMetadata().getSize()).isEqualTo(6);
+      storageStrategy.setBlobAccess(CONTAINER_NAME, BLOB_NAME, BlobAccess.PUBLIC_READ);
+      assertThat(storageStrategy.getBlobAccess(CONTAINER_NAME, BLOB_NAME)).isEqualTo(BlobAccess.PUBLIC_READ);
+
+      storageStrategy.removeBlob(CONTAINER_NAME, BLOB_NAME);
+      assertThat(storageStrategy.blobExists(CONTAINER_NAME, BLOB_NAME)).isFalse();
+      storageStrategy.deleteContainer(CONTAINER_NAME);
+      assertThat(storageStrategy.containerExists(CONTAINER_NAME)).isFalse();
+   }
+
+   @Test
+   public void testMultipartUpload() throws IOException {
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      MultipartUpload mpu = storageStrategy.initiateMultipartUpload(CONTAINER_NAME,
+            new BlobBuilderImpl().name(BLOB_NAME).userMetadata(ImmutableMap.of("key", "value")).build()
+                  .getMetadata(), PutOptions.NONE);
+      assertThat(storageStrategy.listMultipartUploads(CONTAINER_NAME)).hasSize(1);
+
+      ByteSource first = randomByteSource().slice(0, JdbcConstants.DEFAULT_CHUNK_SIZE + 1);
+      ByteSource second = ByteSource.wrap("second".getBytes());
+      storageStrategy.uploadMultipartPart(mpu, 2, new ByteSourcePayload(second));
+      storageStrategy.uploadMultipartPart(mpu, 1, new ByteSourcePayload(ByteSource.wrap("replaced".getBytes())));
+      storageStrategy.uploadMultipartPart(mpu, 1, new ByteSourcePayload(first));
+      List<MultipartPart> parts = storageStrategy.listMultipartUpload(mpu);
+      assertThat(parts).hasSize(2);
+      assertThat(parts.get(0).partNumber()).isEqualTo(1);
+      assertThat(parts.get(0).partSize()).isEqualTo(first.size());
+      assertThat(parts.get(1).partNumber()).isEqualTo(2);
+      assertThat(storageStrategy.blobExists(CONTAINER_NAME, BLOB_NAME)).isFalse();
+
+      String etag = storageStrategy.completeMultipartUpload(mpu, parts);
+      assertThat(etag).endsWith("-2");
+      assertThat(storageStrategy.listMultipartUploads(CONTAINER_NAME)).isEmpty();
+      Blob blob = storageStrategy.getBlob(CONTAINER_NAME, BLOB_NAME);
+      assertThat(blob.getMetadata().getSize()).isEqualTo(first.size() + second.size());
+      assertThat(blob.getMetadata().getUserMetadata()).containsEntry("key", "value");
+      assertThat(blob.getPayload().openStream())
+            .hasSameContentAs(ByteSource.concat(first, second).openStream());
+   }
+
+   @Test
+   public void testMultipartUploadBlobAccess() throws IOException {
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      MultipartUpload mpu = storageStrategy.initiateMultipartUpload(CONTAINER_NAME,
+            new BlobBuilderImpl().name(BLOB_NAME).build().getMetadata(),
+            new PutOptions().setBlobAccess(BlobAccess.PUBLIC_READ));
+      storageStrategy.uploadMultipartPart(mpu, 1, new ByteSourcePayload(ByteSource.wrap("part".getBytes())));
+
+      storageStrategy.completeMultipartUpload(mpu, storageStrategy.listMultipartUpload(mpu));
+      assertThat(storageStrategy.getBlobAccess(CONTAINER_NAME, BLOB_NAME)).isEqualTo(BlobAccess.PUBLIC_READ);
+   }
+
+   @Test
+   public void testAbortMultipartUpload() throws IOException {
+      JdbcService jdbcService = injector.getInstance(JdbcService.class);
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      MultipartUpload mpu = storageStrategy.initiateMultipartUpload(CONTAINER_NAME,
+            new BlobBuilderImpl().name(BLOB_NAME).build().getMetadata(), PutOptions.NONE);
+      storageStrategy.uploadMultipartPart(mpu, 1,
+            new ByteSourcePayload(randomByteSource().slice(0, 2 * JdbcConstants.DEFAULT_CHUNK_SIZE)));
+      List<Long> chunks = jdbcService.findMultipartParts(Long.valueOf(mpu.id())).get(0).getChunks();
+      assertThat(chunks).hasSize(2);
+
+      storageStrategy.abortMultipartUpload(mpu);
+      assertThat(storageStrategy.listMultipartUploads(CONTAINER_NAME)).isEmpty();
+      assertThat(storageStrategy.blobExists(CONTAINER_NAME, BLOB_NAME)).isFalse();
+      for (Long chunkId : chunks) {
+         assertThat(jdbcService.findChunkById(chunkId)).isNull();
+      }
+   }
+
+   // as many user threads as parts in flight: the parts must not wait for the reads of their own payloads
+   @Test(timeOut = 60000)
+   public void testPutBlobMultipart() throws IOException {
+      injector.getInstance(PersistService.class).stop();
+      Properties overrides = new Properties();
+      overrides.setProperty(JdbcConstants.PROPERTY_MULTIPART_PART_SIZE,
+            String.valueOf(JdbcConstants.DEFAULT_CHUNK_SIZE));
+      overrides.setProperty(JdbcConstants.PROPERTY_MULTIPART_PARALLELISM, "2");
+      overrides.setProperty(Constants.PROPERTY_USER_THREADS, "2");
+      createInjector(overrides);
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+
+      ByteSource content = randomByteSource().slice(0, 3 * JdbcConstants.DEFAULT_CHUNK_SIZE + 17);
+      String etag = storageStrategy.putBlobMultipart(CONTAINER_NAME,
+            new BlobBuilderImpl().name(BLOB_NAME).payload(content).contentLength(content.size()).build());
+      assertThat(etag).endsWith("-4");
+      assertThat(storageStrategy.listMultipartUploads(CONTAINER_NAME)).isEmpty();
+      Blob blob = storageStrategy.getBlob(CONTAINER_NAME, BLOB_NAME);
+      assertThat(blob.getMetadata().getSize()).isEqualTo(content.size());
+      assertThat(blob.getPayload().openStream()).hasSameContentAs(content.openStream());
+   }
+
+   @Test
+   public void testDropContainer() throws IOException {
+      JdbcService jdbcService = injector.getInstance(JdbcService.class);
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      storageStrategy.putBlob(CONTAINER_NAME,
+            new BlobBuilderImpl().name(BLOB_NAME).payload(randomByteSource().slice(0, 2 * 1024 * 1024)).build());
+      assertThat(jdbcService.markContainerDropped(CONTAINER_NAME)).isTrue();
+      assertThat(storageStrategy.containerExists(CONTAINER_NAME)).isFalse();
+      assertThat(storageStrategy.getAllContainerNames()).isEmpty();
+
+      assertThat(storageStrategy.createContainerInLocation(CONTAINER_NAME, null, null)).isTrue();
+      jdbcService.reclaimDroppedContainers();
+      assertThat(jdbcService.findDroppedContainers()).isEmpty();
+      assertThat(storageStrategy.getBlobKeysInsideContainer(CONTAINER_NAME)).isEmpty();
+   }
+
     private byte[] getByteArray(char c, int len) {
         byte[] array = new byte[len];
         Arrays.fill(array, (byte) c);